@@ -0,0 +1,152 @@
+package com.ausyexpo.config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Set;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import com.ausyexpo.service.QueryMetricsService;
+
+/**
+ * Times every statement executed through the wrapped DataSource and reports it to QueryMetricsService.
+ * Connections and statements are thin JDK proxies: executions are timed, bind values are kept by reference
+ * until the statement runs, and nothing is printed on the calling thread.
+ */
+public class InstrumentedDataSource extends DelegatingDataSource {
+
+    private static final Set<String> EXECUTE_METHODS = Set.of(
+            "execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+    private final QueryMetricsService queryMetricsService;
+
+    public InstrumentedDataSource(DataSource target, QueryMetricsService queryMetricsService) {
+        super(target);
+        this.queryMetricsService = queryMetricsService;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {Connection.class},
+                new ConnectionHandler(connection));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    private class ConnectionHandler implements InvocationHandler {
+
+        private final Connection target;
+
+        ConnectionHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = InstrumentedDataSource.invoke(target, method, args);
+            switch (method.getName()) {
+                case "prepareCall":
+                    return statement(result, CallableStatement.class, (String) args[0]);
+                case "prepareStatement":
+                    return statement(result, PreparedStatement.class, (String) args[0]);
+                case "createStatement":
+                    return statement(result, Statement.class, null);
+                default:
+                    return result;
+            }
+        }
+
+        private Object statement(Object statement, Class<?> type, String sql) {
+            return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {type},
+                    new StatementHandler((Statement) statement, sql));
+        }
+    }
+
+    private class StatementHandler implements InvocationHandler {
+
+        private final Statement target;
+        private final String preparedSql;
+        // First statement of a plain Statement batch, which stands for the batch
+        private String batchSql;
+        private Object[] binds;
+        private int bindCount;
+        private int batchSize;
+
+        StatementHandler(Statement target, String preparedSql) {
+            this.target = target;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (EXECUTE_METHODS.contains(name)) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0]
+                        : preparedSql != null ? preparedSql : batchSql;
+                boolean batch = name.endsWith("Batch");
+                long started = System.nanoTime();
+                try {
+                    return InstrumentedDataSource.invoke(target, method, args);
+                } finally {
+                    queryMetricsService.statementExecuted(sql, System.nanoTime() - started, binds, bindCount,
+                            batch ? batchSize : 0);
+                    if (batch) {
+                        batchSize = 0;
+                        batchSql = null;
+                    }
+                }
+            }
+            if (preparedSql != null && name.startsWith("set") && args != null && args.length >= 2
+                    && args[0] instanceof Integer) {
+                bind((Integer) args[0], name.equals("setNull") ? null : args[1]);
+            } else if (name.equals("clearParameters")) {
+                bindCount = 0;
+            } else if (name.equals("addBatch")) {
+                batchSize++;
+                if (batchSql == null && args != null && args.length == 1) {
+                    batchSql = (String) args[0];
+                }
+            } else if (name.equals("clearBatch")) {
+                batchSize = 0;
+                batchSql = null;
+            }
+            return InstrumentedDataSource.invoke(target, method, args);
+        }
+
+        private void bind(int index, Object value) {
+            if (index < 1) {
+                return;
+            }
+            if (binds == null || index > binds.length) {
+                binds = Arrays.copyOf(binds != null ? binds : new Object[0], Math.max(index, 8));
+            }
+            binds[index - 1] = value;
+            bindCount = Math.max(bindCount, index);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.ausyexpo.config;
+
+import java.util.List;
+
+import org.hibernate.Hibernate;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.introspect.AnnotatedField;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+
+import jakarta.persistence.Basic;
+import jakarta.persistence.FetchType;
+
+/**
+ * Large text attributes are mapped as lazy basic attributes (bytecode enhanced).
+ * They are left out of the JSON unless already loaded, so serializing a list never
+ * issues one extra select per row; detail endpoints load them before returning.
+ */
+@Configuration
+public class JacksonConfig {
+
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer lazyAttributeCustomizer() {
+        SimpleModule module = new SimpleModule("LazyAttributeModule");
+        module.setSerializerModifier(new LazyAttributeSerializerModifier());
+        return builder -> builder.modulesToInstall(module);
+    }
+
+    static class LazyAttributeSerializerModifier extends BeanSerializerModifier {
+
+        @Override
+        public List<BeanPropertyWriter> changeProperties(SerializationConfig config, BeanDescription beanDesc,
+                                                         List<BeanPropertyWriter> beanProperties) {
+            for (BeanPropertyDefinition property : beanDesc.findProperties()) {
+                AnnotatedField field = property.getField();
+                if (field == null) {
+                    continue;
+                }
+                Basic basic = field.getAnnotation(Basic.class);
+                if (basic == null || basic.fetch() != FetchType.LAZY) {
+                    continue;
+                }
+                for (int i = 0; i < beanProperties.size(); i++) {
+                    BeanPropertyWriter writer = beanProperties.get(i);
+                    if (writer.getName().equals(property.getName())) {
+                        beanProperties.set(i, new LazyAttributeWriter(writer, field.getName()));
+                    }
+                }
+            }
+            return beanProperties;
+        }
+    }
+
+    static class LazyAttributeWriter extends BeanPropertyWriter {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String attributeName;
+
+        LazyAttributeWriter(BeanPropertyWriter base, String attributeName) {
+            super(base);
+            this.attributeName = attributeName;
+        }
+
+        @Override
+        public void serializeAsField(Object bean, JsonGenerator gen, SerializerProvider prov) throws Exception {
+            if (Hibernate.isPropertyInitialized(bean, attributeName)) {
+                super.serializeAsField(bean, gen, prov);
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.ausyexpo.config;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.ausyexpo.service.QueryMetricsService;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Counts the statements each request runs, by shape, so QueryMetricsService can flag N+1 patterns, and
+ * records each endpoint's latency and the heap its requests allocate on the serving thread.
+ * Runs ahead of the security filters so authentication queries and view rendering are counted too.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class QueryCountFilter extends OncePerRequestFilter {
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                    && threads.isThreadAllocatedMemorySupported() ? threads : null;
+
+    private static final Pattern NUMERIC_SEGMENT = Pattern.compile("/\\d+(?=/|$)");
+
+    @Autowired
+    private QueryMetricsService queryMetricsService;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        // Ids are folded so every request to the same endpoint is reported together
+        String endpoint = request.getMethod() + " " + NUMERIC_SEGMENT.matcher(request.getRequestURI()).replaceAll("/{id}");
+        queryMetricsService.beginRequest(endpoint);
+        long started = System.nanoTime();
+        long allocatedBefore = allocatedBytes();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            long allocatedAfter = allocatedBytes();
+            queryMetricsService.endRequest(System.nanoTime() - started,
+                    allocatedBefore < 0 || allocatedAfter < 0 ? -1 : allocatedAfter - allocatedBefore);
+        }
+    }
+
+    // Heap allocated by this thread so far, or -1 when the JVM does not track it
+    private static long allocatedBytes() {
+        if (THREADS == null || !THREADS.isThreadAllocatedMemoryEnabled()) {
+            return -1;
+        }
+        return THREADS.getCurrentThreadAllocatedBytes();
+    }
+}
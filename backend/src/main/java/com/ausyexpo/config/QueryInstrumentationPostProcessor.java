@@ -0,0 +1,49 @@
+package com.ausyexpo.config;
+
+import javax.sql.DataSource;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.stereotype.Component;
+
+import com.ausyexpo.service.QueryMetricsService;
+
+/**
+ * Hooks query timing into the application: the DataSource everything uses is wrapped in an
+ * InstrumentedDataSource, and every Spring Data repository gets an outermost advice that times its methods,
+ * transaction and flush included.
+ */
+@Component
+public class QueryInstrumentationPostProcessor implements BeanPostProcessor {
+
+    // Looked up late so the metrics service is not created while post-processors are being set up
+    @Autowired
+    private ObjectProvider<QueryMetricsService> queryMetricsService;
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
+        if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+            factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                    (proxyFactory, information) -> {
+                        String repository = information.getRepositoryInterface().getSimpleName();
+                        proxyFactory.addAdvice(0, (MethodInterceptor) invocation ->
+                                queryMetricsService.getObject().timeRepositoryCall(repository, invocation));
+                    }));
+        }
+        return bean;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        // Only the primary DataSource; pools behind it (such as the replica routing) would count statements twice
+        if ("dataSource".equals(beanName) && bean instanceof DataSource dataSource
+                && queryMetricsService.getObject().isEnabled()) {
+            return new InstrumentedDataSource(dataSource, queryMetricsService.getObject());
+        }
+        return bean;
+    }
+}
@@ -0,0 +1,241 @@
+package com.ausyexpo.config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Sends read-only transactions started while serving a request to the replica, everything else to the primary.
+ * Falls back to the primary while the replica is unreachable or lagging more than the allowed number of seconds,
+ * and for a short while after a user commits a transaction that wrote, so they read back what they just wrote.
+ * Connections of read-write transactions are wrapped to notice whether anything was written. Background jobs
+ * always read the primary: most of them rebuild in-memory indexes, which a lagging replica would roll back.
+ * Must sit behind a LazyConnectionDataSourceProxy, so the connection is picked once the transaction is set up.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+    public enum Target { PRIMARY, REPLICA }
+
+    private static final Set<String> WRITE_METHODS = Set.of(
+            "execute", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+    private final DataSource replica;
+    private final String lagQuery;
+    private final long maxLagSeconds;
+    private final long stickyMillis;
+
+    // Users who committed a write recently, until when they read the primary
+    private final Map<String, Long> stickyUntil = new ConcurrentHashMap<>();
+    private volatile boolean replicaUsable;
+    // Monitor thread only
+    private boolean checked;
+
+    private final ScheduledExecutorService monitor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "replica-lag-monitor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, String lagQuery, long maxLagSeconds,
+                                    long stickyMillis, long checkIntervalMillis) {
+        this.replica = replica;
+        this.lagQuery = lagQuery;
+        this.maxLagSeconds = maxLagSeconds;
+        this.stickyMillis = stickyMillis;
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        monitor.scheduleWithFixedDelay(this::checkReplica, 0, checkIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return Target.PRIMARY;
+        }
+        String user = currentUser();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (user != null && TransactionSynchronizationManager.isSynchronizationActive()
+                    && currentWriteTracker() == null) {
+                TransactionSynchronizationManager.registerSynchronization(new WriteTracker(user));
+            }
+            return Target.PRIMARY;
+        }
+        if (!replicaUsable || RequestContextHolder.getRequestAttributes() == null) {
+            return Target.PRIMARY;
+        }
+        if (user != null) {
+            Long until = stickyUntil.get(user);
+            if (until != null && until > System.currentTimeMillis()) {
+                return Target.PRIMARY;
+            }
+        }
+        return Target.REPLICA;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return trackWrites(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return trackWrites(super.getConnection(username, password));
+    }
+
+    @Override
+    public void destroy() {
+        monitor.shutdownNow();
+    }
+
+    private void checkReplica() {
+        boolean usable;
+        String reason;
+        try {
+            long lag = replicationLag();
+            usable = lag <= maxLagSeconds;
+            reason = "lag " + lag + " s";
+        } catch (SQLException | RuntimeException e) {
+            usable = false;
+            reason = e.getMessage();
+        }
+        if (usable != replicaUsable || !checked) {
+            replicaUsable = usable;
+            checked = true;
+            if (usable) {
+                System.out.println("Replica in use for read-only transactions (" + reason + ")");
+            } else {
+                System.err.println("Replica not used, reading from the primary: " + reason);
+            }
+        }
+        long now = System.currentTimeMillis();
+        stickyUntil.values().removeIf(until -> until <= now);
+    }
+
+    // Seconds behind the primary; without a lag query the replica only has to answer
+    private long replicationLag() throws SQLException {
+        try (Connection connection = replica.getConnection(); Statement statement = connection.createStatement()) {
+            if (lagQuery == null || lagQuery.isBlank()) {
+                statement.execute("SELECT 1");
+                return 0;
+            }
+            try (ResultSet rows = statement.executeQuery(lagQuery)) {
+                if (!rows.next()) {
+                    throw new IllegalStateException("lag query returned no rows, replication is not configured");
+                }
+                Object lag = rows.getObject(lagColumn(rows.getMetaData()));
+                if (lag == null) {
+                    throw new IllegalStateException("replication is not running");
+                }
+                return Math.round(Double.parseDouble(lag.toString().trim()));
+            }
+        }
+    }
+
+    // SHOW REPLICA STATUS and SHOW SLAVE STATUS name the column; any other query returns the lag first
+    private static int lagColumn(ResultSetMetaData metaData) throws SQLException {
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            String name = metaData.getColumnLabel(i);
+            if ("Seconds_Behind_Source".equalsIgnoreCase(name) || "Seconds_Behind_Master".equalsIgnoreCase(name)) {
+                return i;
+            }
+        }
+        return 1;
+    }
+
+    // Only connections of a read-write transaction run by a user; the rest are returned as they are
+    private Connection trackWrites(Connection connection) {
+        WriteTracker tracker = currentWriteTracker();
+        if (tracker == null) {
+            return connection;
+        }
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    if (result instanceof Statement statement && Statement.class.isAssignableFrom(method.getReturnType())) {
+                        return trackWrites(statement, method.getReturnType(), tracker);
+                    }
+                    return result;
+                });
+    }
+
+    private static Object trackWrites(Statement statement, Class<?> type, WriteTracker tracker) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            // execute() may run anything, so it counts as a write too
+            if (WRITE_METHODS.contains(method.getName())) {
+                tracker.wrote = true;
+            }
+            return invoke(statement, method, args);
+        };
+        return Proxy.newProxyInstance(ReplicaRoutingDataSource.class.getClassLoader(), new Class<?>[] {type}, handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    // Suspended transactions take their synchronizations with them, so this is the current transaction's
+    private static WriteTracker currentWriteTracker() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof WriteTracker tracker) {
+                return tracker;
+            }
+        }
+        return null;
+    }
+
+    // Makes the user sticky once a transaction that wrote commits: the replica may lag from that moment
+    private class WriteTracker implements TransactionSynchronization {
+
+        private final String user;
+        private volatile boolean wrote;
+
+        WriteTracker(String user) {
+            this.user = user;
+        }
+
+        @Override
+        public void afterCommit() {
+            if (wrote) {
+                stickyUntil.put(user, System.currentTimeMillis() + stickyMillis);
+            }
+        }
+    }
+
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+}
@@ -4,23 +4,32 @@ import java.util.List;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.ausyexpo.model.Agreement;
+import com.ausyexpo.model.AgreementDocument;
+import com.ausyexpo.service.AgreementDocumentService;
 import com.ausyexpo.service.AgreementService;
+import com.ausyexpo.service.MergePatchService;
+import com.fasterxml.jackson.databind.JsonNode;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 
 @RestController
@@ -31,6 +40,12 @@ public class AgreementController {
     @Autowired
     private AgreementService agreementService;
 
+    @Autowired
+    private MergePatchService mergePatchService;
+
+    @Autowired
+    private AgreementDocumentService documentService;
+
     @GetMapping
     @PreAuthorize("hasRole('OWNER') or hasRole('MANAGER') or hasRole('ADMIN')")
     public ResponseEntity<List<Agreement>> getAllAgreements(@RequestParam(required = false) Long branchId) {
@@ -90,6 +105,25 @@ public class AgreementController {
         }
     }
 
+    // JSON merge patch: only the supplied fields are changed; If-Match (or a "version" member) guards against lost updates
+    @PatchMapping(value = "/{id}", consumes = {"application/merge-patch+json", "application/json"})
+    @PreAuthorize("hasRole('OWNER') or hasRole('MANAGER') or hasRole('ADMIN')")
+    public ResponseEntity<?> patchAgreement(@PathVariable Long id, @RequestBody JsonNode patch,
+                                     @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        try {
+            Long expectedVersion = mergePatchService.expectedVersion(ifMatch, patch);
+            Agreement patchedAgreement = agreementService.patchAgreement(id, patch, expectedVersion);
+            return ResponseEntity.ok().eTag("\"" + patchedAgreement.getVersion() + "\"").body(patchedAgreement);
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body("Agreement was modified by another request; reload and retry");
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred while patching agreement");
+        }
+    }
+
     @DeleteMapping("/{id}")
     @PreAuthorize("hasRole('OWNER') or hasRole('MANAGER') or hasRole('ADMIN')")
     public ResponseEntity<?> deleteAgreement(@PathVariable Long id) {
@@ -104,6 +138,80 @@ public class AgreementController {
         }
     }
 
+    // The request body is the file itself (Content-Type is its type), streamed to the store without being spooled
+    @PostMapping("/{id}/document")
+    @PreAuthorize("hasRole('OWNER') or hasRole('MANAGER') or hasRole('ADMIN')")
+    public ResponseEntity<?> uploadDocument(@PathVariable Long id,
+                                            @RequestParam(value = "fileName", required = false) String fileName,
+                                            HttpServletRequest request) {
+        try {
+            String contentType = request.getContentType();
+            if (contentType != null && contentType.startsWith("multipart/")) {
+                return ResponseEntity.status(HttpStatus.UNSUPPORTED_MEDIA_TYPE)
+                        .body("Send the document as the request body, not as a multipart form");
+            }
+            AgreementDocument document = documentService.store(id, request.getInputStream(), fileName, contentType);
+            return ResponseEntity.status(HttpStatus.CREATED).body(document);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("An error occurred while uploading the document");
+        }
+    }
+
+    // Streams the file itself; supports Range, If-Range and If-None-Match (HEAD is answered from the same mapping)
+    @GetMapping("/{id}/document")
+    @PreAuthorize("hasRole('OWNER') or hasRole('MANAGER') or hasRole('ADMIN')")
+    public ResponseEntity<?> downloadDocument(@PathVariable Long id, HttpServletRequest request,
+                                              HttpServletResponse response) {
+        try {
+            Optional<AgreementDocument> document = documentService.getDocument(id);
+            if (!document.isPresent()) {
+                return ResponseEntity.notFound().build();
+            }
+            documentService.serve(document.get(), request, response);
+            return null;
+        } catch (Exception e) {
+            if (response.isCommitted()) {
+                System.err.println("Document download for agreement " + id + " aborted: " + e.getMessage());
+                return null;
+            }
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("An error occurred while reading the document");
+        }
+    }
+
+    @GetMapping("/{id}/document/info")
+    @PreAuthorize("hasRole('OWNER') or hasRole('MANAGER') or hasRole('ADMIN')")
+    public ResponseEntity<AgreementDocument> getDocumentInfo(@PathVariable Long id) {
+        try {
+            Optional<AgreementDocument> document = documentService.getDocument(id);
+            if (document.isPresent()) {
+                return ResponseEntity.ok(document.get());
+            } else {
+                return ResponseEntity.notFound().build();
+            }
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @DeleteMapping("/{id}/document")
+    @PreAuthorize("hasRole('OWNER') or hasRole('MANAGER') or hasRole('ADMIN')")
+    public ResponseEntity<?> deleteDocument(@PathVariable Long id) {
+        try {
+            if (documentService.delete(id)) {
+                return ResponseEntity.ok().body("Document deleted successfully");
+            } else {
+                return ResponseEntity.notFound().build();
+            }
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("An error occurred while deleting the document");
+        }
+    }
+
     @GetMapping("/search")
     @PreAuthorize("hasRole('OWNER') or hasRole('MANAGER') or hasRole('ADMIN')")
     public ResponseEntity<List<Agreement>> searchAgreements(
@@ -66,7 +66,7 @@ public class AuthController {
     @PostMapping("/signup")
     public ResponseEntity<?> registerUser(@Valid @RequestBody SignUpRequest signUpRequest) {
         try {
-            if (userService.getUserByEmail(signUpRequest.getEmail()).isPresent()) {
+            if (userService.emailExists(signUpRequest.getEmail())) {
                 return ResponseEntity.badRequest().body("Email is already taken!");
             }
 
@@ -3,25 +3,36 @@ package com.ausyexpo.controller;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import com.ausyexpo.dto.BulkStatusUpdateRequest;
 import com.ausyexpo.model.Command;
+import com.ausyexpo.service.CommandInboxService;
 import com.ausyexpo.service.CommandService;
+import com.ausyexpo.service.MergePatchService;
+import com.ausyexpo.service.UserService;
+import com.fasterxml.jackson.databind.JsonNode;
 
 @RestController
 @RequestMapping("/api/commands")
@@ -31,6 +42,15 @@ public class CommandController {
     @Autowired
     private CommandService commandService;
 
+    @Autowired
+    private MergePatchService mergePatchService;
+
+    @Autowired
+    private CommandInboxService commandInboxService;
+
+    @Autowired
+    private UserService userService;
+
     @GetMapping("/test")
     public ResponseEntity<String> testEndpoint() {
         return ResponseEntity.ok("Command API is working!");
@@ -84,6 +104,50 @@ public class CommandController {
         }
     }
 
+    // Open commands assigned to the current user, with the token to resume a stream from
+    @GetMapping("/inbox")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('OWNER') or hasRole('MANAGER') or hasRole('BUYER') or hasRole('SUPPLIER')")
+    public ResponseEntity<Map<String, Object>> getInbox() {
+        try {
+            return ResponseEntity.ok(commandInboxService.getInbox(userService.getCurrentUserId()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    // Inbox changes for the current user; resume with the Last-Event-ID header or the "since" parameter
+    @GetMapping(value = "/inbox/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('ADMIN') or hasRole('OWNER') or hasRole('MANAGER') or hasRole('BUYER') or hasRole('SUPPLIER')")
+    public SseEmitter streamInbox(@RequestParam(required = false) String since,
+                                  @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        String token = lastEventId != null && !lastEventId.isBlank() ? lastEventId : since;
+        return commandInboxService.subscribe(userService.getCurrentUserId(), token);
+    }
+
+    @PostMapping("/inbox/{commandId}/read")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('OWNER') or hasRole('MANAGER') or hasRole('BUYER') or hasRole('SUPPLIER')")
+    public ResponseEntity<?> markInboxRead(@PathVariable Long commandId) {
+        try {
+            if (commandInboxService.markRead(userService.getCurrentUserId(), commandId)) {
+                return ResponseEntity.ok().build();
+            } else {
+                return ResponseEntity.notFound().build();
+            }
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @GetMapping("/inbox/stats")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('OWNER')")
+    public ResponseEntity<Map<String, Object>> getInboxStats() {
+        try {
+            return ResponseEntity.ok(commandInboxService.getStats());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     @GetMapping("/branch/{branchId}")
     @PreAuthorize("hasRole('ADMIN') or hasRole('OWNER') or hasRole('MANAGER')")
     public ResponseEntity<List<Command>> getCommandsByBranch(@PathVariable Long branchId) {
@@ -191,6 +255,25 @@ public class CommandController {
         }
     }
 
+    // JSON merge patch: only the supplied fields are changed; If-Match (or a "version" member) guards against lost updates
+    @PatchMapping(value = "/{id}", consumes = {"application/merge-patch+json", "application/json"})
+    @PreAuthorize("hasRole('ADMIN') or hasRole('OWNER') or hasRole('MANAGER')")
+    public ResponseEntity<?> patchCommand(@PathVariable Long id, @RequestBody JsonNode patch,
+                                     @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        try {
+            Long expectedVersion = mergePatchService.expectedVersion(ifMatch, patch);
+            Command patchedCommand = commandService.patchCommand(id, patch, expectedVersion);
+            return ResponseEntity.ok().eTag("\"" + patchedCommand.getVersion() + "\"").body(patchedCommand);
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body("Command was modified by another request; reload and retry");
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred while patching command");
+        }
+    }
+
     @PutMapping("/{id}/status")
     @PreAuthorize("hasRole('ADMIN') or hasRole('OWNER') or hasRole('MANAGER') or hasRole('BUYER') or hasRole('SUPPLIER')")
     public ResponseEntity<?> updateCommandStatus(@PathVariable Long id, @RequestParam String status) {
@@ -207,6 +290,21 @@ public class CommandController {
         }
     }
 
+    @PutMapping("/bulk/status")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('OWNER') or hasRole('MANAGER')")
+    public ResponseEntity<?> bulkUpdateCommandStatus(@RequestBody BulkStatusUpdateRequest request) {
+        try {
+            int updated = commandService.bulkUpdateCommandStatus(request);
+            return ResponseEntity.ok(Map.of("status", request.getStatus().trim().toUpperCase(), "updated", updated));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Invalid status: " + request.getStatus());
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred while updating command statuses");
+        }
+    }
+
     @DeleteMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN') or hasRole('OWNER')")
     public ResponseEntity<?> deleteCommand(@PathVariable Long id) {
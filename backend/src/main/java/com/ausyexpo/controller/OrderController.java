@@ -7,23 +7,39 @@ import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import com.ausyexpo.dto.BulkStatusUpdateRequest;
+import com.ausyexpo.dto.OrderImportResult;
 import com.ausyexpo.model.Order;
+import com.ausyexpo.service.EventStreamService;
+import com.ausyexpo.service.IdempotencyService;
+import com.ausyexpo.service.MergePatchService;
+import com.ausyexpo.service.OrderImportService;
 import com.ausyexpo.service.OrderService;
+import com.ausyexpo.service.OutboxRelayService;
+import com.ausyexpo.service.UserService;
+import com.fasterxml.jackson.databind.JsonNode;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 
 @RestController
@@ -34,6 +50,24 @@ public class OrderController {
     @Autowired
     private OrderService orderService;
 
+    @Autowired
+    private MergePatchService mergePatchService;
+
+    @Autowired
+    private EventStreamService eventStreamService;
+
+    @Autowired
+    private OutboxRelayService outboxRelayService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private OrderImportService orderImportService;
+
     @GetMapping
     @PreAuthorize("hasRole('ADMIN') or hasRole('OWNER') or hasRole('MANAGER')")
     public ResponseEntity<List<Order>> getAllOrders() {
@@ -106,10 +140,22 @@ public class OrderController {
 
     @PostMapping
     @PreAuthorize("hasRole('ADMIN') or hasRole('OWNER') or hasRole('MANAGER')")
-    public ResponseEntity<?> createOrder(@Valid @RequestBody Order order) {
+    public ResponseEntity<?> createOrder(@Valid @RequestBody Order order,
+                                         @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
         try {
-            Order createdOrder = orderService.createOrder(order);
-            return ResponseEntity.status(HttpStatus.CREATED).body(createdOrder);
+            if (idempotencyKey == null || idempotencyKey.isBlank()) {
+                Order createdOrder = orderService.createOrder(order);
+                return ResponseEntity.status(HttpStatus.CREATED).body(createdOrder);
+            }
+            // Retries with the same key replay the first result instead of creating another order
+            IdempotencyService.Outcome<Order> outcome = idempotencyService.execute(userService.getCurrentUserId(),
+                    idempotencyKey.trim(), order, OrderService.SERVER_ASSIGNED_FIELDS,
+                    key -> orderService.createOrder(order, key), orderService::getOrderById);
+            return ResponseEntity.status(outcome.getStatus())
+                    .header(IdempotencyService.REPLAYED_HEADER, String.valueOf(outcome.isReplayed()))
+                    .body(outcome.getBody());
+        } catch (ResponseStatusException e) {
+            return ResponseEntity.status(e.getStatusCode()).body(Map.of("error", e.getReason()));
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
@@ -118,6 +164,24 @@ public class OrderController {
         }
     }
 
+    // Accepts a JSON array of orders or a CSV file with a header row; the body is streamed, not buffered
+    @PostMapping(value = "/import", consumes = {"application/json", "text/csv"})
+    @PreAuthorize("hasRole('ADMIN') or hasRole('OWNER') or hasRole('MANAGER')")
+    public ResponseEntity<?> importOrders(HttpServletRequest request) {
+        try {
+            String contentType = request.getContentType();
+            String format = contentType != null && contentType.contains("csv")
+                    ? OrderImportService.FORMAT_CSV : OrderImportService.FORMAT_JSON;
+            OrderImportResult result = orderImportService.importOrders(request.getInputStream(), format);
+            return ResponseEntity.ok(result);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Failed to import orders"));
+        }
+    }
+
     @PutMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN') or hasRole('OWNER') or hasRole('MANAGER')")
     public ResponseEntity<?> updateOrder(@PathVariable Long id, @Valid @RequestBody Order orderDetails) {
@@ -132,6 +196,26 @@ public class OrderController {
         }
     }
 
+    // JSON merge patch: only the supplied fields are changed; If-Match (or a "version" member) guards against lost updates
+    @PatchMapping(value = "/{id}", consumes = {"application/merge-patch+json", "application/json"})
+    @PreAuthorize("hasRole('ADMIN') or hasRole('OWNER') or hasRole('MANAGER')")
+    public ResponseEntity<?> patchOrder(@PathVariable Long id, @RequestBody JsonNode patch,
+                                     @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        try {
+            Long expectedVersion = mergePatchService.expectedVersion(ifMatch, patch);
+            Order patchedOrder = orderService.patchOrder(id, patch, expectedVersion);
+            return ResponseEntity.ok().eTag("\"" + patchedOrder.getVersion() + "\"").body(patchedOrder);
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", "Order was modified by another request; reload and retry"));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Failed to patch order"));
+        }
+    }
+
     @DeleteMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN') or hasRole('OWNER')")
     public ResponseEntity<?> deleteOrder(@PathVariable Long id) {
@@ -202,6 +286,32 @@ public class OrderController {
         }
     }
 
+    // Order change events; resume with the Last-Event-ID header or the "after" parameter
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('ADMIN') or hasRole('OWNER') or hasRole('MANAGER')")
+    public SseEmitter streamOrderEvents(@RequestParam(required = false) Long after,
+                                        @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        long offset = after != null ? after : 0;
+        if (lastEventId != null && !lastEventId.isBlank()) {
+            try {
+                offset = Long.parseLong(lastEventId.trim());
+            } catch (NumberFormatException e) {
+                // Ignore a malformed id and fall back to the requested offset
+            }
+        }
+        return eventStreamService.subscribe("Order", offset);
+    }
+
+    @GetMapping("/events/stats")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('OWNER')")
+    public ResponseEntity<Map<String, Object>> getOrderEventStats() {
+        try {
+            return ResponseEntity.ok(outboxRelayService.getStats());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     @PutMapping("/{id}/status")
     @PreAuthorize("hasRole('ADMIN') or hasRole('OWNER') or hasRole('MANAGER')")
     public ResponseEntity<?> updateOrderStatus(@PathVariable Long id, @RequestBody Map<String, String> statusUpdate) {
@@ -220,6 +330,20 @@ public class OrderController {
         }
     }
 
+    @PutMapping("/bulk/status")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('OWNER') or hasRole('MANAGER')")
+    public ResponseEntity<?> bulkUpdateOrderStatus(@RequestBody BulkStatusUpdateRequest request) {
+        try {
+            int updated = orderService.bulkUpdateOrderStatus(request);
+            return ResponseEntity.ok(Map.of("status", request.getStatus(), "updated", updated));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Failed to update order statuses"));
+        }
+    }
+
     @PutMapping("/{id}/payment-status")
     @PreAuthorize("hasRole('ADMIN') or hasRole('OWNER') or hasRole('MANAGER')")
     public ResponseEntity<?> updatePaymentStatus(@PathVariable Long id, @RequestBody Map<String, String> paymentUpdate) {
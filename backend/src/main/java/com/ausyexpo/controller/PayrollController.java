@@ -0,0 +1,92 @@
+package com.ausyexpo.controller;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.ausyexpo.model.PayrollEntry;
+import com.ausyexpo.model.PayrollRun;
+import com.ausyexpo.service.PayrollService;
+import com.ausyexpo.service.UserService;
+
+@RestController
+@RequestMapping("/api/payroll")
+@CrossOrigin(origins = "*")
+public class PayrollController {
+
+    @Autowired
+    private PayrollService payrollService;
+
+    @Autowired
+    private UserService userService;
+
+    // Starts the payroll batch for a period (yyyy-MM, default the current month); it runs in the background
+    @PostMapping("/runs")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('OWNER') or hasRole('HR')")
+    public ResponseEntity<?> startRun(@RequestParam(required = false) String period) {
+        try {
+            PayrollRun run = payrollService.start(period, userService.getCurrentUserId());
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(run);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // Continues a failed run from its checkpoint
+    @PostMapping("/runs/{id}/resume")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('OWNER') or hasRole('HR')")
+    public ResponseEntity<?> resumeRun(@PathVariable Long id) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(payrollService.resume(id));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/runs")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('OWNER') or hasRole('HR')")
+    public ResponseEntity<List<PayrollRun>> getRuns() {
+        try {
+            return ResponseEntity.ok(payrollService.getRuns());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @GetMapping("/runs/{id}")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('OWNER') or hasRole('HR')")
+    public ResponseEntity<PayrollRun> getRun(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(payrollService.getRun(id));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @GetMapping("/runs/{id}/entries")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('OWNER') or hasRole('HR')")
+    public ResponseEntity<Page<PayrollEntry>> getEntries(@PathVariable Long id,
+                                                         @RequestParam(defaultValue = "0") int page,
+                                                         @RequestParam(defaultValue = "100") int size) {
+        try {
+            return ResponseEntity.ok(payrollService.getEntries(id, page, size));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+}
@@ -4,6 +4,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import com.ausyexpo.service.QueryMetricsService;
 import com.ausyexpo.service.ReportService;
 import java.util.Map;
 
@@ -15,6 +16,9 @@ public class ReportController {
     @Autowired
     private ReportService reportService;
 
+    @Autowired
+    private QueryMetricsService queryMetricsService;
+
     @GetMapping("/system-overview")
     @PreAuthorize("hasRole('ADMIN') or hasRole('OWNER') or hasRole('MANAGER')")
     public ResponseEntity<Map<String, Object>> getSystemOverviewReport() {
@@ -48,6 +52,35 @@ public class ReportController {
         }
     }
 
+    // Latency histograms for every repository method and statement shape
+    @GetMapping("/query-metrics")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getQueryMetrics() {
+        try {
+            return ResponseEntity.ok(queryMetricsService.getMetrics());
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @DeleteMapping("/query-metrics")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Void> resetQueryMetrics() {
+        queryMetricsService.reset();
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/query-performance")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getQueryPerformanceReport(@RequestParam(defaultValue = "10") int top) {
+        try {
+            Map<String, Object> report = queryMetricsService.getReport(Math.max(1, top));
+            return ResponseEntity.ok(report);
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
     @GetMapping("/available-reports")
     @PreAuthorize("hasRole('ADMIN') or hasRole('MANAGER') or hasRole('OWNER')")
     public ResponseEntity<Map<String, Object>> getAvailableReports() {
@@ -55,12 +88,14 @@ public class ReportController {
             "reports", new String[]{
                 "system-overview",
                 "user-analytics", 
-                "employee-demographics"
+                "employee-demographics",
+                "query-performance"
             },
             "descriptions", Map.of(
                 "system-overview", "Complete system statistics and overview",
                 "user-analytics", "User registration and activity trends",
-                "employee-demographics", "Employee distribution and demographics"
+                "employee-demographics", "Employee distribution and demographics",
+                "query-performance", "Slowest queries, slow query log and N+1 requests (admin only)"
             )
         );
         return ResponseEntity.ok(reports);
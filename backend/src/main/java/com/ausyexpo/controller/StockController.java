@@ -1,10 +1,14 @@
 package com.ausyexpo.controller;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.CrossOrigin;
@@ -14,12 +18,23 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import com.ausyexpo.dto.InventoryBalance;
+import com.ausyexpo.dto.ReservationRequest;
+import com.ausyexpo.dto.StockValuation;
+import com.ausyexpo.model.InventoryMovement;
 import com.ausyexpo.model.Stock;
+import com.ausyexpo.model.StockAlertSetting;
+import com.ausyexpo.service.EventStreamService;
+import com.ausyexpo.service.InventoryLedgerService;
+import com.ausyexpo.service.StockAlertService;
 import com.ausyexpo.service.StockService;
+import com.ausyexpo.service.StockValuationService;
 
 @RestController
 @RequestMapping("/api/stock")
@@ -29,6 +44,18 @@ public class StockController {
     @Autowired
     private StockService stockService;
 
+    @Autowired
+    private InventoryLedgerService inventoryLedgerService;
+
+    @Autowired
+    private StockAlertService stockAlertService;
+
+    @Autowired
+    private EventStreamService eventStreamService;
+
+    @Autowired
+    private StockValuationService stockValuationService;
+
     @GetMapping
     @PreAuthorize("hasRole('ADMIN') or hasRole('OWNER') or hasRole('MANAGER')")
     public ResponseEntity<List<Stock>> getAllStock() {
@@ -187,4 +214,178 @@ public class StockController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred while releasing stock");
         }
     }
+
+    @GetMapping("/balances")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('OWNER') or hasRole('MANAGER')")
+    public ResponseEntity<List<InventoryBalance>> getBalances(@RequestParam(required = false) Long branchId) {
+        try {
+            List<InventoryBalance> balances = branchId != null
+                    ? inventoryLedgerService.getBalancesByBranch(branchId)
+                    : inventoryLedgerService.getAllBalances();
+            return ResponseEntity.ok(balances);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @GetMapping("/availability")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('OWNER') or hasRole('MANAGER')")
+    public ResponseEntity<?> getAvailability(@RequestParam(required = false) Long branchId,
+                                             @RequestParam String materialType) {
+        try {
+            return ResponseEntity.ok(inventoryLedgerService.getBalance(branchId, materialType));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @PostMapping("/reservations")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('MANAGER')")
+    public ResponseEntity<?> reserve(@RequestBody ReservationRequest request) {
+        try {
+            if (request.getQuantity() == null) {
+                return ResponseEntity.badRequest().body("Quantity is required");
+            }
+            InventoryMovement reservation = stockService.reserve(request.getBranchId(), request.getMaterialType(),
+                    request.getQuantity(), request.getReference());
+            return ResponseEntity.status(HttpStatus.CREATED).body(reservation);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred while reserving stock");
+        }
+    }
+
+    @DeleteMapping("/reservations/{id}")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('MANAGER')")
+    public ResponseEntity<?> cancelReservation(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(stockService.cancelReservation(id));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred while cancelling the reservation");
+        }
+    }
+
+    @GetMapping("/ledger")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('OWNER') or hasRole('MANAGER')")
+    public ResponseEntity<List<InventoryMovement>> getLedger(
+            @RequestParam(required = false) Long branchId,
+            @RequestParam(required = false) String materialType,
+            @RequestParam(defaultValue = "100") int limit) {
+        try {
+            return ResponseEntity.ok(inventoryLedgerService.getRecentMovements(branchId, materialType, limit));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @PostMapping("/balances/reconcile")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> reconcileBalances() {
+        try {
+            return ResponseEntity.ok(Map.of("corrected", inventoryLedgerService.reconcile()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred while reconciling balances");
+        }
+    }
+
+    // Stock and supply levels currently in their low band, most critical first
+    @GetMapping("/alerts")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('OWNER') or hasRole('MANAGER')")
+    public ResponseEntity<List<Map<String, Object>>> getActiveAlerts(@RequestParam(required = false) Long branchId) {
+        try {
+            return ResponseEntity.ok(stockAlertService.getActiveAlerts(branchId));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    // LOW_STOCK / STOCK_RECOVERED events; resume with the Last-Event-ID header or the "after" parameter
+    @GetMapping(value = "/alerts/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('ADMIN') or hasRole('OWNER') or hasRole('MANAGER')")
+    public SseEmitter streamAlerts(@RequestParam(required = false) Long after,
+                                   @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        long offset = after != null ? after : 0;
+        if (lastEventId != null && !lastEventId.isBlank()) {
+            try {
+                offset = Long.parseLong(lastEventId.trim());
+            } catch (NumberFormatException e) {
+                // Ignore a malformed id and fall back to the requested offset
+            }
+        }
+        return eventStreamService.subscribe(StockAlertService.AGGREGATE_TYPE, offset);
+    }
+
+    @GetMapping("/alerts/stats")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('OWNER')")
+    public ResponseEntity<Map<String, Object>> getAlertStats() {
+        try {
+            return ResponseEntity.ok(stockAlertService.getStats());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @GetMapping("/alerts/settings/{branchId}")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('OWNER') or hasRole('MANAGER')")
+    public ResponseEntity<StockAlertSetting> getAlertSettings(@PathVariable Long branchId) {
+        try {
+            return ResponseEntity.ok(stockAlertService.getSettings(branchId));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @PutMapping("/alerts/settings/{branchId}")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('MANAGER')")
+    public ResponseEntity<?> updateAlertSettings(@PathVariable Long branchId, @RequestBody StockAlertSetting settings) {
+        try {
+            StockAlertSetting updated = stockAlertService.updateSettings(branchId, settings.getStockThreshold(),
+                    settings.getHysteresis());
+            return ResponseEntity.ok(updated);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred while updating alert settings");
+        }
+    }
+
+    // FIFO and weighted-average valuation per material, as of the end of a day (latest when asOf is omitted)
+    @GetMapping("/valuation")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('OWNER') or hasRole('MANAGER')")
+    public ResponseEntity<List<StockValuation>> getValuation(
+            @RequestParam(required = false) Long branchId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate asOf) {
+        try {
+            return ResponseEntity.ok(stockValuationService.getValuations(branchId, asOf));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @GetMapping("/valuation/totals")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('OWNER') or hasRole('MANAGER')")
+    public ResponseEntity<Map<String, Object>> getValuationTotals(
+            @RequestParam(required = false) Long branchId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate asOf) {
+        try {
+            return ResponseEntity.ok(stockValuationService.getTotals(branchId, asOf));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @GetMapping("/valuation/layers")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('OWNER') or hasRole('MANAGER')")
+    public ResponseEntity<List<Map<String, Object>>> getValuationLayers(
+            @RequestParam(required = false) Long branchId,
+            @RequestParam String materialType) {
+        try {
+            return ResponseEntity.ok(stockValuationService.getLayers(branchId, materialType));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
 }
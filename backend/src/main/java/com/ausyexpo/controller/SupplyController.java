@@ -1,25 +1,36 @@
 package com.ausyexpo.controller;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.ausyexpo.dto.BulkStatusUpdateRequest;
+import com.ausyexpo.dto.ReplenishmentReport;
+import com.ausyexpo.dto.SupplierPerformance;
 import com.ausyexpo.model.Supply;
+import com.ausyexpo.service.MergePatchService;
+import com.ausyexpo.service.ReplenishmentService;
+import com.ausyexpo.service.SupplierAnalyticsService;
 import com.ausyexpo.service.SupplyService;
+import com.fasterxml.jackson.databind.JsonNode;
 
 @RestController
 @RequestMapping("/api/supplies")
@@ -29,6 +40,15 @@ public class SupplyController {
     @Autowired
     private SupplyService supplyService;
 
+    @Autowired
+    private MergePatchService mergePatchService;
+
+    @Autowired
+    private ReplenishmentService replenishmentService;
+
+    @Autowired
+    private SupplierAnalyticsService supplierAnalyticsService;
+
     @GetMapping
     @PreAuthorize("hasRole('ADMIN') or hasRole('OWNER') or hasRole('MANAGER') or hasRole('SUPPLIER')")
     public ResponseEntity<List<Supply>> getAllSupplies() {
@@ -136,6 +156,25 @@ public class SupplyController {
         }
     }
 
+    // JSON merge patch: only the supplied fields are changed; If-Match (or a "version" member) guards against lost updates
+    @PatchMapping(value = "/{id}", consumes = {"application/merge-patch+json", "application/json"})
+    @PreAuthorize("hasRole('ADMIN') or hasRole('MANAGER') or hasRole('SUPPLIER')")
+    public ResponseEntity<?> patchSupply(@PathVariable Long id, @RequestBody JsonNode patch,
+                                     @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        try {
+            Long expectedVersion = mergePatchService.expectedVersion(ifMatch, patch);
+            Supply patchedSupply = supplyService.patchSupply(id, patch, expectedVersion);
+            return ResponseEntity.ok().eTag("\"" + patchedSupply.getVersion() + "\"").body(patchedSupply);
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body("Supply was modified by another request; reload and retry");
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred while patching supply");
+        }
+    }
+
     @PutMapping("/{id}/status")
     @PreAuthorize("hasRole('ADMIN') or hasRole('MANAGER')")
     public ResponseEntity<?> updateSupplyStatus(@PathVariable Long id, @RequestParam String status) {
@@ -149,6 +188,19 @@ public class SupplyController {
         }
     }
 
+    @PutMapping("/bulk/status")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('MANAGER')")
+    public ResponseEntity<?> bulkUpdateSupplyStatus(@RequestBody BulkStatusUpdateRequest request) {
+        try {
+            int updated = supplyService.bulkUpdateSupplyStatus(request);
+            return ResponseEntity.ok(Map.of("status", request.getStatus().trim().toUpperCase(), "updated", updated));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred while updating supply statuses");
+        }
+    }
+
     @DeleteMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN') or hasRole('MANAGER')")
     public ResponseEntity<?> deleteSupply(@PathVariable Long id) {
@@ -221,4 +273,66 @@ public class SupplyController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
+
+    // What the replenishment planner would order right now, without creating drafts
+    @GetMapping("/replenishment/preview")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('OWNER') or hasRole('MANAGER')")
+    public ResponseEntity<?> previewReplenishment() {
+        try {
+            return ResponseEntity.ok(replenishmentService.plan(true));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    @PostMapping("/replenishment/run")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('MANAGER')")
+    public ResponseEntity<?> runReplenishment() {
+        try {
+            ReplenishmentReport report = replenishmentService.plan(false);
+            return ResponseEntity.ok(report);
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    // Supplier performance from the in-memory aggregates; the ETag changes whenever any supply does
+    @GetMapping("/analytics/suppliers")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('OWNER') or hasRole('MANAGER')")
+    public ResponseEntity<List<SupplierPerformance>> getSupplierPerformance(
+            @RequestParam(required = false) String supplierName,
+            @RequestParam(defaultValue = "false") boolean byCategory,
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        try {
+            String eTag = "\"" + supplierAnalyticsService.getVersion() + "\"";
+            if (eTag.equals(ifNoneMatch)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+            }
+            List<SupplierPerformance> performance = supplierAnalyticsService.getPerformance(supplierName, byCategory);
+            return ResponseEntity.ok().eTag(eTag).body(performance);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @GetMapping("/analytics/suppliers/stats")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('OWNER')")
+    public ResponseEntity<Map<String, Object>> getSupplierAnalyticsStats() {
+        try {
+            return ResponseEntity.ok(supplierAnalyticsService.getStats());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @PostMapping("/analytics/suppliers/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> rebuildSupplierAnalytics() {
+        try {
+            supplierAnalyticsService.rebuild();
+            return ResponseEntity.ok(supplierAnalyticsService.getStats());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred while rebuilding supplier analytics");
+        }
+    }
 }
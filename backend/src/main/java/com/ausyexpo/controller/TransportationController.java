@@ -1,9 +1,14 @@
 package com.ausyexpo.controller;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -18,8 +23,20 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.ausyexpo.dto.LoadPlan;
+import com.ausyexpo.dto.LoadPlanRequest;
+import com.ausyexpo.dto.RoutePlan;
+import com.ausyexpo.dto.RoutePlanRequest;
+import com.ausyexpo.dto.TelemetryPoint;
+import com.ausyexpo.model.GeoLocation;
 import com.ausyexpo.model.Transportation;
+import com.ausyexpo.model.VehicleBooking;
+import com.ausyexpo.service.GeocodeService;
+import com.ausyexpo.service.LoadPlanningService;
+import com.ausyexpo.service.TelemetryService;
 import com.ausyexpo.service.TransportationService;
+import com.ausyexpo.service.UserService;
+import com.ausyexpo.service.VehicleBookingService;
 
 @RestController
 @RequestMapping("/api/transportation")
@@ -29,6 +46,21 @@ public class TransportationController {
     @Autowired
     private TransportationService transportationService;
 
+    @Autowired
+    private LoadPlanningService loadPlanningService;
+
+    @Autowired
+    private GeocodeService geocodeService;
+
+    @Autowired
+    private VehicleBookingService vehicleBookingService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private TelemetryService telemetryService;
+
     @GetMapping
     @PreAuthorize("hasRole('ADMIN') or hasRole('OWNER') or hasRole('MANAGER')")
     public ResponseEntity<List<Transportation>> getAllTransportation() {
@@ -155,6 +187,189 @@ public class TransportationController {
         }
     }
 
+    // Active vehicles with enough capacity and no booking overlapping [from, to)
+    @GetMapping("/free")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('OWNER') or hasRole('MANAGER')")
+    public ResponseEntity<?> getFreeVehicles(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Double minCapacity,
+            @RequestParam(required = false) Long branchId) {
+        try {
+            return ResponseEntity.ok(vehicleBookingService.findFreeVehicles(from, to, minCapacity, branchId));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred while finding free vehicles");
+        }
+    }
+
+    @GetMapping("/{id}/bookings")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('OWNER') or hasRole('MANAGER')")
+    public ResponseEntity<?> getBookings(@PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        try {
+            return ResponseEntity.ok(vehicleBookingService.getBookings(id, from, to));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred while fetching bookings");
+        }
+    }
+
+    // Reserves the vehicle for [startTime, endTime); 409 when that overlaps another booking
+    @PostMapping("/{id}/bookings")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('MANAGER')")
+    public ResponseEntity<?> bookVehicle(@PathVariable Long id, @RequestBody VehicleBooking booking) {
+        try {
+            VehicleBooking saved = vehicleBookingService.book(id, booking, userService.getCurrentUserId());
+            return ResponseEntity.status(HttpStatus.CREATED).body(saved);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred while booking the vehicle");
+        }
+    }
+
+    @DeleteMapping("/bookings/{bookingId}")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('MANAGER')")
+    public ResponseEntity<?> cancelBooking(@PathVariable Long bookingId) {
+        try {
+            return ResponseEntity.ok(vehicleBookingService.cancel(bookingId));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred while cancelling the booking");
+        }
+    }
+
+    // Buffers a batch of pings; 503 with Retry-After, and nothing queued, while the writer is behind
+    @PostMapping("/telemetry")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('MANAGER')")
+    public ResponseEntity<?> ingestTelemetry(@RequestBody List<TelemetryPoint> points) {
+        try {
+            if (!telemetryService.ingest(points)) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", "1")
+                        .body("Telemetry buffer is full, retry later");
+            }
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("accepted", points.size());
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(result);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred while ingesting telemetry");
+        }
+    }
+
+    @GetMapping("/telemetry/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getTelemetryStats() {
+        try {
+            return ResponseEntity.ok(telemetryService.getStats());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    // Latest reading of each vehicle, from memory
+    @GetMapping("/positions")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('OWNER') or hasRole('MANAGER')")
+    public ResponseEntity<?> getPositions(@RequestParam(required = false) Long branchId) {
+        try {
+            if (branchId == null) {
+                return ResponseEntity.ok(telemetryService.getAllLatest());
+            }
+            List<Long> vehicleIds = new ArrayList<>();
+            for (Transportation vehicle : transportationService.getTransportationByBranch(branchId)) {
+                vehicleIds.add(vehicle.getId());
+            }
+            return ResponseEntity.ok(telemetryService.getLatest(vehicleIds));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred while fetching positions");
+        }
+    }
+
+    @GetMapping("/{id}/position")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('OWNER') or hasRole('MANAGER')")
+    public ResponseEntity<TelemetryPoint> getPosition(@PathVariable Long id) {
+        try {
+            TelemetryPoint point = telemetryService.getLatest(id);
+            return point != null ? ResponseEntity.ok(point) : ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @GetMapping("/{id}/telemetry")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('OWNER') or hasRole('MANAGER')")
+    public ResponseEntity<?> getTelemetry(@PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "1000") int limit) {
+        try {
+            return ResponseEntity.ok(telemetryService.getHistory(id, from, to, limit));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred while fetching telemetry");
+        }
+    }
+
+    // Proposes which vehicle carries each confirmed order; nothing is saved
+    @PostMapping("/load-plan")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('OWNER') or hasRole('MANAGER')")
+    public ResponseEntity<?> planLoads(@RequestBody LoadPlanRequest request) {
+        try {
+            LoadPlan plan = loadPlanningService.plan(request);
+            return ResponseEntity.ok(plan);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred while planning loads");
+        }
+    }
+
+    // Visiting order of each vehicle's stops, from the local geocode table; nothing is saved
+    @PostMapping("/routes")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('OWNER') or hasRole('MANAGER')")
+    public ResponseEntity<?> planRoutes(@RequestBody RoutePlanRequest request) {
+        try {
+            RoutePlan plan = transportationService.planRoutes(request);
+            return ResponseEntity.ok(plan);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred while planning routes");
+        }
+    }
+
+    @GetMapping("/geocodes")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('OWNER') or hasRole('MANAGER')")
+    public ResponseEntity<List<GeoLocation>> getGeocodes() {
+        try {
+            return ResponseEntity.ok(geocodeService.getAllLocations());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    // Adds or replaces address coordinates
+    @PutMapping("/geocodes")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('MANAGER')")
+    public ResponseEntity<?> saveGeocodes(@RequestBody List<GeoLocation> locations) {
+        try {
+            return ResponseEntity.ok(geocodeService.saveLocations(locations));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred while saving geocodes");
+        }
+    }
+
     @GetMapping("/count/branch/{branchId}")
     @PreAuthorize("hasRole('ADMIN') or hasRole('OWNER') or hasRole('MANAGER')")
     public ResponseEntity<Long> countTransportationByBranch(@PathVariable Long branchId) {
@@ -0,0 +1,120 @@
+package com.ausyexpo.controller;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.ausyexpo.model.Command;
+import com.ausyexpo.model.WorkItem;
+import com.ausyexpo.service.CommandService;
+import com.ausyexpo.service.SupplyService;
+import com.ausyexpo.service.UserService;
+import com.ausyexpo.service.WorkQueueService;
+
+@RestController
+@RequestMapping("/api/work-queue")
+@CrossOrigin(origins = "*")
+public class WorkQueueController {
+
+    @Autowired
+    private WorkQueueService workQueueService;
+
+    @Autowired
+    private SupplyService supplyService;
+
+    @Autowired
+    private CommandService commandService;
+
+    @Autowired
+    private UserService userService;
+
+    // Claims the next item for the current user; 204 when there is nothing to take
+    @PostMapping("/claim")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('OWNER') or hasRole('MANAGER') or hasRole('BUYER') or hasRole('SUPPLIER')")
+    public ResponseEntity<?> claim(@RequestParam(required = false) String type,
+                                   @RequestParam(required = false) Long branchId) {
+        try {
+            WorkItem.ItemType itemType = type != null ? WorkItem.ItemType.valueOf(type.toUpperCase()) : null;
+            WorkItem item = workQueueService.claim(userService.getCurrentUserId(), itemType, branchId);
+            return item != null ? ResponseEntity.ok(item) : ResponseEntity.noContent().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Invalid type: " + type);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/mine")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('OWNER') or hasRole('MANAGER') or hasRole('BUYER') or hasRole('SUPPLIER')")
+    public ResponseEntity<List<WorkItem>> getMyItems() {
+        try {
+            return ResponseEntity.ok(workQueueService.getClaimedBy(userService.getCurrentUserId()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @PostMapping("/{id}/renew")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('OWNER') or hasRole('MANAGER') or hasRole('BUYER') or hasRole('SUPPLIER')")
+    public ResponseEntity<?> renew(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(workQueueService.renew(id, userService.getCurrentUserId()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    @PostMapping("/{id}/release")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('OWNER') or hasRole('MANAGER') or hasRole('BUYER') or hasRole('SUPPLIER')")
+    public ResponseEntity<?> release(@PathVariable Long id) {
+        try {
+            workQueueService.release(id, userService.getCurrentUserId());
+            return ResponseEntity.noContent().build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    // Moves the source out of PENDING (APPROVED for supplies, COMPLETED for commands unless given) and
+    // drops the item from the queue
+    @PostMapping("/{id}/complete")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('OWNER') or hasRole('MANAGER') or hasRole('BUYER') or hasRole('SUPPLIER')")
+    public ResponseEntity<?> complete(@PathVariable Long id, @RequestParam(required = false) String status) {
+        try {
+            WorkItem item = workQueueService.getClaimed(id, userService.getCurrentUserId());
+            if (item.getItemType() == WorkItem.ItemType.SUPPLY) {
+                supplyService.updateSupplyStatus(item.getItemId(), status != null ? status : "APPROVED");
+            } else {
+                commandService.updateCommandStatus(item.getItemId(), status != null
+                        ? Command.Status.valueOf(status.toUpperCase()) : Command.Status.COMPLETED);
+            }
+            workQueueService.remove(item);
+            return ResponseEntity.noContent().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Invalid status: " + status);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/stats")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('OWNER') or hasRole('MANAGER')")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        try {
+            return ResponseEntity.ok(workQueueService.getStats());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.ausyexpo.dto;
+
+import java.util.List;
+
+public class BulkStatusUpdateRequest {
+    // Either ids or at least one filter field must be given
+    private List<Long> ids;
+    private String status;
+
+    // Filter fields, used when ids is empty
+    private String fromStatus;
+    private Long branchId;
+    private Long assignedToId;
+
+    public BulkStatusUpdateRequest() {}
+
+    public boolean hasIds() {
+        return ids != null && !ids.isEmpty();
+    }
+
+    public boolean hasFilter() {
+        return (fromStatus != null && !fromStatus.trim().isEmpty()) || branchId != null || assignedToId != null;
+    }
+
+    // Getters and Setters
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<Long> ids) {
+        this.ids = ids;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getFromStatus() {
+        return fromStatus;
+    }
+
+    public void setFromStatus(String fromStatus) {
+        this.fromStatus = fromStatus;
+    }
+
+    public Long getBranchId() {
+        return branchId;
+    }
+
+    public void setBranchId(Long branchId) {
+        this.branchId = branchId;
+    }
+
+    public Long getAssignedToId() {
+        return assignedToId;
+    }
+
+    public void setAssignedToId(Long assignedToId) {
+        this.assignedToId = assignedToId;
+    }
+}
@@ -0,0 +1,54 @@
+package com.ausyexpo.dto;
+
+import java.time.LocalDateTime;
+
+import com.ausyexpo.model.OutboxEvent;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+/**
+ * A published outbox event, as delivered on the in-process event bus and the SSE stream.
+ */
+public class DomainEvent {
+    private final long sequence;
+    private final String aggregateType;
+    private final Long aggregateId;
+    private final String eventType;
+    private final String payload;
+    private final LocalDateTime occurredAt;
+
+    public DomainEvent(OutboxEvent event) {
+        this.sequence = event.getSequence();
+        this.aggregateType = event.getAggregateType();
+        this.aggregateId = event.getAggregateId();
+        this.eventType = event.getEventType();
+        this.payload = event.getPayload();
+        this.occurredAt = event.getCreatedAt();
+    }
+
+    // Getters
+    public long getSequence() {
+        return sequence;
+    }
+
+    public String getAggregateType() {
+        return aggregateType;
+    }
+
+    public Long getAggregateId() {
+        return aggregateId;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    // Already JSON, so it is embedded as an object rather than a quoted string
+    @JsonRawValue
+    public String getPayload() {
+        return payload;
+    }
+
+    public LocalDateTime getOccurredAt() {
+        return occurredAt;
+    }
+}
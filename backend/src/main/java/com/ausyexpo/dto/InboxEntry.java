@@ -0,0 +1,102 @@
+package com.ausyexpo.dto;
+
+import java.time.LocalDateTime;
+
+import com.ausyexpo.model.Command;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * An open command as held in its assignee's inbox. Entries are replaced rather than modified, so one can
+ * be handed to a sender thread while the inbox keeps changing.
+ */
+public class InboxEntry {
+    private final Long commandId;
+    private final String title;
+    private final Command.CommandType type;
+    private final Command.Priority priority;
+    private final Command.Status status;
+    private final LocalDateTime dueDate;
+    private final LocalDateTime updatedAt;
+    private final Long version;
+    private final Long issuedById;
+    private final String issuedByName;
+    private final boolean unread;
+    // Inbox change sequence of the latest change to this entry
+    private final long sequence;
+
+    public InboxEntry(Long commandId, String title, Command.CommandType type, Command.Priority priority,
+                      Command.Status status, LocalDateTime dueDate, LocalDateTime updatedAt, Long version,
+                      Long issuedById, String issuedByName, boolean unread, long sequence) {
+        this.commandId = commandId;
+        this.title = title;
+        this.type = type;
+        this.priority = priority;
+        this.status = status;
+        this.dueDate = dueDate;
+        this.updatedAt = updatedAt;
+        this.version = version;
+        this.issuedById = issuedById;
+        this.issuedByName = issuedByName;
+        this.unread = unread;
+        this.sequence = sequence;
+    }
+
+    public InboxEntry withUnread(boolean unread, long sequence) {
+        return new InboxEntry(commandId, title, type, priority, status, dueDate, updatedAt, version,
+                issuedById, issuedByName, unread, sequence);
+    }
+
+    public InboxEntry withSequence(long sequence) {
+        return withUnread(unread, sequence);
+    }
+
+    // Getters
+    public Long getCommandId() {
+        return commandId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public Command.CommandType getType() {
+        return type;
+    }
+
+    public Command.Priority getPriority() {
+        return priority;
+    }
+
+    public Command.Status getStatus() {
+        return status;
+    }
+
+    public LocalDateTime getDueDate() {
+        return dueDate;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public Long getIssuedById() {
+        return issuedById;
+    }
+
+    public String getIssuedByName() {
+        return issuedByName;
+    }
+
+    public boolean isUnread() {
+        return unread;
+    }
+
+    @JsonIgnore
+    public long getSequence() {
+        return sequence;
+    }
+}
@@ -0,0 +1,70 @@
+package com.ausyexpo.dto;
+
+public class InventoryBalance {
+    private Long branchId;
+    private String materialType;
+    private long onHand;
+    private long reserved;
+    private long available;
+    private long lots;
+
+    public InventoryBalance() {}
+
+    public InventoryBalance(Long branchId, String materialType, long onHand, long reserved, long lots) {
+        this.branchId = branchId;
+        this.materialType = materialType;
+        this.onHand = onHand;
+        this.reserved = reserved;
+        this.available = onHand - reserved;
+        this.lots = lots;
+    }
+
+    // Getters and Setters
+    public Long getBranchId() {
+        return branchId;
+    }
+
+    public void setBranchId(Long branchId) {
+        this.branchId = branchId;
+    }
+
+    public String getMaterialType() {
+        return materialType;
+    }
+
+    public void setMaterialType(String materialType) {
+        this.materialType = materialType;
+    }
+
+    public long getOnHand() {
+        return onHand;
+    }
+
+    public void setOnHand(long onHand) {
+        this.onHand = onHand;
+    }
+
+    public long getReserved() {
+        return reserved;
+    }
+
+    public void setReserved(long reserved) {
+        this.reserved = reserved;
+    }
+
+    public long getAvailable() {
+        return available;
+    }
+
+    public void setAvailable(long available) {
+        this.available = available;
+    }
+
+    public long getLots() {
+        return lots;
+    }
+
+    public void setLots(long lots) {
+        this.lots = lots;
+    }
+}
@@ -0,0 +1,197 @@
+package com.ausyexpo.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class LoadPlan {
+    private Long branchId;
+    private int orderCount;
+    private int vehicleCount;
+    private long totalQuantity;
+    private long assignedQuantity;
+    private int vehiclesUsed;
+    private long capacityUsed;
+    private int workers;
+    private long iterations;
+    private long timeBudgetMillis;
+    private long elapsedMillis;
+    private List<VehicleLoad> vehicles = new ArrayList<>();
+    // Orders that could not be placed, including any larger than every vehicle
+    private List<Long> unassignedOrderIds = new ArrayList<>();
+
+    public static class VehicleLoad {
+        private Long vehicleId;
+        private String vehicleNumber;
+        private String vehicleType;
+        private long capacity;
+        private long load;
+        private double utilization;
+        private List<Long> orderIds = new ArrayList<>();
+
+        public VehicleLoad() {}
+
+        // Getters and Setters
+        public Long getVehicleId() {
+            return vehicleId;
+        }
+
+        public void setVehicleId(Long vehicleId) {
+            this.vehicleId = vehicleId;
+        }
+
+        public String getVehicleNumber() {
+            return vehicleNumber;
+        }
+
+        public void setVehicleNumber(String vehicleNumber) {
+            this.vehicleNumber = vehicleNumber;
+        }
+
+        public String getVehicleType() {
+            return vehicleType;
+        }
+
+        public void setVehicleType(String vehicleType) {
+            this.vehicleType = vehicleType;
+        }
+
+        public long getCapacity() {
+            return capacity;
+        }
+
+        public void setCapacity(long capacity) {
+            this.capacity = capacity;
+        }
+
+        public long getLoad() {
+            return load;
+        }
+
+        public void setLoad(long load) {
+            this.load = load;
+        }
+
+        public double getUtilization() {
+            return utilization;
+        }
+
+        public void setUtilization(double utilization) {
+            this.utilization = utilization;
+        }
+
+        public List<Long> getOrderIds() {
+            return orderIds;
+        }
+
+        public void setOrderIds(List<Long> orderIds) {
+            this.orderIds = orderIds;
+        }
+    }
+
+    public LoadPlan() {}
+
+    // Getters and Setters
+    public Long getBranchId() {
+        return branchId;
+    }
+
+    public void setBranchId(Long branchId) {
+        this.branchId = branchId;
+    }
+
+    public int getOrderCount() {
+        return orderCount;
+    }
+
+    public void setOrderCount(int orderCount) {
+        this.orderCount = orderCount;
+    }
+
+    public int getVehicleCount() {
+        return vehicleCount;
+    }
+
+    public void setVehicleCount(int vehicleCount) {
+        this.vehicleCount = vehicleCount;
+    }
+
+    public long getTotalQuantity() {
+        return totalQuantity;
+    }
+
+    public void setTotalQuantity(long totalQuantity) {
+        this.totalQuantity = totalQuantity;
+    }
+
+    public long getAssignedQuantity() {
+        return assignedQuantity;
+    }
+
+    public void setAssignedQuantity(long assignedQuantity) {
+        this.assignedQuantity = assignedQuantity;
+    }
+
+    public int getVehiclesUsed() {
+        return vehiclesUsed;
+    }
+
+    public void setVehiclesUsed(int vehiclesUsed) {
+        this.vehiclesUsed = vehiclesUsed;
+    }
+
+    public long getCapacityUsed() {
+        return capacityUsed;
+    }
+
+    public void setCapacityUsed(long capacityUsed) {
+        this.capacityUsed = capacityUsed;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public void setWorkers(int workers) {
+        this.workers = workers;
+    }
+
+    public long getIterations() {
+        return iterations;
+    }
+
+    public void setIterations(long iterations) {
+        this.iterations = iterations;
+    }
+
+    public long getTimeBudgetMillis() {
+        return timeBudgetMillis;
+    }
+
+    public void setTimeBudgetMillis(long timeBudgetMillis) {
+        this.timeBudgetMillis = timeBudgetMillis;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public List<VehicleLoad> getVehicles() {
+        return vehicles;
+    }
+
+    public void setVehicles(List<VehicleLoad> vehicles) {
+        this.vehicles = vehicles;
+    }
+
+    public List<Long> getUnassignedOrderIds() {
+        return unassignedOrderIds;
+    }
+
+    public void setUnassignedOrderIds(List<Long> unassignedOrderIds) {
+        this.unassignedOrderIds = unassignedOrderIds;
+    }
+}
@@ -0,0 +1,50 @@
+package com.ausyexpo.dto;
+
+import java.util.List;
+
+public class LoadPlanRequest {
+    private Long branchId;
+
+    // Confirmed orders to load; all confirmed orders of the branch when empty
+    private List<Long> orderIds;
+
+    // Vehicles to use; all available vehicles of the branch when empty
+    private List<Long> vehicleIds;
+
+    private Long timeBudgetMillis;
+
+    public LoadPlanRequest() {}
+
+    // Getters and Setters
+    public Long getBranchId() {
+        return branchId;
+    }
+
+    public void setBranchId(Long branchId) {
+        this.branchId = branchId;
+    }
+
+    public List<Long> getOrderIds() {
+        return orderIds;
+    }
+
+    public void setOrderIds(List<Long> orderIds) {
+        this.orderIds = orderIds;
+    }
+
+    public List<Long> getVehicleIds() {
+        return vehicleIds;
+    }
+
+    public void setVehicleIds(List<Long> vehicleIds) {
+        this.vehicleIds = vehicleIds;
+    }
+
+    public Long getTimeBudgetMillis() {
+        return timeBudgetMillis;
+    }
+
+    public void setTimeBudgetMillis(Long timeBudgetMillis) {
+        this.timeBudgetMillis = timeBudgetMillis;
+    }
+}
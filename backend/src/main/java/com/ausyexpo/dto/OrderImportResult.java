@@ -0,0 +1,123 @@
+package com.ausyexpo.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class OrderImportResult {
+    private int totalRows;
+    private int createdCount;
+    private int rejectedCount;
+    private long elapsedMillis;
+    private List<RowResult> rows = new ArrayList<>();
+
+    public OrderImportResult() {}
+
+    public void addRow(RowResult row) {
+        rows.add(row);
+        totalRows++;
+        if (RowResult.CREATED.equals(row.getStatus())) {
+            createdCount++;
+        } else {
+            rejectedCount++;
+        }
+    }
+
+    // Getters and Setters
+    public int getTotalRows() {
+        return totalRows;
+    }
+
+    public void setTotalRows(int totalRows) {
+        this.totalRows = totalRows;
+    }
+
+    public int getCreatedCount() {
+        return createdCount;
+    }
+
+    public void setCreatedCount(int createdCount) {
+        this.createdCount = createdCount;
+    }
+
+    public int getRejectedCount() {
+        return rejectedCount;
+    }
+
+    public void setRejectedCount(int rejectedCount) {
+        this.rejectedCount = rejectedCount;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public List<RowResult> getRows() {
+        return rows;
+    }
+
+    public void setRows(List<RowResult> rows) {
+        this.rows = rows;
+    }
+
+    public static class RowResult {
+        public static final String CREATED = "CREATED";
+        public static final String REJECTED = "REJECTED";
+
+        private int rowNumber;
+        private String orderNumber;
+        private String status;
+        private Long id;
+        private List<String> errors = new ArrayList<>();
+
+        public RowResult() {}
+
+        public RowResult(int rowNumber, String orderNumber) {
+            this.rowNumber = rowNumber;
+            this.orderNumber = orderNumber;
+        }
+
+        public int getRowNumber() {
+            return rowNumber;
+        }
+
+        public void setRowNumber(int rowNumber) {
+            this.rowNumber = rowNumber;
+        }
+
+        public String getOrderNumber() {
+            return orderNumber;
+        }
+
+        public void setOrderNumber(String orderNumber) {
+            this.orderNumber = orderNumber;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public void setStatus(String status) {
+            this.status = status;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public List<String> getErrors() {
+            return errors;
+        }
+
+        public void setErrors(List<String> errors) {
+            this.errors = errors;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.ausyexpo.dto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ReplenishmentReport {
+    private LocalDateTime startedAt;
+    private boolean dryRun;
+    private int branchCount;
+    private int itemsScanned;
+    private int draftsCreated;
+    private long elapsedMillis;
+    private List<Line> lines = new ArrayList<>();
+
+    public ReplenishmentReport() {}
+
+    public ReplenishmentReport(LocalDateTime startedAt, boolean dryRun) {
+        this.startedAt = startedAt;
+        this.dryRun = dryRun;
+    }
+
+    // Getters and Setters
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public boolean isDryRun() {
+        return dryRun;
+    }
+
+    public void setDryRun(boolean dryRun) {
+        this.dryRun = dryRun;
+    }
+
+    public int getBranchCount() {
+        return branchCount;
+    }
+
+    public void setBranchCount(int branchCount) {
+        this.branchCount = branchCount;
+    }
+
+    public int getItemsScanned() {
+        return itemsScanned;
+    }
+
+    public void setItemsScanned(int itemsScanned) {
+        this.itemsScanned = itemsScanned;
+    }
+
+    public int getDraftsCreated() {
+        return draftsCreated;
+    }
+
+    public void setDraftsCreated(int draftsCreated) {
+        this.draftsCreated = draftsCreated;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public List<Line> getLines() {
+        return lines;
+    }
+
+    public void setLines(List<Line> lines) {
+        this.lines = lines;
+    }
+
+    // One item that fell below its reorder point
+    public static class Line {
+        private Long branchId;
+        private Long sourceSupplyId;
+        private String itemName;
+        private String supplierName;
+        private String materialType;
+        private int level;
+        private long stockAvailable;
+        private int minimumQuantity;
+        private double dailyDemand;
+        private int reorderPoint;
+        private int economicOrderQuantity;
+        private int orderQuantity;
+
+        // Id of the generated draft; null on a dry run
+        private Long draftId;
+
+        public Line() {}
+
+        // Getters and Setters
+        public Long getBranchId() {
+            return branchId;
+        }
+
+        public void setBranchId(Long branchId) {
+            this.branchId = branchId;
+        }
+
+        public Long getSourceSupplyId() {
+            return sourceSupplyId;
+        }
+
+        public void setSourceSupplyId(Long sourceSupplyId) {
+            this.sourceSupplyId = sourceSupplyId;
+        }
+
+        public String getItemName() {
+            return itemName;
+        }
+
+        public void setItemName(String itemName) {
+            this.itemName = itemName;
+        }
+
+        public String getSupplierName() {
+            return supplierName;
+        }
+
+        public void setSupplierName(String supplierName) {
+            this.supplierName = supplierName;
+        }
+
+        public String getMaterialType() {
+            return materialType;
+        }
+
+        public void setMaterialType(String materialType) {
+            this.materialType = materialType;
+        }
+
+        public int getLevel() {
+            return level;
+        }
+
+        public void setLevel(int level) {
+            this.level = level;
+        }
+
+        public long getStockAvailable() {
+            return stockAvailable;
+        }
+
+        public void setStockAvailable(long stockAvailable) {
+            this.stockAvailable = stockAvailable;
+        }
+
+        public int getMinimumQuantity() {
+            return minimumQuantity;
+        }
+
+        public void setMinimumQuantity(int minimumQuantity) {
+            this.minimumQuantity = minimumQuantity;
+        }
+
+        public double getDailyDemand() {
+            return dailyDemand;
+        }
+
+        public void setDailyDemand(double dailyDemand) {
+            this.dailyDemand = dailyDemand;
+        }
+
+        public int getReorderPoint() {
+            return reorderPoint;
+        }
+
+        public void setReorderPoint(int reorderPoint) {
+            this.reorderPoint = reorderPoint;
+        }
+
+        public int getEconomicOrderQuantity() {
+            return economicOrderQuantity;
+        }
+
+        public void setEconomicOrderQuantity(int economicOrderQuantity) {
+            this.economicOrderQuantity = economicOrderQuantity;
+        }
+
+        public int getOrderQuantity() {
+            return orderQuantity;
+        }
+
+        public void setOrderQuantity(int orderQuantity) {
+            this.orderQuantity = orderQuantity;
+        }
+
+        public Long getDraftId() {
+            return draftId;
+        }
+
+        public void setDraftId(Long draftId) {
+            this.draftId = draftId;
+        }
+    }
+}
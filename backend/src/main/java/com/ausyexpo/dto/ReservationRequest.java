@@ -0,0 +1,45 @@
+package com.ausyexpo.dto;
+
+public class ReservationRequest {
+    private Long branchId;
+    private String materialType;
+    private Integer quantity;
+
+    // Free text such as an order number
+    private String reference;
+
+    public ReservationRequest() {}
+
+    // Getters and Setters
+    public Long getBranchId() {
+        return branchId;
+    }
+
+    public void setBranchId(Long branchId) {
+        this.branchId = branchId;
+    }
+
+    public String getMaterialType() {
+        return materialType;
+    }
+
+    public void setMaterialType(String materialType) {
+        this.materialType = materialType;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+
+    public String getReference() {
+        return reference;
+    }
+
+    public void setReference(String reference) {
+        this.reference = reference;
+    }
+}
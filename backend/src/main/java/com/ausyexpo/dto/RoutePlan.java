@@ -0,0 +1,198 @@
+package com.ausyexpo.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class RoutePlan {
+    private String depotAddress;
+    // False when the depot has no coordinates; routes then start at whichever stop suits best
+    private boolean depotLocated;
+    private boolean returnToDepot;
+    private double totalDistanceKm;
+    private long timeBudgetMillis;
+    private long elapsedMillis;
+    private List<VehicleRoute> vehicles = new ArrayList<>();
+
+    public static class VehicleRoute {
+        private Long vehicleId;
+        private String vehicleNumber;
+        private double distanceKm;
+        // Length of the nearest-neighbour route before improvement
+        private double initialDistanceKm;
+        private List<Stop> stops = new ArrayList<>();
+        // Orders whose address has no coordinates; they are not part of the route
+        private List<Long> unroutedOrderIds = new ArrayList<>();
+
+        public VehicleRoute() {}
+
+        // Getters and Setters
+        public Long getVehicleId() {
+            return vehicleId;
+        }
+
+        public void setVehicleId(Long vehicleId) {
+            this.vehicleId = vehicleId;
+        }
+
+        public String getVehicleNumber() {
+            return vehicleNumber;
+        }
+
+        public void setVehicleNumber(String vehicleNumber) {
+            this.vehicleNumber = vehicleNumber;
+        }
+
+        public double getDistanceKm() {
+            return distanceKm;
+        }
+
+        public void setDistanceKm(double distanceKm) {
+            this.distanceKm = distanceKm;
+        }
+
+        public double getInitialDistanceKm() {
+            return initialDistanceKm;
+        }
+
+        public void setInitialDistanceKm(double initialDistanceKm) {
+            this.initialDistanceKm = initialDistanceKm;
+        }
+
+        public List<Stop> getStops() {
+            return stops;
+        }
+
+        public void setStops(List<Stop> stops) {
+            this.stops = stops;
+        }
+
+        public List<Long> getUnroutedOrderIds() {
+            return unroutedOrderIds;
+        }
+
+        public void setUnroutedOrderIds(List<Long> unroutedOrderIds) {
+            this.unroutedOrderIds = unroutedOrderIds;
+        }
+    }
+
+    // One address on a route; orders for the same address share a stop
+    public static class Stop {
+        private int sequence;
+        private String address;
+        private double latitude;
+        private double longitude;
+        // Distance from the previous stop (or the depot)
+        private double legKm;
+        private List<Long> orderIds = new ArrayList<>();
+
+        public Stop() {}
+
+        // Getters and Setters
+        public int getSequence() {
+            return sequence;
+        }
+
+        public void setSequence(int sequence) {
+            this.sequence = sequence;
+        }
+
+        public String getAddress() {
+            return address;
+        }
+
+        public void setAddress(String address) {
+            this.address = address;
+        }
+
+        public double getLatitude() {
+            return latitude;
+        }
+
+        public void setLatitude(double latitude) {
+            this.latitude = latitude;
+        }
+
+        public double getLongitude() {
+            return longitude;
+        }
+
+        public void setLongitude(double longitude) {
+            this.longitude = longitude;
+        }
+
+        public double getLegKm() {
+            return legKm;
+        }
+
+        public void setLegKm(double legKm) {
+            this.legKm = legKm;
+        }
+
+        public List<Long> getOrderIds() {
+            return orderIds;
+        }
+
+        public void setOrderIds(List<Long> orderIds) {
+            this.orderIds = orderIds;
+        }
+    }
+
+    public RoutePlan() {}
+
+    // Getters and Setters
+    public String getDepotAddress() {
+        return depotAddress;
+    }
+
+    public void setDepotAddress(String depotAddress) {
+        this.depotAddress = depotAddress;
+    }
+
+    public boolean isDepotLocated() {
+        return depotLocated;
+    }
+
+    public void setDepotLocated(boolean depotLocated) {
+        this.depotLocated = depotLocated;
+    }
+
+    public boolean isReturnToDepot() {
+        return returnToDepot;
+    }
+
+    public void setReturnToDepot(boolean returnToDepot) {
+        this.returnToDepot = returnToDepot;
+    }
+
+    public double getTotalDistanceKm() {
+        return totalDistanceKm;
+    }
+
+    public void setTotalDistanceKm(double totalDistanceKm) {
+        this.totalDistanceKm = totalDistanceKm;
+    }
+
+    public long getTimeBudgetMillis() {
+        return timeBudgetMillis;
+    }
+
+    public void setTimeBudgetMillis(long timeBudgetMillis) {
+        this.timeBudgetMillis = timeBudgetMillis;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public List<VehicleRoute> getVehicles() {
+        return vehicles;
+    }
+
+    public void setVehicles(List<VehicleRoute> vehicles) {
+        this.vehicles = vehicles;
+    }
+}
@@ -0,0 +1,82 @@
+package com.ausyexpo.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class RoutePlanRequest {
+    // Routes start from this address, or from the branch address when it is not given
+    private String depotAddress;
+    private Long branchId;
+    private Boolean returnToDepot = true;
+    private Long timeBudgetMillis;
+
+    // The orders each vehicle carries, for example the vehicles of a load plan
+    private List<VehicleOrders> vehicles = new ArrayList<>();
+
+    public static class VehicleOrders {
+        private Long vehicleId;
+        private List<Long> orderIds = new ArrayList<>();
+
+        public VehicleOrders() {}
+
+        // Getters and Setters
+        public Long getVehicleId() {
+            return vehicleId;
+        }
+
+        public void setVehicleId(Long vehicleId) {
+            this.vehicleId = vehicleId;
+        }
+
+        public List<Long> getOrderIds() {
+            return orderIds;
+        }
+
+        public void setOrderIds(List<Long> orderIds) {
+            this.orderIds = orderIds;
+        }
+    }
+
+    public RoutePlanRequest() {}
+
+    // Getters and Setters
+    public String getDepotAddress() {
+        return depotAddress;
+    }
+
+    public void setDepotAddress(String depotAddress) {
+        this.depotAddress = depotAddress;
+    }
+
+    public Long getBranchId() {
+        return branchId;
+    }
+
+    public void setBranchId(Long branchId) {
+        this.branchId = branchId;
+    }
+
+    public Boolean getReturnToDepot() {
+        return returnToDepot;
+    }
+
+    public void setReturnToDepot(Boolean returnToDepot) {
+        this.returnToDepot = returnToDepot;
+    }
+
+    public Long getTimeBudgetMillis() {
+        return timeBudgetMillis;
+    }
+
+    public void setTimeBudgetMillis(Long timeBudgetMillis) {
+        this.timeBudgetMillis = timeBudgetMillis;
+    }
+
+    public List<VehicleOrders> getVehicles() {
+        return vehicles;
+    }
+
+    public void setVehicles(List<VehicleOrders> vehicles) {
+        this.vehicles = vehicles;
+    }
+}
@@ -0,0 +1,23 @@
+package com.ausyexpo.dto;
+
+/**
+ * Published when a ledger movement changes the balance of a (branch, material type).
+ */
+public class StockLevelChangedEvent {
+    private final Long branchId;
+    private final String materialType;
+
+    public StockLevelChangedEvent(Long branchId, String materialType) {
+        this.branchId = branchId;
+        this.materialType = materialType;
+    }
+
+    // Getters
+    public Long getBranchId() {
+        return branchId;
+    }
+
+    public String getMaterialType() {
+        return materialType;
+    }
+}
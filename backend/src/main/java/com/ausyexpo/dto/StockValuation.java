@@ -0,0 +1,109 @@
+package com.ausyexpo.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public class StockValuation {
+    private Long branchId;
+    private String materialType;
+
+    // Date of the last movement included, not the date asked for
+    private LocalDate valuedAt;
+    private long quantity;
+    private BigDecimal fifoValue;
+    private BigDecimal averageUnitCost;
+    private BigDecimal averageValue;
+
+    // Cumulative cost of released quantity under each method
+    private BigDecimal fifoReleasedCost;
+    private BigDecimal averageReleasedCost;
+
+    public StockValuation() {}
+
+    public StockValuation(Long branchId, String materialType, LocalDate valuedAt, long quantity, BigDecimal fifoValue,
+                          BigDecimal averageUnitCost, BigDecimal averageValue, BigDecimal fifoReleasedCost,
+                          BigDecimal averageReleasedCost) {
+        this.branchId = branchId;
+        this.materialType = materialType;
+        this.valuedAt = valuedAt;
+        this.quantity = quantity;
+        this.fifoValue = fifoValue;
+        this.averageUnitCost = averageUnitCost;
+        this.averageValue = averageValue;
+        this.fifoReleasedCost = fifoReleasedCost;
+        this.averageReleasedCost = averageReleasedCost;
+    }
+
+    // Getters and Setters
+    public Long getBranchId() {
+        return branchId;
+    }
+
+    public void setBranchId(Long branchId) {
+        this.branchId = branchId;
+    }
+
+    public String getMaterialType() {
+        return materialType;
+    }
+
+    public void setMaterialType(String materialType) {
+        this.materialType = materialType;
+    }
+
+    public LocalDate getValuedAt() {
+        return valuedAt;
+    }
+
+    public void setValuedAt(LocalDate valuedAt) {
+        this.valuedAt = valuedAt;
+    }
+
+    public long getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(long quantity) {
+        this.quantity = quantity;
+    }
+
+    public BigDecimal getFifoValue() {
+        return fifoValue;
+    }
+
+    public void setFifoValue(BigDecimal fifoValue) {
+        this.fifoValue = fifoValue;
+    }
+
+    public BigDecimal getAverageUnitCost() {
+        return averageUnitCost;
+    }
+
+    public void setAverageUnitCost(BigDecimal averageUnitCost) {
+        this.averageUnitCost = averageUnitCost;
+    }
+
+    public BigDecimal getAverageValue() {
+        return averageValue;
+    }
+
+    public void setAverageValue(BigDecimal averageValue) {
+        this.averageValue = averageValue;
+    }
+
+    public BigDecimal getFifoReleasedCost() {
+        return fifoReleasedCost;
+    }
+
+    public void setFifoReleasedCost(BigDecimal fifoReleasedCost) {
+        this.fifoReleasedCost = fifoReleasedCost;
+    }
+
+    public BigDecimal getAverageReleasedCost() {
+        return averageReleasedCost;
+    }
+
+    public void setAverageReleasedCost(BigDecimal averageReleasedCost) {
+        this.averageReleasedCost = averageReleasedCost;
+    }
+}
@@ -0,0 +1,173 @@
+package com.ausyexpo.dto;
+
+public class SupplierPerformance {
+    private String supplierName;
+
+    // Null for the supplier's figures across all categories
+    private String category;
+
+    private long supplyCount;
+    private long totalQuantity;
+    private double totalCost;
+
+    private long deliveredCount;
+    private long cancelledCount;
+    private long openCount;
+
+    // Delivered / (delivered + cancelled); null until something was delivered or cancelled
+    private Double fillRate;
+
+    // Share of deliveries within the on-time target; null without deliveries
+    private Double onTimeRate;
+
+    // Lead time from request to delivery, in days
+    private Double leadTimeP50Days;
+    private Double leadTimeP90Days;
+    private Double leadTimeP95Days;
+    private Double leadTimeMaxDays;
+
+    private Double averageUnitPrice;
+    private Double unitPriceStdDev;
+
+    // Standard deviation over mean: how much this supplier's prices vary
+    private Double unitPriceVariation;
+
+    public SupplierPerformance() {}
+
+    // Getters and Setters
+    public String getSupplierName() {
+        return supplierName;
+    }
+
+    public void setSupplierName(String supplierName) {
+        this.supplierName = supplierName;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public void setCategory(String category) {
+        this.category = category;
+    }
+
+    public long getSupplyCount() {
+        return supplyCount;
+    }
+
+    public void setSupplyCount(long supplyCount) {
+        this.supplyCount = supplyCount;
+    }
+
+    public long getTotalQuantity() {
+        return totalQuantity;
+    }
+
+    public void setTotalQuantity(long totalQuantity) {
+        this.totalQuantity = totalQuantity;
+    }
+
+    public double getTotalCost() {
+        return totalCost;
+    }
+
+    public void setTotalCost(double totalCost) {
+        this.totalCost = totalCost;
+    }
+
+    public long getDeliveredCount() {
+        return deliveredCount;
+    }
+
+    public void setDeliveredCount(long deliveredCount) {
+        this.deliveredCount = deliveredCount;
+    }
+
+    public long getCancelledCount() {
+        return cancelledCount;
+    }
+
+    public void setCancelledCount(long cancelledCount) {
+        this.cancelledCount = cancelledCount;
+    }
+
+    public long getOpenCount() {
+        return openCount;
+    }
+
+    public void setOpenCount(long openCount) {
+        this.openCount = openCount;
+    }
+
+    public Double getFillRate() {
+        return fillRate;
+    }
+
+    public void setFillRate(Double fillRate) {
+        this.fillRate = fillRate;
+    }
+
+    public Double getOnTimeRate() {
+        return onTimeRate;
+    }
+
+    public void setOnTimeRate(Double onTimeRate) {
+        this.onTimeRate = onTimeRate;
+    }
+
+    public Double getLeadTimeP50Days() {
+        return leadTimeP50Days;
+    }
+
+    public void setLeadTimeP50Days(Double leadTimeP50Days) {
+        this.leadTimeP50Days = leadTimeP50Days;
+    }
+
+    public Double getLeadTimeP90Days() {
+        return leadTimeP90Days;
+    }
+
+    public void setLeadTimeP90Days(Double leadTimeP90Days) {
+        this.leadTimeP90Days = leadTimeP90Days;
+    }
+
+    public Double getLeadTimeP95Days() {
+        return leadTimeP95Days;
+    }
+
+    public void setLeadTimeP95Days(Double leadTimeP95Days) {
+        this.leadTimeP95Days = leadTimeP95Days;
+    }
+
+    public Double getLeadTimeMaxDays() {
+        return leadTimeMaxDays;
+    }
+
+    public void setLeadTimeMaxDays(Double leadTimeMaxDays) {
+        this.leadTimeMaxDays = leadTimeMaxDays;
+    }
+
+    public Double getAverageUnitPrice() {
+        return averageUnitPrice;
+    }
+
+    public void setAverageUnitPrice(Double averageUnitPrice) {
+        this.averageUnitPrice = averageUnitPrice;
+    }
+
+    public Double getUnitPriceStdDev() {
+        return unitPriceStdDev;
+    }
+
+    public void setUnitPriceStdDev(Double unitPriceStdDev) {
+        this.unitPriceStdDev = unitPriceStdDev;
+    }
+
+    public Double getUnitPriceVariation() {
+        return unitPriceVariation;
+    }
+
+    public void setUnitPriceVariation(Double unitPriceVariation) {
+        this.unitPriceVariation = unitPriceVariation;
+    }
+}
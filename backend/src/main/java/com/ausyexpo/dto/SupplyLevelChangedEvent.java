@@ -0,0 +1,17 @@
+package com.ausyexpo.dto;
+
+/**
+ * Published when a supply is created, deleted, or its quantity or minimum quantity may have changed.
+ */
+public class SupplyLevelChangedEvent {
+    private final Long supplyId;
+
+    public SupplyLevelChangedEvent(Long supplyId) {
+        this.supplyId = supplyId;
+    }
+
+    // Getters
+    public Long getSupplyId() {
+        return supplyId;
+    }
+}
@@ -0,0 +1,74 @@
+package com.ausyexpo.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * One GPS/fuel reading of a vehicle. Only the vehicle and the time are required; a ping may carry a
+ * position, a fuel level, a speed or any mix of them.
+ */
+public class TelemetryPoint {
+
+    private Long vehicleId;
+    private LocalDateTime recordedAt;
+    private Double latitude;
+    private Double longitude;
+    // Percent of a full tank
+    private Double fuelLevel;
+    // km/h
+    private Double speed;
+
+    public TelemetryPoint() {}
+
+    public boolean hasPosition() {
+        return latitude != null && longitude != null;
+    }
+
+    // Getters and Setters
+    public Long getVehicleId() {
+        return vehicleId;
+    }
+
+    public void setVehicleId(Long vehicleId) {
+        this.vehicleId = vehicleId;
+    }
+
+    public LocalDateTime getRecordedAt() {
+        return recordedAt;
+    }
+
+    public void setRecordedAt(LocalDateTime recordedAt) {
+        this.recordedAt = recordedAt;
+    }
+
+    public Double getLatitude() {
+        return latitude;
+    }
+
+    public void setLatitude(Double latitude) {
+        this.latitude = latitude;
+    }
+
+    public Double getLongitude() {
+        return longitude;
+    }
+
+    public void setLongitude(Double longitude) {
+        this.longitude = longitude;
+    }
+
+    public Double getFuelLevel() {
+        return fuelLevel;
+    }
+
+    public void setFuelLevel(Double fuelLevel) {
+        this.fuelLevel = fuelLevel;
+    }
+
+    public Double getSpeed() {
+        return speed;
+    }
+
+    public void setSpeed(Double speed) {
+        this.speed = speed;
+    }
+}
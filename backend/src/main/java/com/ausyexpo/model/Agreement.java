@@ -4,6 +4,10 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.LazyGroup;
+
+import jakarta.persistence.Basic;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
@@ -14,10 +18,12 @@ import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 
 @Entity
+@DynamicUpdate
 @Table(name = "agreements")
 public class Agreement {
     @Id
@@ -37,6 +43,8 @@ public class Agreement {
 
     private String clientEmail;
 
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("details")
     private String description;
 
     @NotNull
@@ -51,8 +59,12 @@ public class Agreement {
 
     private String status;
 
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("details")
     private String terms;
 
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("details")
     private String deliverables;
 
     private String paymentTerms;
@@ -71,6 +83,10 @@ public class Agreement {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    @Version
+    @Column(nullable = false, columnDefinition = "BIGINT DEFAULT 0")
+    private Long version;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "branch_id")
     private Branch branch;
@@ -242,6 +258,14 @@ public class Agreement {
         this.updatedAt = updatedAt;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public Branch getBranch() {
         return branch;
     }
@@ -2,18 +2,26 @@ package com.ausyexpo.model;
 
 import java.time.LocalDateTime;
 
+import org.hibernate.annotations.LazyGroup;
+
+import jakarta.persistence.Basic;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 
 @Entity
-@Table(name = "branches")
+@Table(name = "branches", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_branch_name", columnNames = "name"),
+    @UniqueConstraint(name = "uk_branch_email", columnNames = "email")
+})
 public class Branch {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -50,6 +58,8 @@ public class Branch {
     @Column(nullable = true)
     private String manager;
     
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("details")
     @Column(nullable = true, columnDefinition = "TEXT")
     private String description;
     
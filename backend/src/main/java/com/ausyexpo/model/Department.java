@@ -3,6 +3,7 @@ package com.ausyexpo.model;
 import java.time.LocalDateTime;
 import java.util.List;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 import jakarta.persistence.CascadeType;
@@ -42,8 +43,9 @@ public class Department {
     @JsonIgnoreProperties({"hibernateLazyInitializer", "handler", "departments"})
     private Branch branch;
 
+    // Not serialized: it would load every employee of the department; counts come from HeadcountService
     @OneToMany(mappedBy = "department", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
-    @JsonIgnoreProperties({"hibernateLazyInitializer", "handler", "department", "branch"})
+    @JsonIgnore
     private List<Employee> employees;
 
     // Constructors
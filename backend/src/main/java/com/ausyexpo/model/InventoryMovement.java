@@ -0,0 +1,174 @@
+package com.ausyexpo.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+
+/**
+ * One append-only inventory ledger entry. Balances per (branch, material type) are the sums of the deltas;
+ * rows are never updated or deleted.
+ */
+@Entity
+@Table(name = "inventory_movements", indexes = {
+    @Index(name = "idx_movement_branch_material", columnList = "branch_id, material_type"),
+    @Index(name = "idx_movement_related", columnList = "related_movement_id", unique = true)
+})
+public class InventoryMovement {
+
+    public enum Type {
+        RECEIVE, RESERVE, UNRESERVE, RELEASE, ADJUST
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Type type;
+
+    @Column(name = "branch_id")
+    private Long branchId;
+
+    @Column(name = "material_type", nullable = false)
+    private String materialType;
+
+    @Column(name = "on_hand_delta", nullable = false)
+    private int onHandDelta;
+
+    @Column(name = "reserved_delta", nullable = false)
+    private int reservedDelta;
+
+    @Column(name = "lot_delta", nullable = false)
+    private int lotDelta;
+
+    // The stock lot that caused the movement, if any
+    @Column(name = "stock_id")
+    private Long stockId;
+
+    // For UNRESERVE, the reservation it cancels; unique so a reservation can only be cancelled once
+    @Column(name = "related_movement_id")
+    private Long relatedMovementId;
+
+    private String reference;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public InventoryMovement() {}
+
+    public InventoryMovement(Type type, Long branchId, String materialType, int onHandDelta, int reservedDelta,
+                             int lotDelta) {
+        this.type = type;
+        this.branchId = branchId;
+        this.materialType = materialType;
+        this.onHandDelta = onHandDelta;
+        this.reservedDelta = reservedDelta;
+        this.lotDelta = lotDelta;
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public Long getBranchId() {
+        return branchId;
+    }
+
+    public void setBranchId(Long branchId) {
+        this.branchId = branchId;
+    }
+
+    public String getMaterialType() {
+        return materialType;
+    }
+
+    public void setMaterialType(String materialType) {
+        this.materialType = materialType;
+    }
+
+    public int getOnHandDelta() {
+        return onHandDelta;
+    }
+
+    public void setOnHandDelta(int onHandDelta) {
+        this.onHandDelta = onHandDelta;
+    }
+
+    public int getReservedDelta() {
+        return reservedDelta;
+    }
+
+    public void setReservedDelta(int reservedDelta) {
+        this.reservedDelta = reservedDelta;
+    }
+
+    public int getLotDelta() {
+        return lotDelta;
+    }
+
+    public void setLotDelta(int lotDelta) {
+        this.lotDelta = lotDelta;
+    }
+
+    public Long getStockId() {
+        return stockId;
+    }
+
+    public void setStockId(Long stockId) {
+        this.stockId = stockId;
+    }
+
+    public Long getRelatedMovementId() {
+        return relatedMovementId;
+    }
+
+    public void setRelatedMovementId(Long relatedMovementId) {
+        this.relatedMovementId = relatedMovementId;
+    }
+
+    public String getReference() {
+        return reference;
+    }
+
+    public void setReference(String reference) {
+        this.reference = reference;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
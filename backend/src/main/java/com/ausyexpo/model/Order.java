@@ -3,6 +3,10 @@ package com.ausyexpo.model;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.LazyGroup;
+
+import jakarta.persistence.Basic;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
@@ -14,10 +18,12 @@ import jakarta.persistence.ManyToOne;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 
 @Entity
+@DynamicUpdate
 @Table(name = "orders")
 public class Order {
     
@@ -26,6 +32,7 @@ public class Order {
     private Long id;
 
     @NotBlank
+    @Column(unique = true)
     private String orderNumber;
 
     @NotBlank
@@ -69,9 +76,13 @@ public class Order {
     @Column(name = "actual_delivery_date")
     private LocalDateTime actualDeliveryDate;
     
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("details")
     @Column(columnDefinition = "TEXT")
     private String notes;
     
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("details")
     @Column(columnDefinition = "TEXT")
     private String specifications;
     
@@ -85,6 +96,10 @@ public class Order {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    @Version
+    @Column(nullable = false, columnDefinition = "BIGINT DEFAULT 0")
+    private Long version;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "branch_id")
     private Branch branch;
@@ -299,6 +314,14 @@ public class Order {
         this.updatedAt = updatedAt;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public Branch getBranch() {
         return branch;
     }
@@ -0,0 +1,102 @@
+package com.ausyexpo.model;
+
+import java.math.BigDecimal;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+/**
+ * The salary of one employee as paid by one payroll run. Written in JDBC batches by PayrollService.
+ */
+@Entity
+@Table(name = "payroll_entries", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_payroll_entry_employee", columnNames = {"run_id", "employee_id"})
+})
+public class PayrollEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "run_id", nullable = false)
+    private Long runId;
+
+    @Column(name = "employee_id", nullable = false)
+    private Long employeeId;
+
+    @Column(name = "basic_salary", precision = 10, scale = 2)
+    private BigDecimal basicSalary;
+
+    @Column(precision = 10, scale = 2)
+    private BigDecimal increments;
+
+    @Column(precision = 10, scale = 2)
+    private BigDecimal decrements;
+
+    @Column(name = "final_salary", precision = 10, scale = 2)
+    private BigDecimal finalSalary;
+
+    public PayrollEntry() {}
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getRunId() {
+        return runId;
+    }
+
+    public void setRunId(Long runId) {
+        this.runId = runId;
+    }
+
+    public Long getEmployeeId() {
+        return employeeId;
+    }
+
+    public void setEmployeeId(Long employeeId) {
+        this.employeeId = employeeId;
+    }
+
+    public BigDecimal getBasicSalary() {
+        return basicSalary;
+    }
+
+    public void setBasicSalary(BigDecimal basicSalary) {
+        this.basicSalary = basicSalary;
+    }
+
+    public BigDecimal getIncrements() {
+        return increments;
+    }
+
+    public void setIncrements(BigDecimal increments) {
+        this.increments = increments;
+    }
+
+    public BigDecimal getDecrements() {
+        return decrements;
+    }
+
+    public void setDecrements(BigDecimal decrements) {
+        this.decrements = decrements;
+    }
+
+    public BigDecimal getFinalSalary() {
+        return finalSalary;
+    }
+
+    public void setFinalSalary(BigDecimal finalSalary) {
+        this.finalSalary = finalSalary;
+    }
+}
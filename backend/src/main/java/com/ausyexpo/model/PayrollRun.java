@@ -0,0 +1,170 @@
+package com.ausyexpo.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * One payroll batch for a pay period. Employees are processed in id order and the checkpoint is the
+ * highest employee id below which every entry is committed, so a failed run resumes right after it.
+ */
+@Entity
+@Table(name = "payroll_runs", indexes = {
+    @Index(name = "idx_payroll_run_period", columnList = "period, status")
+})
+public class PayrollRun {
+
+    public enum Status {
+        RUNNING, FAILED, COMPLETED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Pay period as yyyy-MM
+    @Column(nullable = false, length = 7)
+    private String period;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status = Status.RUNNING;
+
+    @Column(name = "checkpoint_employee_id", nullable = false)
+    private Long checkpointEmployeeId = 0L;
+
+    @Column(name = "processed_count", nullable = false)
+    private Long processedCount = 0L;
+
+    // Employees without a salary record
+    @Column(name = "skipped_count", nullable = false)
+    private Long skippedCount = 0L;
+
+    @Column(name = "total_amount", precision = 15, scale = 2, nullable = false)
+    private BigDecimal totalAmount = BigDecimal.ZERO;
+
+    @Column(nullable = false)
+    private Integer attempts = 1;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "started_by_id")
+    private Long startedById;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    public PayrollRun() {
+        this.startedAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getPeriod() {
+        return period;
+    }
+
+    public void setPeriod(String period) {
+        this.period = period;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public Long getCheckpointEmployeeId() {
+        return checkpointEmployeeId;
+    }
+
+    public void setCheckpointEmployeeId(Long checkpointEmployeeId) {
+        this.checkpointEmployeeId = checkpointEmployeeId;
+    }
+
+    public Long getProcessedCount() {
+        return processedCount;
+    }
+
+    public void setProcessedCount(Long processedCount) {
+        this.processedCount = processedCount;
+    }
+
+    public Long getSkippedCount() {
+        return skippedCount;
+    }
+
+    public void setSkippedCount(Long skippedCount) {
+        this.skippedCount = skippedCount;
+    }
+
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+
+    public void setTotalAmount(BigDecimal totalAmount) {
+        this.totalAmount = totalAmount;
+    }
+
+    public Integer getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(Integer attempts) {
+        this.attempts = attempts;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public Long getStartedById() {
+        return startedById;
+    }
+
+    public void setStartedById(Long startedById) {
+        this.startedById = startedById;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+}
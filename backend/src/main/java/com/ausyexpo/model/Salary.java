@@ -61,7 +61,16 @@ public class Salary {
 
     // Calculate final salary
     public void calculateFinalSalary() {
-        this.finalSalary = basicSalary.add(increments).subtract(decrements);
+        this.finalSalary = finalSalaryOf(basicSalary, increments, decrements);
+    }
+
+    // Shared with the payroll batch, which computes it without loading entities
+    public static BigDecimal finalSalaryOf(BigDecimal basicSalary, BigDecimal increments, BigDecimal decrements) {
+        if (basicSalary == null) {
+            return null;
+        }
+        return basicSalary.add(increments != null ? increments : BigDecimal.ZERO)
+                .subtract(decrements != null ? decrements : BigDecimal.ZERO);
     }
 
     // Getters and Setters
@@ -0,0 +1,99 @@
+package com.ausyexpo.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.Table;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * Low-stock alert settings of one branch. Branches without a row use the application defaults.
+ */
+@Entity
+@Table(name = "stock_alert_settings")
+public class StockAlertSetting {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "branch_id", nullable = false, unique = true)
+    private Long branchId;
+
+    // A material is low when its available quantity is at or below this
+    @NotNull
+    @Min(0)
+    @Column(name = "stock_threshold", nullable = false)
+    private Integer stockThreshold;
+
+    // How far above the low mark a level must climb before its alert clears
+    @NotNull
+    @Min(0)
+    @Column(nullable = false)
+    private Integer hysteresis;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public StockAlertSetting() {}
+
+    public StockAlertSetting(Long branchId, Integer stockThreshold, Integer hysteresis) {
+        this.branchId = branchId;
+        this.stockThreshold = stockThreshold;
+        this.hysteresis = hysteresis;
+    }
+
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getBranchId() {
+        return branchId;
+    }
+
+    public void setBranchId(Long branchId) {
+        this.branchId = branchId;
+    }
+
+    public Integer getStockThreshold() {
+        return stockThreshold;
+    }
+
+    public void setStockThreshold(Integer stockThreshold) {
+        this.stockThreshold = stockThreshold;
+    }
+
+    public Integer getHysteresis() {
+        return hysteresis;
+    }
+
+    public void setHysteresis(Integer hysteresis) {
+        this.hysteresis = hysteresis;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -2,6 +2,9 @@ package com.ausyexpo.model;
 
 import java.time.LocalDateTime;
 
+import org.hibernate.annotations.LazyGroup;
+
+import jakarta.persistence.Basic;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
@@ -28,6 +31,8 @@ public class Transportation {
     @Column(unique = true)
     private String vehicleNumber;
 
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("details")
     @Column(columnDefinition = "TEXT")
     private String maintenanceDetails;
 
@@ -0,0 +1,100 @@
+package com.ausyexpo.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * Time-series row of vehicle telemetry. Rows are written in JDBC batches by TelemetryService and never
+ * updated; the entity only declares the table, kept narrow on purpose.
+ */
+@Entity
+@Table(name = "vehicle_telemetry", indexes = {
+    @Index(name = "idx_vehicle_telemetry_time", columnList = "transportation_id, recorded_at")
+})
+public class VehicleTelemetry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "transportation_id", nullable = false)
+    private Long transportationId;
+
+    @Column(name = "recorded_at", nullable = false)
+    private LocalDateTime recordedAt;
+
+    private Double latitude;
+
+    private Double longitude;
+
+    @Column(name = "fuel_level")
+    private Float fuelLevel;
+
+    private Float speed;
+
+    public VehicleTelemetry() {}
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getTransportationId() {
+        return transportationId;
+    }
+
+    public void setTransportationId(Long transportationId) {
+        this.transportationId = transportationId;
+    }
+
+    public LocalDateTime getRecordedAt() {
+        return recordedAt;
+    }
+
+    public void setRecordedAt(LocalDateTime recordedAt) {
+        this.recordedAt = recordedAt;
+    }
+
+    public Double getLatitude() {
+        return latitude;
+    }
+
+    public void setLatitude(Double latitude) {
+        this.latitude = latitude;
+    }
+
+    public Double getLongitude() {
+        return longitude;
+    }
+
+    public void setLongitude(Double longitude) {
+        this.longitude = longitude;
+    }
+
+    public Float getFuelLevel() {
+        return fuelLevel;
+    }
+
+    public void setFuelLevel(Float fuelLevel) {
+        this.fuelLevel = fuelLevel;
+    }
+
+    public Float getSpeed() {
+        return speed;
+    }
+
+    public void setSpeed(Float speed) {
+        this.speed = speed;
+    }
+}
@@ -0,0 +1,16 @@
+package com.ausyexpo.repository;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.ausyexpo.model.AgreementDocument;
+
+@Repository
+public interface AgreementDocumentRepository extends JpaRepository<AgreementDocument, Long> {
+
+    Optional<AgreementDocument> findByAgreementId(Long agreementId);
+
+    long countBySha256(String sha256);
+}
@@ -1,9 +1,12 @@
 package com.ausyexpo.repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -60,4 +63,17 @@ public interface AgreementRepository extends JpaRepository<Agreement, Long> {
     
     @Query("SELECT SUM(a.contractValue) FROM Agreement a WHERE a.isActive = true")
     Double getTotalContractValue();
+
+    // Agreements that can still expire, for the deadline scheduler
+    @Query("SELECT a.id, a.endDate, b.id FROM Agreement a LEFT JOIN a.branch b WHERE a.endDate IS NOT NULL " +
+           "AND (a.status IS NULL OR a.status NOT IN ('Completed', 'Cancelled', 'Expired'))")
+    List<Object[]> findOpenEndDeadlines();
+
+    // Marks a batch of agreements Expired, skipping any that were closed or extended in the meantime
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Agreement a SET a.status = 'Expired', a.updatedAt = :now, a.version = a.version + 1 " +
+           "WHERE a.id IN :ids AND a.endDate < :today " +
+           "AND (a.status IS NULL OR a.status NOT IN ('Completed', 'Cancelled', 'Expired'))")
+    int markExpired(@Param("ids") Collection<Long> ids, @Param("today") LocalDate today,
+                    @Param("now") LocalDateTime now);
 }
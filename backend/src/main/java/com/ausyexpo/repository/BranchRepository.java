@@ -21,6 +21,12 @@ public interface BranchRepository extends JpaRepository<Branch, Long> {
     
     List<Branch> findByIsActive(Boolean isActive);
     
+    @Query("SELECT b.name FROM Branch b")
+    List<String> findAllNames();
+    
+    @Query("SELECT b.email FROM Branch b WHERE b.email IS NOT NULL")
+    List<String> findAllEmails();
+    
     @Query("SELECT b FROM Branch b WHERE " +
            "LOWER(b.name) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
            "LOWER(b.address) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
@@ -1,9 +1,11 @@
 package com.ausyexpo.repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -60,4 +62,37 @@ public interface CommandRepository extends JpaRepository<Command, Long> {
     
     @Query("SELECT c.priority, COUNT(c) FROM Command c GROUP BY c.priority")
     List<Object[]> getCommandPriorityStatistics();
+    
+    // Bulk status transitions; completedDate is only filled in where it is still empty
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Command c SET c.status = :status, c.updatedAt = :now, c.version = c.version + 1, " +
+           "c.completedDate = COALESCE(c.completedDate, :completedAt) WHERE c.id IN :ids")
+    int bulkUpdateStatusByIds(@Param("ids") Collection<Long> ids,
+                              @Param("status") Command.Status status,
+                              @Param("completedAt") LocalDateTime completedAt,
+                              @Param("now") LocalDateTime now);
+    
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Command c SET c.status = :status, c.updatedAt = :now, c.version = c.version + 1, " +
+           "c.completedDate = COALESCE(c.completedDate, :completedAt) WHERE " +
+           "(:fromStatus IS NULL OR c.status = :fromStatus) AND " +
+           "(:branchId IS NULL OR c.branch.id = :branchId) AND " +
+           "(:assignedToId IS NULL OR c.assignedTo.id = :assignedToId)")
+    int bulkUpdateStatusByFilter(@Param("fromStatus") Command.Status fromStatus,
+                                 @Param("branchId") Long branchId,
+                                 @Param("assignedToId") Long assignedToId,
+                                 @Param("status") Command.Status status,
+                                 @Param("completedAt") LocalDateTime completedAt,
+                                 @Param("now") LocalDateTime now);
+
+    // Open commands with a due date, for the deadline scheduler
+    @Query("SELECT c.id, c.dueDate FROM Command c WHERE c.dueDate IS NOT NULL " +
+           "AND c.status NOT IN ('COMPLETED', 'CANCELLED')")
+    List<Object[]> findOpenDueDeadlines();
+
+    // Open assigned commands for the assignee inboxes; the row layout is read by CommandInboxService
+    @Query("SELECT c.id, c.title, c.type, c.priority, c.status, c.dueDate, c.updatedAt, c.version, a.id, " +
+           "i.id, i.firstName, i.lastName FROM Command c JOIN c.assignedTo a JOIN c.issuedBy i " +
+           "WHERE c.status NOT IN ('COMPLETED', 'CANCELLED')")
+    List<Object[]> findOpenAssigned();
 }
@@ -32,11 +32,9 @@ public interface DepartmentRepository extends JpaRepository<Department, Long> {
     List<Department> findBySearchCriteria(@Param("branchId") Long branchId,
                                         @Param("name") String name);
     
-    // Get departments with employee count
-    @Query("SELECT d, COUNT(e) FROM Department d LEFT JOIN d.employees e " +
-           "WHERE (:branchId IS NULL OR d.branch.id = :branchId) " +
-           "GROUP BY d.id ORDER BY d.name")
-    List<Object[]> findDepartmentsWithEmployeeCount(@Param("branchId") Long branchId);
+    // Departments of a branch, or all of them, by name; employee counts come from the headcount index
+    @Query("SELECT d FROM Department d WHERE (:branchId IS NULL OR d.branch.id = :branchId) ORDER BY d.name")
+    List<Department> findForBranchOrderByName(@Param("branchId") Long branchId);
     
     // Count departments by branch
     long countByBranchId(Long branchId);
@@ -20,4 +20,8 @@ public interface EmployeeRepository extends JpaRepository<Employee, Long> {
     
     @Query("SELECT e.gender, COUNT(e) FROM Employee e GROUP BY e.gender")
     List<Object[]> getEmployeeCountByGender();
+
+    // id, branch id, department id, gender for the headcount index
+    @Query("SELECT e.id, b.id, d.id, e.gender FROM Employee e LEFT JOIN e.branch b LEFT JOIN e.department d")
+    List<Object[]> findPlacements();
 }
@@ -0,0 +1,14 @@
+package com.ausyexpo.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.ausyexpo.model.GeoLocation;
+
+@Repository
+public interface GeoLocationRepository extends JpaRepository<GeoLocation, Long> {
+
+    List<GeoLocation> findByAddressKeyIn(List<String> addressKeys);
+}
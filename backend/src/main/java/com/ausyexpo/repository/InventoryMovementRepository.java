@@ -0,0 +1,37 @@
+package com.ausyexpo.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.ausyexpo.model.InventoryMovement;
+
+@Repository
+public interface InventoryMovementRepository extends JpaRepository<InventoryMovement, Long> {
+
+    // Balances as the ledger defines them: branchId, materialType, onHand, reserved, lots
+    @Query("SELECT m.branchId, m.materialType, SUM(m.onHandDelta), SUM(m.reservedDelta), SUM(m.lotDelta) " +
+           "FROM InventoryMovement m GROUP BY m.branchId, m.materialType")
+    List<Object[]> sumBalances();
+
+    @Query("SELECT m FROM InventoryMovement m WHERE " +
+           "(:branchId IS NULL OR m.branchId = :branchId) AND " +
+           "(:materialType IS NULL OR LOWER(m.materialType) = :materialType) " +
+           "ORDER BY m.id DESC")
+    List<InventoryMovement> findRecent(@Param("branchId") Long branchId,
+                                       @Param("materialType") String materialType,
+                                       Pageable pageable);
+
+    boolean existsByRelatedMovementId(Long relatedMovementId);
+
+    // On-hand change per material type from one movement type since the given time: materialType, delta
+    @Query("SELECT m.materialType, SUM(m.onHandDelta) FROM InventoryMovement m " +
+           "WHERE m.branchId = :branchId AND m.type = :type AND m.createdAt >= :since GROUP BY m.materialType")
+    List<Object[]> sumOnHandDeltaSince(@Param("branchId") Long branchId, @Param("type") InventoryMovement.Type type,
+                                       @Param("since") LocalDateTime since);
+}
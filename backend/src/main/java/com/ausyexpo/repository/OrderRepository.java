@@ -1,9 +1,11 @@
 package com.ausyexpo.repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -18,6 +20,8 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     List<Order> findByCustomerId(Long customerId);
     
     List<Order> findByStatus(String status);
+
+    List<Order> findByBranchIdAndStatus(Long branchId, String status);
     
     List<Order> findByPriority(String priority);
     
@@ -27,6 +31,12 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     
     boolean existsByOrderNumberAndIdNot(String orderNumber, Long id);
     
+    @Query("SELECT o.orderNumber FROM Order o")
+    List<String> findAllOrderNumbers();
+    
+    @Query("SELECT o.orderNumber FROM Order o WHERE o.orderNumber IN :orderNumbers")
+    List<String> findExistingOrderNumbers(@Param("orderNumbers") Collection<String> orderNumbers);
+    
     @Query("SELECT o FROM Order o WHERE " +
            "(:branchId IS NULL OR o.branch.id = :branchId) AND " +
            "(:status IS NULL OR LOWER(o.status) = LOWER(:status)) AND " +
@@ -72,4 +82,29 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     @Query("SELECT o FROM Order o WHERE o.orderDate >= :startDate AND o.orderDate <= :endDate ORDER BY o.orderDate DESC")
     List<Order> findOrdersByDateRange(@Param("startDate") LocalDateTime startDate, 
                                      @Param("endDate") LocalDateTime endDate);
+    
+    // Bulk status transitions; actualDeliveryDate is set to now only when delivered is true
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Order o SET o.status = :status, o.updatedAt = :now, o.version = o.version + 1, " +
+           "o.actualDeliveryDate = CASE WHEN :delivered = true THEN :now ELSE o.actualDeliveryDate END WHERE o.id IN :ids")
+    int bulkUpdateStatusByIds(@Param("ids") Collection<Long> ids,
+                              @Param("status") String status,
+                              @Param("delivered") boolean delivered,
+                              @Param("now") LocalDateTime now);
+    
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Order o SET o.status = :status, o.updatedAt = :now, o.version = o.version + 1, " +
+           "o.actualDeliveryDate = CASE WHEN :delivered = true THEN :now ELSE o.actualDeliveryDate END WHERE " +
+           "(:fromStatus IS NULL OR o.status = :fromStatus) AND " +
+           "(:branchId IS NULL OR o.branch.id = :branchId)")
+    int bulkUpdateStatusByFilter(@Param("fromStatus") String fromStatus,
+                                 @Param("branchId") Long branchId,
+                                 @Param("status") String status,
+                                 @Param("delivered") boolean delivered,
+                                 @Param("now") LocalDateTime now);
+
+    // Open orders with a delivery date, for the deadline scheduler
+    @Query("SELECT o.id, o.expectedDeliveryDate FROM Order o WHERE o.expectedDeliveryDate IS NOT NULL " +
+           "AND o.status NOT IN ('DELIVERED', 'CANCELLED')")
+    List<Object[]> findOpenDeliveryDeadlines();
 }
@@ -0,0 +1,33 @@
+package com.ausyexpo.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.ausyexpo.model.OutboxEvent;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    @Query("SELECT e FROM OutboxEvent e WHERE e.publishedAt IS NULL ORDER BY e.id")
+    List<OutboxEvent> findUnpublished(Pageable pageable);
+
+    @Query("SELECT e FROM OutboxEvent e WHERE e.sequence > :after AND e.aggregateType = :aggregateType ORDER BY e.sequence")
+    List<OutboxEvent> findPublishedAfter(@Param("aggregateType") String aggregateType, @Param("after") Long after,
+                                         Pageable pageable);
+
+    @Query("SELECT MAX(e.sequence) FROM OutboxEvent e")
+    Long findMaxSequence();
+
+    long countByPublishedAtIsNull();
+
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.publishedAt < :before")
+    int deletePublishedBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,14 @@
+package com.ausyexpo.repository;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.ausyexpo.model.PayrollEntry;
+
+@Repository
+public interface PayrollEntryRepository extends JpaRepository<PayrollEntry, Long> {
+
+    Page<PayrollEntry> findByRunIdOrderByEmployeeId(Long runId, Pageable pageable);
+}
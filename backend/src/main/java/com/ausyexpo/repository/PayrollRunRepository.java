@@ -0,0 +1,27 @@
+package com.ausyexpo.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.ausyexpo.model.PayrollRun;
+
+@Repository
+public interface PayrollRunRepository extends JpaRepository<PayrollRun, Long> {
+
+    List<PayrollRun> findAllByOrderByStartedAtDesc();
+
+    List<PayrollRun> findByPeriodAndStatusIn(String period, List<PayrollRun.Status> statuses);
+
+    boolean existsByStatus(PayrollRun.Status status);
+
+    // Runs cut off by a shutdown; they can be resumed from their checkpoint
+    @Modifying
+    @Query("UPDATE PayrollRun r SET r.status = :failed, r.lastError = :reason WHERE r.status = :running")
+    int failRunning(@Param("running") PayrollRun.Status running, @Param("failed") PayrollRun.Status failed,
+                    @Param("reason") String reason);
+}
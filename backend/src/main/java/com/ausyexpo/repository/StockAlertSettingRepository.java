@@ -0,0 +1,14 @@
+package com.ausyexpo.repository;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.ausyexpo.model.StockAlertSetting;
+
+@Repository
+public interface StockAlertSettingRepository extends JpaRepository<StockAlertSetting, Long> {
+
+    Optional<StockAlertSetting> findByBranchId(Long branchId);
+}
@@ -1,8 +1,10 @@
 package com.ausyexpo.repository;
 
+import java.time.LocalDate;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -52,4 +54,19 @@ public interface StockRepository extends JpaRepository<Stock, Long> {
     // Get low stock items (quantity below threshold)
     @Query("SELECT s FROM Stock s WHERE s.quantity <= :threshold AND s.releaseDate IS NULL")
     List<Stock> findLowStockItems(@Param("threshold") Integer threshold);
+
+    // Release a lot only if it is still on hand; returns 0 when someone else released it first
+    @Modifying
+    @Query("UPDATE Stock s SET s.releaseDate = :releaseDate WHERE s.id = :id AND s.releaseDate IS NULL")
+    int markReleased(@Param("id") Long id, @Param("releaseDate") LocalDate releaseDate);
+
+    // Valuation input rows: id, branchId, materialType, quantity, price, purchaseDate, releaseDate
+    @Query("SELECT s.id, b.id, TRIM(s.materialType), s.quantity, s.price, s.purchaseDate, s.releaseDate " +
+           "FROM Stock s LEFT JOIN s.branch b")
+    List<Object[]> findValuationLots();
+
+    @Query("SELECT s.id, b.id, TRIM(s.materialType), s.quantity, s.price, s.purchaseDate, s.releaseDate " +
+           "FROM Stock s LEFT JOIN s.branch b WHERE TRIM(s.materialType) = :materialType AND " +
+           "((:branchId IS NULL AND b.id IS NULL) OR b.id = :branchId)")
+    List<Object[]> findValuationLots(@Param("branchId") Long branchId, @Param("materialType") String materialType);
 }
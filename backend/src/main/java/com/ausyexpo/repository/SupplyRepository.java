@@ -1,14 +1,21 @@
 package com.ausyexpo.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.ausyexpo.model.Supply;
 
+import jakarta.persistence.QueryHint;
+
 @Repository
 public interface SupplyRepository extends JpaRepository<Supply, Long> {
 
@@ -43,10 +50,63 @@ public interface SupplyRepository extends JpaRepository<Supply, Long> {
     
     @Query("SELECT s FROM Supply s WHERE s.quantity < s.minimumQuantity")
     List<Supply> findLowStockSupplies();
+
+    // Alert index rows: id, branchId, itemName, materialType, quantity, minimumQuantity
+    @Query("SELECT s.id, b.id, s.itemName, s.materialType, s.quantity, s.minimumQuantity " +
+           "FROM Supply s LEFT JOIN s.branch b WHERE s.minimumQuantity > 0")
+    List<Object[]> findAlertLevels();
+
+    @Query("SELECT s.id, b.id, s.itemName, s.materialType, s.quantity, s.minimumQuantity " +
+           "FROM Supply s LEFT JOIN s.branch b WHERE s.id = :id")
+    List<Object[]> findAlertLevelById(@Param("id") Long id);
     
     @Query("SELECT s.category, COUNT(s) FROM Supply s GROUP BY s.category")
     List<Object[]> getSuppliesByCategory();
     
     @Query("SELECT s.status, COUNT(s) FROM Supply s GROUP BY s.status")
     List<Object[]> getSuppliesByStatus();
+    
+    // Bulk status transitions; deliveryDate is only filled in where it is still empty
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Supply s SET s.status = :status, s.updatedAt = :now, s.version = s.version + 1, " +
+           "s.deliveryDate = COALESCE(s.deliveryDate, :completedAt) WHERE s.id IN :ids")
+    int bulkUpdateStatusByIds(@Param("ids") Collection<Long> ids,
+                              @Param("status") String status,
+                              @Param("completedAt") LocalDateTime completedAt,
+                              @Param("now") LocalDateTime now);
+    
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Supply s SET s.status = :status, s.updatedAt = :now, s.version = s.version + 1, " +
+           "s.deliveryDate = COALESCE(s.deliveryDate, :completedAt) WHERE " +
+           "(:fromStatus IS NULL OR s.status = :fromStatus) AND " +
+           "(:branchId IS NULL OR s.branch.id = :branchId)")
+    int bulkUpdateStatusByFilter(@Param("fromStatus") String fromStatus,
+                                 @Param("branchId") Long branchId,
+                                 @Param("status") String status,
+                                 @Param("completedAt") LocalDateTime completedAt,
+                                 @Param("now") LocalDateTime now);
+
+    // Branches with at least one supply the replenishment planner looks after
+    @Query("SELECT DISTINCT b.id FROM Supply s JOIN s.branch b " +
+           "WHERE s.minimumQuantity > 0 AND s.status NOT IN ('DRAFT', 'CANCELLED')")
+    List<Long> findReplenishmentBranchIds();
+
+    // Planner rows, newest first: id, itemName, supplierName, supplierContact, materialType, category, unit,
+    // unitPrice, quantity, minimumQuantity
+    @Query("SELECT s.id, s.itemName, s.supplierName, s.supplierContact, s.materialType, s.category, s.unit, " +
+           "s.unitPrice, s.quantity, s.minimumQuantity FROM Supply s " +
+           "WHERE s.branch.id = :branchId AND s.minimumQuantity > 0 AND s.status NOT IN ('DRAFT', 'CANCELLED') " +
+           "ORDER BY s.id DESC")
+    List<Object[]> findReplenishmentItems(@Param("branchId") Long branchId);
+
+    // itemName, supplierName of drafts not yet acted on
+    @Query("SELECT s.itemName, s.supplierName FROM Supply s WHERE s.branch.id = :branchId AND s.status = 'DRAFT'")
+    List<Object[]> findDraftKeys(@Param("branchId") Long branchId);
+
+    // Supplier analytics input, streamed: id, supplierName, category, status, requestDate, deliveryDate,
+    // quantity, unitPrice, totalCost. Must be consumed inside a transaction
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    @Query("SELECT s.id, s.supplierName, s.category, s.status, s.requestDate, s.deliveryDate, s.quantity, " +
+           "s.unitPrice, s.totalCost FROM Supply s")
+    Stream<Object[]> streamAnalyticsRows();
 }
@@ -1,14 +1,18 @@
 package com.ausyexpo.repository;
 
 import java.util.List;
+import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.ausyexpo.model.Transportation;
 
+import jakarta.persistence.LockModeType;
+
 @Repository
 public interface TransportationRepository extends JpaRepository<Transportation, Long> {
 
@@ -44,7 +48,21 @@ public interface TransportationRepository extends JpaRepository<Transportation,
     
     boolean existsByVehicleNumberAndIdNot(String vehicleNumber, Long id);
     
+    @Query("SELECT t.vehicleNumber FROM Transportation t")
+    List<String> findAllVehicleNumbers();
+    
     @Query("SELECT t FROM Transportation t WHERE t.isActive = true AND " +
            "(:branchId IS NULL OR t.branch.id = :branchId)")
     List<Transportation> findAvailableVehicles(@Param("branchId") Long branchId);
+
+    @Query("SELECT t FROM Transportation t WHERE t.isActive = true AND " +
+           "(:branchId IS NULL OR t.branch.id = :branchId) AND " +
+           "(:minCapacity IS NULL OR t.capacity >= :minCapacity)")
+    List<Transportation> findAvailableVehiclesWithCapacity(@Param("branchId") Long branchId,
+                                                           @Param("minCapacity") Double minCapacity);
+
+    // Row lock that serializes bookings of one vehicle; other vehicles are unaffected
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM Transportation t WHERE t.id = :id")
+    Optional<Transportation> findByIdForUpdate(@Param("id") Long id);
 }
@@ -0,0 +1,34 @@
+package com.ausyexpo.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.ausyexpo.model.VehicleBooking;
+
+@Repository
+public interface VehicleBookingRepository extends JpaRepository<VehicleBooking, Long> {
+
+    // Active bookings of a vehicle overlapping [start, end)
+    @Query("SELECT b FROM VehicleBooking b WHERE b.transportationId = :vehicleId AND b.status = :status " +
+           "AND b.startTime < :end AND b.endTime > :start ORDER BY b.startTime")
+    List<VehicleBooking> findOverlapping(@Param("vehicleId") Long vehicleId,
+                                         @Param("status") VehicleBooking.Status status,
+                                         @Param("start") LocalDateTime start,
+                                         @Param("end") LocalDateTime end);
+
+    // Bookings still in force or ahead, for the in-memory calendar
+    @Query("SELECT b.id, b.transportationId, b.startTime, b.endTime FROM VehicleBooking b " +
+           "WHERE b.status = :status AND b.endTime > :after")
+    List<Object[]> findCalendarEntries(@Param("status") VehicleBooking.Status status,
+                                       @Param("after") LocalDateTime after);
+
+    @Modifying
+    @Query("DELETE FROM VehicleBooking b WHERE b.transportationId = :vehicleId")
+    int deleteByTransportationId(@Param("vehicleId") Long vehicleId);
+}
@@ -0,0 +1,80 @@
+package com.ausyexpo.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.ausyexpo.model.Command;
+import com.ausyexpo.model.Supply;
+import com.ausyexpo.model.WorkItem;
+
+@Repository
+public interface WorkItemRepository extends JpaRepository<WorkItem, Long> {
+
+    Optional<WorkItem> findByItemTypeAndItemId(WorkItem.ItemType itemType, Long itemId);
+
+    List<WorkItem> findByClaimedByAndStateOrderByLeaseExpiresAtAsc(Long claimedBy, WorkItem.State state);
+
+    @Modifying
+    @Query("DELETE FROM WorkItem w WHERE w.itemType = :itemType AND w.itemId = :itemId")
+    int deleteBySource(@Param("itemType") WorkItem.ItemType itemType, @Param("itemId") Long itemId);
+
+    // Conditional updates: each only succeeds while the item is still in the expected state
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE WorkItem w SET w.state = :claimed, w.claimedBy = :userId, w.claimedAt = :now, " +
+           "w.leaseExpiresAt = :leaseUntil WHERE w.id = :id AND w.state = :ready")
+    int claim(@Param("id") Long id, @Param("userId") Long userId, @Param("now") LocalDateTime now,
+              @Param("leaseUntil") LocalDateTime leaseUntil, @Param("ready") WorkItem.State ready,
+              @Param("claimed") WorkItem.State claimed);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE WorkItem w SET w.leaseExpiresAt = :leaseUntil " +
+           "WHERE w.id = :id AND w.state = :claimed AND w.claimedBy = :userId")
+    int renew(@Param("id") Long id, @Param("userId") Long userId, @Param("leaseUntil") LocalDateTime leaseUntil,
+              @Param("claimed") WorkItem.State claimed);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE WorkItem w SET w.state = :ready, w.claimedBy = NULL, w.claimedAt = NULL, " +
+           "w.leaseExpiresAt = NULL, w.attempts = w.attempts + 1 " +
+           "WHERE w.id = :id AND w.state = :claimed AND w.claimedBy = :userId")
+    int release(@Param("id") Long id, @Param("userId") Long userId, @Param("ready") WorkItem.State ready,
+                @Param("claimed") WorkItem.State claimed);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE WorkItem w SET w.state = :ready, w.claimedBy = NULL, w.claimedAt = NULL, " +
+           "w.leaseExpiresAt = NULL, w.attempts = w.attempts + 1 " +
+           "WHERE w.state = :claimed AND w.leaseExpiresAt < :now")
+    int expireLeases(@Param("now") LocalDateTime now, @Param("ready") WorkItem.State ready,
+                     @Param("claimed") WorkItem.State claimed);
+
+    @Query("SELECT w.itemType, w.state, COUNT(w) FROM WorkItem w GROUP BY w.itemType, w.state")
+    List<Object[]> countByTypeAndState();
+
+    // Reconciliation with the source tables, for changes made by set-based updates
+
+    @Query("SELECT s FROM Supply s WHERE s.status = :status AND NOT EXISTS " +
+           "(SELECT w.id FROM WorkItem w WHERE w.itemType = :itemType AND w.itemId = s.id)")
+    List<Supply> findUnqueuedSupplies(@Param("status") String status, @Param("itemType") WorkItem.ItemType itemType);
+
+    @Query("SELECT c FROM Command c WHERE c.status = :status AND NOT EXISTS " +
+           "(SELECT w.id FROM WorkItem w WHERE w.itemType = :itemType AND w.itemId = c.id)")
+    List<Command> findUnqueuedCommands(@Param("status") Command.Status status,
+                                       @Param("itemType") WorkItem.ItemType itemType);
+
+    @Modifying
+    @Query("DELETE FROM WorkItem w WHERE w.itemType = :itemType AND NOT EXISTS " +
+           "(SELECT s.id FROM Supply s WHERE s.id = w.itemId AND s.status = :status)")
+    int deleteStaleSupplies(@Param("status") String status, @Param("itemType") WorkItem.ItemType itemType);
+
+    @Modifying
+    @Query("DELETE FROM WorkItem w WHERE w.itemType = :itemType AND NOT EXISTS " +
+           "(SELECT c.id FROM Command c WHERE c.id = w.itemId AND c.status = :status)")
+    int deleteStaleCommands(@Param("status") Command.Status status, @Param("itemType") WorkItem.ItemType itemType);
+}
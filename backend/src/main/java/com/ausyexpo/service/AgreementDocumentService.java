@@ -0,0 +1,371 @@
+package com.ausyexpo.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URLEncoder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ausyexpo.model.Agreement;
+import com.ausyexpo.model.AgreementDocument;
+import com.ausyexpo.repository.AgreementDocumentRepository;
+import com.ausyexpo.repository.AgreementRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Content-addressed store for agreement documents.
+ * Uploads are streamed from the request body to a temporary file while their SHA-256 is computed, then moved
+ * to a path derived from the hash, so an identical file is kept once however many agreements reference it.
+ * Only the metadata row is written in a transaction, after the file is in place. Downloads are
+ * handed to Tomcat's sendfile (FileChannel.transferTo straight to the socket) where the connector supports
+ * it, and otherwise transferred from the file channel; single byte ranges, ETags and conditional requests
+ * are honoured so clients can resume and revalidate without refetching.
+ */
+@Service
+public class AgreementDocumentService {
+
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private static final int STRIPES = 64;
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private AgreementDocumentRepository documentRepository;
+
+    @Autowired
+    private AgreementRepository agreementRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.documents.dir:data/agreement-documents}")
+    private String directory;
+
+    @Value("${app.documents.max-bytes:52428800}")
+    private long maxBytes;
+
+    private Path root;
+    private Path incoming;
+
+    // Held by an upload from moving its file until its metadata transaction completes, and by the orphan cleanup,
+    // so a file is never removed while an upload is about to reference it
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+
+    @PostConstruct
+    public void init() throws IOException {
+        root = Paths.get(directory).toAbsolutePath().normalize();
+        incoming = root.resolve("incoming");
+        Files.createDirectories(incoming);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public Optional<AgreementDocument> getDocument(Long agreementId) {
+        return documentRepository.findByAgreementId(agreementId);
+    }
+
+    // Replaces the agreement's document; the previous file is removed once nothing references it. Not
+    // transactional: the body is copied to disk without holding a connection, then the row is written briefly.
+    public AgreementDocument store(Long agreementId, InputStream input, String fileName, String contentType) {
+        if (!agreementRepository.existsById(agreementId)) {
+            throw new RuntimeException("Agreement not found with id: " + agreementId);
+        }
+
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(incoming, "upload-", ".part");
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            long size = copy(new DigestInputStream(input, digest), temp);
+            if (size == 0) {
+                throw new RuntimeException("Document is empty");
+            }
+            String sha256 = HexFormat.of().formatHex(digest.digest());
+
+            ReentrantLock lock = stripe(sha256);
+            String[] replaced = new String[1];
+            AgreementDocument stored = null;
+            lock.lock();
+            try {
+                Path target = blobPath(sha256);
+                if (!Files.exists(target)) {
+                    Files.createDirectories(target.getParent());
+                    try {
+                        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                    } catch (FileAlreadyExistsException e) {
+                        // Stored meanwhile by an upload of the same content
+                    }
+                }
+                stored = transactionTemplate.execute(status ->
+                        saveMetadata(agreementId, sha256, size, fileName, contentType, replaced));
+            } finally {
+                lock.unlock();
+                if (stored == null) {
+                    // The row was not written; drop the file if no other document uses it
+                    removeIfUnreferenced(sha256);
+                }
+            }
+            if (replaced[0] != null) {
+                removeIfUnreferenced(replaced[0]);
+            }
+            return stored;
+        } catch (IOException e) {
+            throw new RuntimeException("Could not store document: " + e.getMessage(), e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 is not available", e);
+        } finally {
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException e) {
+                    System.err.println("Could not remove temporary upload " + temp + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    // Runs in the upload's short transaction; replaced[0] receives the hash of the file it no longer references
+    private AgreementDocument saveMetadata(Long agreementId, String sha256, long size, String fileName,
+                                           String contentType, String[] replaced) {
+        Agreement agreement = agreementRepository.findById(agreementId)
+                .orElseThrow(() -> new RuntimeException("Agreement not found with id: " + agreementId));
+        AgreementDocument document = documentRepository.findByAgreementId(agreementId)
+                .orElseGet(() -> new AgreementDocument(agreementId));
+        String previous = document.getSha256();
+        if (previous != null && !previous.equals(sha256)) {
+            replaced[0] = previous;
+        }
+
+        document.setSha256(sha256);
+        document.setSize(size);
+        document.setContentType(contentType != null && !contentType.isBlank() && contentType.length() <= 100
+                ? contentType : "application/octet-stream");
+        document.setFileName(cleanFileName(fileName));
+        document.setUploadedAt(LocalDateTime.now());
+        document = documentRepository.save(document);
+
+        agreement.setDocumentPath("/api/agreements/" + agreementId + "/document");
+        agreementRepository.save(agreement);
+        return document;
+    }
+
+    // Also called when the agreement itself is deleted
+    @Transactional
+    public boolean delete(Long agreementId) {
+        Optional<AgreementDocument> document = documentRepository.findByAgreementId(agreementId);
+        if (!document.isPresent()) {
+            return false;
+        }
+        documentRepository.delete(document.get());
+        String sha256 = document.get().getSha256();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    removeIfUnreferenced(sha256);
+                }
+            });
+        } else {
+            removeIfUnreferenced(sha256);
+        }
+        return true;
+    }
+
+    // Writes the document, or the requested range of it, with validators and cache headers
+    public void serve(AgreementDocument document, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        Path file = blobPath(document.getSha256());
+        if (!Files.isRegularFile(file)) {
+            throw new RuntimeException("Document file is missing for agreement " + document.getAgreementId());
+        }
+        long size = document.getSize();
+        String eTag = "\"" + document.getSha256() + "\"";
+
+        response.setHeader("ETag", eTag);
+        response.setHeader("Accept-Ranges", "bytes");
+        // Cached copies are revalidated each time; an unchanged document then costs a 304
+        response.setHeader("Cache-Control", "private, no-cache");
+        response.setHeader("Last-Modified", DateTimeFormatter.RFC_1123_DATE_TIME.format(
+                document.getUploadedAt().atZone(ZoneId.systemDefault())));
+
+        if (matches(request.getHeader("If-None-Match"), eTag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long start = 0;
+        long end = size - 1;
+        String range = request.getHeader("Range");
+        String ifRange = request.getHeader("If-Range");
+        if (range != null && (ifRange == null || ifRange.equals(eTag))) {
+            long[] bounds = parseRange(range, size);
+            if (bounds != null && bounds.length == 0) {
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                response.setHeader("Content-Range", "bytes */" + size);
+                return;
+            }
+            if (bounds != null) {
+                start = bounds[0];
+                end = bounds[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader("Content-Range", "bytes " + start + "-" + end + "/" + size);
+            }
+        }
+        long length = end - start + 1;
+
+        response.setContentType(document.getContentType());
+        response.setContentLengthLong(length);
+        String fileName = document.getFileName() != null ? document.getFileName() : "document";
+        response.setHeader("Content-Disposition", "inline; filename=\"" + fileName.replace("\"", "")
+                + "\"; filename*=UTF-8''" + URLEncoder.encode(fileName, StandardCharsets.UTF_8).replace("+", "%20"));
+        if ("HEAD".equals(request.getMethod())) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            // Tomcat writes the file to the socket itself after this request returns
+            request.setAttribute(SENDFILE_FILENAME, file.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            while (position <= end) {
+                long sent = channel.transferTo(position, end + 1 - position, out);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+            }
+        }
+    }
+
+    // Returns {start, end} for a single satisfiable range, an empty array if unsatisfiable, or null to
+    // ignore the header (malformed or multiple ranges) and send the whole document
+    private static long[] parseRange(String header, long size) {
+        if (!header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return null;
+        }
+        String spec = header.substring(6).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            if (first.isEmpty()) {
+                // Suffix range: the last N bytes
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0) {
+                    return new long[0];
+                }
+                return new long[] {Math.max(0, size - suffix), size - 1};
+            }
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? size - 1 : Math.min(Long.parseLong(last), size - 1);
+            if (start >= size) {
+                return new long[0];
+            }
+            return end < start ? null : new long[] {start, end};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static boolean matches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.equals("*") || value.equals(eTag) || value.equals("W/" + eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private long copy(InputStream input, Path target) throws IOException {
+        long total = 0;
+        byte[] buffer = new byte[COPY_BUFFER_SIZE];
+        try (InputStream in = input; OutputStream out = Files.newOutputStream(target)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                total += read;
+                if (total > maxBytes) {
+                    throw new RuntimeException("Document is larger than " + maxBytes + " bytes");
+                }
+                out.write(buffer, 0, read);
+            }
+        }
+        return total;
+    }
+
+    private void removeIfUnreferenced(String sha256) {
+        ReentrantLock lock = stripe(sha256);
+        lock.lock();
+        try {
+            if (documentRepository.countBySha256(sha256) == 0) {
+                Files.deleteIfExists(blobPath(sha256));
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Could not remove unused document " + sha256 + ": " + e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Two levels of directories keep any one directory small
+    private Path blobPath(String sha256) {
+        return root.resolve(sha256.substring(0, 2)).resolve(sha256.substring(2, 4)).resolve(sha256);
+    }
+
+    private ReentrantLock stripe(String sha256) {
+        return stripes[Math.floorMod(sha256.hashCode(), STRIPES)];
+    }
+
+    private static String cleanFileName(String fileName) {
+        if (fileName == null || fileName.isBlank()) {
+            return null;
+        }
+        // Browsers may send a full client path
+        String name = fileName.replace('\\', '/');
+        name = name.substring(name.lastIndexOf('/') + 1).replaceAll("[\\r\\n\\x00-\\x1f]", "").trim();
+        return name.length() > 255 ? name.substring(name.length() - 255) : name;
+    }
+}
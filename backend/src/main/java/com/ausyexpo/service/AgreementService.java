@@ -1,11 +1,16 @@
 package com.ausyexpo.service;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.ausyexpo.model.Agreement;
 import com.ausyexpo.model.Branch;
@@ -13,10 +18,16 @@ import com.ausyexpo.model.User;
 import com.ausyexpo.repository.AgreementRepository;
 import com.ausyexpo.repository.BranchRepository;
 import com.ausyexpo.repository.UserRepository;
+import com.fasterxml.jackson.databind.JsonNode;
 
 @Service
 public class AgreementService {
 
+    private static final Set<String> PATCHABLE_FIELDS = Set.of(
+            "title", "agreementType", "clientName", "clientContact", "clientEmail", "description",
+            "contractValue", "startDate", "endDate", "status", "terms", "deliverables", "paymentTerms",
+            "isActive", "documentPath", "priority");
+
     @Autowired
     private AgreementRepository agreementRepository;
     
@@ -25,19 +36,35 @@ public class AgreementService {
     
     @Autowired
     private UserRepository userRepository;
+    
+    @Autowired
+    private MergePatchService mergePatchService;
+
+    @Autowired
+    private DeadlineService deadlineService;
+
+    @Autowired
+    private AgreementDocumentService documentService;
 
+    @Transactional(readOnly = true)
     public List<Agreement> getAllAgreements() {
         return agreementRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
     public List<Agreement> getAgreementsByBranch(Long branchId) {
         return agreementRepository.findByBranchIdOrderByCreatedAtDesc(branchId);
     }
 
+    // Detail view: touching one lazy text attribute loads the whole "details" group in one select
+    @Transactional(readOnly = true)
     public Optional<Agreement> getAgreementById(Long id) {
-        return agreementRepository.findById(id);
+        Optional<Agreement> agreement = agreementRepository.findById(id);
+        agreement.ifPresent(Agreement::getTerms);
+        return agreement;
     }
 
+    @Transactional
     public Agreement createAgreement(Agreement agreement) {
         validateAgreement(agreement);
         
@@ -61,9 +88,12 @@ public class AgreementService {
             agreement.setPriority("Medium");
         }
         
-        return agreementRepository.save(agreement);
+        Agreement savedAgreement = agreementRepository.save(agreement);
+        agreementChanged(savedAgreement);
+        return savedAgreement;
     }
 
+    @Transactional
     public Agreement updateAgreement(Long id, Agreement agreementDetails) {
         Optional<Agreement> optionalAgreement = agreementRepository.findById(id);
         if (optionalAgreement.isPresent()) {
@@ -98,20 +128,47 @@ public class AgreementService {
                 agreement.setDurationMonths((int) months);
             }
             
-            return agreementRepository.save(agreement);
+            Agreement savedAgreement = agreementRepository.save(agreement);
+            agreementChanged(savedAgreement);
+            return savedAgreement;
         } else {
             throw new RuntimeException("Agreement not found with id: " + id);
         }
     }
 
+    // Merge-patch update: only the fields present in the patch change, so only their columns are written
+    @Transactional
+    public Agreement patchAgreement(Long id, JsonNode patch, Long expectedVersion) {
+        Agreement agreement = agreementRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Agreement not found with id: " + id));
+        mergePatchService.checkVersion(Agreement.class, id, agreement.getVersion(), expectedVersion);
+
+        mergePatchService.apply(agreement, patch, PATCHABLE_FIELDS);
+        validateAgreement(agreement);
+
+        if (patch.has("startDate") || patch.has("endDate")) {
+            long months = java.time.temporal.ChronoUnit.MONTHS.between(
+                agreement.getStartDate(), agreement.getEndDate());
+            agreement.setDurationMonths((int) months);
+        }
+
+        Agreement savedAgreement = agreementRepository.saveAndFlush(agreement);
+        agreementChanged(savedAgreement);
+        return savedAgreement;
+    }
+
+    @Transactional
     public void deleteAgreement(Long id) {
         if (agreementRepository.existsById(id)) {
+            documentService.delete(id);
             agreementRepository.deleteById(id);
+            deadlineService.agreementDeleted(id);
         } else {
             throw new RuntimeException("Agreement not found with id: " + id);
         }
     }
 
+    @Transactional(readOnly = true)
     public List<Agreement> searchAgreements(Long branchId, String searchTerm) {
         if (branchId != null) {
             return agreementRepository.searchAgreements(branchId, searchTerm);
@@ -120,30 +177,55 @@ public class AgreementService {
         }
     }
 
+    @Transactional(readOnly = true)
     public List<Agreement> getAgreementsByStatus(String status) {
         return agreementRepository.findByStatusOrderByCreatedAtDesc(status);
     }
 
+    @Transactional(readOnly = true)
     public List<Agreement> getAgreementsByType(String type) {
         return agreementRepository.findByAgreementTypeOrderByCreatedAtDesc(type);
     }
 
+    @Transactional(readOnly = true)
     public List<Agreement> getActiveAgreements() {
         return agreementRepository.findByIsActiveOrderByCreatedAtDesc(true);
     }
 
+    // Expiring lists are served from the deadline scheduler, soonest first; closed agreements are not listed
+    @Transactional(readOnly = true)
     public List<Agreement> getExpiringAgreements(int daysAhead) {
         LocalDate today = LocalDate.now();
-        LocalDate futureDate = today.plusDays(daysAhead);
-        return agreementRepository.findAgreementsExpiringBetween(today, futureDate);
+        return findInOrder(deadlineService.getExpiringAgreementIds(today, today.plusDays(daysAhead), null));
     }
 
+    @Transactional(readOnly = true)
     public List<Agreement> getBranchExpiringAgreements(Long branchId, int daysAhead) {
         LocalDate today = LocalDate.now();
-        LocalDate futureDate = today.plusDays(daysAhead);
-        return agreementRepository.findBranchAgreementsExpiringBetween(branchId, today, futureDate);
+        return findInOrder(deadlineService.getExpiringAgreementIds(today, today.plusDays(daysAhead), branchId));
+    }
+
+    private List<Agreement> findInOrder(List<Long> ids) {
+        Map<Long, Agreement> byId = new HashMap<>();
+        for (Agreement agreement : agreementRepository.findAllById(ids)) {
+            byId.put(agreement.getId(), agreement);
+        }
+        List<Agreement> agreements = new ArrayList<>();
+        for (Long id : ids) {
+            Agreement agreement = byId.get(id);
+            if (agreement != null) {
+                agreements.add(agreement);
+            }
+        }
+        return agreements;
+    }
+
+    private void agreementChanged(Agreement agreement) {
+        deadlineService.agreementChanged(agreement.getId(), agreement.getStatus(), agreement.getEndDate(),
+                agreement.getBranch() != null ? agreement.getBranch().getId() : null);
     }
 
+    @Transactional(readOnly = true)
     public Long getActiveAgreementsCount(Long branchId) {
         if (branchId != null) {
             return agreementRepository.countActiveAgreementsByBranch(branchId);
@@ -152,6 +234,7 @@ public class AgreementService {
         }
     }
 
+    @Transactional(readOnly = true)
     public Double getTotalContractValue(Long branchId) {
         if (branchId != null) {
             Double value = agreementRepository.getTotalContractValueByBranch(branchId);
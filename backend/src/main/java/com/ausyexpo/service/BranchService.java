@@ -10,6 +10,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import com.ausyexpo.model.Branch;
 import com.ausyexpo.repository.BranchRepository;
+import com.ausyexpo.service.UniqueKeyFilterService.KeySpace;
 
 @Service
 @Transactional
@@ -18,22 +19,32 @@ public class BranchService {
     @Autowired
     private BranchRepository branchRepository;
 
+    @Autowired
+    private UniqueKeyFilterService uniqueKeyFilterService;
+
+    @Transactional(readOnly = true)
     public List<Branch> getAllBranches() {
         return branchRepository.findAll(Sort.by(Sort.Direction.ASC, "name"));
     }
 
+    // Detail view: touching one lazy text attribute loads the whole "details" group in one select
+    @Transactional(readOnly = true)
     public Optional<Branch> getBranchById(Long id) {
-        return branchRepository.findById(id);
+        Optional<Branch> branch = branchRepository.findById(id);
+        branch.ifPresent(Branch::getDescription);
+        return branch;
     }
 
     public Branch createBranch(Branch branch) {
         // Check if branch with same name already exists
-        if (branchRepository.existsByName(branch.getName())) {
+        if (uniqueKeyFilterService.mightExist(KeySpace.BRANCH_NAME, branch.getName())
+                && branchRepository.existsByName(branch.getName())) {
             throw new RuntimeException("Branch with name '" + branch.getName() + "' already exists");
         }
         
         // Check if branch with same email already exists
-        if (branch.getEmail() != null && !branch.getEmail().trim().isEmpty()) {
+        if (branch.getEmail() != null && !branch.getEmail().trim().isEmpty()
+                && uniqueKeyFilterService.mightExist(KeySpace.BRANCH_EMAIL, branch.getEmail())) {
             Optional<Branch> existingBranch = branchRepository.findByEmail(branch.getEmail());
             if (existingBranch.isPresent()) {
                 throw new RuntimeException("Branch with email '" + branch.getEmail() + "' already exists");
@@ -44,8 +55,14 @@ public class BranchService {
         if (branch.getIsActive() == null) {
             branch.setIsActive(true);
         }
+        // Branches without an email store NULL, which the unique constraint allows any number of
+        if (branch.getEmail() != null && branch.getEmail().trim().isEmpty()) {
+            branch.setEmail(null);
+        }
         
-        return branchRepository.save(branch);
+        Branch savedBranch = branchRepository.save(branch);
+        registerBranchKeys(savedBranch);
+        return savedBranch;
     }
 
     public Branch updateBranch(Long id, Branch branchDetails) {
@@ -58,13 +75,15 @@ public class BranchService {
 
         // Check if another branch with same name exists (excluding current branch)
         if (!branch.getName().equals(branchDetails.getName()) && 
+            uniqueKeyFilterService.mightExist(KeySpace.BRANCH_NAME, branchDetails.getName()) &&
             branchRepository.existsByName(branchDetails.getName())) {
             throw new RuntimeException("Branch with name '" + branchDetails.getName() + "' already exists");
         }
 
         // Check if another branch with same email exists (excluding current branch)
         if (branchDetails.getEmail() != null && !branchDetails.getEmail().trim().isEmpty() &&
-            !branchDetails.getEmail().equals(branch.getEmail())) {
+            !branchDetails.getEmail().equals(branch.getEmail()) &&
+            uniqueKeyFilterService.mightExist(KeySpace.BRANCH_EMAIL, branchDetails.getEmail())) {
             Optional<Branch> existingBranch = branchRepository.findByEmail(branchDetails.getEmail());
             if (existingBranch.isPresent() && !existingBranch.get().getId().equals(id)) {
                 throw new RuntimeException("Branch with email '" + branchDetails.getEmail() + "' already exists");
@@ -77,12 +96,15 @@ public class BranchService {
         branch.setContactDetails(branchDetails.getContactDetails());
         branch.setAddress(branchDetails.getAddress());
         branch.setPhone(branchDetails.getPhone());
-        branch.setEmail(branchDetails.getEmail());
+        branch.setEmail(branchDetails.getEmail() != null && !branchDetails.getEmail().trim().isEmpty()
+                ? branchDetails.getEmail() : null);
         branch.setManager(branchDetails.getManager());
         branch.setDescription(branchDetails.getDescription());
         branch.setIsActive(branchDetails.getIsActive());
 
-        return branchRepository.save(branch);
+        Branch savedBranch = branchRepository.save(branch);
+        registerBranchKeys(savedBranch);
+        return savedBranch;
     }
 
     public void deleteBranch(Long id) {
@@ -93,6 +115,7 @@ public class BranchService {
         branchRepository.deleteById(id);
     }
 
+    @Transactional(readOnly = true)
     public List<Branch> searchBranches(String searchTerm, Boolean isActive) {
         if (searchTerm == null || searchTerm.trim().isEmpty()) {
             if (isActive != null) {
@@ -110,10 +133,12 @@ public class BranchService {
         return branchRepository.findBySearchTerm(searchTerm);
     }
 
+    @Transactional(readOnly = true)
     public List<Branch> getActiveBranches() {
         return branchRepository.findByIsActive(true);
     }
 
+    @Transactional(readOnly = true)
     public List<Branch> getInactiveBranches() {
         return branchRepository.findByIsActive(false);
     }
@@ -128,4 +153,9 @@ public class BranchService {
         branch.setIsActive(!branch.getIsActive());
         return branchRepository.save(branch);
     }
+
+    private void registerBranchKeys(Branch branch) {
+        uniqueKeyFilterService.register(KeySpace.BRANCH_NAME, branch.getName());
+        uniqueKeyFilterService.register(KeySpace.BRANCH_EMAIL, branch.getEmail());
+    }
 }
@@ -0,0 +1,471 @@
+package com.ausyexpo.service;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.ausyexpo.dto.InboxEntry;
+import com.ausyexpo.model.Command;
+import com.ausyexpo.model.User;
+import com.ausyexpo.repository.CommandRepository;
+import com.ausyexpo.util.AfterCommit;
+import com.ausyexpo.util.ReloadMerge;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Per-user inbox of open commands, pushed to assignees over Server-Sent Events.
+ * Inboxes are loaded once and then kept current from the command writes after they commit, so connected
+ * clients never query the database. Every change takes the next inbox sequence; an entry remembers the
+ * sequence of its latest change and each inbox keeps a bounded log of removals, so a client resuming with
+ * its last event id is sent only what changed since, or a fresh snapshot when that is no longer known.
+ * Subscribers are not queued events but a position: a slow client is simply sent the latest state.
+ * Read state lives in memory only; after a restart, commands still pending count as unread.
+ */
+@Service
+public class CommandInboxService {
+
+    private static final Set<Command.Status> CLOSED_STATUSES = EnumSet.of(Command.Status.COMPLETED, Command.Status.CANCELLED);
+    private static final int REMOVALS_KEPT = 256;
+    private static final long EMITTER_TIMEOUT_MILLIS = 30 * 60 * 1000L;
+
+    // Most urgent first, then soonest due, then oldest
+    private static final Comparator<InboxEntry> INBOX_ORDER = Comparator
+            .comparing((InboxEntry entry) -> entry.getPriority().ordinal(), Comparator.reverseOrder())
+            .thenComparing(InboxEntry::getDueDate, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(InboxEntry::getCommandId);
+
+    @Autowired
+    private CommandRepository commandRepository;
+
+    @Autowired
+    private UserService userService;
+
+    // Resume tokens from before a restart are recognised as stale and answered with a snapshot
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    // All guarded by this
+    private final Map<Long, Inbox> inboxes = new HashMap<>();
+    private final Map<Long, Long> assigneeByCommand = new HashMap<>();
+    private long sequence;
+    private final ReloadMerge<Long> reloadMerge = new ReloadMerge<>();
+    private boolean loaded;
+
+    private final Object reloadLock = new Object();
+
+    private final ExecutorService reloads = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "command-inbox-reload");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ExecutorService senders = Executors.newFixedThreadPool(4, runnable -> {
+        Thread thread = new Thread(runnable, "command-inbox-sender");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final class Removal {
+        final long sequence;
+        final Long commandId;
+
+        Removal(long sequence, Long commandId) {
+            this.sequence = sequence;
+            this.commandId = commandId;
+        }
+    }
+
+    private static final class Inbox {
+        final Map<Long, InboxEntry> entries = new HashMap<>();
+        final ArrayDeque<Removal> removals = new ArrayDeque<>();
+        final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+        // Changes up to this sequence may have been forgotten; older positions get a snapshot
+        long floor;
+
+        Inbox(long floor) {
+            this.floor = floor;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        reload();
+    }
+
+    // --- Updates from CommandService, applied once the write has committed ---
+
+    public void commandChanged(Command command) {
+        Long commandId = command.getId();
+        Long assigneeId = command.getAssignedTo() != null ? command.getAssignedTo().getId() : null;
+        InboxEntry entry = null;
+        if (assigneeId != null && !CLOSED_STATUSES.contains(command.getStatus())) {
+            // Changes the assignee makes themselves do not mark the command unread
+            entry = toEntry(command, !assigneeId.equals(currentUserId()));
+        }
+        InboxEntry changed = entry;
+        AfterCommit.run(() -> apply(commandId, assigneeId, changed));
+    }
+
+    public void commandDeleted(Long commandId) {
+        AfterCommit.run(() -> apply(commandId, null, null));
+    }
+
+    // For set-based status updates
+    public void reloadLater() {
+        AfterCommit.run(() -> reloads.execute(this::reload));
+    }
+
+    private synchronized void apply(Long commandId, Long assigneeId, InboxEntry entry) {
+        reloadMerge.changed(commandId);
+        Long previous = assigneeByCommand.get(commandId);
+        if (previous != null && (entry == null || !previous.equals(assigneeId))) {
+            remove(previous, commandId);
+        }
+        if (entry != null) {
+            put(assigneeId, entry);
+        }
+    }
+
+    // --- Reads ---
+
+    public synchronized boolean markRead(Long userId, Long commandId) {
+        Inbox inbox = inboxes.get(userId);
+        InboxEntry entry = inbox != null ? inbox.entries.get(commandId) : null;
+        if (entry == null) {
+            return false;
+        }
+        if (entry.isUnread()) {
+            inbox.entries.put(commandId, entry.withUnread(false, ++sequence));
+            notifySubscribers(inbox);
+        }
+        return true;
+    }
+
+    public synchronized Map<String, Object> getInbox(Long userId) {
+        Inbox inbox = inboxes.get(userId);
+        List<InboxEntry> entries = inbox != null ? new ArrayList<>(inbox.entries.values()) : new ArrayList<>();
+        return snapshot(entries, sequence);
+    }
+
+    // Streams the inbox: a snapshot, or only the changes after a still-known resume token, then live changes
+    public SseEmitter subscribe(Long userId, String resumeToken) {
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MILLIS);
+        Subscriber subscriber = new Subscriber(userId, emitter, parseToken(resumeToken));
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(e -> unsubscribe(subscriber));
+        synchronized (this) {
+            inbox(userId).subscribers.add(subscriber);
+        }
+        subscriber.schedule();
+        return emitter;
+    }
+
+    // Keeps idle connections from being dropped by proxies
+    @Scheduled(fixedDelay = 20000)
+    public void heartbeat() {
+        List<Subscriber> all = new ArrayList<>();
+        synchronized (this) {
+            for (Inbox inbox : inboxes.values()) {
+                all.addAll(inbox.subscribers);
+            }
+        }
+        for (Subscriber subscriber : all) {
+            subscriber.schedule();
+        }
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        int subscribers = 0;
+        for (Inbox inbox : inboxes.values()) {
+            subscribers += inbox.subscribers.size();
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("inboxes", inboxes.size());
+        stats.put("openCommands", assigneeByCommand.size());
+        stats.put("subscribers", subscribers);
+        stats.put("sequence", sequence);
+        return stats;
+    }
+
+    // --- Loading ---
+
+    public void reload() {
+        synchronized (reloadLock) {
+            reloadNow();
+        }
+    }
+
+    private void reloadNow() {
+        synchronized (this) {
+            reloadMerge.start();
+        }
+        try {
+            Map<Long, Object[]> rows = new LinkedHashMap<>();
+            for (Object[] row : commandRepository.findOpenAssigned()) {
+                rows.put((Long) row[0], row);
+            }
+            synchronized (this) {
+                reloadMerge.merge(assigneeByCommand.keySet(), rows,
+                        commandId -> remove(assigneeByCommand.get(commandId), commandId), (commandId, row) -> {
+                    Long assigneeId = (Long) row[8];
+                    Long previous = assigneeByCommand.get(commandId);
+                    InboxEntry existing = previous != null ? inboxes.get(previous).entries.get(commandId) : null;
+                    if (existing != null && previous.equals(assigneeId) && Objects.equals(existing.getVersion(), row[7])) {
+                        return false;
+                    }
+                    // On startup only commands nobody has acted on yet count as unread
+                    boolean unread = loaded || row[4] == Command.Status.PENDING;
+                    apply(commandId, assigneeId, toEntry(row, unread));
+                    return true;
+                });
+                loaded = true;
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Command inbox reload failed: " + e.getMessage());
+        } finally {
+            synchronized (this) {
+                reloadMerge.finish();
+            }
+        }
+    }
+
+    // --- Helpers (callers hold the lock) ---
+
+    private Inbox inbox(Long userId) {
+        return inboxes.computeIfAbsent(userId, id -> new Inbox(sequence));
+    }
+
+    private void put(Long userId, InboxEntry entry) {
+        Inbox inbox = inbox(userId);
+        inbox.entries.put(entry.getCommandId(), entry.withSequence(++sequence));
+        assigneeByCommand.put(entry.getCommandId(), userId);
+        notifySubscribers(inbox);
+    }
+
+    private void remove(Long userId, Long commandId) {
+        assigneeByCommand.remove(commandId);
+        Inbox inbox = inboxes.get(userId);
+        if (inbox == null || inbox.entries.remove(commandId) == null) {
+            return;
+        }
+        inbox.removals.addLast(new Removal(++sequence, commandId));
+        if (inbox.removals.size() > REMOVALS_KEPT) {
+            inbox.floor = inbox.removals.removeFirst().sequence;
+        }
+        if (inbox.entries.isEmpty() && inbox.subscribers.isEmpty()) {
+            inboxes.remove(userId);
+        } else {
+            notifySubscribers(inbox);
+        }
+    }
+
+    private void notifySubscribers(Inbox inbox) {
+        for (Subscriber subscriber : inbox.subscribers) {
+            subscriber.changed();
+        }
+    }
+
+    private synchronized void unsubscribe(Subscriber subscriber) {
+        Inbox inbox = inboxes.get(subscriber.userId);
+        if (inbox != null && inbox.subscribers.remove(subscriber)
+                && inbox.entries.isEmpty() && inbox.subscribers.isEmpty()) {
+            inboxes.remove(subscriber.userId);
+        }
+    }
+
+    private Map<String, Object> snapshot(List<InboxEntry> entries, long upTo) {
+        entries.sort(INBOX_ORDER);
+        int unread = 0;
+        for (InboxEntry entry : entries) {
+            if (entry.isUnread()) {
+                unread++;
+            }
+        }
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("token", token(upTo));
+        snapshot.put("unread", unread);
+        snapshot.put("commands", entries);
+        return snapshot;
+    }
+
+    private String token(long position) {
+        return epoch + "." + position;
+    }
+
+    // The position a token stands for, or -1 when it is missing, malformed or from an earlier run
+    private long parseToken(String token) {
+        if (token == null) {
+            return -1;
+        }
+        int dot = token.indexOf('.');
+        if (dot < 0 || !token.substring(0, dot).equals(epoch)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(token.substring(dot + 1).trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private Long currentUserId() {
+        try {
+            return userService.getCurrentUserId();
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static InboxEntry toEntry(Command command, boolean unread) {
+        User issuedBy = command.getIssuedBy();
+        return new InboxEntry(command.getId(), command.getTitle(), command.getType(), command.getPriority(),
+                command.getStatus(), command.getDueDate(), command.getUpdatedAt(), command.getVersion(),
+                issuedBy != null ? issuedBy.getId() : null,
+                issuedBy != null ? fullName(issuedBy.getFirstName(), issuedBy.getLastName()) : null, unread, 0);
+    }
+
+    // Row layout of CommandRepository.findOpenAssigned
+    private static InboxEntry toEntry(Object[] row, boolean unread) {
+        return new InboxEntry((Long) row[0], (String) row[1], (Command.CommandType) row[2],
+                (Command.Priority) row[3], (Command.Status) row[4], (LocalDateTime) row[5], (LocalDateTime) row[6],
+                (Long) row[7], (Long) row[9], fullName((String) row[10], (String) row[11]), unread, 0);
+    }
+
+    private static String fullName(String firstName, String lastName) {
+        return ((firstName != null ? firstName : "") + " " + (lastName != null ? lastName : "")).trim();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        List<Subscriber> all = new ArrayList<>();
+        synchronized (this) {
+            for (Inbox inbox : inboxes.values()) {
+                all.addAll(inbox.subscribers);
+            }
+        }
+        for (Subscriber subscriber : all) {
+            subscriber.emitter.complete();
+        }
+        senders.shutdownNow();
+        reloads.shutdownNow();
+    }
+
+    private class Subscriber implements Runnable {
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean dirty = new AtomicBoolean(true);
+        // Inbox sequence the client has seen everything up to; -1 until it has had a snapshot
+        private long position;
+
+        Subscriber(Long userId, SseEmitter emitter, long position) {
+            this.userId = userId;
+            this.emitter = emitter;
+            this.position = position;
+        }
+
+        void changed() {
+            dirty.set(true);
+            schedule();
+        }
+
+        void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                senders.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (dirty.getAndSet(false)) {
+                    send();
+                } else {
+                    emitter.send(SseEmitter.event().comment("keep-alive"));
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Client went away; the completion callback removes it
+                unsubscribe(this);
+                emitter.completeWithError(e);
+                return;
+            } finally {
+                scheduled.set(false);
+            }
+            if (dirty.get()) {
+                schedule();
+            }
+        }
+
+        private void send() throws IOException {
+            Map<String, Object> snapshot = null;
+            List<InboxEntry> changed = new ArrayList<>();
+            List<Removal> removed = new ArrayList<>();
+            long upTo;
+            synchronized (CommandInboxService.this) {
+                Inbox inbox = inbox(userId);
+                upTo = sequence;
+                if (position < 0 || position < inbox.floor) {
+                    snapshot = snapshot(new ArrayList<>(inbox.entries.values()), upTo);
+                } else {
+                    for (InboxEntry entry : inbox.entries.values()) {
+                        if (entry.getSequence() > position) {
+                            changed.add(entry);
+                        }
+                    }
+                    for (Removal removal : inbox.removals) {
+                        if (removal.sequence > position) {
+                            removed.add(removal);
+                        }
+                    }
+                }
+            }
+            if (snapshot != null) {
+                emitter.send(SseEmitter.event().id(token(upTo)).name("snapshot").data(snapshot, MediaType.APPLICATION_JSON));
+                position = upTo;
+                return;
+            }
+            // In sequence order, each with its own id, so a client cut off midway resumes at the right place
+            changed.sort(Comparator.comparingLong(InboxEntry::getSequence));
+            int removalIndex = 0;
+            for (InboxEntry entry : changed) {
+                while (removalIndex < removed.size() && removed.get(removalIndex).sequence < entry.getSequence()) {
+                    sendRemoval(removed.get(removalIndex++));
+                }
+                emitter.send(SseEmitter.event().id(token(entry.getSequence())).name("command")
+                        .data(entry, MediaType.APPLICATION_JSON));
+                position = entry.getSequence();
+            }
+            while (removalIndex < removed.size()) {
+                sendRemoval(removed.get(removalIndex++));
+            }
+            position = upTo;
+        }
+
+        private void sendRemoval(Removal removal) throws IOException {
+            emitter.send(SseEmitter.event().id(token(removal.sequence)).name("removed")
+                    .data(Map.of("commandId", removal.commandId), MediaType.APPLICATION_JSON));
+            position = removal.sequence;
+        }
+    }
+}
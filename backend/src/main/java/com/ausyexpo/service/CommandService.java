@@ -1,24 +1,33 @@
 package com.ausyexpo.service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.ausyexpo.dto.BulkStatusUpdateRequest;
 import com.ausyexpo.model.Command;
 import com.ausyexpo.model.User;
 import com.ausyexpo.model.Branch;
 import com.ausyexpo.repository.CommandRepository;
 import com.ausyexpo.repository.UserRepository;
 import com.ausyexpo.repository.BranchRepository;
+import com.fasterxml.jackson.databind.JsonNode;
 
 @Service
 @Transactional
 public class CommandService {
 
+    private static final Set<String> PATCHABLE_FIELDS = Set.of(
+            "title", "description", "type", "priority", "status", "dueDate", "notes");
+
     @Autowired
     private CommandRepository commandRepository;
 
@@ -28,42 +37,77 @@ public class CommandService {
     @Autowired
     private BranchRepository branchRepository;
 
+    @Autowired
+    private MergePatchService mergePatchService;
+
+    @Autowired
+    private WorkQueueService workQueueService;
+
+    @Autowired
+    private DeadlineService deadlineService;
+
+    @Autowired
+    private CommandInboxService commandInboxService;
+
+    @Transactional(readOnly = true)
     public List<Command> getAllCommands() {
         return commandRepository.findAllWithDetails();
     }
 
+    @Transactional(readOnly = true)
     public Optional<Command> getCommandById(Long id) {
         return commandRepository.findById(id);
     }
 
+    @Transactional(readOnly = true)
     public List<Command> getCommandsByIssuedBy(Long issuedById) {
         return commandRepository.findByIssuedByIdOrderByCreatedAtDesc(issuedById);
     }
 
+    @Transactional(readOnly = true)
     public List<Command> getCommandsByAssignedTo(Long assignedToId) {
         return commandRepository.findByAssignedToIdOrderByCreatedAtDesc(assignedToId);
     }
 
+    @Transactional(readOnly = true)
     public List<Command> getCommandsByBranch(Long branchId) {
         return commandRepository.findByBranchIdOrderByCreatedAtDesc(branchId);
     }
 
+    @Transactional(readOnly = true)
     public List<Command> getCommandsByStatus(Command.Status status) {
         return commandRepository.findByStatusOrderByCreatedAtDesc(status);
     }
 
+    @Transactional(readOnly = true)
     public List<Command> getCommandsByPriority(Command.Priority priority) {
         return commandRepository.findByPriorityOrderByCreatedAtDesc(priority);
     }
 
+    @Transactional(readOnly = true)
     public List<Command> getCommandsByType(Command.CommandType type) {
         return commandRepository.findByTypeOrderByCreatedAtDesc(type);
     }
 
+    // Served from the deadline scheduler, longest overdue first
+    @Transactional(readOnly = true)
     public List<Command> getOverdueCommands() {
-        return commandRepository.findOverdueCommands(LocalDateTime.now());
+        List<Long> ids = deadlineService.getOverdueIds(DeadlineService.Kind.COMMAND);
+        Map<Long, Command> byId = new HashMap<>();
+        for (Command command : commandRepository.findAllById(ids)) {
+            byId.put(command.getId(), command);
+        }
+        List<Command> commands = new ArrayList<>();
+        for (Long id : ids) {
+            Command command = byId.get(id);
+            if (command != null) {
+                commands.add(command);
+            }
+        }
+        return commands;
     }
 
+    @Transactional(readOnly = true)
     public List<Command> getCommandsDueBetween(LocalDateTime startDate, LocalDateTime endDate) {
         return commandRepository.findByDueDateBetween(startDate, endDate);
     }
@@ -88,7 +132,11 @@ public class CommandService {
         // Set branch to null since we removed branch selection from frontend
         command.setBranch(null);
 
-        return commandRepository.save(command);
+        Command savedCommand = commandRepository.save(command);
+        workQueueService.commandChanged(savedCommand);
+        deadlineService.commandChanged(savedCommand.getId(), savedCommand.getStatus(), savedCommand.getDueDate());
+        commandInboxService.commandChanged(savedCommand);
+        return savedCommand;
     }
 
     public Command updateCommand(Long id, Command commandDetails) {
@@ -118,7 +166,36 @@ public class CommandService {
         // Set branch to null since we removed branch selection from frontend
         command.setBranch(null);
 
-        return commandRepository.save(command);
+        Command savedCommand = commandRepository.save(command);
+        workQueueService.commandChanged(savedCommand);
+        deadlineService.commandChanged(savedCommand.getId(), savedCommand.getStatus(), savedCommand.getDueDate());
+        commandInboxService.commandChanged(savedCommand);
+        return savedCommand;
+    }
+
+    // Merge-patch update: only the fields present in the patch change, so only their columns are written
+    public Command patchCommand(Long id, JsonNode patch, Long expectedVersion) {
+        Command command = commandRepository.findById(id)
+            .orElseThrow(() -> new RuntimeException("Command not found with id: " + id));
+        mergePatchService.checkVersion(Command.class, id, command.getVersion(), expectedVersion);
+
+        mergePatchService.apply(command, patch, PATCHABLE_FIELDS);
+        mergePatchService.validate(command);
+
+        if (command.getType() == null || command.getPriority() == null || command.getStatus() == null) {
+            throw new RuntimeException("Command type, priority and status cannot be cleared");
+        }
+
+        // An unchanged due date may already be in the past; only a newly set one is checked
+        if (patch.has("dueDate") && command.getDueDate() != null && command.getDueDate().isBefore(LocalDateTime.now())) {
+            throw new RuntimeException("Due date cannot be in the past");
+        }
+
+        Command savedCommand = commandRepository.saveAndFlush(command);
+        workQueueService.commandChanged(savedCommand);
+        deadlineService.commandChanged(savedCommand.getId(), savedCommand.getStatus(), savedCommand.getDueDate());
+        commandInboxService.commandChanged(savedCommand);
+        return savedCommand;
     }
 
     public Command updateCommandStatus(Long id, Command.Status status) {
@@ -130,7 +207,35 @@ public class CommandService {
             command.setCompletedDate(LocalDateTime.now());
         }
 
-        return commandRepository.save(command);
+        Command savedCommand = commandRepository.save(command);
+        workQueueService.commandChanged(savedCommand);
+        deadlineService.commandChanged(savedCommand.getId(), savedCommand.getStatus(), savedCommand.getDueDate());
+        commandInboxService.commandChanged(savedCommand);
+        return savedCommand;
+    }
+
+    // One set-based UPDATE for all matching commands, with the same side effect as updateCommandStatus
+    public int bulkUpdateCommandStatus(BulkStatusUpdateRequest request) {
+        if (request.getStatus() == null || request.getStatus().trim().isEmpty()) {
+            throw new RuntimeException("Status is required");
+        }
+        Command.Status status = Command.Status.valueOf(request.getStatus().trim().toUpperCase());
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime completedAt = status == Command.Status.COMPLETED ? now : null;
+        workQueueService.reconcileLater();
+        deadlineService.reloadLater();
+        commandInboxService.reloadLater();
+
+        if (request.hasIds()) {
+            return commandRepository.bulkUpdateStatusByIds(request.getIds(), status, completedAt, now);
+        }
+        if (!request.hasFilter()) {
+            throw new RuntimeException("Either ids or a filter is required");
+        }
+        Command.Status fromStatus = request.getFromStatus() != null && !request.getFromStatus().trim().isEmpty()
+                ? Command.Status.valueOf(request.getFromStatus().trim().toUpperCase()) : null;
+        return commandRepository.bulkUpdateStatusByFilter(fromStatus, request.getBranchId(),
+                request.getAssignedToId(), status, completedAt, now);
     }
 
     public void deleteCommand(Long id) {
@@ -138,26 +243,34 @@ public class CommandService {
             .orElseThrow(() -> new RuntimeException("Command not found with id: " + id));
         
         commandRepository.delete(command);
+        workQueueService.commandDeleted(id);
+        deadlineService.commandDeleted(id);
+        commandInboxService.commandDeleted(id);
     }
 
+    @Transactional(readOnly = true)
     public List<Command> searchCommands(Long branchId, Command.Status status, 
                                        Command.Priority priority, Command.CommandType type, 
                                        Long assignedToId) {
         return commandRepository.searchCommands(branchId, status, priority, type, assignedToId);
     }
 
+    @Transactional(readOnly = true)
     public long countCommandsByStatus(Command.Status status) {
         return commandRepository.countByStatus(status);
     }
 
+    @Transactional(readOnly = true)
     public long countCommandsByUserAndStatus(Long userId, Command.Status status) {
         return commandRepository.countByAssignedToIdAndStatus(userId, status);
     }
 
+    @Transactional(readOnly = true)
     public List<Object[]> getCommandStatusStatistics() {
         return commandRepository.getCommandStatusStatistics();
     }
 
+    @Transactional(readOnly = true)
     public List<Object[]> getCommandPriorityStatistics() {
         return commandRepository.getCommandPriorityStatistics();
     }
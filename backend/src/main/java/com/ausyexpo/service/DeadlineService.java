@@ -0,0 +1,397 @@
+package com.ausyexpo.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ausyexpo.model.Command;
+import com.ausyexpo.repository.AgreementRepository;
+import com.ausyexpo.repository.CommandRepository;
+import com.ausyexpo.repository.OrderRepository;
+import com.ausyexpo.util.AfterCommit;
+import com.ausyexpo.util.ReloadMerge;
+import com.ausyexpo.util.TimingWheel;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Deadline scheduler for order deliveries, command due dates and agreement end dates.
+ * Open deadlines sit in a hierarchical timing wheel that is advanced every second, and are kept current
+ * from the service writes once they commit. When an order or command deadline passes it is flagged overdue
+ * in memory and an ORDER_OVERDUE or COMMAND_OVERDUE event is written to the outbox; agreements are marked
+ * Expired in batches the day after their end date. Both are retried until their transaction commits.
+ * Overdue and expiring lists are served from memory.
+ */
+@Service
+public class DeadlineService {
+
+    public enum Kind {
+        ORDER, COMMAND, AGREEMENT
+    }
+
+    private static final Set<String> CLOSED_ORDER_STATUSES = Set.of("DELIVERED", "CANCELLED");
+    private static final Set<String> CLOSED_AGREEMENT_STATUSES = Set.of("Completed", "Cancelled", "Expired");
+
+    private static final int EXPIRY_BATCH_SIZE = 500;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private CommandRepository commandRepository;
+
+    @Autowired
+    private AgreementRepository agreementRepository;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Overdue events and agreement batches that could not be recorded are tried again after this delay
+    @Value("${app.deadlines.retry-ms:60000}")
+    private long retryMillis;
+
+    // Deadlines fire from the scheduler thread, outside any request transaction
+    private TransactionTemplate fireTransaction;
+
+    private final ExecutorService reloads = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "deadline-reload");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final Comparator<Deadline> BY_TIME =
+            Comparator.comparing((Deadline deadline) -> deadline.at).thenComparing(deadline -> deadline.id);
+
+    // All guarded by this. One-second ticks, 64 slots per level and five levels reach about 34 years ahead
+    private final TimingWheel<String> wheel = new TimingWheel<>(1000, 64, 5, System.currentTimeMillis());
+    private final Map<String, Deadline> tracked = new HashMap<>();
+    private final TreeSet<Deadline> overdueOrders = new TreeSet<>(BY_TIME);
+    private final TreeSet<Deadline> overdueCommands = new TreeSet<>(BY_TIME);
+    private final TreeSet<Deadline> openAgreements = new TreeSet<>(BY_TIME);
+    // Deadlines that were already past when scheduled; they fire on the next tick
+    private final List<String> dueNow = new ArrayList<>();
+    private final ReloadMerge<String> reloadMerge = new ReloadMerge<>();
+    // Serializes reloads started by the schedule and by bulk writes
+    private final Object reloadLock = new Object();
+    private boolean loaded;
+    private long fired;
+
+    private static final class Deadline {
+        final String key;
+        final Kind kind;
+        final Long id;
+        final Long branchId;
+        final LocalDateTime at;
+        boolean overdue;
+        // Flagged overdue, but its event could not be recorded yet
+        boolean eventPending;
+
+        Deadline(Kind kind, Long id, Long branchId, LocalDateTime at) {
+            this.key = kind + ":" + id;
+            this.kind = kind;
+            this.id = id;
+            this.branchId = branchId;
+            this.at = at;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        fireTransaction = new TransactionTemplate(transactionManager);
+        fireTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        reload();
+    }
+
+    // --- Incremental updates, after the write committed (or immediately outside a transaction) ---
+
+    public void orderChanged(Long id, String status, LocalDateTime expectedDeliveryDate) {
+        boolean open = expectedDeliveryDate != null && !CLOSED_ORDER_STATUSES.contains(status);
+        Deadline deadline = open ? new Deadline(Kind.ORDER, id, null, expectedDeliveryDate) : null;
+        AfterCommit.run(() -> update(Kind.ORDER + ":" + id, deadline));
+    }
+
+    public void orderDeleted(Long id) {
+        AfterCommit.run(() -> update(Kind.ORDER + ":" + id, null));
+    }
+
+    public void commandChanged(Long id, Command.Status status, LocalDateTime dueDate) {
+        boolean open = dueDate != null && status != Command.Status.COMPLETED && status != Command.Status.CANCELLED;
+        Deadline deadline = open ? new Deadline(Kind.COMMAND, id, null, dueDate) : null;
+        AfterCommit.run(() -> update(Kind.COMMAND + ":" + id, deadline));
+    }
+
+    public void commandDeleted(Long id) {
+        AfterCommit.run(() -> update(Kind.COMMAND + ":" + id, null));
+    }
+
+    public void agreementChanged(Long id, String status, LocalDate endDate, Long branchId) {
+        boolean open = endDate != null && !CLOSED_AGREEMENT_STATUSES.contains(status);
+        Deadline deadline = open ? new Deadline(Kind.AGREEMENT, id, branchId, expiresAt(endDate)) : null;
+        AfterCommit.run(() -> update(Kind.AGREEMENT + ":" + id, deadline));
+    }
+
+    public void agreementDeleted(Long id) {
+        AfterCommit.run(() -> update(Kind.AGREEMENT + ":" + id, null));
+    }
+
+    // For set-based status updates and imports
+    public void reloadLater() {
+        AfterCommit.run(() -> reloads.execute(this::reload));
+    }
+
+    private synchronized void update(String key, Deadline deadline) {
+        reloadMerge.changed(key);
+        if (deadline == null) {
+            untrack(key);
+        } else if (!sameDeadline(tracked.get(key), deadline)) {
+            // An unchanged deadline keeps its state, so an overdue item is not flagged twice
+            untrack(key);
+            track(deadline, false);
+        }
+    }
+
+    // --- Loading ---
+
+    @Scheduled(cron = "${app.deadlines.reload-cron:0 45 3 * * *}")
+    public void reload() {
+        synchronized (reloadLock) {
+            reloadNow();
+        }
+    }
+
+    private void reloadNow() {
+        synchronized (this) {
+            reloadMerge.start();
+        }
+        try {
+            Map<String, Deadline> rows = new LinkedHashMap<>();
+            for (Object[] row : orderRepository.findOpenDeliveryDeadlines()) {
+                Deadline deadline = new Deadline(Kind.ORDER, (Long) row[0], null, (LocalDateTime) row[1]);
+                rows.put(deadline.key, deadline);
+            }
+            for (Object[] row : commandRepository.findOpenDueDeadlines()) {
+                Deadline deadline = new Deadline(Kind.COMMAND, (Long) row[0], null, (LocalDateTime) row[1]);
+                rows.put(deadline.key, deadline);
+            }
+            for (Object[] row : agreementRepository.findOpenEndDeadlines()) {
+                Deadline deadline = new Deadline(Kind.AGREEMENT, (Long) row[0], (Long) row[2],
+                        expiresAt((LocalDate) row[1]));
+                rows.put(deadline.key, deadline);
+            }
+            synchronized (this) {
+                reloadMerge.merge(tracked.keySet(), rows, this::untrack, (key, deadline) -> {
+                    if (sameDeadline(tracked.get(key), deadline)) {
+                        return false;
+                    }
+                    untrack(key);
+                    // On startup, deadlines that passed while the application was down are flagged without an event
+                    track(deadline, !loaded);
+                    return true;
+                });
+                loaded = true;
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Deadline reload failed: " + e.getMessage());
+        } finally {
+            synchronized (this) {
+                reloadMerge.finish();
+            }
+        }
+    }
+
+    // --- Firing ---
+
+    @Scheduled(fixedDelay = 1000)
+    public void tick() {
+        List<Deadline> overdue = new ArrayList<>();
+        List<Deadline> expiring = new ArrayList<>();
+        synchronized (this) {
+            List<String> keys = wheel.advance(System.currentTimeMillis());
+            keys.addAll(dueNow);
+            dueNow.clear();
+            for (String key : keys) {
+                Deadline deadline = tracked.get(key);
+                // Skip keys that were rescheduled or already handled since they were queued
+                if (deadline == null || (deadline.overdue && !deadline.eventPending) || wheel.contains(key)) {
+                    continue;
+                }
+                if (deadline.kind == Kind.AGREEMENT) {
+                    untrack(key);
+                    expiring.add(deadline);
+                } else {
+                    deadline.eventPending = false;
+                    markOverdue(deadline);
+                    overdue.add(deadline);
+                }
+            }
+            fired += overdue.size() + expiring.size();
+        }
+        if (!overdue.isEmpty()) {
+            raiseOverdue(overdue);
+        }
+        for (int from = 0; from < expiring.size(); from += EXPIRY_BATCH_SIZE) {
+            expire(expiring.subList(from, Math.min(from + EXPIRY_BATCH_SIZE, expiring.size())));
+        }
+    }
+
+    private void raiseOverdue(List<Deadline> deadlines) {
+        try {
+            fireTransaction.executeWithoutResult(status -> {
+                for (Deadline deadline : deadlines) {
+                    Map<String, Object> payload = new LinkedHashMap<>();
+                    payload.put("id", deadline.id);
+                    payload.put(deadline.kind == Kind.ORDER ? "expectedDeliveryDate" : "dueDate", deadline.at);
+                    if (deadline.kind == Kind.ORDER) {
+                        outboxService.append("Order", deadline.id, "ORDER_OVERDUE", payload);
+                    } else {
+                        outboxService.append("Command", deadline.id, "COMMAND_OVERDUE", payload);
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            System.err.println("Could not record " + deadlines.size() + " overdue events, retrying later: " + e.getMessage());
+            synchronized (this) {
+                for (Deadline deadline : deadlines) {
+                    // A deadline changed or closed meanwhile has been replaced or dropped, and needs no event
+                    if (tracked.get(deadline.key) == deadline) {
+                        deadline.eventPending = true;
+                        wheel.schedule(deadline.key, System.currentTimeMillis() + retryMillis);
+                    }
+                }
+            }
+        }
+    }
+
+    private void expire(List<Deadline> batch) {
+        List<Long> ids = new ArrayList<>(batch.size());
+        for (Deadline deadline : batch) {
+            ids.add(deadline.id);
+        }
+        try {
+            fireTransaction.executeWithoutResult(status -> {
+                int expired = agreementRepository.markExpired(ids, LocalDate.now(), LocalDateTime.now());
+                Map<String, Object> payload = new LinkedHashMap<>();
+                payload.put("ids", ids);
+                payload.put("expired", expired);
+                outboxService.append("Agreement", null, "AGREEMENTS_EXPIRED", payload);
+            });
+        } catch (RuntimeException e) {
+            System.err.println("Could not expire " + ids.size() + " agreements, retrying later: " + e.getMessage());
+            synchronized (this) {
+                for (Deadline deadline : batch) {
+                    if (!tracked.containsKey(deadline.key)) {
+                        tracked.put(deadline.key, deadline);
+                        openAgreements.add(deadline);
+                        wheel.schedule(deadline.key, System.currentTimeMillis() + retryMillis);
+                    }
+                }
+            }
+        }
+    }
+
+    // --- Queries ---
+
+    public synchronized List<Long> getOverdueIds(Kind kind) {
+        List<Long> ids = new ArrayList<>();
+        for (Deadline deadline : kind == Kind.ORDER ? overdueOrders : overdueCommands) {
+            ids.add(deadline.id);
+        }
+        return ids;
+    }
+
+    // Open agreements ending between the two dates (inclusive), soonest first
+    public synchronized List<Long> getExpiringAgreementIds(LocalDate from, LocalDate to, Long branchId) {
+        List<Long> ids = new ArrayList<>();
+        Deadline start = new Deadline(Kind.AGREEMENT, Long.MIN_VALUE, null, expiresAt(from));
+        LocalDateTime end = expiresAt(to);
+        for (Deadline deadline : openAgreements.tailSet(start, true)) {
+            if (deadline.at.isAfter(end)) {
+                break;
+            }
+            if (branchId == null || branchId.equals(deadline.branchId)) {
+                ids.add(deadline.id);
+            }
+        }
+        return ids;
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("tracked", tracked.size());
+        stats.put("scheduled", wheel.size());
+        stats.put("overdueOrders", overdueOrders.size());
+        stats.put("overdueCommands", overdueCommands.size());
+        stats.put("openAgreements", openAgreements.size());
+        stats.put("fired", fired);
+        return stats;
+    }
+
+    // --- Helpers (callers hold the lock) ---
+
+    private void track(Deadline deadline, boolean silent) {
+        tracked.put(deadline.key, deadline);
+        if (deadline.kind == Kind.AGREEMENT) {
+            openAgreements.add(deadline);
+        }
+        if (!wheel.schedule(deadline.key, deadline.at.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli())) {
+            if (silent && deadline.kind != Kind.AGREEMENT) {
+                markOverdue(deadline);
+            } else {
+                dueNow.add(deadline.key);
+            }
+        }
+    }
+
+    private void untrack(String key) {
+        Deadline deadline = tracked.remove(key);
+        if (deadline == null) {
+            return;
+        }
+        wheel.cancel(key);
+        overdueOrders.remove(deadline);
+        overdueCommands.remove(deadline);
+        openAgreements.remove(deadline);
+    }
+
+    private void markOverdue(Deadline deadline) {
+        deadline.overdue = true;
+        (deadline.kind == Kind.ORDER ? overdueOrders : overdueCommands).add(deadline);
+    }
+
+    private static boolean sameDeadline(Deadline existing, Deadline deadline) {
+        return existing != null && existing.at.equals(deadline.at) && Objects.equals(existing.branchId, deadline.branchId);
+    }
+
+    // An agreement is in force through its end date and expires when the next day starts
+    private static LocalDateTime expiresAt(LocalDate endDate) {
+        return endDate.plusDays(1).atStartOfDay();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reloads.shutdownNow();
+    }
+}
@@ -1,6 +1,8 @@
 package com.ausyexpo.service;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -23,14 +25,20 @@ public class DepartmentService {
     @Autowired
     private BranchRepository branchRepository;
 
+    @Autowired
+    private HeadcountService headcountService;
+
+    @Transactional(readOnly = true)
     public List<Department> getAllDepartments() {
         return departmentRepository.findAll(Sort.by(Sort.Direction.ASC, "name"));
     }
 
+    @Transactional(readOnly = true)
     public List<Department> getDepartmentsByBranch(Long branchId) {
         return departmentRepository.findByBranchId(branchId);
     }
 
+    @Transactional(readOnly = true)
     public Optional<Department> getDepartmentById(Long id) {
         return departmentRepository.findById(id);
     }
@@ -76,14 +84,22 @@ public class DepartmentService {
         departmentRepository.deleteById(id);
     }
 
+    @Transactional(readOnly = true)
     public List<Department> searchDepartments(Long branchId, String name) {
         return departmentRepository.findBySearchCriteria(branchId, name);
     }
 
+    @Transactional(readOnly = true)
     public List<Object[]> getDepartmentsWithEmployeeCount(Long branchId) {
-        return departmentRepository.findDepartmentsWithEmployeeCount(branchId);
+        Map<Long, Long> counts = headcountService.countsByDepartment();
+        List<Object[]> departments = new ArrayList<>();
+        for (Department department : departmentRepository.findForBranchOrderByName(branchId)) {
+            departments.add(new Object[] {department, counts.getOrDefault(department.getId(), 0L)});
+        }
+        return departments;
     }
 
+    @Transactional(readOnly = true)
     public long countDepartmentsByBranch(Long branchId) {
         return departmentRepository.countByBranchId(branchId);
     }
@@ -5,6 +5,7 @@ import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.ausyexpo.model.Employee;
 import com.ausyexpo.repository.EmployeeRepository;
@@ -15,32 +16,44 @@ public class EmployeeService {
     @Autowired
     private EmployeeRepository employeeRepository;
 
+    @Autowired
+    private HeadcountService headcountService;
+
+    @Transactional(readOnly = true)
     public List<Employee> getAllEmployees() {
         return employeeRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
     public Optional<Employee> getEmployeeById(Long id) {
         return employeeRepository.findById(id);
     }
 
+    @Transactional(readOnly = true)
     public List<Employee> getEmployeesByBranch(Long branchId) {
         return employeeRepository.findByBranchId(branchId);
     }
 
+    @Transactional(readOnly = true)
     public List<Employee> getEmployeesByDepartment(Long departmentId) {
         return employeeRepository.findByDepartmentId(departmentId);
     }
 
+    @Transactional(readOnly = true)
     public List<Employee> getEmployeesByBranchAndDepartment(Long branchId, Long departmentId) {
         return employeeRepository.findByBranchIdAndDepartmentId(branchId, departmentId);
     }
 
+    @Transactional
     public Employee createEmployee(Employee employee) {
         // Set branch to null for now (as per your requirement to remove branch dependencies)
         employee.setBranch(null);
-        return employeeRepository.save(employee);
+        Employee savedEmployee = employeeRepository.save(employee);
+        headcountService.employeeSaved(savedEmployee);
+        return savedEmployee;
     }
 
+    @Transactional
     public Employee updateEmployee(Long id, Employee employeeDetails) {
         Employee employee = employeeRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Employee not found with id: " + id));
@@ -54,24 +67,29 @@ public class EmployeeService {
         // Set branch to null for now (as per your requirement to remove branch dependencies)
         employee.setBranch(null);
 
-        return employeeRepository.save(employee);
+        Employee savedEmployee = employeeRepository.save(employee);
+        headcountService.employeeSaved(savedEmployee);
+        return savedEmployee;
     }
 
+    @Transactional
     public void deleteEmployee(Long id) {
         Employee employee = employeeRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Employee not found with id: " + id));
         employeeRepository.delete(employee);
+        headcountService.employeeDeleted(id);
     }
 
+    // Counts come from the headcount index, not the employee table
     public long countEmployees() {
-        return employeeRepository.count();
+        return headcountService.countAll();
     }
 
     public long countEmployeesByBranch(Long branchId) {
-        return employeeRepository.findByBranchId(branchId).size();
+        return headcountService.countByBranch(branchId);
     }
 
     public long countEmployeesByDepartment(Long departmentId) {
-        return employeeRepository.findByDepartmentId(departmentId).size();
+        return headcountService.countByDepartment(departmentId);
     }
 }
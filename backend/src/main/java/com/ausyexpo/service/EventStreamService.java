@@ -0,0 +1,177 @@
+package com.ausyexpo.service;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.ausyexpo.dto.DomainEvent;
+import com.ausyexpo.model.OutboxEvent;
+import com.ausyexpo.repository.OutboxEventRepository;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Server-Sent Events fan-out for published outbox events.
+ * A subscriber first replays stored events after its offset, then receives live ones. Each subscriber
+ * has a bounded queue drained on a shared pool, so a slow client never holds up the relay: when its
+ * queue overflows the stream is closed and the client resumes from its Last-Event-ID.
+ */
+@Service
+public class EventStreamService {
+
+    private static final int QUEUE_CAPACITY = 1000;
+    private static final int REPLAY_PAGE_SIZE = 500;
+    private static final long EMITTER_TIMEOUT_MILLIS = 30 * 60 * 1000L;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    private final ExecutorService senders = Executors.newFixedThreadPool(4, runnable -> {
+        Thread thread = new Thread(runnable, "event-stream-sender");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public SseEmitter subscribe(String aggregateType, long afterSequence) {
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MILLIS);
+        Subscriber subscriber = new Subscriber(emitter, aggregateType, afterSequence);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+
+        // Register before replaying so nothing published during the replay is missed; duplicates are skipped by sequence
+        subscribers.add(subscriber);
+        subscriber.schedule();
+        return emitter;
+    }
+
+    // Called by the relay after a batch has been committed, in sequence order
+    public void broadcast(List<DomainEvent> events) {
+        for (Subscriber subscriber : subscribers) {
+            for (DomainEvent event : events) {
+                if (subscriber.aggregateType.equals(event.getAggregateType()) && !subscriber.offer(event)) {
+                    System.err.println("Event stream subscriber fell behind at sequence " + subscriber.lastSent
+                            + ", closing so it can resume");
+                    subscribers.remove(subscriber);
+                    subscriber.emitter.complete();
+                    break;
+                }
+            }
+        }
+    }
+
+    // Keeps idle connections from being dropped by proxies
+    @Scheduled(fixedDelay = 20000)
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.schedule();
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.emitter.complete();
+        }
+        senders.shutdownNow();
+    }
+
+    private class Subscriber implements Runnable {
+        private final SseEmitter emitter;
+        private final String aggregateType;
+        private final BlockingQueue<DomainEvent> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile long lastSent;
+        private boolean replayed;
+
+        Subscriber(SseEmitter emitter, String aggregateType, long afterSequence) {
+            this.emitter = emitter;
+            this.aggregateType = aggregateType;
+            this.lastSent = afterSequence;
+        }
+
+        boolean offer(DomainEvent event) {
+            if (!queue.offer(event)) {
+                return false;
+            }
+            schedule();
+            return true;
+        }
+
+        void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                senders.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (!replayed) {
+                    replay();
+                    replayed = true;
+                }
+                DomainEvent event;
+                boolean sentAny = false;
+                while ((event = queue.poll()) != null) {
+                    if (event.getSequence() > lastSent) {
+                        send(event);
+                        sentAny = true;
+                    }
+                }
+                if (!sentAny) {
+                    emitter.send(SseEmitter.event().comment("keep-alive"));
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Client went away; the completion callback removes it
+                subscribers.remove(this);
+                emitter.completeWithError(e);
+                return;
+            } finally {
+                scheduled.set(false);
+            }
+            if (!queue.isEmpty()) {
+                schedule();
+            }
+        }
+
+        private void replay() throws IOException {
+            while (true) {
+                List<OutboxEvent> page = outboxEventRepository.findPublishedAfter(aggregateType, lastSent,
+                        PageRequest.of(0, REPLAY_PAGE_SIZE));
+                for (OutboxEvent stored : page) {
+                    send(new DomainEvent(stored));
+                }
+                if (page.size() < REPLAY_PAGE_SIZE) {
+                    return;
+                }
+            }
+        }
+
+        private void send(DomainEvent event) throws IOException {
+            emitter.send(SseEmitter.event()
+                    .id(String.valueOf(event.getSequence()))
+                    .name(event.getEventType())
+                    .data(event, MediaType.APPLICATION_JSON));
+            lastSent = event.getSequence();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.ausyexpo.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.ausyexpo.model.GeoLocation;
+import com.ausyexpo.repository.GeoLocationRepository;
+import com.ausyexpo.util.AfterCommit;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Local geocode table: address coordinates are kept in the database and cached in memory, and distances
+ * are great-circle distances between them. No external service is called.
+ */
+@Service
+public class GeocodeService {
+
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+
+    @Autowired
+    private GeoLocationRepository geoLocationRepository;
+
+    // Normalized address to {latitude, longitude}
+    private final Map<String, double[]> coordinates = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        for (GeoLocation location : geoLocationRepository.findAll()) {
+            coordinates.put(location.getAddressKey(), new double[] {location.getLatitude(), location.getLongitude()});
+        }
+        System.out.println("Loaded " + coordinates.size() + " geocoded addresses");
+    }
+
+    public List<GeoLocation> getAllLocations() {
+        return geoLocationRepository.findAll();
+    }
+
+    // Adds or replaces the coordinates of each address; the last entry wins when an address repeats
+    @Transactional
+    public List<GeoLocation> saveLocations(List<GeoLocation> locations) {
+        Map<String, GeoLocation> byKey = new LinkedHashMap<>();
+        for (GeoLocation location : locations) {
+            String key = normalize(location.getAddress());
+            if (key == null || location.getLatitude() == null || location.getLongitude() == null) {
+                throw new RuntimeException("Each location needs an address, a latitude and a longitude");
+            }
+            if (Math.abs(location.getLatitude()) > 90 || Math.abs(location.getLongitude()) > 180) {
+                throw new RuntimeException("Coordinates out of range for address: " + location.getAddress());
+            }
+            byKey.put(key, location);
+        }
+        Map<String, GeoLocation> existing = new HashMap<>();
+        for (GeoLocation location : geoLocationRepository.findByAddressKeyIn(new ArrayList<>(byKey.keySet()))) {
+            existing.put(location.getAddressKey(), location);
+        }
+        List<GeoLocation> saved = new ArrayList<>();
+        for (Map.Entry<String, GeoLocation> entry : byKey.entrySet()) {
+            GeoLocation location = existing.getOrDefault(entry.getKey(), new GeoLocation());
+            location.setAddressKey(entry.getKey());
+            location.setAddress(entry.getValue().getAddress().trim());
+            location.setLatitude(entry.getValue().getLatitude());
+            location.setLongitude(entry.getValue().getLongitude());
+            saved.add(geoLocationRepository.save(location));
+        }
+        AfterCommit.run(() -> {
+            for (GeoLocation location : saved) {
+                coordinates.put(location.getAddressKey(), new double[] {location.getLatitude(), location.getLongitude()});
+            }
+        });
+        return saved;
+    }
+
+    // {latitude, longitude} of the address, or null when it has not been geocoded
+    public double[] locate(String address) {
+        String key = normalize(address);
+        return key != null ? coordinates.get(key) : null;
+    }
+
+    public static double distanceKm(double[] from, double[] to) {
+        double lat1 = Math.toRadians(from[0]);
+        double lat2 = Math.toRadians(to[0]);
+        double dLat = lat2 - lat1;
+        double dLon = Math.toRadians(to[1] - from[1]);
+        double h = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(lat1) * Math.cos(lat2) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(h)));
+    }
+
+    public static String normalize(String address) {
+        if (address == null) {
+            return null;
+        }
+        String key = address.trim().toLowerCase(Locale.ROOT).replaceAll("\\s+", " ").replaceAll("\\s*,\\s*", ", ")
+                .replaceAll("[\\s.,;]+$", "");
+        return key.isEmpty() ? null : key;
+    }
+}
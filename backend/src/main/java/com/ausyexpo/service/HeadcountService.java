@@ -0,0 +1,166 @@
+package com.ausyexpo.service;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.ausyexpo.model.Employee;
+import com.ausyexpo.repository.EmployeeRepository;
+import com.ausyexpo.util.AfterCommit;
+import com.ausyexpo.util.ReloadMerge;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Employee counts per branch, department and gender, kept in memory.
+ * The index remembers where each employee was counted, so a write replaces that employee's previous
+ * contribution and applying the same write twice is harmless. It is maintained from EmployeeService writes
+ * and reconciled against the database on a schedule, which also picks up changes made elsewhere.
+ */
+@Service
+public class HeadcountService {
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    // All guarded by this
+    private final Map<Long, Placement> placements = new HashMap<>();
+    private final Map<Long, Long> byBranch = new HashMap<>();
+    private final Map<Long, Long> byDepartment = new HashMap<>();
+    private final Map<Employee.Gender, Long> byGender = new EnumMap<>(Employee.Gender.class);
+    private final ReloadMerge<Long> reloadMerge = new ReloadMerge<>();
+
+    private final Object reconcileLock = new Object();
+
+    // Where one employee is counted
+    private static final class Placement {
+        final Long branchId;
+        final Long departmentId;
+        final Employee.Gender gender;
+
+        Placement(Long branchId, Long departmentId, Employee.Gender gender) {
+            this.branchId = branchId;
+            this.departmentId = departmentId;
+            this.gender = gender;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Placement)) {
+                return false;
+            }
+            Placement placement = (Placement) other;
+            return Objects.equals(branchId, placement.branchId) && Objects.equals(departmentId, placement.departmentId)
+                    && gender == placement.gender;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(branchId, departmentId, gender);
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        reconcile();
+    }
+
+    public void employeeSaved(Employee employee) {
+        Long employeeId = employee.getId();
+        Placement placement = new Placement(employee.getBranch() != null ? employee.getBranch().getId() : null,
+                employee.getDepartment() != null ? employee.getDepartment().getId() : null, employee.getGender());
+        AfterCommit.run(() -> apply(employeeId, placement));
+    }
+
+    public void employeeDeleted(Long employeeId) {
+        AfterCommit.run(() -> apply(employeeId, null));
+    }
+
+    public synchronized long countAll() {
+        return placements.size();
+    }
+
+    public synchronized long countByBranch(Long branchId) {
+        return byBranch.getOrDefault(branchId, 0L);
+    }
+
+    public synchronized long countByDepartment(Long departmentId) {
+        return byDepartment.getOrDefault(departmentId, 0L);
+    }
+
+    // Every gender, including those with nobody
+    public synchronized Map<Employee.Gender, Long> countByGender() {
+        Map<Employee.Gender, Long> counts = new EnumMap<>(Employee.Gender.class);
+        for (Employee.Gender gender : Employee.Gender.values()) {
+            counts.put(gender, byGender.getOrDefault(gender, 0L));
+        }
+        return counts;
+    }
+
+    public synchronized Map<Long, Long> countsByDepartment() {
+        return new HashMap<>(byDepartment);
+    }
+
+    // Rebuilds the index from a projection of the employee table and reports how far it had drifted
+    @Scheduled(cron = "${app.headcount.reconcile-cron:0 20 * * * *}")
+    public void reconcile() {
+        synchronized (reconcileLock) {
+            synchronized (this) {
+                reloadMerge.start();
+            }
+            try {
+                Map<Long, Placement> rows = new HashMap<>();
+                for (Object[] row : employeeRepository.findPlacements()) {
+                    rows.put((Long) row[0], new Placement((Long) row[1], (Long) row[2], (Employee.Gender) row[3]));
+                }
+                int drift;
+                synchronized (this) {
+                    drift = reloadMerge.merge(placements.keySet(), rows, employeeId -> apply(employeeId, null), this::apply);
+                }
+                if (drift > 0) {
+                    System.out.println("Headcount index reconciled " + drift + " employees (" + rows.size() + " in total)");
+                }
+            } catch (RuntimeException e) {
+                System.err.println("Headcount reconcile failed: " + e.getMessage());
+            } finally {
+                synchronized (this) {
+                    reloadMerge.finish();
+                }
+            }
+        }
+    }
+
+    // Returns whether this changed where the employee is counted
+    private synchronized boolean apply(Long employeeId, Placement placement) {
+        reloadMerge.changed(employeeId);
+        Placement previous = placement != null ? placements.put(employeeId, placement) : placements.remove(employeeId);
+        if (previous != null) {
+            decrement(byBranch, previous.branchId);
+            decrement(byDepartment, previous.departmentId);
+            decrement(byGender, previous.gender);
+        }
+        if (placement != null) {
+            increment(byBranch, placement.branchId);
+            increment(byDepartment, placement.departmentId);
+            increment(byGender, placement.gender);
+        }
+        return !Objects.equals(previous, placement);
+    }
+
+    private static <K> void increment(Map<K, Long> counts, K key) {
+        if (key != null) {
+            counts.merge(key, 1L, Long::sum);
+        }
+    }
+
+    private static <K> void decrement(Map<K, Long> counts, K key) {
+        if (key != null) {
+            counts.computeIfPresent(key, (k, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+}
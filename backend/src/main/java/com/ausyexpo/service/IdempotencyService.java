@@ -0,0 +1,247 @@
+package com.ausyexpo.service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.ausyexpo.model.IdempotencyKey;
+import com.ausyexpo.repository.IdempotencyKeyRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Idempotency-Key handling for create requests.
+ * A retry of a completed request replays the stored status and response body from a local cache or the key
+ * table, a retry that arrives while the first attempt is still running waits for that attempt, and the key row
+ * is stored in the creating transaction so the key and the resource are committed (or rolled back) together.
+ */
+@Service
+public class IdempotencyService {
+
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final long KEY_TTL_HOURS = 24;
+    private static final long WAIT_SECONDS = 30;
+    private static final int MAX_KEY_LENGTH = 100;
+    private static final int MAX_CACHED_KEYS = 10_000;
+
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Requests currently executing on this instance, completed with their stored key
+    private final Map<String, CompletableFuture<IdempotencyKey>> inFlight = new ConcurrentHashMap<>();
+
+    // Completed keys, so most retries never reach the database
+    private final Map<String, IdempotencyKey> completed = new ConcurrentHashMap<>();
+
+    public static class Outcome<T> {
+        private final T value;
+        private final Object body;
+        private final int status;
+        private final boolean replayed;
+
+        Outcome(T value, Object body, int status, boolean replayed) {
+            this.value = value;
+            this.body = body;
+            this.status = status;
+            this.replayed = replayed;
+        }
+
+        // The created resource; null when a stored response was replayed
+        public T getValue() {
+            return value;
+        }
+
+        // What to send back: the created resource, or the stored JSON of the original response
+        public Object getBody() {
+            return body;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public boolean isReplayed() {
+            return replayed;
+        }
+    }
+
+    /**
+     * Runs action at most once per (user, key). The action receives the unsaved key and must pass it to
+     * {@link #claim} and then {@link #complete} inside its transaction. loader is only used for keys stored
+     * before response bodies were kept, and fetches the resource again. Fields the server fills in (timestamps,
+     * ids) are left out when comparing a retry with the original request.
+     */
+    public <T> Outcome<T> execute(Long userId, String key, Object request, Set<String> serverAssignedFields,
+                                  Function<IdempotencyKey, T> action, Function<Long, Optional<T>> loader) {
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new RuntimeException("Idempotency-Key must be at most " + MAX_KEY_LENGTH + " characters");
+        }
+        String requestHash = hash(request, serverAssignedFields);
+        String scopedKey = userId + ":" + key;
+
+        IdempotencyKey cached = completed.get(scopedKey);
+        if (cached != null && !cached.isExpired()) {
+            return replay(cached, requestHash, loader);
+        }
+
+        CompletableFuture<IdempotencyKey> mine = new CompletableFuture<>();
+        CompletableFuture<IdempotencyKey> running = inFlight.putIfAbsent(scopedKey, mine);
+        if (running != null) {
+            return replay(await(running), requestHash, loader);
+        }
+
+        try {
+            Optional<IdempotencyKey> stored = idempotencyKeyRepository.findByUserIdAndIdempotencyKey(userId, key);
+            if (stored.isPresent() && stored.get().isExpired()) {
+                idempotencyKeyRepository.delete(stored.get());
+                stored = Optional.empty();
+            }
+            if (stored.isPresent()) {
+                remember(scopedKey, stored.get());
+                mine.complete(stored.get());
+                return replay(stored.get(), requestHash, loader);
+            }
+
+            IdempotencyKey record = new IdempotencyKey(userId, key, requestHash,
+                    LocalDateTime.now().plusHours(KEY_TTL_HOURS));
+            T value;
+            try {
+                value = action.apply(record);
+            } catch (DataIntegrityViolationException e) {
+                // Another instance committed the same key first; its insert blocked ours until then
+                IdempotencyKey winner = idempotencyKeyRepository.findByUserIdAndIdempotencyKey(userId, key)
+                        .orElseThrow(() -> e);
+                remember(scopedKey, winner);
+                mine.complete(winner);
+                return replay(winner, requestHash, loader);
+            }
+            remember(scopedKey, record);
+            mine.complete(record);
+            return new Outcome<>(value, value, statusOf(record), false);
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(scopedKey, mine);
+        }
+    }
+
+    // Inserts the key first thing in the creating transaction; a concurrent duplicate blocks on the unique index
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void claim(IdempotencyKey record) {
+        idempotencyKeyRepository.saveAndFlush(record);
+    }
+
+    // Records the response on the claimed key; written when the creating transaction commits
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void complete(IdempotencyKey record, Long resourceId, int status, Object body) {
+        record.setResourceId(resourceId);
+        record.setResponseStatus(status);
+        try {
+            record.setResponseBody(objectMapper.writeValueAsString(body));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Could not store the response for replay: " + e.getOriginalMessage());
+        }
+    }
+
+    @Scheduled(fixedDelay = 60 * 60 * 1000)
+    @Transactional
+    public void purgeExpired() {
+        completed.values().removeIf(IdempotencyKey::isExpired);
+        int deleted = idempotencyKeyRepository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            System.out.println("Purged " + deleted + " expired idempotency keys");
+        }
+    }
+
+    private <T> Outcome<T> replay(IdempotencyKey record, String requestHash, Function<Long, Optional<T>> loader) {
+        if (!record.getRequestHash().equals(requestHash)) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                    "Idempotency-Key was already used for a different request");
+        }
+        if (record.getResponseBody() != null) {
+            try {
+                JsonNode body = objectMapper.readTree(record.getResponseBody());
+                return new Outcome<>(null, body, statusOf(record), true);
+            } catch (JsonProcessingException e) {
+                throw new RuntimeException("Stored response for this Idempotency-Key is unreadable");
+            }
+        }
+        // Keys stored before response bodies were kept
+        T value = loader.apply(record.getResourceId())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.GONE,
+                        "The resource created with this Idempotency-Key no longer exists"));
+        return new Outcome<>(value, value, statusOf(record), true);
+    }
+
+    private static int statusOf(IdempotencyKey record) {
+        return record.getResponseStatus() != null ? record.getResponseStatus() : HttpStatus.CREATED.value();
+    }
+
+    private IdempotencyKey await(CompletableFuture<IdempotencyKey> running) {
+        try {
+            return running.get(WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            // The first attempt failed; report the same failure to the duplicate
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "A request with this Idempotency-Key is still in progress");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for a duplicate request");
+        }
+    }
+
+    private void remember(String scopedKey, IdempotencyKey record) {
+        if (completed.size() >= MAX_CACHED_KEYS) {
+            completed.values().removeIf(IdempotencyKey::isExpired);
+            if (completed.size() >= MAX_CACHED_KEYS) {
+                completed.clear();
+            }
+        }
+        completed.put(scopedKey, record);
+    }
+
+    private String hash(Object request, Set<String> serverAssignedFields) {
+        try {
+            ObjectNode tree = objectMapper.valueToTree(request);
+            tree.remove(serverAssignedFields);
+            byte[] json = objectMapper.writeValueAsBytes(tree);
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+            return HexFormat.of().formatHex(digest);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Could not hash request: " + e.getOriginalMessage());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
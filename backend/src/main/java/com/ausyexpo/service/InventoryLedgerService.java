@@ -0,0 +1,433 @@
+package com.ausyexpo.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ausyexpo.dto.InventoryBalance;
+import com.ausyexpo.dto.StockLevelChangedEvent;
+import com.ausyexpo.model.InventoryMovement;
+import com.ausyexpo.model.InventoryMovement.Type;
+import com.ausyexpo.model.Stock;
+import com.ausyexpo.repository.InventoryMovementRepository;
+import com.ausyexpo.repository.StockRepository;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Inventory ledger with in-memory balances per (branch, material type).
+ * Every change appends a movement and updates the matching counter under a striped lock. What takes stock away
+ * (less on hand, more reserved) counts at once, so a reservation's availability check and its effect are atomic
+ * with respect to other writers, and is taken out again if the transaction rolls back. What adds stock counts
+ * only once its transaction commits, so no check can spend it before then. A periodic reconciliation compares
+ * the counters with the ledger sums. Material types are matched ignoring case, as MySQL groups them, while a
+ * counter keeps the spelling it was first seen with for display. Assumes a single application instance owns the
+ * counters.
+ */
+@Service
+public class InventoryLedgerService {
+
+    private static final int STRIPES = 64;
+    private static final long NO_BRANCH = 0L;
+
+    @Autowired
+    private InventoryMovementRepository movementRepository;
+
+    @Autowired
+    private StockRepository stockRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // branch id (0 for stock without a branch) -> material key -> counter
+    private final Map<Long, Map<String, Counter>> balances = new ConcurrentHashMap<>();
+
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+
+    // Guarded by the stripe lock of its key
+    private static final class Counter {
+        final String materialType;
+        long onHand;
+        long reserved;
+        long lots;
+        // Movements applied here whose transaction has not finished yet
+        int pending;
+        // Bumped whenever a transaction finishes, so reconciliation can tell a counter changed under it
+        long version;
+
+        Counter(String materialType) {
+            this.materialType = materialType;
+        }
+    }
+
+    public InventoryLedgerService() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate.executeWithoutResult(status -> seedOpeningBalances());
+        loadCounters();
+    }
+
+    // A database that predates the ledger gets one RECEIVE per unreleased lot
+    private void seedOpeningBalances() {
+        if (movementRepository.count() > 0) {
+            return;
+        }
+        List<InventoryMovement> opening = new ArrayList<>();
+        for (Stock stock : stockRepository.findByReleaseDateIsNull()) {
+            InventoryMovement movement = new InventoryMovement(Type.RECEIVE, branchIdOf(stock),
+                    materialName(stock.getMaterialType()), stock.getQuantity(), 0, 1);
+            movement.setStockId(stock.getId());
+            movement.setReference("Opening balance");
+            opening.add(movement);
+        }
+        movementRepository.saveAll(opening);
+        if (!opening.isEmpty()) {
+            System.out.println("Seeded inventory ledger with " + opening.size() + " opening balances");
+        }
+    }
+
+    private void loadCounters() {
+        for (Map.Entry<Long, Map<String, LedgerSums>> branch : ledgerBalances().entrySet()) {
+            for (LedgerSums sums : branch.getValue().values()) {
+                Counter counter = counter(branch.getKey() == NO_BRANCH ? null : branch.getKey(), sums.materialType);
+                counter.onHand = sums.values[0];
+                counter.reserved = sums.values[1];
+                counter.lots = sums.values[2];
+            }
+        }
+    }
+
+    private static final class LedgerSums {
+        final String materialType;
+        // on hand, reserved, lots
+        final long[] values = new long[3];
+
+        LedgerSums(String materialType) {
+            this.materialType = materialType;
+        }
+    }
+
+    // Ledger sums per branch and material key. Spellings that differ only in case are added up here, so the
+    // result is the same whether or not the database's collation already grouped them.
+    private Map<Long, Map<String, LedgerSums>> ledgerBalances() {
+        Map<Long, Map<String, LedgerSums>> ledger = new HashMap<>();
+        for (Object[] row : movementRepository.sumBalances()) {
+            String materialType = (String) row[1];
+            LedgerSums sums = ledger.computeIfAbsent(branchKey((Long) row[0]), k -> new HashMap<>())
+                    .computeIfAbsent(materialKey(materialType), k -> new LedgerSums(materialType));
+            for (int i = 0; i < 3; i++) {
+                sums.values[i] += ((Number) row[2 + i]).longValue();
+            }
+        }
+        return ledger;
+    }
+
+    // --- Movements (must run inside the caller's transaction) ---
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public InventoryMovement receive(Stock stock) {
+        InventoryMovement movement = new InventoryMovement(Type.RECEIVE, branchIdOf(stock),
+                materialName(stock.getMaterialType()), stock.getQuantity(), 0, 1);
+        movement.setStockId(stock.getId());
+        return append(movement, null);
+    }
+
+    // A lot leaving the warehouse; refused if it would leave less on hand than is reserved
+    @Transactional(propagation = Propagation.MANDATORY)
+    public InventoryMovement release(Stock stock) {
+        InventoryMovement movement = new InventoryMovement(Type.RELEASE, branchIdOf(stock),
+                materialName(stock.getMaterialType()), -stock.getQuantity(), 0, -1);
+        movement.setStockId(stock.getId());
+        return append(movement, counter -> {
+            if (counter.onHand - stock.getQuantity() < counter.reserved) {
+                throw new RuntimeException("Cannot release stock: " + counter.reserved + " units of "
+                        + stock.getMaterialType() + " are reserved and only " + counter.onHand + " are on hand");
+            }
+        });
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public InventoryMovement adjust(Long branchId, String materialType, int quantityDelta, int lotDelta,
+                                    Long stockId, String reference) {
+        InventoryMovement movement = new InventoryMovement(Type.ADJUST, branchId, materialName(materialType),
+                quantityDelta, 0, lotDelta);
+        movement.setStockId(stockId);
+        movement.setReference(reference);
+        return append(movement, null);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public InventoryMovement reserve(Long branchId, String materialType, int quantity, String reference) {
+        if (quantity <= 0) {
+            throw new RuntimeException("Reservation quantity must be greater than 0");
+        }
+        InventoryMovement movement = new InventoryMovement(Type.RESERVE, branchId, materialName(materialType),
+                0, quantity, 0);
+        movement.setReference(reference);
+        return append(movement, counter -> {
+            long available = counter.onHand - counter.reserved;
+            if (available < quantity) {
+                throw new RuntimeException("Insufficient stock of " + materialType + ": " + available
+                        + " available, " + quantity + " requested");
+            }
+        });
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public InventoryMovement cancelReservation(Long reservationId) {
+        InventoryMovement reservation = movementRepository.findById(reservationId)
+                .orElseThrow(() -> new RuntimeException("Reservation not found with id: " + reservationId));
+        if (reservation.getType() != Type.RESERVE) {
+            throw new RuntimeException("Movement " + reservationId + " is not a reservation");
+        }
+        if (movementRepository.existsByRelatedMovementId(reservationId)) {
+            throw new RuntimeException("Reservation " + reservationId + " is already cancelled");
+        }
+        InventoryMovement movement = new InventoryMovement(Type.UNRESERVE, reservation.getBranchId(),
+                reservation.getMaterialType(), 0, -reservation.getReservedDelta(), 0);
+        movement.setRelatedMovementId(reservationId);
+        movement.setReference(reservation.getReference());
+        return append(movement, null);
+    }
+
+    private interface Check {
+        void verify(Counter counter);
+    }
+
+    private InventoryMovement append(InventoryMovement movement, Check check) {
+        Long branchId = movement.getBranchId();
+        String materialType = movement.getMaterialType();
+        String material = materialKey(materialType);
+        long[] reductions = {
+            Math.min(movement.getOnHandDelta(), 0), Math.max(movement.getReservedDelta(), 0), Math.min(movement.getLotDelta(), 0)
+        };
+        long[] increases = {
+            Math.max(movement.getOnHandDelta(), 0), Math.min(movement.getReservedDelta(), 0), Math.max(movement.getLotDelta(), 0)
+        };
+        ReentrantLock lock = stripe(branchId, material);
+        Counter counter;
+        lock.lock();
+        try {
+            counter = counter(branchId, materialType);
+            if (check != null) {
+                check.verify(counter);
+            }
+            apply(counter, reductions, 1);
+            counter.pending++;
+        } finally {
+            lock.unlock();
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            // Ahead of the after-commit listeners, so they see the new balance
+            @Override
+            public int getOrder() {
+                return HIGHEST_PRECEDENCE;
+            }
+
+            @Override
+            public void afterCommit() {
+                lock.lock();
+                try {
+                    apply(counter, increases, 1);
+                } finally {
+                    lock.unlock();
+                }
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                lock.lock();
+                try {
+                    if (status != STATUS_COMMITTED) {
+                        apply(counter, reductions, -1);
+                    }
+                    counter.pending--;
+                    counter.version++;
+                } finally {
+                    lock.unlock();
+                }
+            }
+        });
+        // Listeners such as the low-stock alerts see the new balance once the transaction commits
+        eventPublisher.publishEvent(new StockLevelChangedEvent(branchId, materialType));
+        return movementRepository.save(movement);
+    }
+
+    // deltas: on hand, reserved, lots
+    private static void apply(Counter counter, long[] deltas, int sign) {
+        counter.onHand += sign * deltas[0];
+        counter.reserved += sign * deltas[1];
+        counter.lots += sign * deltas[2];
+    }
+
+    // --- Reads, O(1) per key ---
+
+    public InventoryBalance getBalance(Long branchId, String materialType) {
+        String material = materialKey(materialType);
+        Map<String, Counter> byMaterial = balances.get(branchKey(branchId));
+        Counter counter = byMaterial != null ? byMaterial.get(material) : null;
+        if (counter == null) {
+            return new InventoryBalance(branchId, materialName(materialType), 0, 0, 0);
+        }
+        return snapshot(branchId, material, counter);
+    }
+
+    public List<InventoryBalance> getBalancesByBranch(Long branchId) {
+        List<InventoryBalance> result = new ArrayList<>();
+        Map<String, Counter> byMaterial = balances.get(branchKey(branchId));
+        if (byMaterial != null) {
+            for (Map.Entry<String, Counter> entry : byMaterial.entrySet()) {
+                InventoryBalance balance = snapshot(branchId, entry.getKey(), entry.getValue());
+                if (balance.getOnHand() != 0 || balance.getReserved() != 0 || balance.getLots() != 0) {
+                    result.add(balance);
+                }
+            }
+        }
+        return result;
+    }
+
+    public List<InventoryBalance> getAllBalances() {
+        List<InventoryBalance> result = new ArrayList<>();
+        for (Long key : balances.keySet()) {
+            result.addAll(getBalancesByBranch(key == NO_BRANCH ? null : key));
+        }
+        return result;
+    }
+
+    public List<InventoryMovement> getRecentMovements(Long branchId, String materialType, int limit) {
+        String material = materialType != null && !materialType.isBlank() ? materialKey(materialType) : null;
+        return movementRepository.findRecent(branchId, material, PageRequest.of(0, Math.min(Math.max(limit, 1), 500)));
+    }
+
+    private InventoryBalance snapshot(Long branchId, String material, Counter counter) {
+        ReentrantLock lock = stripe(branchId, material);
+        lock.lock();
+        try {
+            return new InventoryBalance(branchId, counter.materialType, counter.onHand, counter.reserved, counter.lots);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // --- Reconciliation ---
+
+    // Returns the number of counters that disagreed with the ledger and were corrected
+    @Scheduled(fixedDelay = 5 * 60 * 1000, initialDelay = 5 * 60 * 1000)
+    public int reconcile() {
+        // Versions before reading the ledger; a counter whose version moves meanwhile is checked next time
+        Map<Counter, Long> versions = new HashMap<>();
+        forEachCounter((branchId, material, counter) -> versions.put(counter, counter.version));
+
+        Map<Long, Map<String, LedgerSums>> ledger = ledgerBalances();
+
+        int corrected = 0;
+        for (Map.Entry<Long, Map<String, LedgerSums>> branch : ledger.entrySet()) {
+            for (LedgerSums sums : branch.getValue().values()) {
+                counter(branch.getKey() == NO_BRANCH ? null : branch.getKey(), sums.materialType);
+            }
+        }
+        for (Map.Entry<Long, Map<String, Counter>> branch : balances.entrySet()) {
+            Long branchId = branch.getKey() == NO_BRANCH ? null : branch.getKey();
+            Map<String, LedgerSums> ledgerByMaterial = ledger.getOrDefault(branch.getKey(), Map.of());
+            for (Map.Entry<String, Counter> entry : branch.getValue().entrySet()) {
+                LedgerSums sums = ledgerByMaterial.get(entry.getKey());
+                long[] expected = sums != null ? sums.values : new long[3];
+                Counter counter = entry.getValue();
+                ReentrantLock lock = stripe(branchId, entry.getKey());
+                lock.lock();
+                try {
+                    Long before = versions.get(counter);
+                    boolean quiet = counter.pending == 0 && (before == null ? counter.version == 0 : before == counter.version);
+                    if (quiet && (counter.onHand != expected[0] || counter.reserved != expected[1] || counter.lots != expected[2])) {
+                        System.err.println("Inventory balance for branch " + branchId + " / " + counter.materialType
+                                + " drifted from the ledger (on hand " + counter.onHand + " vs " + expected[0]
+                                + ", reserved " + counter.reserved + " vs " + expected[1] + "); corrected");
+                        counter.onHand = expected[0];
+                        counter.reserved = expected[1];
+                        counter.lots = expected[2];
+                        corrected++;
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+        return corrected;
+    }
+
+    private interface CounterVisitor {
+        void visit(Long branchId, String materialType, Counter counter);
+    }
+
+    private void forEachCounter(CounterVisitor visitor) {
+        for (Map.Entry<Long, Map<String, Counter>> branch : balances.entrySet()) {
+            Long branchId = branch.getKey() == NO_BRANCH ? null : branch.getKey();
+            for (Map.Entry<String, Counter> entry : branch.getValue().entrySet()) {
+                ReentrantLock lock = stripe(branchId, entry.getKey());
+                lock.lock();
+                try {
+                    visitor.visit(branchId, entry.getKey(), entry.getValue());
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    // --- Keys ---
+
+    private Counter counter(Long branchId, String materialType) {
+        return balances.computeIfAbsent(branchKey(branchId), k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(materialKey(materialType), k -> new Counter(materialType));
+    }
+
+    private ReentrantLock stripe(Long branchId, String material) {
+        int hash = 31 * Long.hashCode(branchKey(branchId)) + material.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+    }
+
+    private static long branchKey(Long branchId) {
+        return branchId == null ? NO_BRANCH : branchId;
+    }
+
+    public static Long branchIdOf(Stock stock) {
+        return stock.getBranch() != null ? stock.getBranch().getId() : null;
+    }
+
+    // Counters and lookups match material types ignoring case: "Steel" and "steel" share one balance
+    public static String materialKey(String materialType) {
+        return materialName(materialType).toLowerCase(Locale.ROOT);
+    }
+
+    // The spelling written to the ledger
+    public static String materialName(String materialType) {
+        if (materialType == null || materialType.isBlank()) {
+            throw new RuntimeException("Material type is required");
+        }
+        return materialType.trim();
+    }
+}
@@ -0,0 +1,218 @@
+package com.ausyexpo.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.ausyexpo.dto.LoadPlan;
+import com.ausyexpo.dto.LoadPlanRequest;
+import com.ausyexpo.model.Order;
+import com.ausyexpo.model.Transportation;
+import com.ausyexpo.repository.OrderRepository;
+import com.ausyexpo.repository.TransportationRepository;
+import com.ausyexpo.util.BinPacker;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Dispatch planner that packs confirmed orders into vehicle capacity.
+ * An order's load is its quantity, in the same units as the vehicle capacity. Independent searches with
+ * different seeds run in parallel until the time budget is spent and the best plan wins: as much quantity
+ * loaded as possible, on as few vehicles as possible, preferring smaller vehicles. The plan is advisory;
+ * nothing is written.
+ */
+@Service
+public class LoadPlanningService {
+
+    private static final String CONFIRMED = "CONFIRMED";
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private TransportationRepository transportationRepository;
+
+    @Value("${app.load-planning.time-budget-ms:2000}")
+    private long defaultTimeBudgetMillis;
+
+    @Value("${app.load-planning.max-time-budget-ms:10000}")
+    private long maxTimeBudgetMillis;
+
+    // 0 uses one search per available processor
+    @Value("${app.load-planning.workers:0}")
+    private int configuredWorkers;
+
+    private int workers;
+    private ExecutorService searches;
+
+    @PostConstruct
+    public void init() {
+        workers = configuredWorkers > 0 ? configuredWorkers : Runtime.getRuntime().availableProcessors();
+        searches = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "load-planner");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public LoadPlan plan(LoadPlanRequest request) {
+        long started = System.nanoTime();
+        long budget = request.getTimeBudgetMillis() != null ? request.getTimeBudgetMillis() : defaultTimeBudgetMillis;
+        budget = Math.max(1, Math.min(budget, maxTimeBudgetMillis));
+
+        List<Order> orders = loadOrders(request);
+        List<Transportation> vehicles = loadVehicles(request);
+
+        LoadPlan plan = new LoadPlan();
+        plan.setBranchId(request.getBranchId());
+        plan.setOrderCount(orders.size());
+        plan.setVehicleCount(vehicles.size());
+        plan.setTimeBudgetMillis(budget);
+        plan.setWorkers(workers);
+        long[] sizes = new long[orders.size()];
+        long total = 0;
+        for (int i = 0; i < sizes.length; i++) {
+            sizes[i] = orders.get(i).getQuantity();
+            total += sizes[i];
+        }
+        plan.setTotalQuantity(total);
+
+        if (orders.isEmpty() || vehicles.isEmpty()) {
+            for (Order order : orders) {
+                plan.getUnassignedOrderIds().add(order.getId());
+            }
+            plan.setElapsedMillis((System.nanoTime() - started) / 1_000_000);
+            return plan;
+        }
+
+        long[] capacities = new long[vehicles.size()];
+        for (int i = 0; i < capacities.length; i++) {
+            capacities[i] = capacityOf(vehicles.get(i));
+        }
+        BinPacker packer = new BinPacker(sizes, capacities);
+        long deadline = started + budget * 1_000_000;
+        List<Future<BinPacker.Solution>> running = new ArrayList<>();
+        for (int seed = 0; seed < workers; seed++) {
+            long searchSeed = seed;
+            running.add(searches.submit(() -> packer.solve(searchSeed, deadline)));
+        }
+        BinPacker.Solution best = null;
+        long iterations = 0;
+        for (Future<BinPacker.Solution> search : running) {
+            try {
+                BinPacker.Solution solution = search.get();
+                iterations += solution.getIterations();
+                if (solution.isBetterThan(best)) {
+                    best = solution;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Load planning was interrupted");
+            } catch (ExecutionException e) {
+                throw new RuntimeException("Load planning failed: " + e.getCause().getMessage(), e.getCause());
+            }
+        }
+
+        Map<Integer, LoadPlan.VehicleLoad> loads = new HashMap<>();
+        int[] assignment = best.getAssignment();
+        for (int i = 0; i < assignment.length; i++) {
+            Order order = orders.get(i);
+            if (assignment[i] < 0) {
+                plan.getUnassignedOrderIds().add(order.getId());
+                continue;
+            }
+            LoadPlan.VehicleLoad load = loads.computeIfAbsent(assignment[i],
+                    bin -> vehicleLoad(vehicles.get(bin), capacities[bin]));
+            load.setLoad(load.getLoad() + sizes[i]);
+            load.getOrderIds().add(order.getId());
+        }
+        for (LoadPlan.VehicleLoad load : loads.values()) {
+            load.setUtilization(Math.round(1000.0 * load.getLoad() / load.getCapacity()) / 10.0);
+            plan.getVehicles().add(load);
+        }
+        plan.getVehicles().sort((a, b) -> Long.compare(b.getLoad(), a.getLoad()));
+        plan.setAssignedQuantity(total - best.getUnplaced());
+        plan.setVehiclesUsed(best.getBinsUsed());
+        plan.setCapacityUsed(best.getCapacityUsed());
+        plan.setIterations(iterations);
+        plan.setElapsedMillis((System.nanoTime() - started) / 1_000_000);
+        return plan;
+    }
+
+    // Explicitly listed orders must all be confirmed; orders without a quantity carry no load and are left out
+    private List<Order> loadOrders(LoadPlanRequest request) {
+        List<Order> candidates;
+        if (request.getOrderIds() != null && !request.getOrderIds().isEmpty()) {
+            candidates = orderRepository.findAllById(request.getOrderIds());
+            if (candidates.size() != request.getOrderIds().stream().distinct().count()) {
+                throw new RuntimeException("One or more orders were not found");
+            }
+            for (Order order : candidates) {
+                if (!CONFIRMED.equals(order.getStatus())) {
+                    throw new RuntimeException("Order " + order.getOrderNumber() + " is not confirmed");
+                }
+            }
+        } else if (request.getBranchId() != null) {
+            candidates = orderRepository.findByBranchIdAndStatus(request.getBranchId(), CONFIRMED);
+        } else {
+            candidates = orderRepository.findByStatus(CONFIRMED);
+        }
+        List<Order> orders = new ArrayList<>();
+        for (Order order : candidates) {
+            if (order.getQuantity() != null && order.getQuantity() > 0) {
+                orders.add(order);
+            }
+        }
+        return orders;
+    }
+
+    private List<Transportation> loadVehicles(LoadPlanRequest request) {
+        List<Transportation> candidates;
+        if (request.getVehicleIds() != null && !request.getVehicleIds().isEmpty()) {
+            candidates = transportationRepository.findAllById(request.getVehicleIds());
+            for (Transportation vehicle : candidates) {
+                if (!Boolean.TRUE.equals(vehicle.getIsActive())) {
+                    throw new RuntimeException("Vehicle " + vehicle.getVehicleNumber() + " is not active");
+                }
+            }
+        } else {
+            candidates = transportationRepository.findAvailableVehicles(request.getBranchId());
+        }
+        List<Transportation> vehicles = new ArrayList<>();
+        for (Transportation vehicle : candidates) {
+            if (capacityOf(vehicle) > 0) {
+                vehicles.add(vehicle);
+            }
+        }
+        return vehicles;
+    }
+
+    // Quantities are whole units, so a fractional capacity only counts its whole part
+    private static long capacityOf(Transportation vehicle) {
+        return vehicle.getCapacity() != null ? (long) Math.floor(vehicle.getCapacity() + 1e-9) : 0;
+    }
+
+    private static LoadPlan.VehicleLoad vehicleLoad(Transportation vehicle, long capacity) {
+        LoadPlan.VehicleLoad load = new LoadPlan.VehicleLoad();
+        load.setVehicleId(vehicle.getId());
+        load.setVehicleNumber(vehicle.getVehicleNumber());
+        load.setVehicleType(vehicle.getVehicleType());
+        load.setCapacity(capacity);
+        return load;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        searches.shutdownNow();
+    }
+}
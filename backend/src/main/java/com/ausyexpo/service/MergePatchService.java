@@ -0,0 +1,92 @@
+package com.ausyexpo.service;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+/**
+ * Applies JSON merge patches (RFC 7386) to managed entities.
+ * Only the properties present in the patch are set, so with @DynamicUpdate Hibernate writes just the
+ * columns that actually changed; @Version turns concurrent edits into conflicts instead of lost updates.
+ */
+@Service
+public class MergePatchService {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    public <T> T apply(T target, JsonNode patch, Set<String> patchableFields) {
+        if (patch == null || !patch.isObject()) {
+            throw new RuntimeException("Patch must be a JSON object");
+        }
+        Iterator<String> names = patch.fieldNames();
+        while (names.hasNext()) {
+            String name = names.next();
+            if ("version".equals(name)) {
+                continue;
+            }
+            if (!patchableFields.contains(name)) {
+                throw new RuntimeException("Field cannot be patched: " + name);
+            }
+        }
+        try {
+            ObjectNode fields = ((ObjectNode) patch).deepCopy();
+            fields.remove("version");
+            return objectMapper.readerForUpdating(target).readValue(fields);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Invalid patch: " + e.getOriginalMessage());
+        } catch (IOException e) {
+            throw new RuntimeException("Invalid patch: " + e.getMessage());
+        }
+    }
+
+    // Runs the entity's bean validation constraints on the patched state
+    public void validate(Object target) {
+        Set<? extends ConstraintViolation<?>> violations = validator.validate(target);
+        if (!violations.isEmpty()) {
+            ConstraintViolation<?> violation = violations.iterator().next();
+            throw new RuntimeException(violation.getPropertyPath() + " " + violation.getMessage());
+        }
+    }
+
+    // The expected version comes from If-Match, or from a "version" member in the patch itself
+    public Long expectedVersion(String ifMatch, JsonNode patch) {
+        if (ifMatch != null && !ifMatch.isBlank()) {
+            String tag = ifMatch.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            tag = tag.replace("\"", "");
+            try {
+                return Long.parseLong(tag);
+            } catch (NumberFormatException e) {
+                throw new RuntimeException("Invalid If-Match header: " + ifMatch);
+            }
+        }
+        if (patch != null && patch.hasNonNull("version")) {
+            return patch.get("version").asLong();
+        }
+        return null;
+    }
+
+    public void checkVersion(Class<?> entityType, Long id, Long currentVersion, Long expectedVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(currentVersion)) {
+            throw new ObjectOptimisticLockingFailureException(entityType, id);
+        }
+    }
+}
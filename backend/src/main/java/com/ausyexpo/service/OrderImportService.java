@@ -0,0 +1,469 @@
+package com.ausyexpo.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ausyexpo.dto.OrderImportResult;
+import com.ausyexpo.dto.OrderImportResult.RowResult;
+import com.ausyexpo.model.Order;
+import com.ausyexpo.repository.OrderRepository;
+import com.ausyexpo.repository.UserRepository;
+import com.ausyexpo.service.UniqueKeyFilterService.KeySpace;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+/**
+ * Bulk order import from a streamed JSON array or CSV file.
+ * Rows are parsed one at a time and processed in chunks: each chunk is validated, checked for
+ * order-number conflicts and unknown customers with one set-based query each, and inserted with
+ * a single JDBC batch in its own transaction.
+ */
+@Service
+public class OrderImportService {
+
+    public static final String FORMAT_JSON = "json";
+    public static final String FORMAT_CSV = "csv";
+
+    private static final int CHUNK_SIZE = 500;
+
+    private static final String INSERT_SQL = "INSERT INTO orders (order_number, customer_name, customer_email, " +
+            "customer_phone, customer_address, product_name, product_category, product_description, quantity, " +
+            "unit_price, total_amount, status, priority, order_date, expected_delivery_date, actual_delivery_date, " +
+            "notes, specifications, payment_status, payment_method, created_at, updated_at, branch_id, customer_id) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, NULL, ?)";
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UniqueKeyFilterService uniqueKeyFilterService;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private DeadlineService deadlineService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    public OrderImportResult importOrders(InputStream input, String format) throws IOException {
+        long start = System.currentTimeMillis();
+        OrderImportResult result = new OrderImportResult();
+        // Order numbers already accepted earlier in this import, lower-cased like the database collation compares them
+        Set<String> seenOrderNumbers = new HashSet<>();
+        List<ImportRow> chunk = new ArrayList<>(CHUNK_SIZE);
+
+        if (FORMAT_CSV.equals(format)) {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+                CsvRowReader csv = new CsvRowReader(reader);
+                List<String> header = csv.readRow();
+                if (header == null) {
+                    throw new RuntimeException("CSV file is empty");
+                }
+                List<String> fields = new ArrayList<>();
+                for (String column : header) {
+                    fields.add(toFieldName(column));
+                }
+                int rowNumber = 0;
+                List<String> values;
+                while ((values = csv.readRow()) != null) {
+                    rowNumber++;
+                    if (values.size() == 1 && values.get(0).isEmpty()) {
+                        continue;
+                    }
+                    chunk.add(parseRow(rowNumber, csvRowToJson(fields, values)));
+                    if (chunk.size() == CHUNK_SIZE) {
+                        processChunk(chunk, seenOrderNumbers, result);
+                        chunk.clear();
+                    }
+                }
+            }
+        } else {
+            try (JsonParser parser = objectMapper.getFactory().createParser(input)) {
+                if (parser.nextToken() != JsonToken.START_ARRAY) {
+                    throw new RuntimeException("Expected a JSON array of orders");
+                }
+                int rowNumber = 0;
+                try {
+                    JsonToken token;
+                    while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                        if (token == null) {
+                            throw new RuntimeException("JSON array is not closed");
+                        }
+                        rowNumber++;
+                        if (token == JsonToken.START_OBJECT) {
+                            chunk.add(parseRow(rowNumber, objectMapper.readTree(parser)));
+                        } else {
+                            parser.skipChildren();
+                            ImportRow row = new ImportRow(rowNumber);
+                            row.result.getErrors().add("Row is not a JSON object");
+                            chunk.add(row);
+                        }
+                        if (chunk.size() == CHUNK_SIZE) {
+                            processChunk(chunk, seenOrderNumbers, result);
+                            chunk.clear();
+                        }
+                    }
+                } catch (JsonProcessingException e) {
+                    throw stopped(rowNumber, e.getOriginalMessage(), result);
+                } catch (RuntimeException e) {
+                    throw stopped(rowNumber, e.getMessage(), result);
+                }
+            }
+        }
+
+        if (!chunk.isEmpty()) {
+            processChunk(chunk, seenOrderNumbers, result);
+        }
+
+        result.setElapsedMillis(System.currentTimeMillis() - start);
+        return result;
+    }
+
+    // Rows of earlier chunks are already committed; the ones read since are not imported
+    private static RuntimeException stopped(int rowNumber, String reason, OrderImportResult result) {
+        return new RuntimeException("Import stopped at row " + rowNumber + ": " + reason + " ("
+                + result.getCreatedCount() + " orders from earlier rows were imported)");
+    }
+
+    private ImportRow parseRow(int rowNumber, JsonNode node) {
+        ImportRow row = new ImportRow(rowNumber);
+        JsonNode orderNumber = node.get("orderNumber");
+        row.result.setOrderNumber(orderNumber != null && !orderNumber.isNull() ? orderNumber.asText() : null);
+        try {
+            row.order = objectMapper.treeToValue(node, Order.class);
+        } catch (Exception e) {
+            row.result.getErrors().add("Could not read row: " + e.getMessage());
+        }
+        return row;
+    }
+
+    private void processChunk(List<ImportRow> chunk, Set<String> seenOrderNumbers, OrderImportResult result) {
+        List<ImportRow> candidates = new ArrayList<>();
+        Set<String> numbersToCheck = new LinkedHashSet<>();
+        Set<Long> customerIds = new HashSet<>();
+
+        for (ImportRow row : chunk) {
+            if (row.order == null) {
+                continue;
+            }
+            Order order = row.order;
+            applyDefaults(order);
+            for (ConstraintViolation<Order> violation : validator.validate(order)) {
+                row.result.getErrors().add(violation.getPropertyPath() + " " + violation.getMessage());
+            }
+            if (order.getQuantity() != null && order.getQuantity() <= 0) {
+                row.result.getErrors().add("Quantity must be greater than 0");
+            }
+            if (row.result.getErrors().isEmpty()) {
+                String key = order.getOrderNumber().toLowerCase(Locale.ROOT);
+                if (!seenOrderNumbers.add(key)) {
+                    row.result.getErrors().add("Duplicate order number in import: " + order.getOrderNumber());
+                } else if (uniqueKeyFilterService.mightExist(KeySpace.ORDER_NUMBER, order.getOrderNumber())) {
+                    numbersToCheck.add(order.getOrderNumber());
+                }
+            }
+            if (order.getCustomer() != null && order.getCustomer().getId() != null) {
+                customerIds.add(order.getCustomer().getId());
+            }
+            if (row.result.getErrors().isEmpty()) {
+                candidates.add(row);
+            }
+        }
+
+        // Set-based conflict and reference checks: one query each per chunk
+        Set<String> existingNumbers = new HashSet<>();
+        if (!numbersToCheck.isEmpty()) {
+            for (String number : orderRepository.findExistingOrderNumbers(numbersToCheck)) {
+                existingNumbers.add(number.toLowerCase(Locale.ROOT));
+            }
+        }
+        Set<Long> existingCustomers = new HashSet<>();
+        if (!customerIds.isEmpty()) {
+            existingCustomers.addAll(userRepository.findExistingIds(customerIds));
+        }
+
+        List<ImportRow> toInsert = new ArrayList<>();
+        for (ImportRow row : candidates) {
+            Order order = row.order;
+            if (existingNumbers.contains(order.getOrderNumber().toLowerCase(Locale.ROOT))) {
+                row.result.getErrors().add("Order number already exists: " + order.getOrderNumber());
+            }
+            if (order.getCustomer() != null && order.getCustomer().getId() != null
+                    && !existingCustomers.contains(order.getCustomer().getId())) {
+                row.result.getErrors().add("Customer not found with id: " + order.getCustomer().getId());
+            }
+            if (row.result.getErrors().isEmpty()) {
+                toInsert.add(row);
+            }
+        }
+
+        if (!toInsert.isEmpty()) {
+            insertChunk(toInsert);
+        }
+
+        for (ImportRow row : chunk) {
+            row.result.setStatus(row.result.getErrors().isEmpty() && row.result.getId() != null
+                    ? RowResult.CREATED : RowResult.REJECTED);
+            result.addRow(row.result);
+        }
+    }
+
+    private void insertChunk(List<ImportRow> rows) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> insertBatch(rows));
+        } catch (RuntimeException e) {
+            // The whole batch rolled back; retry row by row so each failure is reported against its own row
+            for (ImportRow row : rows) {
+                row.result.setId(null);
+                try {
+                    transactionTemplate.executeWithoutResult(status -> insertBatch(List.of(row)));
+                } catch (RuntimeException rowFailure) {
+                    row.result.setId(null);
+                    row.result.getErrors().add("Insert failed: " + rootMessage(rowFailure));
+                }
+            }
+        }
+        for (ImportRow row : rows) {
+            if (row.result.getId() != null) {
+                uniqueKeyFilterService.register(KeySpace.ORDER_NUMBER, row.order.getOrderNumber());
+                deadlineService.orderChanged(row.result.getId(), row.order.getStatus(),
+                        row.order.getExpectedDeliveryDate());
+            }
+        }
+    }
+
+    // With rewriteBatchedStatements the driver sends one multi-row INSERT, and the auto-increment ids of that
+    // statement are handed back in row order through getGeneratedKeys
+    private void insertBatch(List<ImportRow> rows) {
+        jdbcTemplate.execute((Connection connection) -> {
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (ImportRow row : rows) {
+                    bind(ps, row.order);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    int i = 0;
+                    while (keys.next() && i < rows.size()) {
+                        rows.get(i++).result.setId(keys.getLong(1));
+                    }
+                }
+            }
+            return null;
+        });
+
+        // One event per committed batch, written in the same transaction as the inserted rows
+        List<Long> ids = new ArrayList<>(rows.size());
+        List<String> orderNumbers = new ArrayList<>(rows.size());
+        for (ImportRow row : rows) {
+            ids.add(row.result.getId());
+            orderNumbers.add(row.order.getOrderNumber());
+        }
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("ids", ids);
+        payload.put("orderNumbers", orderNumbers);
+        outboxService.append("Order", null, "ORDERS_IMPORTED", payload);
+    }
+
+    private void bind(PreparedStatement ps, Order order) throws SQLException {
+        LocalDateTime now = LocalDateTime.now();
+        int i = 1;
+        ps.setString(i++, order.getOrderNumber());
+        ps.setString(i++, order.getCustomerName());
+        ps.setString(i++, order.getCustomerEmail());
+        ps.setString(i++, order.getCustomerPhone());
+        ps.setString(i++, order.getCustomerAddress());
+        ps.setString(i++, order.getProductName());
+        ps.setString(i++, order.getProductCategory());
+        ps.setString(i++, order.getProductDescription());
+        ps.setInt(i++, order.getQuantity());
+        ps.setBigDecimal(i++, order.getUnitPrice());
+        ps.setBigDecimal(i++, order.getTotalAmount());
+        ps.setString(i++, order.getStatus());
+        ps.setString(i++, order.getPriority());
+        ps.setTimestamp(i++, Timestamp.valueOf(order.getOrderDate()));
+        ps.setTimestamp(i++, toTimestamp(order.getExpectedDeliveryDate()));
+        ps.setTimestamp(i++, toTimestamp(order.getActualDeliveryDate()));
+        ps.setString(i++, order.getNotes());
+        ps.setString(i++, order.getSpecifications());
+        ps.setString(i++, order.getPaymentStatus());
+        ps.setString(i++, order.getPaymentMethod());
+        ps.setTimestamp(i++, Timestamp.valueOf(now));
+        ps.setTimestamp(i++, Timestamp.valueOf(now));
+        if (order.getCustomer() != null && order.getCustomer().getId() != null) {
+            ps.setLong(i, order.getCustomer().getId());
+        } else {
+            ps.setNull(i, Types.BIGINT);
+        }
+    }
+
+    // Same defaults OrderService.createOrder applies to single orders
+    private void applyDefaults(Order order) {
+        order.setBranch(null);
+        order.setOrderDate(LocalDateTime.now());
+        if (order.getStatus() == null || order.getStatus().isEmpty()) {
+            order.setStatus("PENDING");
+        }
+        if (order.getPriority() == null || order.getPriority().isEmpty()) {
+            order.setPriority("MEDIUM");
+        }
+    }
+
+    private ObjectNode csvRowToJson(List<String> fields, List<String> values) {
+        ObjectNode node = objectMapper.createObjectNode();
+        for (int i = 0; i < fields.size() && i < values.size(); i++) {
+            String value = values.get(i).trim();
+            if (value.isEmpty()) {
+                continue;
+            }
+            if ("customerId".equals(fields.get(i))) {
+                node.putObject("customer").put("id", value);
+            } else {
+                node.put(fields.get(i), value);
+            }
+        }
+        return node;
+    }
+
+    // Accepts both camelCase and snake_case headers, e.g. "orderNumber" or "order_number"
+    private static String toFieldName(String column) {
+        String trimmed = column.trim();
+        if (!trimmed.contains("_") && !trimmed.contains(" ")) {
+            return trimmed;
+        }
+        StringBuilder field = new StringBuilder();
+        boolean upper = false;
+        for (char c : trimmed.toCharArray()) {
+            if (c == '_' || c == ' ') {
+                upper = field.length() > 0;
+            } else {
+                field.append(upper ? Character.toUpperCase(c) : Character.toLowerCase(c));
+                upper = false;
+            }
+        }
+        return field.toString();
+    }
+
+    private static Timestamp toTimestamp(LocalDateTime dateTime) {
+        return dateTime != null ? Timestamp.valueOf(dateTime) : null;
+    }
+
+    private static String rootMessage(Throwable e) {
+        Throwable root = e;
+        while (root.getCause() != null && root.getCause() != root) {
+            root = root.getCause();
+        }
+        return root.getMessage();
+    }
+
+    private static class ImportRow {
+        private final RowResult result;
+        private Order order;
+
+        ImportRow(int rowNumber) {
+            this.result = new RowResult(rowNumber, null);
+        }
+    }
+
+    // Minimal RFC 4180 reader: quoted fields may contain commas, doubled quotes and line breaks
+    private static class CsvRowReader {
+        private final BufferedReader reader;
+        private boolean eof;
+
+        CsvRowReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        List<String> readRow() throws IOException {
+            if (eof) {
+                return null;
+            }
+            List<String> values = new ArrayList<>();
+            StringBuilder value = new StringBuilder();
+            boolean quoted = false;
+            boolean any = false;
+            int c;
+            while ((c = reader.read()) != -1) {
+                any = true;
+                char ch = (char) c;
+                if (quoted) {
+                    if (ch == '"') {
+                        reader.mark(1);
+                        int next = reader.read();
+                        if (next == '"') {
+                            value.append('"');
+                        } else {
+                            quoted = false;
+                            if (next != -1) {
+                                reader.reset();
+                            }
+                        }
+                    } else {
+                        value.append(ch);
+                    }
+                } else if (ch == '"') {
+                    quoted = true;
+                } else if (ch == ',') {
+                    values.add(value.toString());
+                    value.setLength(0);
+                } else if (ch == '\n') {
+                    values.add(value.toString());
+                    return values;
+                } else if (ch != '\r') {
+                    value.append(ch);
+                }
+            }
+            eof = true;
+            if (!any) {
+                return null;
+            }
+            values.add(value.toString());
+            return values;
+        }
+    }
+}
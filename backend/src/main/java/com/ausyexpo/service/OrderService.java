@@ -1,26 +1,45 @@
 package com.ausyexpo.service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.ausyexpo.dto.BulkStatusUpdateRequest;
 import com.ausyexpo.model.Order;
 import com.ausyexpo.model.Branch;
+import com.ausyexpo.model.IdempotencyKey;
 import com.ausyexpo.model.User;
 import com.ausyexpo.repository.OrderRepository;
 import com.ausyexpo.repository.BranchRepository;
 import com.ausyexpo.repository.UserRepository;
+import com.ausyexpo.service.UniqueKeyFilterService.KeySpace;
+import com.fasterxml.jackson.databind.JsonNode;
 
 @Service
 public class OrderService {
 
+    private static final Set<String> PATCHABLE_FIELDS = Set.of(
+            "orderNumber", "customerName", "customerEmail", "customerPhone", "customerAddress",
+            "productName", "productCategory", "productDescription", "quantity", "unitPrice", "totalAmount",
+            "status", "priority", "expectedDeliveryDate", "actualDeliveryDate", "notes", "specifications",
+            "paymentStatus", "paymentMethod");
+
+    private static final String AGGREGATE_TYPE = "Order";
+
+    // Set by the entity or the service, never by the client
+    public static final Set<String> SERVER_ASSIGNED_FIELDS = Set.of(
+            "id", "orderDate", "createdAt", "updatedAt", "version");
+
     @Autowired
     private OrderRepository orderRepository;
     
@@ -29,34 +48,71 @@ public class OrderService {
     
     @Autowired
     private UserRepository userRepository;
+    
+    @Autowired
+    private UniqueKeyFilterService uniqueKeyFilterService;
+    
+    @Autowired
+    private MergePatchService mergePatchService;
+    
+    @Autowired
+    private OutboxService outboxService;
+    
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private DeadlineService deadlineService;
 
+    @Transactional(readOnly = true)
     public List<Order> getAllOrders() {
         return orderRepository.findAll(Sort.by(Sort.Direction.DESC, "orderDate"));
     }
 
+    @Transactional(readOnly = true)
     public List<Order> getOrdersByBranch(Long branchId) {
         return orderRepository.findByBranchId(branchId);
     }
 
+    @Transactional(readOnly = true)
     public List<Order> getOrdersByCustomer(Long customerId) {
         return orderRepository.findByCustomerId(customerId);
     }
 
+    @Transactional(readOnly = true)
     public List<Order> getActiveOrders() {
         return orderRepository.findActiveOrders();
     }
 
+    // Served from the deadline scheduler, longest overdue first
+    @Transactional(readOnly = true)
     public List<Order> getOverdueOrders() {
-        return orderRepository.findOverdueOrders(LocalDateTime.now());
+        List<Long> ids = deadlineService.getOverdueIds(DeadlineService.Kind.ORDER);
+        Map<Long, Order> byId = new HashMap<>();
+        for (Order order : orderRepository.findAllById(ids)) {
+            byId.put(order.getId(), order);
+        }
+        List<Order> orders = new ArrayList<>();
+        for (Long id : ids) {
+            Order order = byId.get(id);
+            if (order != null) {
+                orders.add(order);
+            }
+        }
+        return orders;
     }
 
+    // Detail view: touching one lazy text attribute loads the whole "details" group in one select
+    @Transactional(readOnly = true)
     public Optional<Order> getOrderById(Long id) {
-        return orderRepository.findById(id);
+        Optional<Order> order = orderRepository.findById(id);
+        order.ifPresent(Order::getNotes);
+        return order;
     }
 
     @Transactional
     public Order createOrder(Order order) {
-        if (orderRepository.existsByOrderNumber(order.getOrderNumber())) {
+        if (orderNumberExists(order.getOrderNumber())) {
             throw new RuntimeException("Order number already exists: " + order.getOrderNumber());
         }
         
@@ -86,7 +142,20 @@ public class OrderService {
             order.setPriority("MEDIUM");
         }
 
-        return orderRepository.save(order);
+        Order savedOrder = orderRepository.save(order);
+        uniqueKeyFilterService.register(KeySpace.ORDER_NUMBER, savedOrder.getOrderNumber());
+        outboxService.append(AGGREGATE_TYPE, savedOrder.getId(), "ORDER_CREATED", eventPayload(savedOrder));
+        deadlineService.orderChanged(savedOrder.getId(), savedOrder.getStatus(), savedOrder.getExpectedDeliveryDate());
+        return savedOrder;
+    }
+
+    // Creates the order and stores its idempotency key in the same transaction
+    @Transactional
+    public Order createOrder(Order order, IdempotencyKey idempotencyKey) {
+        idempotencyService.claim(idempotencyKey);
+        Order savedOrder = createOrder(order);
+        idempotencyService.complete(idempotencyKey, savedOrder.getId(), 201, savedOrder);
+        return savedOrder;
     }
 
     @Transactional
@@ -100,7 +169,7 @@ public class OrderService {
         
         // Check if order number is being changed and doesn't conflict
         if (!order.getOrderNumber().equals(orderDetails.getOrderNumber())) {
-            if (orderRepository.existsByOrderNumberAndIdNot(orderDetails.getOrderNumber(), id)) {
+            if (orderNumberExistsForOtherOrder(orderDetails.getOrderNumber(), id)) {
                 throw new RuntimeException("Order number already exists: " + orderDetails.getOrderNumber());
             }
         }
@@ -139,7 +208,34 @@ public class OrderService {
             order.setCustomer(customer.get());
         }
 
-        return orderRepository.save(order);
+        Order savedOrder = orderRepository.save(order);
+        uniqueKeyFilterService.register(KeySpace.ORDER_NUMBER, savedOrder.getOrderNumber());
+        outboxService.append(AGGREGATE_TYPE, savedOrder.getId(), "ORDER_UPDATED", eventPayload(savedOrder));
+        deadlineService.orderChanged(savedOrder.getId(), savedOrder.getStatus(), savedOrder.getExpectedDeliveryDate());
+        return savedOrder;
+    }
+
+    // Merge-patch update: only the fields present in the patch change, so only their columns are written
+    @Transactional
+    public Order patchOrder(Long id, JsonNode patch, Long expectedVersion) {
+        Order order = orderRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Order not found with id: " + id));
+        mergePatchService.checkVersion(Order.class, id, order.getVersion(), expectedVersion);
+
+        String previousOrderNumber = order.getOrderNumber();
+        mergePatchService.apply(order, patch, PATCHABLE_FIELDS);
+        mergePatchService.validate(order);
+
+        if (!order.getOrderNumber().equals(previousOrderNumber)
+                && orderNumberExistsForOtherOrder(order.getOrderNumber(), id)) {
+            throw new RuntimeException("Order number already exists: " + order.getOrderNumber());
+        }
+
+        Order savedOrder = orderRepository.saveAndFlush(order);
+        uniqueKeyFilterService.register(KeySpace.ORDER_NUMBER, savedOrder.getOrderNumber());
+        outboxService.append(AGGREGATE_TYPE, savedOrder.getId(), "ORDER_UPDATED", eventPayload(savedOrder));
+        deadlineService.orderChanged(savedOrder.getId(), savedOrder.getStatus(), savedOrder.getExpectedDeliveryDate());
+        return savedOrder;
     }
 
     @Transactional
@@ -148,21 +244,26 @@ public class OrderService {
             throw new RuntimeException("Order not found with id: " + id);
         }
         orderRepository.deleteById(id);
+        deadlineService.orderDeleted(id);
     }
 
+    @Transactional(readOnly = true)
     public List<Order> searchOrders(Long branchId, String status, String priority, 
                                    String customerName, String productName, String orderNumber) {
         return orderRepository.searchOrders(branchId, status, priority, customerName, productName, orderNumber);
     }
 
+    @Transactional(readOnly = true)
     public List<Order> getOrdersByDateRange(LocalDateTime startDate, LocalDateTime endDate) {
         return orderRepository.findOrdersByDateRange(startDate, endDate);
     }
 
+    @Transactional(readOnly = true)
     public List<Order> getOrdersByDeliveryDateRange(LocalDateTime startDate, LocalDateTime endDate) {
         return orderRepository.findOrdersByDeliveryDateRange(startDate, endDate);
     }
 
+    @Transactional(readOnly = true)
     public Map<String, Object> getOrderStatistics(Long branchId) {
         Map<String, Object> stats = new HashMap<>();
         
@@ -211,6 +312,7 @@ public class OrderService {
         }
 
         Order order = optionalOrder.get();
+        String previousStatus = order.getStatus();
         order.setStatus(status);
         order.setUpdatedAt(LocalDateTime.now());
         
@@ -219,7 +321,51 @@ public class OrderService {
             order.setActualDeliveryDate(LocalDateTime.now());
         }
 
-        return orderRepository.save(order);
+        Order savedOrder = orderRepository.save(order);
+        Map<String, Object> payload = eventPayload(savedOrder);
+        payload.put("previousStatus", previousStatus);
+        outboxService.append(AGGREGATE_TYPE, savedOrder.getId(), "ORDER_STATUS_CHANGED", payload);
+        deadlineService.orderChanged(savedOrder.getId(), savedOrder.getStatus(), savedOrder.getExpectedDeliveryDate());
+        return savedOrder;
+    }
+
+    // One set-based UPDATE for all matching orders, with the same side effect as updateOrderStatus
+    @Transactional
+    public int bulkUpdateOrderStatus(BulkStatusUpdateRequest request) {
+        String status = request.getStatus();
+        if (status == null || status.trim().isEmpty()) {
+            throw new RuntimeException("Status is required");
+        }
+        LocalDateTime now = LocalDateTime.now();
+        boolean delivered = "DELIVERED".equals(status);
+
+        int updated;
+        if (request.hasIds()) {
+            updated = orderRepository.bulkUpdateStatusByIds(request.getIds(), status, delivered, now);
+        } else if (request.hasFilter()) {
+            updated = orderRepository.bulkUpdateStatusByFilter(blankToNull(request.getFromStatus()),
+                    request.getBranchId(), status, delivered, now);
+        } else {
+            throw new RuntimeException("Either ids or a filter is required");
+        }
+
+        // One event describing the whole set rather than one per row, to keep the update set-based
+        if (updated > 0) {
+            deadlineService.reloadLater();
+            Map<String, Object> payload = new LinkedHashMap<>();
+            payload.put("status", status);
+            payload.put("ids", request.hasIds() ? request.getIds() : null);
+            payload.put("fromStatus", blankToNull(request.getFromStatus()));
+            payload.put("branchId", request.getBranchId());
+            payload.put("updated", updated);
+            payload.put("updatedAt", now);
+            outboxService.append(AGGREGATE_TYPE, null, "ORDERS_BULK_STATUS_CHANGED", payload);
+        }
+        return updated;
+    }
+
+    private String blankToNull(String value) {
+        return value == null || value.trim().isEmpty() ? null : value;
     }
 
     @Transactional
@@ -230,17 +376,43 @@ public class OrderService {
         }
 
         Order order = optionalOrder.get();
+        String previousPaymentStatus = order.getPaymentStatus();
         order.setPaymentStatus(paymentStatus);
         order.setUpdatedAt(LocalDateTime.now());
 
-        return orderRepository.save(order);
+        Order savedOrder = orderRepository.save(order);
+        Map<String, Object> payload = eventPayload(savedOrder);
+        payload.put("previousPaymentStatus", previousPaymentStatus);
+        outboxService.append(AGGREGATE_TYPE, savedOrder.getId(), "ORDER_PAYMENT_STATUS_CHANGED", payload);
+        return savedOrder;
+    }
+
+    // Snapshot carried by order events; relations are referenced by id so no lazy proxy is touched
+    private Map<String, Object> eventPayload(Order order) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("id", order.getId());
+        payload.put("orderNumber", order.getOrderNumber());
+        payload.put("customerId", order.getCustomer() != null ? order.getCustomer().getId() : null);
+        payload.put("customerName", order.getCustomerName());
+        payload.put("productName", order.getProductName());
+        payload.put("quantity", order.getQuantity());
+        payload.put("totalAmount", order.getTotalAmount());
+        payload.put("status", order.getStatus());
+        payload.put("priority", order.getPriority());
+        payload.put("paymentStatus", order.getPaymentStatus());
+        payload.put("expectedDeliveryDate", order.getExpectedDeliveryDate());
+        payload.put("actualDeliveryDate", order.getActualDeliveryDate());
+        payload.put("updatedAt", order.getUpdatedAt());
+        return payload;
     }
 
     public boolean orderNumberExists(String orderNumber) {
-        return orderRepository.existsByOrderNumber(orderNumber);
+        return uniqueKeyFilterService.mightExist(KeySpace.ORDER_NUMBER, orderNumber)
+                && orderRepository.existsByOrderNumber(orderNumber);
     }
 
     public boolean orderNumberExistsForOtherOrder(String orderNumber, Long orderId) {
-        return orderRepository.existsByOrderNumberAndIdNot(orderNumber, orderId);
+        return uniqueKeyFilterService.mightExist(KeySpace.ORDER_NUMBER, orderNumber)
+                && orderRepository.existsByOrderNumberAndIdNot(orderNumber, orderId);
     }
 }
@@ -0,0 +1,133 @@
+package com.ausyexpo.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ausyexpo.dto.DomainEvent;
+import com.ausyexpo.model.OutboxEvent;
+import com.ausyexpo.repository.OutboxEventRepository;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Moves committed outbox events to subscribers in batches.
+ * Each batch is claimed and numbered in its own transaction and only handed out after that commits,
+ * so sequences seen by stream clients are durable and strictly increasing. In-process listeners run
+ * on the relay thread and so slow it down; stream clients are decoupled by EventStreamService.
+ * Assumes a single application instance relays the outbox.
+ */
+@Service
+public class OutboxRelayService {
+
+    private static final int BATCH_SIZE = 200;
+    private static final int MAX_BATCHES_PER_RUN = 50;
+    private static final int RETENTION_DAYS = 7;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private EventStreamService eventStreamService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final AtomicLong lastSequence = new AtomicLong();
+    private final AtomicLong publishedCount = new AtomicLong();
+    private final AtomicLong batchCount = new AtomicLong();
+    private final AtomicLong publishNanos = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        resetSequence();
+    }
+
+    @Scheduled(fixedDelay = 500)
+    public void relay() {
+        for (int i = 0; i < MAX_BATCHES_PER_RUN; i++) {
+            long started = System.nanoTime();
+            List<DomainEvent> batch;
+            try {
+                batch = transactionTemplate.execute(status -> claimBatch());
+            } catch (Exception e) {
+                System.err.println("Outbox relay failed to claim a batch: " + e.getMessage());
+                resetSequence();
+                return;
+            }
+            if (batch == null || batch.isEmpty()) {
+                return;
+            }
+
+            for (DomainEvent event : batch) {
+                try {
+                    eventPublisher.publishEvent(event);
+                } catch (Exception e) {
+                    System.err.println("Listener failed for event " + event.getSequence() + ": " + e.getMessage());
+                }
+            }
+            eventStreamService.broadcast(batch);
+
+            publishedCount.addAndGet(batch.size());
+            batchCount.incrementAndGet();
+            publishNanos.addAndGet(System.nanoTime() - started);
+            if (batch.size() < BATCH_SIZE) {
+                return;
+            }
+        }
+    }
+
+    private List<DomainEvent> claimBatch() {
+        List<OutboxEvent> pending = outboxEventRepository.findUnpublished(PageRequest.of(0, BATCH_SIZE));
+        LocalDateTime now = LocalDateTime.now();
+        List<DomainEvent> batch = new ArrayList<>(pending.size());
+        for (OutboxEvent event : pending) {
+            event.setSequence(lastSequence.incrementAndGet());
+            event.setPublishedAt(now);
+            batch.add(new DomainEvent(event));
+        }
+        outboxEventRepository.saveAll(pending);
+        return batch;
+    }
+
+    // A failed claim may have consumed sequence numbers that were never committed
+    private void resetSequence() {
+        Long max = outboxEventRepository.findMaxSequence();
+        lastSequence.set(max != null ? max : 0);
+    }
+
+    // Published events are kept for a week so disconnected clients can resume
+    @Scheduled(cron = "0 30 3 * * *")
+    public void purgePublished() {
+        int deleted = transactionTemplate.execute(status ->
+                outboxEventRepository.deletePublishedBefore(LocalDateTime.now().minusDays(RETENTION_DAYS)));
+        System.out.println("Purged " + deleted + " published outbox events");
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        long batches = batchCount.get();
+        long published = publishedCount.get();
+        stats.put("lastSequence", lastSequence.get());
+        stats.put("pending", outboxEventRepository.countByPublishedAtIsNull());
+        stats.put("published", published);
+        stats.put("batches", batches);
+        stats.put("averageBatchMillis", batches == 0 ? 0 : publishNanos.get() / batches / 1_000_000.0);
+        stats.put("eventsPerSecond", publishNanos.get() == 0 ? 0 : published * 1_000_000_000.0 / publishNanos.get());
+        stats.put("subscribers", eventStreamService.getSubscriberCount());
+        return stats;
+    }
+}
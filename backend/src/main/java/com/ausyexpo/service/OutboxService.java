@@ -0,0 +1,35 @@
+package com.ausyexpo.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.ausyexpo.model.OutboxEvent;
+import com.ausyexpo.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Appends domain events to the outbox. Callers must already be in a transaction so the event
+ * commits or rolls back together with the change it describes.
+ */
+@Service
+public class OutboxService {
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(String aggregateType, Long aggregateId, String eventType, Object payload) {
+        try {
+            String json = objectMapper.writeValueAsString(payload);
+            outboxEventRepository.save(new OutboxEvent(aggregateType, aggregateId, eventType, json));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Could not serialize " + eventType + " event: " + e.getOriginalMessage());
+        }
+    }
+}
@@ -0,0 +1,352 @@
+package com.ausyexpo.service;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ausyexpo.model.PayrollEntry;
+import com.ausyexpo.model.PayrollRun;
+import com.ausyexpo.model.Salary;
+import com.ausyexpo.repository.PayrollEntryRepository;
+import com.ausyexpo.repository.PayrollRunRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Payroll batch over every employee.
+ * A coordinator reads employees in id order, one chunk at a time, and hands each chunk to a fork-join pool
+ * where its final salaries are computed and written, entries and salary updates in one transaction per
+ * chunk. Chunks finish in any order; the run's checkpoint only moves past a chunk once every chunk before
+ * it has committed. Resuming a failed run discards entries above the checkpoint and carries on from there,
+ * so each employee ends up with exactly one entry per run.
+ */
+@Service
+public class PayrollService {
+
+    private static final String SELECT_CHUNK_SQL = "SELECT e.id, s.id, s.basic_salary, s.increments, s.decrements, "
+            + "s.final_salary FROM employees e LEFT JOIN salaries s ON s.employee_id = e.id "
+            + "WHERE e.id > ? ORDER BY e.id LIMIT ?";
+
+    private static final String INSERT_ENTRY_SQL = "INSERT INTO payroll_entries "
+            + "(run_id, employee_id, basic_salary, increments, decrements, final_salary) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String UPDATE_SALARY_SQL = "UPDATE salaries SET final_salary = ?, updated_at = ? WHERE id = ?";
+
+    @Autowired
+    private PayrollRunRepository payrollRunRepository;
+
+    @Autowired
+    private PayrollEntryRepository payrollEntryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.payroll.chunk-size:1000}")
+    private int chunkSize;
+
+    // 0 uses one worker per available processor; each busy worker holds a database connection
+    @Value("${app.payroll.workers:0}")
+    private int configuredWorkers;
+
+    private int workers;
+    private ForkJoinPool pool;
+
+    // One run at a time
+    private final ExecutorService coordinator = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "payroll-run");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Object startLock = new Object();
+
+    // One employee's row as read, with the computed final salary
+    private static final class Line {
+        final long employeeId;
+        final Long salaryId;
+        final BigDecimal basicSalary;
+        final BigDecimal increments;
+        final BigDecimal decrements;
+        final BigDecimal currentFinal;
+        BigDecimal finalSalary;
+
+        Line(long employeeId, Long salaryId, BigDecimal basicSalary, BigDecimal increments, BigDecimal decrements,
+             BigDecimal currentFinal) {
+            this.employeeId = employeeId;
+            this.salaryId = salaryId;
+            this.basicSalary = basicSalary;
+            this.increments = increments;
+            this.decrements = decrements;
+            this.currentFinal = currentFinal;
+        }
+    }
+
+    private static final class ChunkResult {
+        final long lastEmployeeId;
+        final long processed;
+        final long skipped;
+        final BigDecimal total;
+
+        ChunkResult(long lastEmployeeId, long processed, long skipped, BigDecimal total) {
+            this.lastEmployeeId = lastEmployeeId;
+            this.processed = processed;
+            this.skipped = skipped;
+            this.total = total;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        workers = configuredWorkers > 0 ? configuredWorkers : Runtime.getRuntime().availableProcessors();
+        pool = new ForkJoinPool(workers, forkJoinPool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName("payroll-worker-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+        int interrupted = transactionTemplate.execute(status -> payrollRunRepository.failRunning(
+                PayrollRun.Status.RUNNING, PayrollRun.Status.FAILED, "Interrupted by a restart"));
+        if (interrupted > 0) {
+            System.out.println("Marked " + interrupted + " interrupted payroll run(s) as failed; they can be resumed");
+        }
+    }
+
+    public PayrollRun start(String period, Long startedById) {
+        String normalized = parsePeriod(period);
+        synchronized (startLock) {
+            ensureNothingRunning();
+            List<PayrollRun> existing = payrollRunRepository.findByPeriodAndStatusIn(normalized,
+                    List.of(PayrollRun.Status.COMPLETED, PayrollRun.Status.FAILED));
+            for (PayrollRun run : existing) {
+                if (run.getStatus() == PayrollRun.Status.COMPLETED) {
+                    throw new IllegalStateException("Payroll for " + normalized + " was already completed by run " + run.getId());
+                }
+                throw new IllegalStateException("Payroll run " + run.getId() + " for " + normalized + " failed; resume it instead");
+            }
+            PayrollRun run = new PayrollRun();
+            run.setPeriod(normalized);
+            run.setStartedById(startedById);
+            PayrollRun saved = payrollRunRepository.save(run);
+            coordinator.execute(() -> execute(saved.getId()));
+            return saved;
+        }
+    }
+
+    public PayrollRun resume(Long runId) {
+        synchronized (startLock) {
+            ensureNothingRunning();
+            PayrollRun run = getRun(runId);
+            if (run.getStatus() != PayrollRun.Status.FAILED) {
+                throw new IllegalStateException("Only a failed payroll run can be resumed");
+            }
+            run.setStatus(PayrollRun.Status.RUNNING);
+            run.setAttempts(run.getAttempts() + 1);
+            run.setLastError(null);
+            run.setFinishedAt(null);
+            PayrollRun saved = payrollRunRepository.save(run);
+            coordinator.execute(() -> execute(saved.getId()));
+            return saved;
+        }
+    }
+
+    public List<PayrollRun> getRuns() {
+        return payrollRunRepository.findAllByOrderByStartedAtDesc();
+    }
+
+    public PayrollRun getRun(Long runId) {
+        return payrollRunRepository.findById(runId)
+                .orElseThrow(() -> new RuntimeException("Payroll run not found with id: " + runId));
+    }
+
+    public Page<PayrollEntry> getEntries(Long runId, int page, int size) {
+        return payrollEntryRepository.findByRunIdOrderByEmployeeId(runId,
+                PageRequest.of(Math.max(0, page), Math.max(1, Math.min(size, 1000))));
+    }
+
+    // --- Running ---
+
+    private void execute(Long runId) {
+        PayrollRun run = getRun(runId);
+        long started = System.nanoTime();
+        long after = run.getCheckpointEmployeeId();
+        Deque<CompletableFuture<ChunkResult>> inFlight = new ArrayDeque<>();
+        RuntimeException failure = null;
+        try {
+            // Chunks past the checkpoint may have committed before the run stopped; they are redone
+            int discarded = jdbcTemplate.update("DELETE FROM payroll_entries WHERE run_id = ? AND employee_id > ?", runId, after);
+            if (discarded > 0) {
+                System.out.println("Payroll run " + runId + ": discarded " + discarded + " entries past the checkpoint");
+            }
+            while (true) {
+                List<Line> chunk = readChunk(after);
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                after = chunk.get(chunk.size() - 1).employeeId;
+                inFlight.addLast(CompletableFuture.supplyAsync(() -> processChunk(runId, chunk), pool));
+                // Reading stays a couple of chunks ahead of the workers, no more
+                while (inFlight.size() > 2 * workers) {
+                    advance(run, inFlight.removeFirst().join());
+                }
+            }
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        // Let started chunks finish; the checkpoint only passes the ones with nothing failed before them
+        while (!inFlight.isEmpty()) {
+            try {
+                ChunkResult result = inFlight.removeFirst().join();
+                if (failure == null) {
+                    advance(run, result);
+                }
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+
+        run.setFinishedAt(LocalDateTime.now());
+        if (failure != null) {
+            Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+            run.setStatus(PayrollRun.Status.FAILED);
+            run.setLastError(cause.getMessage());
+            System.err.println("Payroll run " + runId + " failed at employee " + run.getCheckpointEmployeeId()
+                    + ": " + cause.getMessage());
+        } else {
+            run.setStatus(PayrollRun.Status.COMPLETED);
+            System.out.println("Payroll run " + runId + " completed: " + run.getProcessedCount() + " employees in "
+                    + (System.nanoTime() - started) / 1_000_000 + " ms");
+        }
+        payrollRunRepository.save(run);
+    }
+
+    private void advance(PayrollRun run, ChunkResult result) {
+        run.setCheckpointEmployeeId(result.lastEmployeeId);
+        run.setProcessedCount(run.getProcessedCount() + result.processed);
+        run.setSkippedCount(run.getSkippedCount() + result.skipped);
+        run.setTotalAmount(run.getTotalAmount().add(result.total));
+        jdbcTemplate.update("UPDATE payroll_runs SET checkpoint_employee_id = ?, processed_count = ?, skipped_count = ?, "
+                + "total_amount = ? WHERE id = ?", run.getCheckpointEmployeeId(), run.getProcessedCount(),
+                run.getSkippedCount(), run.getTotalAmount(), run.getId());
+    }
+
+    private List<Line> readChunk(long afterEmployeeId) {
+        return jdbcTemplate.query(SELECT_CHUNK_SQL, (rs, rowNum) -> new Line(rs.getLong(1),
+                rs.getObject(2) != null ? rs.getLong(2) : null, rs.getBigDecimal(3), rs.getBigDecimal(4),
+                rs.getBigDecimal(5), rs.getBigDecimal(6)), afterEmployeeId, chunkSize);
+    }
+
+    // Runs on the fork-join pool
+    private ChunkResult processChunk(Long runId, List<Line> chunk) {
+        List<Line> paid = new ArrayList<>(chunk.size());
+        List<Line> changed = new ArrayList<>();
+        BigDecimal total = BigDecimal.ZERO;
+        for (Line line : chunk) {
+            if (line.salaryId == null || line.basicSalary == null) {
+                continue;
+            }
+            line.finalSalary = Salary.finalSalaryOf(line.basicSalary, line.increments, line.decrements);
+            paid.add(line);
+            total = total.add(line.finalSalary);
+            if (line.currentFinal == null || line.currentFinal.compareTo(line.finalSalary) != 0) {
+                changed.add(line);
+            }
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(INSERT_ENTRY_SQL, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    Line line = paid.get(i);
+                    ps.setLong(1, runId);
+                    ps.setLong(2, line.employeeId);
+                    ps.setBigDecimal(3, line.basicSalary);
+                    setDecimal(ps, 4, line.increments);
+                    setDecimal(ps, 5, line.decrements);
+                    ps.setBigDecimal(6, line.finalSalary);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return paid.size();
+                }
+            });
+            if (!changed.isEmpty()) {
+                jdbcTemplate.batchUpdate(UPDATE_SALARY_SQL, new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Line line = changed.get(i);
+                        ps.setBigDecimal(1, line.finalSalary);
+                        ps.setTimestamp(2, now);
+                        ps.setLong(3, line.salaryId);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return changed.size();
+                    }
+                });
+            }
+        });
+        return new ChunkResult(chunk.get(chunk.size() - 1).employeeId, paid.size(), chunk.size() - paid.size(), total);
+    }
+
+    private void ensureNothingRunning() {
+        if (payrollRunRepository.existsByStatus(PayrollRun.Status.RUNNING)) {
+            throw new IllegalStateException("Another payroll run is in progress");
+        }
+    }
+
+    private static String parsePeriod(String period) {
+        if (period == null || period.isBlank()) {
+            return YearMonth.now().toString();
+        }
+        try {
+            return YearMonth.parse(period.trim()).toString();
+        } catch (DateTimeParseException e) {
+            throw new RuntimeException("Period must look like 2024-01");
+        }
+    }
+
+    private static void setDecimal(PreparedStatement ps, int index, BigDecimal value) throws SQLException {
+        if (value != null) {
+            ps.setBigDecimal(index, value);
+        } else {
+            ps.setNull(index, Types.DECIMAL);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        coordinator.shutdownNow();
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,358 @@
+package com.ausyexpo.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.ausyexpo.util.LatencyHistogram;
+
+/**
+ * Query timings collected by the JDBC and repository instrumentation (see QueryInstrumentationPostProcessor).
+ * Keeps a latency histogram per repository method and per statement shape (the SQL with literals and IN lists
+ * folded away), a sampled log of slow statements with their bind values, and flags requests that run the
+ * same shape more often than the N+1 threshold. Everything is in memory and starts over on restart.
+ */
+@Service
+public class QueryMetricsService {
+
+    // Repeated groups recurse once per repetition in java.util.regex, so long literals and IN lists of
+    // thousands of binds are matched with character classes, which loop without recursing
+    private static final Pattern STRING_LITERAL = Pattern.compile("'[^']*(?:''[^']*)*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bin\\s*\\(\\s*\\?[\\s,?]*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final String OTHER_SHAPE = "(other statements)";
+    private static final String OTHER_ENDPOINT = "(other endpoints)";
+    private static final int MAX_SHAPE_LENGTH = 1000;
+    private static final int MAX_BIND_LENGTH = 100;
+
+    @Value("${app.query-metrics.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.query-metrics.slow-query-ms:200}")
+    private long slowQueryMillis;
+
+    @Value("${app.query-metrics.slow-query-sample-rate:1.0}")
+    private double slowQuerySampleRate;
+
+    @Value("${app.query-metrics.slow-log-size:200}")
+    private int slowLogSize;
+
+    @Value("${app.query-metrics.n-plus-one-threshold:20}")
+    private int nPlusOneThreshold;
+
+    @Value("${app.query-metrics.max-shapes:2000}")
+    private int maxShapes;
+
+    private final Map<String, LatencyHistogram> repositoryMethods = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> statementShapes = new ConcurrentHashMap<>();
+    private final Map<String, String> shapeCache = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> nPlusOneCounts = new ConcurrentHashMap<>();
+    private final Map<String, EndpointStats> endpoints = new ConcurrentHashMap<>();
+    private volatile LocalDateTime since = LocalDateTime.now();
+
+    // Guarded by themselves
+    private final Deque<Map<String, Object>> slowQueries = new ArrayDeque<>();
+    private final Deque<Map<String, Object>> nPlusOneRequests = new ArrayDeque<>();
+
+    private final ThreadLocal<String> currentRepositoryMethod = new ThreadLocal<>();
+    private final ThreadLocal<RequestQueries> currentRequest = new ThreadLocal<>();
+
+    // Statements run by the request being served on this thread, by shape
+    private static final class RequestQueries {
+        final String endpoint;
+        final Map<String, int[]> counts = new HashMap<>();
+
+        RequestQueries(String endpoint) {
+            this.endpoint = endpoint;
+        }
+    }
+
+    // Served requests of one endpoint: latency, statements run and bytes allocated by the serving thread
+    private static final class EndpointStats {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder statements = new LongAdder();
+        final AtomicLong maxStatements = new AtomicLong();
+        final LongAdder allocatedBytes = new LongAdder();
+        final AtomicLong maxAllocatedBytes = new AtomicLong();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Times a repository call; statements it runs are attributed to it, nested repository calls to the outermost
+    public Object timeRepositoryCall(String repository, MethodInvocation invocation) throws Throwable {
+        if (!enabled || currentRepositoryMethod.get() != null || invocation.getMethod().getDeclaringClass() == Object.class) {
+            return invocation.proceed();
+        }
+        String key = repository + "." + invocation.getMethod().getName();
+        currentRepositoryMethod.set(key);
+        long started = System.nanoTime();
+        try {
+            return invocation.proceed();
+        } finally {
+            histogram(repositoryMethods, key).record(System.nanoTime() - started);
+            currentRepositoryMethod.remove();
+        }
+    }
+
+    // The caller's live bind array; its first bindCount entries are only formatted when the statement turns out slow
+    public void statementExecuted(String sql, long nanos, Object[] binds, int bindCount, int batchSize) {
+        if (!enabled || sql == null) {
+            return;
+        }
+        String shape = shapeOf(sql);
+        LatencyHistogram histogram = statementShapes.get(shape);
+        if (histogram == null) {
+            histogram = statementShapes.size() < maxShapes ? histogram(statementShapes, shape)
+                    : histogram(statementShapes, OTHER_SHAPE);
+        }
+        histogram.record(nanos);
+
+        RequestQueries request = currentRequest.get();
+        if (request != null) {
+            request.counts.computeIfAbsent(shape, s -> new int[1])[0]++;
+        }
+        if (nanos >= TimeUnit.MILLISECONDS.toNanos(slowQueryMillis)
+                && ThreadLocalRandom.current().nextDouble() < slowQuerySampleRate) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("at", LocalDateTime.now());
+            entry.put("millis", nanos / 1_000_000.0);
+            entry.put("repositoryMethod", currentRepositoryMethod.get());
+            entry.put("endpoint", request != null ? request.endpoint : null);
+            entry.put("sql", sql.length() > MAX_SHAPE_LENGTH ? sql.substring(0, MAX_SHAPE_LENGTH) + "..." : sql);
+            entry.put("binds", formatBinds(binds, bindCount));
+            if (batchSize > 0) {
+                entry.put("batchSize", batchSize);
+            }
+            append(slowQueries, entry, slowLogSize);
+        }
+    }
+
+    public void beginRequest(String endpoint) {
+        if (enabled) {
+            currentRequest.set(new RequestQueries(endpoint));
+        }
+    }
+
+    // allocatedBytes is negative when the JVM cannot measure it
+    public void endRequest(long nanos, long allocatedBytes) {
+        RequestQueries request = currentRequest.get();
+        if (request == null) {
+            return;
+        }
+        currentRequest.remove();
+        EndpointStats stats = endpoints.get(request.endpoint);
+        if (stats == null) {
+            stats = endpoints.computeIfAbsent(endpoints.size() < maxShapes ? request.endpoint : OTHER_ENDPOINT,
+                    k -> new EndpointStats());
+        }
+        int total = 0;
+        for (int[] executions : request.counts.values()) {
+            total += executions[0];
+        }
+        stats.latency.record(nanos);
+        stats.statements.add(total);
+        stats.maxStatements.accumulateAndGet(total, Math::max);
+        if (allocatedBytes >= 0) {
+            stats.allocatedBytes.add(allocatedBytes);
+            stats.maxAllocatedBytes.accumulateAndGet(allocatedBytes, Math::max);
+        }
+        for (Map.Entry<String, int[]> shape : request.counts.entrySet()) {
+            int executions = shape.getValue()[0];
+            if (executions <= nPlusOneThreshold) {
+                continue;
+            }
+            nPlusOneCounts.computeIfAbsent(request.endpoint + " | " + shape.getKey(), k -> new LongAdder()).increment();
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("at", LocalDateTime.now());
+            entry.put("endpoint", request.endpoint);
+            entry.put("executions", executions);
+            entry.put("shape", shape.getKey());
+            append(nPlusOneRequests, entry, slowLogSize);
+        }
+    }
+
+    // Histograms for every repository method, statement shape and endpoint, most total time first
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("since", since);
+        metrics.put("enabled", enabled);
+        metrics.put("repositoryMethods", summarize(repositoryMethods, "method", Integer.MAX_VALUE, byTotal()));
+        metrics.put("statements", summarize(statementShapes, "shape", Integer.MAX_VALUE, byTotal()));
+        metrics.put("endpoints", summarizeEndpoints());
+        return metrics;
+    }
+
+    // The admin view: worst offenders, recent slow statements and requests flagged as N+1
+    public Map<String, Object> getReport(int top) {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("since", since);
+        report.put("settings", Map.of("slowQueryMs", slowQueryMillis, "slowQuerySampleRate", slowQuerySampleRate,
+                "nPlusOneThreshold", nPlusOneThreshold));
+        report.put("slowestRepositoryMethods", summarize(repositoryMethods, "method", top, byP95()));
+        report.put("busiestRepositoryMethods", summarize(repositoryMethods, "method", top, byTotal()));
+        report.put("slowestStatements", summarize(statementShapes, "shape", top, byP95()));
+        report.put("busiestStatements", summarize(statementShapes, "shape", top, byTotal()));
+        synchronized (slowQueries) {
+            List<Map<String, Object>> recent = new ArrayList<>(slowQueries);
+            Collections.reverse(recent);
+            report.put("slowQueries", recent);
+        }
+        List<Map<String, Object>> offenders = new ArrayList<>();
+        nPlusOneCounts.entrySet().stream()
+                .sorted(Map.Entry.<String, LongAdder>comparingByValue(Comparator.comparingLong(LongAdder::sum)).reversed())
+                .limit(top)
+                .forEach(entry -> {
+                    String[] parts = entry.getKey().split(" \\| ", 2);
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    row.put("endpoint", parts[0]);
+                    row.put("shape", parts[1]);
+                    row.put("flaggedRequests", entry.getValue().sum());
+                    offenders.add(row);
+                });
+        report.put("nPlusOneOffenders", offenders);
+        synchronized (nPlusOneRequests) {
+            List<Map<String, Object>> recent = new ArrayList<>(nPlusOneRequests);
+            Collections.reverse(recent);
+            report.put("nPlusOneRequests", recent);
+        }
+        return report;
+    }
+
+    public void reset() {
+        repositoryMethods.clear();
+        statementShapes.clear();
+        nPlusOneCounts.clear();
+        endpoints.clear();
+        synchronized (slowQueries) {
+            slowQueries.clear();
+        }
+        synchronized (nPlusOneRequests) {
+            nPlusOneRequests.clear();
+        }
+        since = LocalDateTime.now();
+    }
+
+    String shapeOf(String sql) {
+        String shape = shapeCache.get(sql);
+        if (shape != null) {
+            return shape;
+        }
+        shape = WHITESPACE.matcher(sql.trim()).replaceAll(" ");
+        shape = STRING_LITERAL.matcher(shape).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        shape = IN_LIST.matcher(shape).replaceAll("in (?...)");
+        if (shape.length() > MAX_SHAPE_LENGTH) {
+            shape = shape.substring(0, MAX_SHAPE_LENGTH) + "...";
+        }
+        // Statements built with literals could otherwise fill the cache without bound
+        if (shapeCache.size() < maxShapes * 4) {
+            shapeCache.put(sql, shape);
+        }
+        return shape;
+    }
+
+    private static LatencyHistogram histogram(Map<String, LatencyHistogram> histograms, String key) {
+        return histograms.computeIfAbsent(key, k -> new LatencyHistogram());
+    }
+
+    private static List<Map<String, Object>> summarize(Map<String, LatencyHistogram> histograms, String keyName,
+                                                       int limit, Comparator<LatencyHistogram> order) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        histograms.entrySet().stream()
+                .sorted(Map.Entry.comparingByValue(order))
+                .limit(limit)
+                .forEach(entry -> {
+                    LatencyHistogram histogram = entry.getValue();
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    row.put(keyName, entry.getKey());
+                    row.put("count", histogram.getCount());
+                    row.put("totalMs", millis(histogram.getTotalNanos()));
+                    row.put("meanMs", millis(histogram.getMeanNanos()));
+                    row.put("p50Ms", millis(histogram.percentile(0.50)));
+                    row.put("p95Ms", millis(histogram.percentile(0.95)));
+                    row.put("p99Ms", millis(histogram.percentile(0.99)));
+                    row.put("maxMs", millis(histogram.getMaxNanos()));
+                    rows.add(row);
+                });
+        return rows;
+    }
+
+    private List<Map<String, Object>> summarizeEndpoints() {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        endpoints.entrySet().stream()
+                .sorted(Map.Entry.comparingByValue(
+                        Comparator.comparingLong((EndpointStats stats) -> stats.latency.getTotalNanos()).reversed()))
+                .forEach(entry -> {
+                    EndpointStats stats = entry.getValue();
+                    long requests = Math.max(1, stats.latency.getCount());
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    row.put("endpoint", entry.getKey());
+                    row.put("count", stats.latency.getCount());
+                    row.put("p50Ms", millis(stats.latency.percentile(0.50)));
+                    row.put("p95Ms", millis(stats.latency.percentile(0.95)));
+                    row.put("p99Ms", millis(stats.latency.percentile(0.99)));
+                    row.put("maxMs", millis(stats.latency.getMaxNanos()));
+                    row.put("statementsPerRequest", Math.round(stats.statements.sum() * 10.0 / requests) / 10.0);
+                    row.put("maxStatements", stats.maxStatements.get());
+                    row.put("allocatedKbPerRequest", stats.allocatedBytes.sum() / 1024 / requests);
+                    row.put("maxAllocatedKb", stats.maxAllocatedBytes.get() / 1024);
+                    rows.add(row);
+                });
+        return rows;
+    }
+
+    private static Comparator<LatencyHistogram> byTotal() {
+        return Comparator.comparingLong(LatencyHistogram::getTotalNanos).reversed();
+    }
+
+    private static Comparator<LatencyHistogram> byP95() {
+        return Comparator.comparingLong((LatencyHistogram histogram) -> histogram.percentile(0.95)).reversed();
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+
+    private static List<String> formatBinds(Object[] binds, int bindCount) {
+        if (binds == null) {
+            return List.of();
+        }
+        int count = Math.min(bindCount, binds.length);
+        List<String> formatted = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Object bind = binds[i];
+            String value = bind instanceof byte[] ? "<" + ((byte[]) bind).length + " bytes>" : String.valueOf(bind);
+            formatted.add(value.length() > MAX_BIND_LENGTH ? value.substring(0, MAX_BIND_LENGTH) + "..." : value);
+        }
+        return formatted;
+    }
+
+    private static void append(Deque<Map<String, Object>> log, Map<String, Object> entry, int capacity) {
+        synchronized (log) {
+            log.addLast(entry);
+            while (log.size() > capacity) {
+                log.removeFirst();
+            }
+        }
+    }
+}
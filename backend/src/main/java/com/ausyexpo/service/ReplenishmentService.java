@@ -0,0 +1,304 @@
+package com.ausyexpo.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ausyexpo.dto.InventoryBalance;
+import com.ausyexpo.dto.ReplenishmentReport;
+import com.ausyexpo.dto.ReplenishmentReport.Line;
+import com.ausyexpo.model.InventoryMovement;
+import com.ausyexpo.repository.InventoryMovementRepository;
+import com.ausyexpo.repository.SupplyRepository;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Replenishment planner for supplies with a minimum quantity.
+ * Branches are planned as independent partitions on a pool sized to the machine. For each item the
+ * daily demand comes from the quantity of its material released in the branch over the history window,
+ * and its level is the supply quantity plus what the stock ledger still has available of that material;
+ * the reorder point is lead-time demand plus the minimum quantity as safety stock, and the order size is
+ * the economic order quantity (never less than what brings the item back to its reorder point). Items below
+ * their reorder point get a DRAFT supply request, inserted per branch in one JDBC batch.
+ */
+@Service
+public class ReplenishmentService {
+
+    public static final String DRAFT_STATUS = "DRAFT";
+
+    private static final String INSERT_SQL = "INSERT INTO supply (material_type, item_name, supplier_name, " +
+            "supplier_contact, category, status, description, unit, unit_price, total_cost, minimum_quantity, " +
+            "request_date, quantity, amount, created_at, updated_at, version, branch_id) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0, ?, ?, ?, ?, ?, 0, ?)";
+
+    @Autowired
+    private SupplyRepository supplyRepository;
+
+    @Autowired
+    private InventoryMovementRepository movementRepository;
+
+    @Autowired
+    private InventoryLedgerService inventoryLedgerService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.replenishment.lead-time-days:7}")
+    private int leadTimeDays;
+
+    @Value("${app.replenishment.history-days:30}")
+    private int historyDays;
+
+    // Fixed cost of placing one order, and yearly holding cost as a fraction of the unit price
+    @Value("${app.replenishment.order-cost:50}")
+    private double orderCost;
+
+    @Value("${app.replenishment.holding-rate:0.25}")
+    private double holdingRate;
+
+    private final ExecutorService partitions = Executors.newFixedThreadPool(
+            Math.max(2, Runtime.getRuntime().availableProcessors()), runnable -> {
+                Thread thread = new Thread(runnable, "replenishment-planner");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Scheduled(cron = "${app.replenishment.cron:0 30 2 * * *}")
+    public void scheduledRun() {
+        try {
+            ReplenishmentReport report = plan(false);
+            System.out.println("Replenishment planner created " + report.getDraftsCreated() + " drafts from "
+                    + report.getItemsScanned() + " items in " + report.getBranchCount() + " branches ("
+                    + report.getElapsedMillis() + " ms)");
+        } catch (RuntimeException e) {
+            System.err.println("Replenishment planner failed: " + e.getMessage());
+        }
+    }
+
+    // With dryRun the plan is computed and returned but nothing is written
+    public ReplenishmentReport plan(boolean dryRun) {
+        if (!running.compareAndSet(false, true)) {
+            throw new RuntimeException("Replenishment planning is already running");
+        }
+        try {
+            long start = System.currentTimeMillis();
+            ReplenishmentReport report = new ReplenishmentReport(LocalDateTime.now(), dryRun);
+            LocalDateTime since = LocalDateTime.now().minusDays(historyDays);
+
+            List<Long> branchIds = supplyRepository.findReplenishmentBranchIds();
+            List<Future<BranchPlan>> futures = new ArrayList<>(branchIds.size());
+            for (Long branchId : branchIds) {
+                futures.add(partitions.submit(() -> planBranch(branchId, since, dryRun)));
+            }
+            for (Future<BranchPlan> future : futures) {
+                BranchPlan plan = await(future);
+                report.setItemsScanned(report.getItemsScanned() + plan.itemsScanned);
+                report.getLines().addAll(plan.lines);
+                if (!dryRun) {
+                    report.setDraftsCreated(report.getDraftsCreated() + plan.lines.size());
+                }
+            }
+            report.setBranchCount(branchIds.size());
+            report.setElapsedMillis(System.currentTimeMillis() - start);
+            return report;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private static final class BranchPlan {
+        int itemsScanned;
+        final List<Line> lines = new ArrayList<>();
+    }
+
+    private BranchPlan planBranch(Long branchId, LocalDateTime since, boolean dryRun) {
+        BranchPlan plan = new BranchPlan();
+
+        // Both keyed like the ledger, so spellings that differ in case count as one material
+        Map<String, Long> released = new HashMap<>();
+        for (Object[] row : movementRepository.sumOnHandDeltaSince(branchId, InventoryMovement.Type.RELEASE, since)) {
+            released.merge(materialKey((String) row[0]), -((Number) row[1]).longValue(), Long::sum);
+        }
+        Map<String, Long> available = new HashMap<>();
+        for (InventoryBalance balance : inventoryLedgerService.getBalancesByBranch(branchId)) {
+            available.merge(materialKey(balance.getMaterialType()), balance.getAvailable(), Long::sum);
+        }
+        Set<String> openDrafts = new HashSet<>();
+        for (Object[] row : supplyRepository.findDraftKeys(branchId)) {
+            openDrafts.add(itemKey((String) row[0], (String) row[1]));
+        }
+
+        // Several rows can describe the same item; the newest one (first) carries the current level
+        Map<String, Object[]> items = new LinkedHashMap<>();
+        for (Object[] row : supplyRepository.findReplenishmentItems(branchId)) {
+            items.putIfAbsent(itemKey((String) row[1], (String) row[2]), row);
+        }
+        plan.itemsScanned = items.size();
+
+        List<Object[]> drafts = new ArrayList<>();
+        for (Map.Entry<String, Object[]> entry : items.entrySet()) {
+            if (openDrafts.contains(entry.getKey())) {
+                continue;
+            }
+            Object[] row = entry.getValue();
+            String material = materialKey((String) row[4]);
+            Line line = evaluate(branchId, row, released.getOrDefault(material, 0L), available.getOrDefault(material, 0L));
+            if (line != null) {
+                plan.lines.add(line);
+                drafts.add(row);
+            }
+        }
+
+        if (!dryRun && !plan.lines.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> insertDrafts(branchId, drafts, plan.lines));
+        }
+        return plan;
+    }
+
+    // Returns the order line for an item below its reorder point, otherwise null
+    private Line evaluate(Long branchId, Object[] row, long releasedQuantity, long stockAvailable) {
+        long stock = Math.max(0, stockAvailable);
+        int supplied = row[8] != null ? ((Number) row[8]).intValue() : 0;
+        int level = (int) Math.min(Integer.MAX_VALUE, supplied + stock);
+        int minimum = ((Number) row[9]).intValue();
+        Double unitPrice = (Double) row[7];
+
+        double dailyDemand = historyDays > 0 ? (double) releasedQuantity / historyDays : 0;
+        int reorderPoint = (int) Math.ceil(dailyDemand * leadTimeDays) + minimum;
+        if (level >= reorderPoint) {
+            return null;
+        }
+
+        // EOQ = sqrt(2 * annual demand * order cost / yearly holding cost per unit)
+        double annualDemand = dailyDemand * 365;
+        double holdingCost = unitPrice != null ? unitPrice * holdingRate : 0;
+        int eoq = annualDemand > 0 && holdingCost > 0
+                ? (int) Math.ceil(Math.sqrt(2 * annualDemand * orderCost / holdingCost)) : 0;
+
+        Line line = new Line();
+        line.setBranchId(branchId);
+        line.setSourceSupplyId((Long) row[0]);
+        line.setItemName((String) row[1]);
+        line.setSupplierName((String) row[2]);
+        line.setMaterialType((String) row[4]);
+        line.setLevel(level);
+        line.setStockAvailable(stock);
+        line.setMinimumQuantity(minimum);
+        line.setDailyDemand(Math.round(dailyDemand * 100) / 100.0);
+        line.setReorderPoint(reorderPoint);
+        line.setEconomicOrderQuantity(eoq);
+        line.setOrderQuantity(Math.max(eoq, reorderPoint - level));
+        return line;
+    }
+
+    // With rewriteBatchedStatements the driver sends one multi-row INSERT; generated ids come back in row order
+    private void insertDrafts(Long branchId, List<Object[]> rows, List<Line> lines) {
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp timestamp = Timestamp.valueOf(now);
+        jdbcTemplate.execute((Connection connection) -> {
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (int r = 0; r < rows.size(); r++) {
+                    Object[] row = rows.get(r);
+                    Line line = lines.get(r);
+                    Double unitPrice = (Double) row[7];
+                    double price = unitPrice != null ? unitPrice : 0;
+                    int i = 1;
+                    ps.setString(i++, (String) row[4]);
+                    ps.setString(i++, (String) row[1]);
+                    ps.setString(i++, (String) row[2]);
+                    ps.setString(i++, (String) row[3]);
+                    ps.setString(i++, row[5] != null ? (String) row[5] : "GENERAL");
+                    ps.setString(i++, DRAFT_STATUS);
+                    ps.setString(i++, String.format(Locale.ROOT,
+                            "Auto-replenishment: level %d (%d in stock), reorder point %d, EOQ %d, demand %.2f/day",
+                            line.getLevel(), line.getStockAvailable(), line.getReorderPoint(), line.getEconomicOrderQuantity(),
+                            line.getDailyDemand()));
+                    ps.setString(i++, (String) row[6]);
+                    if (unitPrice != null) {
+                        ps.setDouble(i++, unitPrice);
+                    } else {
+                        ps.setNull(i++, Types.DOUBLE);
+                    }
+                    ps.setDouble(i++, line.getOrderQuantity() * price);
+                    ps.setTimestamp(i++, timestamp);
+                    ps.setInt(i++, line.getOrderQuantity());
+                    ps.setBigDecimal(i++, BigDecimal.valueOf(line.getOrderQuantity() * price)
+                            .setScale(2, RoundingMode.HALF_UP));
+                    ps.setTimestamp(i++, timestamp);
+                    ps.setTimestamp(i++, timestamp);
+                    ps.setLong(i++, branchId);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    int r = 0;
+                    while (keys.next() && r < lines.size()) {
+                        lines.get(r++).setDraftId(keys.getLong(1));
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    private static BranchPlan await(Future<BranchPlan> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Replenishment planning was interrupted");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            throw new RuntimeException("Replenishment planning failed: " + cause.getMessage(), cause);
+        }
+    }
+
+    private static String itemKey(String itemName, String supplierName) {
+        return normalize(itemName).toLowerCase(Locale.ROOT) + "|" + normalize(supplierName).toLowerCase(Locale.ROOT);
+    }
+
+    private static String materialKey(String materialType) {
+        return normalize(materialType).toLowerCase(Locale.ROOT);
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        partitions.shutdownNow();
+    }
+}
@@ -2,7 +2,9 @@ package com.ausyexpo.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import com.ausyexpo.repository.*;
+import com.ausyexpo.model.Employee;
 import com.ausyexpo.model.User;
 import java.util.*;
 import java.time.LocalDateTime;
@@ -20,6 +22,12 @@ public class ReportService {
     @Autowired
     private EmployeeRepository employeeRepository;
 
+    @Autowired
+    private HeadcountService headcountService;
+
+    // Read-only, so a replica can serve it. A failed query fails the report: caught, it would leave the
+    // transaction rollback-only.
+    @Transactional(readOnly = true)
     public Map<String, Object> generateSystemOverviewReport() {
         Map<String, Object> report = new HashMap<>();
         
@@ -32,58 +40,33 @@ public class ReportService {
         
         // User Role Distribution
         Map<String, Long> userRoleDistribution = new HashMap<>();
-        try {
-            List<Object[]> roleStats = userRepository.countUsersByRole();
-            for (Object[] stat : roleStats) {
-                userRoleDistribution.put(stat[0].toString(), (Long) stat[1]);
-            }
-        } catch (Exception e) {
-            // Fallback if custom query doesn't exist
-            userRoleDistribution.put("ADMIN", 0L);
-            userRoleDistribution.put("MANAGER", 0L);
-            userRoleDistribution.put("OWNER", 0L);
-            userRoleDistribution.put("BUYER", 0L);
-            userRoleDistribution.put("SUPPLIER", 0L);
+        for (Object[] stat : userRepository.countUsersByRole()) {
+            userRoleDistribution.put(stat[0].toString(), (Long) stat[1]);
         }
         
         // Branch Statistics
         Map<String, Object> branchStats = new HashMap<>();
-        try {
-            List<Object[]> branchEmployeeCount = branchRepository.getBranchEmployeeCounts();
-            Map<String, Long> branchEmployeeMap = new HashMap<>();
-            for (Object[] stat : branchEmployeeCount) {
-                branchEmployeeMap.put(stat[0].toString(), (Long) stat[1]);
-            }
-            branchStats.put("branchEmployeeCounts", branchEmployeeMap);
-        } catch (Exception e) {
-            branchStats.put("branchEmployeeCounts", new HashMap<>());
+        Map<String, Long> branchEmployeeMap = new HashMap<>();
+        for (Object[] stat : branchRepository.getBranchEmployeeCounts()) {
+            branchEmployeeMap.put(stat[0].toString(), (Long) stat[1]);
         }
+        branchStats.put("branchEmployeeCounts", branchEmployeeMap);
         
         // Department Statistics
         Map<String, Object> departmentStats = new HashMap<>();
-        try {
-            List<Object[]> deptEmployeeCount = employeeRepository.getEmployeeCountByDepartment();
-            Map<String, Long> deptEmployeeMap = new HashMap<>();
-            for (Object[] stat : deptEmployeeCount) {
-                deptEmployeeMap.put(stat[0].toString(), (Long) stat[1]);
-            }
-            departmentStats.put("departmentEmployeeCounts", deptEmployeeMap);
-        } catch (Exception e) {
-            departmentStats.put("departmentEmployeeCounts", new HashMap<>());
+        Map<String, Long> deptEmployeeMap = new HashMap<>();
+        for (Object[] stat : employeeRepository.getEmployeeCountByDepartment()) {
+            deptEmployeeMap.put(stat[0].toString(), (Long) stat[1]);
         }
+        departmentStats.put("departmentEmployeeCounts", deptEmployeeMap);
         
         // Recent Activity
         Map<String, Object> recentActivity = new HashMap<>();
-        try {
-            List<User> recentUsers = userRepository.findTop5ByOrderByCreatedAtDesc();
-            recentActivity.put("recentUsers", recentUsers.size());
-            recentActivity.put("lastUserRegistration", 
-                recentUsers.isEmpty() ? "No users" : 
-                recentUsers.get(0).getCreatedAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd")));
-        } catch (Exception e) {
-            recentActivity.put("recentUsers", 0);
-            recentActivity.put("lastUserRegistration", "No data");
-        }
+        List<User> recentUsers = userRepository.findTop5ByOrderByCreatedAtDesc();
+        recentActivity.put("recentUsers", recentUsers.size());
+        recentActivity.put("lastUserRegistration", 
+            recentUsers.isEmpty() ? "No users" : 
+            recentUsers.get(0).getCreatedAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd")));
         
         // Performance Metrics
         Map<String, Object> performanceMetrics = new HashMap<>();
@@ -104,6 +87,7 @@ public class ReportService {
         return report;
     }
     
+    @Transactional(readOnly = true)
     public Map<String, Object> generateUserAnalyticsReport() {
         Map<String, Object> report = new HashMap<>();
         
@@ -133,22 +117,15 @@ public class ReportService {
     public Map<String, Object> generateEmployeeReport() {
         Map<String, Object> report = new HashMap<>();
         
+        // Served from the headcount index, without touching the employee table
         Map<String, Object> employeeStats = new HashMap<>();
-        employeeStats.put("totalEmployees", employeeRepository.count());
-        
-        try {
-            List<Object[]> genderStats = employeeRepository.getEmployeeCountByGender();
-            Map<String, Long> genderDistribution = new HashMap<>();
-            for (Object[] stat : genderStats) {
-                genderDistribution.put(stat[0].toString(), (Long) stat[1]);
-            }
-            employeeStats.put("genderDistribution", genderDistribution);
-        } catch (Exception e) {
-            Map<String, Long> genderDistribution = new HashMap<>();
-            genderDistribution.put("MALE", 0L);
-            genderDistribution.put("FEMALE", 0L);
-            employeeStats.put("genderDistribution", genderDistribution);
+        employeeStats.put("totalEmployees", headcountService.countAll());
+        
+        Map<String, Long> genderDistribution = new HashMap<>();
+        for (Map.Entry<Employee.Gender, Long> entry : headcountService.countByGender().entrySet()) {
+            genderDistribution.put(entry.getKey().name(), entry.getValue());
         }
+        employeeStats.put("genderDistribution", genderDistribution);
         
         report.put("reportTitle", "Employee Demographics Report");
         report.put("reportType", "EMPLOYEE_DEMOGRAPHICS");
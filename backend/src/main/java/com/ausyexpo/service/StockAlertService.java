@@ -0,0 +1,346 @@
+package com.ausyexpo.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ausyexpo.dto.InventoryBalance;
+import com.ausyexpo.dto.StockLevelChangedEvent;
+import com.ausyexpo.dto.SupplyLevelChangedEvent;
+import com.ausyexpo.model.StockAlertSetting;
+import com.ausyexpo.repository.StockAlertSettingRepository;
+import com.ausyexpo.repository.SupplyRepository;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Low-stock alerting over an in-memory index of stock and supply levels.
+ * Every tracked level sits in one set ordered by its distance to the low mark, so the most critical
+ * items are read from the front instead of scanning tables. The index is updated after each committed
+ * write; when a level crosses into or out of the low band (with per-branch hysteresis against flapping)
+ * a LOW_STOCK or STOCK_RECOVERED event is written to the outbox and streamed to subscribers. Events are
+ * decided under the index lock but written to the outbox after it is released, in the order they were decided.
+ */
+@Service
+public class StockAlertService {
+
+    public static final String AGGREGATE_TYPE = "StockAlert";
+
+    @Autowired
+    private InventoryLedgerService inventoryLedgerService;
+
+    @Autowired
+    private SupplyRepository supplyRepository;
+
+    @Autowired
+    private StockAlertSettingRepository settingRepository;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.alerts.stock-threshold:10}")
+    private int defaultStockThreshold;
+
+    @Value("${app.alerts.hysteresis:5}")
+    private int defaultHysteresis;
+
+    // Alerts are raised after the triggering transaction committed, so they need their own
+    private TransactionTemplate alertTransaction;
+
+    // All guarded by this
+    private final Map<String, Level> levels = new HashMap<>();
+    private final TreeSet<Level> index = new TreeSet<>(
+            Comparator.comparingLong((Level level) -> level.margin()).thenComparing(level -> level.key));
+    private final Map<Long, StockAlertSetting> settings = new HashMap<>();
+    private int maxHysteresis;
+
+    // Events decided under the lock, waiting to be written to the outbox; drained under outboxLock
+    private final Queue<Alert> unsent = new ConcurrentLinkedQueue<>();
+    private final Object outboxLock = new Object();
+
+    // Serializes settings writes, so the saved row and the in-memory copy end up the same
+    private final Object settingsLock = new Object();
+
+    private static final class Alert {
+        final String eventType;
+        final String key;
+        final Long branchId;
+        final Map<String, Object> payload;
+
+        Alert(String eventType, String key, Long branchId, Map<String, Object> payload) {
+            this.eventType = eventType;
+            this.key = key;
+            this.branchId = branchId;
+            this.payload = payload;
+        }
+    }
+
+    private static final class Level {
+        final String key;
+        final String kind;
+        final Long supplyId;
+        Long branchId;
+        String materialType;
+        String itemName;
+        long quantity;
+        // Highest quantity that still counts as low
+        long lowMark;
+        boolean alerting;
+
+        Level(String key, String kind, Long branchId, String materialType, Long supplyId, String itemName) {
+            this.key = key;
+            this.kind = kind;
+            this.branchId = branchId;
+            this.materialType = materialType;
+            this.supplyId = supplyId;
+            this.itemName = itemName;
+        }
+
+        long margin() {
+            return quantity - lowMark;
+        }
+    }
+
+    @PostConstruct
+    public synchronized void init() {
+        alertTransaction = new TransactionTemplate(transactionManager);
+        alertTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        maxHysteresis = defaultHysteresis;
+        for (StockAlertSetting setting : settingRepository.findAll()) {
+            settings.put(setting.getBranchId(), setting);
+            maxHysteresis = Math.max(maxHysteresis, setting.getHysteresis());
+        }
+        // Seed silently: levels that are already low start out alerting without raising an event
+        for (InventoryBalance balance : inventoryLedgerService.getAllBalances()) {
+            Level level = stockLevel(balance.getBranchId(), balance.getMaterialType());
+            level.quantity = balance.getAvailable();
+            level.lowMark = stockThreshold(balance.getBranchId());
+            level.alerting = level.margin() <= 0;
+            index.add(level);
+        }
+        for (Object[] row : supplyRepository.findAlertLevels()) {
+            Level level = supplyLevel(row);
+            level.quantity = ((Number) row[4]).longValue();
+            level.lowMark = ((Number) row[5]).longValue() - 1;
+            level.alerting = level.margin() <= 0;
+            index.add(level);
+        }
+    }
+
+    // --- Incremental updates, after the write committed (or immediately outside a transaction) ---
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockLevelChanged(StockLevelChangedEvent event) {
+        synchronized (this) {
+            // Read under the lock, so a balance read before a newer commit's cannot be applied after it
+            InventoryBalance balance = inventoryLedgerService.getBalance(event.getBranchId(), event.getMaterialType());
+            Level level = stockLevel(event.getBranchId(), balance.getMaterialType());
+            update(level, balance.getAvailable(), stockThreshold(event.getBranchId()));
+        }
+        sendAlerts();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSupplyLevelChanged(SupplyLevelChangedEvent event) {
+        List<Object[]> rows = supplyRepository.findAlertLevelById(event.getSupplyId());
+        synchronized (this) {
+            Level existing = levels.get(supplyKey(event.getSupplyId()));
+            Object[] row = rows.isEmpty() ? null : rows.get(0);
+            int minimum = row != null && row[5] != null ? ((Number) row[5]).intValue() : 0;
+            if (row == null || minimum <= 0) {
+                // Deleted, or no longer has a minimum: stop tracking without raising a recovery
+                if (existing != null) {
+                    index.remove(existing);
+                    levels.remove(existing.key);
+                }
+                return;
+            }
+            Level level = supplyLevel(row);
+            update(level, ((Number) row[4]).longValue(), minimum - 1);
+        }
+        sendAlerts();
+    }
+
+    // Re-positions a level in the index and queues an event if it crossed the low band; callers hold the lock
+    private void update(Level level, long quantity, long lowMark) {
+        index.remove(level);
+        level.quantity = quantity;
+        level.lowMark = lowMark;
+        index.add(level);
+
+        if (!level.alerting && level.margin() <= 0) {
+            level.alerting = true;
+            raise(level, "LOW_STOCK");
+        } else if (level.alerting && level.margin() > hysteresis(level.branchId)) {
+            level.alerting = false;
+            raise(level, "STOCK_RECOVERED");
+        }
+    }
+
+    private void raise(Level level, String eventType) {
+        unsent.add(new Alert(eventType, level.key, level.branchId, toPayload(level)));
+    }
+
+    // Writes queued events to the outbox without holding the index lock; one writer at a time keeps their order
+    private void sendAlerts() {
+        synchronized (outboxLock) {
+            Alert alert;
+            while ((alert = unsent.poll()) != null) {
+                Alert next = alert;
+                try {
+                    alertTransaction.executeWithoutResult(status ->
+                            outboxService.append(AGGREGATE_TYPE, next.branchId, next.eventType, next.payload));
+                } catch (RuntimeException e) {
+                    System.err.println("Could not record " + next.eventType + " alert for " + next.key + ": "
+                            + e.getMessage());
+                }
+            }
+        }
+    }
+
+    // --- Queries ---
+
+    // Items currently alerting, most critical first
+    public synchronized List<Map<String, Object>> getActiveAlerts(Long branchId) {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (Level level : index) {
+            // An alerting level is never more than its branch's hysteresis above its low mark
+            if (level.margin() > maxHysteresis) {
+                break;
+            }
+            if (level.alerting && (branchId == null || branchId.equals(level.branchId))) {
+                result.add(toPayload(level));
+            }
+        }
+        return result;
+    }
+
+    // Supplies below their minimum quantity, most critical first
+    public synchronized List<Long> getLowSupplyIds() {
+        List<Long> ids = new ArrayList<>();
+        for (Level level : index) {
+            if (level.margin() > 0) {
+                break;
+            }
+            if (level.supplyId != null) {
+                ids.add(level.supplyId);
+            }
+        }
+        return ids;
+    }
+
+    public synchronized StockAlertSetting getSettings(Long branchId) {
+        StockAlertSetting setting = settings.get(branchId);
+        return setting != null ? setting : new StockAlertSetting(branchId, defaultStockThreshold, defaultHysteresis);
+    }
+
+    // Saves a branch's settings and re-evaluates its levels, which may raise or clear alerts right away
+    public StockAlertSetting updateSettings(Long branchId, Integer stockThreshold, Integer hysteresis) {
+        if (stockThreshold == null || stockThreshold < 0) {
+            throw new RuntimeException("Stock threshold must be 0 or greater");
+        }
+        if (hysteresis == null || hysteresis < 0) {
+            throw new RuntimeException("Hysteresis must be 0 or greater");
+        }
+        StockAlertSetting setting;
+        synchronized (settingsLock) {
+            setting = settingRepository.findByBranchId(branchId)
+                    .orElseGet(() -> new StockAlertSetting(branchId, stockThreshold, hysteresis));
+            setting.setStockThreshold(stockThreshold);
+            setting.setHysteresis(hysteresis);
+            setting = settingRepository.save(setting);
+
+            synchronized (this) {
+                settings.put(branchId, setting);
+                maxHysteresis = defaultHysteresis;
+                for (StockAlertSetting other : settings.values()) {
+                    maxHysteresis = Math.max(maxHysteresis, other.getHysteresis());
+                }
+                for (Level level : new ArrayList<>(index)) {
+                    if (branchId.equals(level.branchId)) {
+                        update(level, level.quantity, level.supplyId != null ? level.lowMark : stockThreshold);
+                    }
+                }
+            }
+        }
+        sendAlerts();
+        return setting;
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        long alerting = levels.values().stream().filter(level -> level.alerting).count();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("trackedLevels", levels.size());
+        stats.put("activeAlerts", alerting);
+        stats.put("defaultStockThreshold", defaultStockThreshold);
+        stats.put("defaultHysteresis", defaultHysteresis);
+        return stats;
+    }
+
+    // --- Helpers (callers hold the lock) ---
+
+    private Level stockLevel(Long branchId, String materialType) {
+        String key = "STOCK:" + branchId + ":" + materialType;
+        return levels.computeIfAbsent(key, k -> new Level(k, "STOCK", branchId, materialType, null, null));
+    }
+
+    // Creates or refreshes the descriptive fields only; quantity and low mark position the level in the index
+    private Level supplyLevel(Object[] row) {
+        Long supplyId = (Long) row[0];
+        Level level = levels.computeIfAbsent(supplyKey(supplyId),
+                k -> new Level(k, "SUPPLY", null, null, supplyId, null));
+        level.branchId = (Long) row[1];
+        level.itemName = (String) row[2];
+        level.materialType = (String) row[3];
+        return level;
+    }
+
+    private static String supplyKey(Long supplyId) {
+        return "SUPPLY:" + supplyId;
+    }
+
+    private long stockThreshold(Long branchId) {
+        StockAlertSetting setting = branchId != null ? settings.get(branchId) : null;
+        return setting != null ? setting.getStockThreshold() : defaultStockThreshold;
+    }
+
+    private long hysteresis(Long branchId) {
+        StockAlertSetting setting = branchId != null ? settings.get(branchId) : null;
+        return setting != null ? setting.getHysteresis() : defaultHysteresis;
+    }
+
+    private Map<String, Object> toPayload(Level level) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("kind", level.kind);
+        payload.put("branchId", level.branchId);
+        payload.put("materialType", level.materialType);
+        if (level.supplyId != null) {
+            payload.put("supplyId", level.supplyId);
+            payload.put("itemName", level.itemName);
+            payload.put("minimumQuantity", level.lowMark + 1);
+        } else {
+            payload.put("threshold", level.lowMark);
+        }
+        payload.put("quantity", level.quantity);
+        payload.put("hysteresis", hysteresis(level.branchId));
+        return payload;
+    }
+}
@@ -1,6 +1,9 @@
 package com.ausyexpo.service;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -8,7 +11,9 @@ import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.ausyexpo.dto.InventoryBalance;
 import com.ausyexpo.model.Branch;
+import com.ausyexpo.model.InventoryMovement;
 import com.ausyexpo.model.Stock;
 import com.ausyexpo.repository.BranchRepository;
 import com.ausyexpo.repository.StockRepository;
@@ -23,14 +28,23 @@ public class StockService {
     @Autowired
     private BranchRepository branchRepository;
 
+    @Autowired
+    private InventoryLedgerService inventoryLedgerService;
+
+    @Autowired
+    private StockValuationService stockValuationService;
+
+    @Transactional(readOnly = true)
     public List<Stock> getAllStock() {
         return stockRepository.findAll(Sort.by(Sort.Direction.DESC, "createdAt"));
     }
 
+    @Transactional(readOnly = true)
     public List<Stock> getStockByBranch(Long branchId) {
         return stockRepository.findByBranchId(branchId);
     }
 
+    @Transactional(readOnly = true)
     public Optional<Stock> getStockById(Long id) {
         return stockRepository.findById(id);
     }
@@ -45,7 +59,12 @@ public class StockService {
             stock.setBranch(branch.get());
         }
         
-        return stockRepository.save(stock);
+        Stock savedStock = stockRepository.save(stock);
+        if (savedStock.getReleaseDate() == null) {
+            inventoryLedgerService.receive(savedStock);
+        }
+        stockValuationService.lotCreated(savedStock);
+        return savedStock;
     }
 
     public Stock updateStock(Long id, Stock stockDetails) {
@@ -55,6 +74,10 @@ public class StockService {
         }
 
         Stock stock = optionalStock.get();
+        Long previousBranchId = InventoryLedgerService.branchIdOf(stock);
+        String previousMaterialType = stock.getMaterialType();
+        int previousQuantity = stock.getQuantity();
+        boolean wasReleased = stock.getReleaseDate() != null;
 
         // Update fields
         stock.setStockType(stockDetails.getStockType());
@@ -73,7 +96,50 @@ public class StockService {
             stock.setBranch(branch.get());
         }
 
-        return stockRepository.save(stock);
+        Stock savedStock = stockRepository.save(stock);
+        recordUpdate(savedStock, previousBranchId, previousMaterialType, previousQuantity, wasReleased);
+        stockValuationService.lotsChanged(previousBranchId, previousMaterialType);
+        stockValuationService.lotsChanged(InventoryLedgerService.branchIdOf(savedStock), savedStock.getMaterialType());
+        return savedStock;
+    }
+
+    // Moves the lot's old contribution out of the ledger and its new one in
+    private void recordUpdate(Stock stock, Long previousBranchId, String previousMaterialType,
+                              int previousQuantity, boolean wasReleased) {
+        Long branchId = InventoryLedgerService.branchIdOf(stock);
+        boolean released = stock.getReleaseDate() != null;
+        boolean sameKey = Objects.equals(previousBranchId, branchId)
+                && InventoryLedgerService.materialKey(previousMaterialType)
+                        .equals(InventoryLedgerService.materialKey(stock.getMaterialType()));
+
+        if (!wasReleased && !released && sameKey) {
+            if (stock.getQuantity() != previousQuantity) {
+                inventoryLedgerService.adjust(branchId, stock.getMaterialType(), stock.getQuantity() - previousQuantity,
+                        0, stock.getId(), "Stock " + stock.getId() + " quantity changed");
+            }
+            return;
+        }
+        if (!wasReleased) {
+            if (released && sameKey) {
+                Stock previous = new Stock();
+                previous.setId(stock.getId());
+                previous.setBranch(stock.getBranch());
+                previous.setMaterialType(previousMaterialType);
+                previous.setQuantity(previousQuantity);
+                inventoryLedgerService.release(previous);
+            } else {
+                inventoryLedgerService.adjust(previousBranchId, previousMaterialType, -previousQuantity, -1,
+                        stock.getId(), "Stock " + stock.getId() + " moved");
+            }
+        }
+        if (!released) {
+            if (wasReleased) {
+                inventoryLedgerService.receive(stock);
+            } else {
+                inventoryLedgerService.adjust(branchId, stock.getMaterialType(), stock.getQuantity(), 1,
+                        stock.getId(), "Stock " + stock.getId() + " moved");
+            }
+        }
     }
 
     public void deleteStock(Long id) {
@@ -81,29 +147,48 @@ public class StockService {
         if (!optionalStock.isPresent()) {
             throw new RuntimeException("Stock not found with id: " + id);
         }
+        Stock stock = optionalStock.get();
+        if (stock.getReleaseDate() == null) {
+            inventoryLedgerService.adjust(InventoryLedgerService.branchIdOf(stock), stock.getMaterialType(),
+                    -stock.getQuantity(), -1, stock.getId(), "Stock " + id + " deleted");
+        }
         stockRepository.deleteById(id);
+        stockValuationService.lotsChanged(InventoryLedgerService.branchIdOf(stock), stock.getMaterialType());
     }
 
+    @Transactional(readOnly = true)
     public List<Stock> searchStock(Long branchId, String stockType, String materialType, Boolean isReleased) {
         return stockRepository.findBySearchCriteria(branchId, stockType, materialType, isReleased);
     }
 
+    @Transactional(readOnly = true)
     public List<Stock> getUnreleasedStock() {
         return stockRepository.findByReleaseDateIsNull();
     }
 
+    @Transactional(readOnly = true)
     public List<Stock> getReleasedStock() {
         return stockRepository.findByReleaseDateIsNotNull();
     }
 
+    @Transactional(readOnly = true)
     public List<Stock> getUnreleasedStockByBranch(Long branchId) {
         return stockRepository.findByBranchIdAndReleaseDateIsNull(branchId);
     }
 
+    // Same shape as before (materialType, total quantity, lot count), served from the ledger counters
+    @Transactional(readOnly = true)
     public List<Object[]> getStockSummaryByBranch(Long branchId) {
-        return stockRepository.getStockSummaryByBranch(branchId);
+        List<Object[]> summary = new ArrayList<>();
+        for (InventoryBalance balance : inventoryLedgerService.getBalancesByBranch(branchId)) {
+            if (balance.getLots() > 0) {
+                summary.add(new Object[] { balance.getMaterialType(), balance.getOnHand(), balance.getLots() });
+            }
+        }
+        return summary;
     }
 
+    @Transactional(readOnly = true)
     public List<Stock> getLowStockItems(Integer threshold) {
         if (threshold == null) {
             threshold = 10; // Default threshold
@@ -122,7 +207,25 @@ public class StockService {
             throw new RuntimeException("Stock is already released");
         }
 
-        stock.setReleaseDate(java.time.LocalDate.now());
-        return stockRepository.save(stock);
+        // Conditional update so two concurrent releases cannot both take the lot out of the ledger
+        LocalDate releaseDate = LocalDate.now();
+        if (stockRepository.markReleased(id, releaseDate) == 0) {
+            throw new RuntimeException("Stock is already released");
+        }
+        inventoryLedgerService.release(stock);
+        stockValuationService.lotReleased(stock, releaseDate);
+        stock.setReleaseDate(releaseDate);
+        return stock;
+    }
+
+    public InventoryMovement reserve(Long branchId, String materialType, int quantity, String reference) {
+        if (branchId != null && !branchRepository.existsById(branchId)) {
+            throw new RuntimeException("Branch not found with id: " + branchId);
+        }
+        return inventoryLedgerService.reserve(branchId, materialType, quantity, reference);
+    }
+
+    public InventoryMovement cancelReservation(Long reservationId) {
+        return inventoryLedgerService.cancelReservation(reservationId);
     }
 }
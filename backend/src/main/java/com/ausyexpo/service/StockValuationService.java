@@ -0,0 +1,382 @@
+package com.ausyexpo.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.ausyexpo.dto.StockValuation;
+import com.ausyexpo.model.Stock;
+import com.ausyexpo.repository.StockRepository;
+import com.ausyexpo.util.AfterCommit;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Inventory valuation per (branch, material type) under FIFO and perpetual weighted average.
+ * Each lot is a receipt on its purchase date and, once released, an issue of its quantity on its release
+ * date. Issues consume the oldest FIFO layers and are costed at the running average. After every day with
+ * movements the state is kept as a small snapshot, so a valuation as of any date is a floor lookup.
+ * Writes in date order are applied incrementally after commit; anything that rewrites history (edits,
+ * deletes, backdated lots) replays just the affected key from its lots.
+ */
+@Service
+public class StockValuationService {
+
+    private static final int COST_SCALE = 6;
+    private static final int MONEY_SCALE = 2;
+
+    @Autowired
+    private StockRepository stockRepository;
+
+    private final Map<String, Valuation> valuations = new ConcurrentHashMap<>();
+
+    // A lot's receipt or release
+    private static final class Movement {
+        final long lotId;
+        final LocalDate date;
+        final boolean receipt;
+        final int quantity;
+        final BigDecimal unitPrice;
+
+        Movement(long lotId, LocalDate date, boolean receipt, int quantity, BigDecimal unitPrice) {
+            this.lotId = lotId;
+            this.date = date;
+            this.receipt = receipt;
+            this.quantity = quantity;
+            this.unitPrice = unitPrice;
+        }
+    }
+
+    // Receipts before releases on the same day, then lot order
+    private static final Comparator<Movement> MOVEMENT_ORDER = Comparator
+            .comparing((Movement m) -> m.date)
+            .thenComparing(m -> !m.receipt)
+            .thenComparingLong(m -> m.lotId);
+
+    private static final class Layer {
+        final long lotId;
+        final LocalDate date;
+        final BigDecimal unitPrice;
+        long remaining;
+
+        Layer(long lotId, LocalDate date, BigDecimal unitPrice, long remaining) {
+            this.lotId = lotId;
+            this.date = date;
+            this.unitPrice = unitPrice;
+            this.remaining = remaining;
+        }
+    }
+
+    private static final class Snapshot {
+        final long quantity;
+        final BigDecimal fifoValue;
+        final BigDecimal averageCost;
+        final BigDecimal averageTotal;
+        final BigDecimal fifoReleased;
+        final BigDecimal averageReleased;
+
+        Snapshot(long quantity, BigDecimal fifoValue, BigDecimal averageCost, BigDecimal averageTotal,
+                 BigDecimal fifoReleased, BigDecimal averageReleased) {
+            this.quantity = quantity;
+            this.fifoValue = fifoValue;
+            this.averageCost = averageCost;
+            this.averageTotal = averageTotal;
+            this.fifoReleased = fifoReleased;
+            this.averageReleased = averageReleased;
+        }
+    }
+
+    // Guarded by its own monitor
+    private static final class Valuation {
+        final Long branchId;
+        final String materialType;
+        final ArrayDeque<Layer> layers = new ArrayDeque<>();
+        long quantity;
+        BigDecimal fifoValue = BigDecimal.ZERO;
+        BigDecimal fifoReleased = BigDecimal.ZERO;
+        // Weighted average keeps total cost; unit cost is total / quantity
+        long averageQuantity;
+        BigDecimal averageTotal = BigDecimal.ZERO;
+        BigDecimal averageReleased = BigDecimal.ZERO;
+        LocalDate lastDate;
+        final TreeMap<LocalDate, Snapshot> timeline = new TreeMap<>();
+        // Lots already counted, so a change seen both by a replay and by its own after-commit hook counts once
+        final Set<Long> received = new HashSet<>();
+        final Set<Long> released = new HashSet<>();
+
+        Valuation(Long branchId, String materialType) {
+            this.branchId = branchId;
+            this.materialType = materialType;
+        }
+
+        void reset() {
+            layers.clear();
+            quantity = 0;
+            fifoValue = BigDecimal.ZERO;
+            fifoReleased = BigDecimal.ZERO;
+            averageQuantity = 0;
+            averageTotal = BigDecimal.ZERO;
+            averageReleased = BigDecimal.ZERO;
+            lastDate = null;
+            timeline.clear();
+            received.clear();
+            released.clear();
+        }
+
+        void apply(Movement movement) {
+            if (!(movement.receipt ? received : released).add(movement.lotId)) {
+                return;
+            }
+            if (movement.receipt) {
+                layers.addLast(new Layer(movement.lotId, movement.date, movement.unitPrice, movement.quantity));
+                BigDecimal cost = movement.unitPrice.multiply(BigDecimal.valueOf(movement.quantity));
+                quantity += movement.quantity;
+                fifoValue = fifoValue.add(cost);
+                averageQuantity += movement.quantity;
+                averageTotal = averageTotal.add(cost);
+            } else {
+                // FIFO: oldest layers first
+                long toConsume = Math.min(movement.quantity, quantity);
+                while (toConsume > 0 && !layers.isEmpty()) {
+                    Layer oldest = layers.peekFirst();
+                    long taken = Math.min(toConsume, oldest.remaining);
+                    BigDecimal cost = oldest.unitPrice.multiply(BigDecimal.valueOf(taken));
+                    fifoValue = fifoValue.subtract(cost);
+                    fifoReleased = fifoReleased.add(cost);
+                    oldest.remaining -= taken;
+                    toConsume -= taken;
+                    if (oldest.remaining == 0) {
+                        layers.pollFirst();
+                    }
+                }
+                quantity = Math.max(0, quantity - movement.quantity);
+
+                // Weighted average: issue at the current unit cost
+                long issued = Math.min(movement.quantity, averageQuantity);
+                if (issued > 0) {
+                    BigDecimal cost = issued == averageQuantity ? averageTotal
+                            : averageTotal.multiply(BigDecimal.valueOf(issued))
+                                    .divide(BigDecimal.valueOf(averageQuantity), COST_SCALE, RoundingMode.HALF_UP);
+                    averageTotal = averageTotal.subtract(cost);
+                    averageReleased = averageReleased.add(cost);
+                    averageQuantity -= issued;
+                }
+            }
+            lastDate = movement.date;
+            timeline.put(movement.date, new Snapshot(quantity, fifoValue, averageCost(), averageTotal,
+                    fifoReleased, averageReleased));
+        }
+
+        BigDecimal averageCost() {
+            return averageQuantity == 0 ? BigDecimal.ZERO
+                    : averageTotal.divide(BigDecimal.valueOf(averageQuantity), COST_SCALE, RoundingMode.HALF_UP);
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        Map<String, List<Movement>> byKey = new HashMap<>();
+        Map<String, Object[]> keyOf = new HashMap<>();
+        for (Object[] row : stockRepository.findValuationLots()) {
+            String key = key((Long) row[1], (String) row[2]);
+            keyOf.putIfAbsent(key, row);
+            byKey.computeIfAbsent(key, k -> new ArrayList<>()).addAll(movements(row));
+        }
+        for (Map.Entry<String, List<Movement>> entry : byKey.entrySet()) {
+            Object[] row = keyOf.get(entry.getKey());
+            Valuation valuation = new Valuation((Long) row[1], (String) row[2]);
+            replay(valuation, entry.getValue());
+            valuations.put(entry.getKey(), valuation);
+        }
+        System.out.println("Stock valuation built for " + valuations.size() + " branch/material combinations");
+    }
+
+    // --- Changes from StockService, applied once the write commits ---
+
+    public void lotCreated(Stock stock) {
+        Object[] row = row(stock, stock.getReleaseDate());
+        AfterCommit.run(() -> applyOrReplay((Long) row[1], (String) row[2], movements(row)));
+    }
+
+    public void lotReleased(Stock stock, LocalDate releaseDate) {
+        Object[] row = row(stock, releaseDate);
+        List<Movement> release = new ArrayList<>();
+        for (Movement movement : movements(row)) {
+            if (!movement.receipt) {
+                release.add(movement);
+            }
+        }
+        AfterCommit.run(() -> applyOrReplay((Long) row[1], (String) row[2], release));
+    }
+
+    // The lots of a key changed in a way that rewrites its history
+    public void lotsChanged(Long branchId, String materialType) {
+        String material = normalize(materialType);
+        AfterCommit.run(() -> rebuild(branchId, material));
+    }
+
+    private void applyOrReplay(Long branchId, String materialType, List<Movement> movements) {
+        movements.sort(MOVEMENT_ORDER);
+        Valuation valuation = valuations.computeIfAbsent(key(branchId, materialType),
+                k -> new Valuation(branchId, materialType));
+        synchronized (valuation) {
+            if (movements.isEmpty() || valuation.lastDate == null
+                    || !movements.get(0).date.isBefore(valuation.lastDate)) {
+                for (Movement movement : movements) {
+                    valuation.apply(movement);
+                }
+                return;
+            }
+        }
+        // Backdated: the snapshots after that date are wrong now
+        rebuild(branchId, materialType);
+    }
+
+    private void rebuild(Long branchId, String materialType) {
+        Valuation valuation = valuations.computeIfAbsent(key(branchId, materialType),
+                k -> new Valuation(branchId, materialType));
+        // Read under the lock so a concurrent incremental change lands either in the rows or after the replay
+        synchronized (valuation) {
+            List<Movement> movements = new ArrayList<>();
+            for (Object[] row : stockRepository.findValuationLots(branchId, materialType)) {
+                movements.addAll(movements(row));
+            }
+            replay(valuation, movements);
+        }
+    }
+
+    private static void replay(Valuation valuation, List<Movement> movements) {
+        movements.sort(MOVEMENT_ORDER);
+        valuation.reset();
+        for (Movement movement : movements) {
+            valuation.apply(movement);
+        }
+    }
+
+    // --- Queries ---
+
+    // Valuation of every (branch, material) as of the end of the given day; the latest state when asOf is null
+    public List<StockValuation> getValuations(Long branchId, LocalDate asOf) {
+        List<StockValuation> result = new ArrayList<>();
+        for (Valuation valuation : valuations.values()) {
+            if (branchId != null && !branchId.equals(valuation.branchId)) {
+                continue;
+            }
+            StockValuation value = valueOf(valuation, asOf);
+            if (value != null && (value.getQuantity() > 0 || value.getFifoReleasedCost().signum() != 0)) {
+                result.add(value);
+            }
+        }
+        result.sort(Comparator.comparing((StockValuation v) -> v.getBranchId() == null ? 0L : v.getBranchId())
+                .thenComparing(StockValuation::getMaterialType));
+        return result;
+    }
+
+    public Map<String, Object> getTotals(Long branchId, LocalDate asOf) {
+        long quantity = 0;
+        BigDecimal fifo = BigDecimal.ZERO;
+        BigDecimal average = BigDecimal.ZERO;
+        for (StockValuation value : getValuations(branchId, asOf)) {
+            quantity += value.getQuantity();
+            fifo = fifo.add(value.getFifoValue());
+            average = average.add(value.getAverageValue());
+        }
+        Map<String, Object> totals = new LinkedHashMap<>();
+        totals.put("branchId", branchId);
+        totals.put("asOf", asOf);
+        totals.put("quantity", quantity);
+        totals.put("fifoValue", fifo);
+        totals.put("averageValue", average);
+        return totals;
+    }
+
+    // Current FIFO layers, oldest first
+    public List<Map<String, Object>> getLayers(Long branchId, String materialType) {
+        List<Map<String, Object>> result = new ArrayList<>();
+        Valuation valuation = valuations.get(key(branchId, normalize(materialType)));
+        if (valuation == null) {
+            return result;
+        }
+        synchronized (valuation) {
+            for (Layer layer : valuation.layers) {
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("stockId", layer.lotId);
+                row.put("purchaseDate", layer.date);
+                row.put("remaining", layer.remaining);
+                row.put("unitPrice", layer.unitPrice);
+                row.put("value", layer.unitPrice.multiply(BigDecimal.valueOf(layer.remaining)));
+                result.add(row);
+            }
+        }
+        return result;
+    }
+
+    private StockValuation valueOf(Valuation valuation, LocalDate asOf) {
+        synchronized (valuation) {
+            Map.Entry<LocalDate, Snapshot> entry = asOf == null ? valuation.timeline.lastEntry()
+                    : valuation.timeline.floorEntry(asOf);
+            if (entry == null) {
+                return null;
+            }
+            Snapshot snapshot = entry.getValue();
+            return new StockValuation(valuation.branchId, valuation.materialType, entry.getKey(), snapshot.quantity,
+                    money(snapshot.fifoValue), snapshot.averageCost.setScale(4, RoundingMode.HALF_UP),
+                    money(snapshot.averageTotal), money(snapshot.fifoReleased), money(snapshot.averageReleased));
+        }
+    }
+
+    // --- Helpers ---
+
+    // Same column order as StockRepository.findValuationLots
+    private static Object[] row(Stock stock, LocalDate releaseDate) {
+        Long branchId = InventoryLedgerService.branchIdOf(stock);
+        return new Object[] { stock.getId(), branchId, normalize(stock.getMaterialType()), stock.getQuantity(),
+                stock.getPrice(), stock.getPurchaseDate(), releaseDate };
+    }
+
+    private static List<Movement> movements(Object[] row) {
+        List<Movement> movements = new ArrayList<>(2);
+        long lotId = (Long) row[0];
+        int quantity = row[3] != null ? ((Number) row[3]).intValue() : 0;
+        BigDecimal price = row[4] != null ? (BigDecimal) row[4] : BigDecimal.ZERO;
+        LocalDate purchased = (LocalDate) row[5];
+        LocalDate released = (LocalDate) row[6];
+        if (purchased == null || quantity <= 0) {
+            return movements;
+        }
+        movements.add(new Movement(lotId, purchased, true, quantity, price));
+        if (released != null) {
+            // A release recorded before the purchase is taken as same-day
+            LocalDate date = released.isBefore(purchased) ? purchased : released;
+            movements.add(new Movement(lotId, date, false, quantity, price));
+        }
+        return movements;
+    }
+
+    private static String key(Long branchId, String materialType) {
+        return branchId + "|" + materialType;
+    }
+
+    private static String normalize(String materialType) {
+        return Objects.requireNonNullElse(materialType, "").trim();
+    }
+
+    private static BigDecimal money(BigDecimal value) {
+        return value.setScale(MONEY_SCALE, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,374 @@
+package com.ausyexpo.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ausyexpo.dto.SupplierPerformance;
+import com.ausyexpo.model.Supply;
+import com.ausyexpo.repository.SupplyRepository;
+import com.ausyexpo.util.AfterCommit;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Supplier performance per supplier and per (supplier, category): volume, fill rate, on-time rate,
+ * lead-time percentiles and unit price variation.
+ * Built by one streaming pass over the supply table, then kept current from supply writes. The facts
+ * counted for each supply are remembered, so a change replaces that supply's previous contribution and
+ * applying the same change twice is harmless. Reads are served from a result list cached per version.
+ */
+@Service
+public class SupplierAnalyticsService {
+
+    private static final String ALL_CATEGORIES = "";
+
+    @Autowired
+    private SupplyRepository supplyRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // A delivery within this many days of the request counts as on time
+    @Value("${app.supplier-analytics.on-time-days:14}")
+    private int onTimeDays;
+
+    // All guarded by this
+    private Map<String, Stats> stats = new HashMap<>();
+    private Map<Long, Facts> counted = new HashMap<>();
+    private long version;
+    // Changes seen while a rebuild streams; replayed onto its result, since the stream may have missed them
+    private Map<Long, Facts> changedDuringRebuild;
+
+    private volatile Cached cached;
+
+    private final ExecutorService rebuilds = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "supplier-analytics-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final class Cached {
+        final long version;
+        final List<SupplierPerformance> rows;
+
+        Cached(long version, List<SupplierPerformance> rows) {
+            this.version = version;
+            this.rows = rows;
+        }
+    }
+
+    // What one supply contributes
+    private static final class Facts {
+        final String supplierName;
+        final String category;
+        final String status;
+        final LocalDateTime requestDate;
+        final LocalDateTime deliveryDate;
+        final int quantity;
+        final Double unitPrice;
+        final double totalCost;
+
+        Facts(String supplierName, String category, String status, LocalDateTime requestDate,
+              LocalDateTime deliveryDate, Integer quantity, Double unitPrice, Double totalCost) {
+            this.supplierName = supplierName != null ? supplierName.trim() : "";
+            this.category = category != null ? category.trim().toUpperCase() : "GENERAL";
+            this.status = status != null ? status.trim().toUpperCase() : "";
+            this.requestDate = requestDate;
+            this.deliveryDate = deliveryDate;
+            this.quantity = quantity != null ? quantity : 0;
+            this.unitPrice = unitPrice;
+            this.totalCost = totalCost != null ? totalCost : 0;
+        }
+
+        boolean delivered() {
+            return "DELIVERED".equals(status) || "COMPLETED".equals(status);
+        }
+
+        boolean cancelled() {
+            return "CANCELLED".equals(status);
+        }
+
+        // Drafts are the planner's proposals, not orders placed with the supplier
+        boolean counts() {
+            return !ReplenishmentService.DRAFT_STATUS.equals(status);
+        }
+
+        Long leadTimeHours() {
+            if (!delivered() || requestDate == null || deliveryDate == null || deliveryDate.isBefore(requestDate)) {
+                return null;
+            }
+            return Duration.between(requestDate, deliveryDate).toHours();
+        }
+    }
+
+    private static final class Stats {
+        final String supplierName;
+        final String category;
+        long count;
+        long quantity;
+        double cost;
+        long delivered;
+        long cancelled;
+        long onTime;
+        // Lead time in hours -> number of deliveries; exact percentiles, and removable
+        final TreeMap<Long, Integer> leadTimes = new TreeMap<>();
+        long leadTimeCount;
+        long priceCount;
+        double priceSum;
+        double priceSumSquares;
+
+        Stats(String supplierName, String category) {
+            this.supplierName = supplierName;
+            this.category = category;
+        }
+
+        void add(Facts facts, int sign, int onTimeHours) {
+            count += sign;
+            quantity += sign * (long) facts.quantity;
+            cost += sign * facts.totalCost;
+            if (facts.delivered()) {
+                delivered += sign;
+            } else if (facts.cancelled()) {
+                cancelled += sign;
+            }
+            Long hours = facts.leadTimeHours();
+            if (hours != null) {
+                leadTimes.merge(hours, sign, Integer::sum);
+                if (leadTimes.get(hours) <= 0) {
+                    leadTimes.remove(hours);
+                }
+                leadTimeCount += sign;
+                if (hours <= onTimeHours) {
+                    onTime += sign;
+                }
+            }
+            if (facts.unitPrice != null) {
+                priceCount += sign;
+                priceSum += sign * facts.unitPrice;
+                priceSumSquares += sign * facts.unitPrice * facts.unitPrice;
+            }
+        }
+
+        Double percentileDays(double percentile) {
+            if (leadTimeCount <= 0) {
+                return null;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile * leadTimeCount));
+            long seen = 0;
+            for (Map.Entry<Long, Integer> entry : leadTimes.entrySet()) {
+                seen += entry.getValue();
+                if (seen >= rank) {
+                    return round(entry.getKey() / 24.0);
+                }
+            }
+            return round(leadTimes.lastKey() / 24.0);
+        }
+
+        SupplierPerformance toPerformance() {
+            SupplierPerformance performance = new SupplierPerformance();
+            performance.setSupplierName(supplierName);
+            performance.setCategory(ALL_CATEGORIES.equals(category) ? null : category);
+            performance.setSupplyCount(count);
+            performance.setTotalQuantity(quantity);
+            performance.setTotalCost(round(cost));
+            performance.setDeliveredCount(delivered);
+            performance.setCancelledCount(cancelled);
+            performance.setOpenCount(count - delivered - cancelled);
+            if (delivered + cancelled > 0) {
+                performance.setFillRate(round((double) delivered / (delivered + cancelled)));
+            }
+            if (leadTimeCount > 0) {
+                performance.setOnTimeRate(round((double) onTime / leadTimeCount));
+                performance.setLeadTimeP50Days(percentileDays(0.50));
+                performance.setLeadTimeP90Days(percentileDays(0.90));
+                performance.setLeadTimeP95Days(percentileDays(0.95));
+                performance.setLeadTimeMaxDays(round(leadTimes.lastKey() / 24.0));
+            }
+            if (priceCount > 0) {
+                double mean = priceSum / priceCount;
+                double variance = Math.max(0, priceSumSquares / priceCount - mean * mean);
+                double stdDev = Math.sqrt(variance);
+                performance.setAverageUnitPrice(round(mean));
+                performance.setUnitPriceStdDev(round(stdDev));
+                if (mean > 0) {
+                    performance.setUnitPriceVariation(round(stdDev / mean));
+                }
+            }
+            return performance;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        rebuild();
+    }
+
+    // Full pass, also run nightly to fold in anything an incremental update missed
+    @Scheduled(cron = "${app.supplier-analytics.rebuild-cron:0 15 4 * * *}")
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        synchronized (this) {
+            if (changedDuringRebuild != null) {
+                return;
+            }
+            changedDuringRebuild = new HashMap<>();
+        }
+        Map<String, Stats> freshStats = new HashMap<>();
+        Map<Long, Facts> freshCounted = new HashMap<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<Object[]> rows = supplyRepository.streamAnalyticsRows()) {
+                    rows.forEach(row -> {
+                        Facts facts = new Facts((String) row[1], (String) row[2], (String) row[3],
+                                (LocalDateTime) row[4], (LocalDateTime) row[5], (Integer) row[6], (Double) row[7],
+                                (Double) row[8]);
+                        freshCounted.put((Long) row[0], facts);
+                        add(freshStats, facts, 1);
+                    });
+                }
+            });
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                changedDuringRebuild = null;
+            }
+            throw e;
+        }
+        synchronized (this) {
+            Map<Long, Facts> changes = changedDuringRebuild;
+            changedDuringRebuild = null;
+            stats = freshStats;
+            counted = freshCounted;
+            for (Map.Entry<Long, Facts> change : changes.entrySet()) {
+                replace(change.getKey(), change.getValue());
+            }
+            version++;
+        }
+        System.out.println("Supplier analytics built from " + freshCounted.size() + " supplies in "
+                + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    // --- Incremental maintenance from SupplyService, applied once the write commits ---
+
+    public void supplyChanged(Supply supply) {
+        Long id = supply.getId();
+        Facts facts = new Facts(supply.getSupplierName(), supply.getCategory(), supply.getStatus(),
+                supply.getRequestDate(), supply.getDeliveryDate(), supply.getQuantity(), supply.getUnitPrice(),
+                supply.getTotalCost());
+        AfterCommit.run(() -> replace(id, facts));
+    }
+
+    public void supplyDeleted(Long id) {
+        AfterCommit.run(() -> replace(id, null));
+    }
+
+    // For set-based updates that change many rows at once
+    public void rebuildLater() {
+        AfterCommit.run(() -> rebuilds.execute(this::rebuild));
+    }
+
+    private synchronized void replace(Long id, Facts facts) {
+        if (changedDuringRebuild != null) {
+            changedDuringRebuild.put(id, facts);
+        }
+        Facts previous = facts != null ? counted.put(id, facts) : counted.remove(id);
+        if (previous != null) {
+            add(stats, previous, -1);
+        }
+        if (facts != null) {
+            add(stats, facts, 1);
+        }
+        version++;
+    }
+
+    private void add(Map<String, Stats> target, Facts facts, int sign) {
+        if (!facts.counts()) {
+            return;
+        }
+        int onTimeHours = onTimeDays * 24;
+        for (String category : new String[] { ALL_CATEGORIES, facts.category }) {
+            String key = facts.supplierName.toLowerCase() + "|" + category;
+            Stats entry = target.computeIfAbsent(key, k -> new Stats(facts.supplierName, category));
+            entry.add(facts, sign, onTimeHours);
+            if (entry.count <= 0) {
+                target.remove(key);
+            }
+        }
+    }
+
+    // --- Reads ---
+
+    public long getVersion() {
+        Cached current = cached;
+        return current != null ? current.version : snapshot().version;
+    }
+
+    // Supplier totals, or per category when byCategory is set; slowest median lead time first
+    public List<SupplierPerformance> getPerformance(String supplierName, boolean byCategory) {
+        List<SupplierPerformance> result = new ArrayList<>();
+        for (SupplierPerformance row : snapshot().rows) {
+            if ((row.getCategory() != null) != byCategory) {
+                continue;
+            }
+            if (supplierName != null && !row.getSupplierName().equalsIgnoreCase(supplierName.trim())) {
+                continue;
+            }
+            result.add(row);
+        }
+        return result;
+    }
+
+    private Cached snapshot() {
+        Cached current = cached;
+        synchronized (this) {
+            if (current != null && current.version == version) {
+                return current;
+            }
+            List<SupplierPerformance> rows = new ArrayList<>(stats.size());
+            for (Stats entry : stats.values()) {
+                rows.add(entry.toPerformance());
+            }
+            rows.sort(Comparator.comparing((SupplierPerformance p) ->
+                    p.getLeadTimeP50Days() != null ? -p.getLeadTimeP50Days() : Double.MAX_VALUE)
+                    .thenComparing(SupplierPerformance::getSupplierName)
+                    .thenComparing(p -> p.getCategory() != null ? p.getCategory() : ""));
+            current = new Cached(version, List.copyOf(rows));
+            cached = current;
+            return current;
+        }
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("supplies", counted.size());
+        result.put("groups", stats.size());
+        result.put("version", version);
+        result.put("onTimeDays", onTimeDays);
+        return result;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuilds.shutdownNow();
+    }
+}
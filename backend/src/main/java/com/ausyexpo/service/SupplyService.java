@@ -1,50 +1,85 @@
 package com.ausyexpo.service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.ausyexpo.dto.BulkStatusUpdateRequest;
+import com.ausyexpo.dto.SupplyLevelChangedEvent;
 import com.ausyexpo.model.Branch;
 import com.ausyexpo.model.Supply;
 import com.ausyexpo.repository.BranchRepository;
 import com.ausyexpo.repository.SupplyRepository;
+import com.fasterxml.jackson.databind.JsonNode;
 
 @Service
 public class SupplyService {
 
+    private static final Set<String> PATCHABLE_FIELDS = Set.of(
+            "materialType", "itemName", "supplierName", "supplierContact", "category", "status", "description",
+            "unit", "unitPrice", "minimumQuantity", "requestDate", "deliveryDate", "quantity", "amount");
+
     @Autowired
     private SupplyRepository supplyRepository;
 
     @Autowired
     private BranchRepository branchRepository;
 
+    @Autowired
+    private MergePatchService mergePatchService;
+
+    @Autowired
+    private StockAlertService stockAlertService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private SupplierAnalyticsService supplierAnalyticsService;
+
+    @Autowired
+    private WorkQueueService workQueueService;
+
+    @Transactional(readOnly = true)
     public List<Supply> getAllSupplies() {
         return supplyRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
     public Optional<Supply> getSupplyById(Long id) {
         return supplyRepository.findById(id);
     }
 
+    @Transactional(readOnly = true)
     public List<Supply> getSuppliesByBranch(Long branchId) {
         return supplyRepository.findByBranchId(branchId);
     }
 
+    @Transactional(readOnly = true)
     public List<Supply> getSuppliesBySupplier(String supplierName) {
         return supplyRepository.findBySupplierName(supplierName);
     }
 
+    @Transactional(readOnly = true)
     public List<Supply> getSuppliesByItem(String itemName) {
         return supplyRepository.findByItemName(itemName);
     }
 
+    @Transactional(readOnly = true)
     public List<Supply> getSuppliesByStatus(String status) {
         return supplyRepository.findByStatus(status);
     }
 
+    @Transactional
     public Supply createSupply(Supply supply) {
         // Validate required fields
         if (supply.getItemName() == null || supply.getItemName().trim().isEmpty()) {
@@ -115,9 +150,14 @@ public class SupplyService {
         double totalCost = supply.getQuantity() * supply.getUnitPrice();
         supply.setTotalCost(totalCost);
 
-        return supplyRepository.save(supply);
+        Supply savedSupply = supplyRepository.save(supply);
+        eventPublisher.publishEvent(new SupplyLevelChangedEvent(savedSupply.getId()));
+        supplierAnalyticsService.supplyChanged(savedSupply);
+        workQueueService.supplyChanged(savedSupply);
+        return savedSupply;
     }
 
+    @Transactional
     public Supply updateSupply(Long id, Supply supplyDetails) {
         Optional<Supply> optionalSupply = supplyRepository.findById(id);
         
@@ -197,9 +237,62 @@ public class SupplyService {
         double totalCost = supply.getQuantity() * supply.getUnitPrice();
         supply.setTotalCost(totalCost);
 
-        return supplyRepository.save(supply);
+        Supply savedSupply = supplyRepository.save(supply);
+        eventPublisher.publishEvent(new SupplyLevelChangedEvent(savedSupply.getId()));
+        supplierAnalyticsService.supplyChanged(savedSupply);
+        workQueueService.supplyChanged(savedSupply);
+        return savedSupply;
+    }
+
+    // Merge-patch update: only the fields present in the patch change, so only their columns are written
+    @Transactional
+    public Supply patchSupply(Long id, JsonNode patch, Long expectedVersion) {
+        Supply supply = supplyRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Supply not found with id: " + id));
+        mergePatchService.checkVersion(Supply.class, id, supply.getVersion(), expectedVersion);
+
+        mergePatchService.apply(supply, patch, PATCHABLE_FIELDS);
+        mergePatchService.validate(supply);
+
+        if (supply.getItemName() == null || supply.getItemName().trim().isEmpty()) {
+            throw new RuntimeException("Item name is required");
+        }
+        
+        if (supply.getSupplierName() == null || supply.getSupplierName().trim().isEmpty()) {
+            throw new RuntimeException("Supplier name is required");
+        }
+        
+        if (supply.getQuantity() == null || supply.getQuantity() <= 0) {
+            throw new RuntimeException("Quantity must be greater than 0");
+        }
+        
+        if (supply.getUnitPrice() != null && supply.getUnitPrice() < 0) {
+            throw new RuntimeException("Unit price must be 0 or greater");
+        }
+
+        if (patch.has("status") && supply.getStatus() != null) {
+            supply.setStatus(supply.getStatus().trim().toUpperCase());
+        }
+        
+        if (patch.has("category") && supply.getCategory() != null) {
+            supply.setCategory(supply.getCategory().trim().toUpperCase());
+        }
+
+        // Recalculate total cost only when one of its inputs changed
+        if ((patch.has("quantity") || patch.has("unitPrice")) && supply.getUnitPrice() != null) {
+            supply.setTotalCost(supply.getQuantity() * supply.getUnitPrice());
+        }
+
+        Supply savedSupply = supplyRepository.saveAndFlush(supply);
+        if (patch.has("quantity") || patch.has("minimumQuantity")) {
+            eventPublisher.publishEvent(new SupplyLevelChangedEvent(id));
+        }
+        supplierAnalyticsService.supplyChanged(savedSupply);
+        workQueueService.supplyChanged(savedSupply);
+        return savedSupply;
     }
 
+    @Transactional
     public void deleteSupply(Long id) {
         Optional<Supply> optionalSupply = supplyRepository.findById(id);
         
@@ -208,36 +301,60 @@ public class SupplyService {
         }
 
         supplyRepository.deleteById(id);
+        eventPublisher.publishEvent(new SupplyLevelChangedEvent(id));
+        supplierAnalyticsService.supplyDeleted(id);
+        workQueueService.supplyDeleted(id);
     }
 
+    @Transactional(readOnly = true)
     public List<Supply> searchSupplies(Long branchId, String supplierName, String itemName, String status, String category) {
         return supplyRepository.searchSupplies(branchId, supplierName, itemName, status, category);
     }
 
+    @Transactional(readOnly = true)
     public long countSuppliesByBranch(Long branchId) {
         return supplyRepository.countByBranchId(branchId);
     }
 
+    @Transactional(readOnly = true)
     public long countSuppliesByBranchAndStatus(Long branchId, String status) {
         return supplyRepository.countByBranchIdAndStatus(branchId, status);
     }
 
+    @Transactional(readOnly = true)
     public List<Supply> getPendingSupplies() {
         return supplyRepository.findPendingSupplies();
     }
 
+    // Served from the alert index, most critical first, instead of comparing every row
+    @Transactional(readOnly = true)
     public List<Supply> getLowStockSupplies() {
-        return supplyRepository.findLowStockSupplies();
+        List<Long> ids = stockAlertService.getLowSupplyIds();
+        Map<Long, Supply> byId = new HashMap<>();
+        for (Supply supply : supplyRepository.findAllById(ids)) {
+            byId.put(supply.getId(), supply);
+        }
+        List<Supply> supplies = new ArrayList<>();
+        for (Long id : ids) {
+            Supply supply = byId.get(id);
+            if (supply != null) {
+                supplies.add(supply);
+            }
+        }
+        return supplies;
     }
 
+    @Transactional(readOnly = true)
     public List<Object[]> getSuppliesByCategory() {
         return supplyRepository.getSuppliesByCategory();
     }
 
+    @Transactional(readOnly = true)
     public List<Object[]> getSuppliesByStatus() {
         return supplyRepository.getSuppliesByStatus();
     }
 
+    @Transactional
     public Supply updateSupplyStatus(Long id, String status) {
         Optional<Supply> optionalSupply = supplyRepository.findById(id);
         
@@ -253,6 +370,33 @@ public class SupplyService {
             supply.setDeliveryDate(LocalDateTime.now());
         }
 
-        return supplyRepository.save(supply);
+        Supply savedSupply = supplyRepository.save(supply);
+        supplierAnalyticsService.supplyChanged(savedSupply);
+        workQueueService.supplyChanged(savedSupply);
+        return savedSupply;
+    }
+
+    // One set-based UPDATE for all matching supplies, with the same side effect as updateSupplyStatus
+    @Transactional
+    public int bulkUpdateSupplyStatus(BulkStatusUpdateRequest request) {
+        if (request.getStatus() == null || request.getStatus().trim().isEmpty()) {
+            throw new RuntimeException("Status is required");
+        }
+        String status = request.getStatus().trim().toUpperCase();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime completedAt = "COMPLETED".equals(status) ? now : null;
+
+        // Many rows change at once; the analytics are rebuilt and the work queue reconciled once this commits
+        supplierAnalyticsService.rebuildLater();
+        workQueueService.reconcileLater();
+        if (request.hasIds()) {
+            return supplyRepository.bulkUpdateStatusByIds(request.getIds(), status, completedAt, now);
+        }
+        if (!request.hasFilter()) {
+            throw new RuntimeException("Either ids or a filter is required");
+        }
+        String fromStatus = request.getFromStatus() != null && !request.getFromStatus().trim().isEmpty()
+                ? request.getFromStatus().trim().toUpperCase() : null;
+        return supplyRepository.bulkUpdateStatusByFilter(fromStatus, request.getBranchId(), status, completedAt, now);
     }
 }
@@ -0,0 +1,386 @@
+package com.ausyexpo.service;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import com.ausyexpo.dto.TelemetryPoint;
+import com.ausyexpo.repository.TransportationRepository;
+import com.ausyexpo.util.RingBuffer;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Vehicle telemetry ingestion.
+ * Accepted pings go into a lock-free ring buffer and a single flusher thread writes them to
+ * vehicle_telemetry in large JDBC batches, so request threads never wait on the database. When the flusher
+ * falls behind and the buffer cannot take a whole request, the request is refused and the sender is
+ * expected to retry later. Accepted pings are not given up while the application runs: a failed batch is
+ * retried until the database takes it, and meanwhile the buffer fills and new requests are refused.
+ * The latest reading of each vehicle is kept in memory.
+ */
+@Service
+public class TelemetryService {
+
+    private static final String INSERT_SQL = "INSERT INTO vehicle_telemetry "
+            + "(transportation_id, recorded_at, latitude, longitude, fuel_level, speed) VALUES (?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransportationRepository transportationRepository;
+
+    @Value("${app.telemetry.buffer-capacity:65536}")
+    private int bufferCapacity;
+
+    @Value("${app.telemetry.batch-size:2000}")
+    private int batchSize;
+
+    @Value("${app.telemetry.flush-interval-ms:200}")
+    private long flushIntervalMillis;
+
+    @Value("${app.telemetry.max-request-points:5000}")
+    private int maxRequestPoints;
+
+    @Value("${app.telemetry.max-backoff-ms:30000}")
+    private long maxBackoffMillis;
+
+    private RingBuffer<TelemetryPoint> buffer;
+    // Drained but not yet written; the flusher's, and shutdown's once the flusher has stopped
+    private final List<TelemetryPoint> inFlight = new ArrayList<>();
+    private Thread flusher;
+    private volatile boolean running;
+
+    // Latest known reading per vehicle, merged field by field
+    private final Map<Long, TelemetryPoint> latest = new ConcurrentHashMap<>();
+    private final Set<Long> knownVehicles = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong refused = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private volatile long lastBatchMillis;
+    private volatile String lastError;
+
+    @PostConstruct
+    public void init() {
+        buffer = new RingBuffer<>(bufferCapacity);
+        loadLatest();
+        running = true;
+        flusher = new Thread(this::flushLoop, "telemetry-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Queues a batch of pings. Returns false, queuing nothing, when the buffer has no room for all of them.
+     */
+    public boolean ingest(List<TelemetryPoint> points) {
+        if (points == null || points.isEmpty()) {
+            throw new RuntimeException("No telemetry points given");
+        }
+        if (points.size() > maxRequestPoints) {
+            throw new RuntimeException("At most " + maxRequestPoints + " points can be sent at once");
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Set<Long> vehicleIds = new HashSet<>();
+        for (TelemetryPoint point : points) {
+            validate(point);
+            if (point.getRecordedAt() == null) {
+                point.setRecordedAt(now);
+            }
+            vehicleIds.add(point.getVehicleId());
+        }
+        for (Long vehicleId : vehicleIds) {
+            if (!knownVehicles.contains(vehicleId)) {
+                if (!transportationRepository.existsById(vehicleId)) {
+                    throw new RuntimeException("Transportation not found with id: " + vehicleId);
+                }
+                knownVehicles.add(vehicleId);
+            }
+        }
+
+        if (!buffer.offerAll(points)) {
+            refused.addAndGet(points.size());
+            LockSupport.unpark(flusher);
+            return false;
+        }
+        accepted.addAndGet(points.size());
+        for (TelemetryPoint point : points) {
+            latest.merge(point.getVehicleId(), point, TelemetryService::merge);
+        }
+        if (buffer.size() >= batchSize) {
+            LockSupport.unpark(flusher);
+        }
+        return true;
+    }
+
+    public TelemetryPoint getLatest(Long vehicleId) {
+        return latest.get(vehicleId);
+    }
+
+    public Collection<TelemetryPoint> getAllLatest() {
+        return new ArrayList<>(latest.values());
+    }
+
+    public Collection<TelemetryPoint> getLatest(Collection<Long> vehicleIds) {
+        List<TelemetryPoint> points = new ArrayList<>();
+        for (Long vehicleId : vehicleIds) {
+            TelemetryPoint point = latest.get(vehicleId);
+            if (point != null) {
+                points.add(point);
+            }
+        }
+        return points;
+    }
+
+    // Stored readings of one vehicle, oldest first; pings still in the buffer are not included
+    public List<TelemetryPoint> getHistory(Long vehicleId, LocalDateTime from, LocalDateTime to, int limit) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusHours(24);
+        if (!end.isAfter(start)) {
+            throw new RuntimeException("End time must be after start time");
+        }
+        return jdbcTemplate.query("SELECT transportation_id, recorded_at, latitude, longitude, fuel_level, speed "
+                + "FROM vehicle_telemetry WHERE transportation_id = ? AND recorded_at >= ? AND recorded_at < ? "
+                + "ORDER BY recorded_at LIMIT ?",
+                (rs, rowNum) -> toPoint(rs),
+                vehicleId, Timestamp.valueOf(start), Timestamp.valueOf(end), Math.max(1, Math.min(limit, 10000)));
+    }
+
+    public void vehicleDeleted(Long vehicleId) {
+        jdbcTemplate.update("DELETE FROM vehicle_telemetry WHERE transportation_id = ?", vehicleId);
+        knownVehicles.remove(vehicleId);
+        latest.remove(vehicleId);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("buffered", buffer.size());
+        stats.put("capacity", buffer.capacity());
+        stats.put("accepted", accepted.get());
+        stats.put("refused", refused.get());
+        stats.put("written", written.get());
+        stats.put("dropped", dropped.get());
+        stats.put("batches", batches.get());
+        stats.put("lastBatchMillis", lastBatchMillis);
+        stats.put("vehiclesTracked", latest.size());
+        stats.put("lastError", lastError);
+        return stats;
+    }
+
+    // --- Flushing ---
+
+    private void flushLoop() {
+        while (running) {
+            buffer.drain(inFlight::add, batchSize);
+            if (inFlight.isEmpty()) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis));
+                continue;
+            }
+            // A partial batch waits one interval for company, unless the buffer is filling up
+            if (inFlight.size() < batchSize && buffer.size() < batchSize) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis));
+                buffer.drain(inFlight::add, batchSize - inFlight.size());
+            }
+            if (writeWithRetry(inFlight)) {
+                inFlight.clear();
+            }
+        }
+    }
+
+    // Retries with capped backoff while the application runs; meanwhile the buffer fills and senders are refused.
+    // Returns false only when stopped first, leaving the batch to the shutdown flush.
+    private boolean writeWithRetry(List<TelemetryPoint> batch) {
+        long backoff = 500;
+        for (int attempt = 1; running; attempt++) {
+            try {
+                write(batch);
+                lastError = null;
+                return true;
+            } catch (DataIntegrityViolationException e) {
+                // Pings of a vehicle deleted after they were accepted can never be written
+                int before = batch.size();
+                batch.removeIf(point -> !knownVehicles.contains(point.getVehicleId()));
+                if (batch.size() < before) {
+                    dropped.addAndGet(before - batch.size());
+                    System.err.println("Dropped " + (before - batch.size()) + " telemetry points of deleted vehicles");
+                    if (batch.isEmpty()) {
+                        return true;
+                    }
+                    continue;
+                }
+                lastError = e.getMessage();
+            } catch (RuntimeException e) {
+                lastError = e.getMessage();
+            }
+            System.err.println("Telemetry write failed (attempt " + attempt + "), retrying in " + backoff + " ms: "
+                    + lastError);
+            pause(backoff);
+            backoff = Math.min(backoff * 2, maxBackoffMillis);
+        }
+        return false;
+    }
+
+    // Ingest wakes the flusher whenever the buffer fills, so a plain park would cut the backoff short
+    private void pause(long millis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        long left;
+        while (running && (left = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(left);
+        }
+    }
+
+    // With rewriteBatchedStatements the driver turns the batch into multi-row INSERTs
+    private void write(List<TelemetryPoint> batch) {
+        long started = System.nanoTime();
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                TelemetryPoint point = batch.get(i);
+                ps.setLong(1, point.getVehicleId());
+                ps.setTimestamp(2, Timestamp.valueOf(point.getRecordedAt()));
+                setDouble(ps, 3, point.getLatitude());
+                setDouble(ps, 4, point.getLongitude());
+                setFloat(ps, 5, point.getFuelLevel());
+                setFloat(ps, 6, point.getSpeed());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return batch.size();
+            }
+        });
+        written.addAndGet(batch.size());
+        batches.incrementAndGet();
+        lastBatchMillis = (System.nanoTime() - started) / 1_000_000;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        LockSupport.unpark(flusher);
+        try {
+            flusher.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Best effort for the batch the flusher was retrying and what is still buffered; only here is data lost
+        List<TelemetryPoint> batch = new ArrayList<>(batchSize);
+        if (!flusher.isAlive()) {
+            batch.addAll(inFlight);
+        }
+        try {
+            while (!batch.isEmpty() || buffer.drain(batch::add, batchSize) > 0) {
+                write(batch);
+                batch.clear();
+            }
+        } catch (RuntimeException e) {
+            dropped.addAndGet(batch.size() + buffer.size());
+            System.err.println("Could not flush " + (batch.size() + buffer.size()) + " telemetry points on shutdown: "
+                    + e.getMessage());
+        }
+    }
+
+    // --- Helpers ---
+
+    private void loadLatest() {
+        try {
+            jdbcTemplate.query("SELECT t.transportation_id, t.recorded_at, t.latitude, t.longitude, t.fuel_level, t.speed "
+                    + "FROM vehicle_telemetry t JOIN (SELECT transportation_id, MAX(recorded_at) AS recorded_at "
+                    + "FROM vehicle_telemetry GROUP BY transportation_id) last "
+                    + "ON last.transportation_id = t.transportation_id AND last.recorded_at = t.recorded_at",
+                    rs -> {
+                        TelemetryPoint point = toPoint(rs);
+                        latest.put(point.getVehicleId(), point);
+                    });
+            System.out.println("Loaded latest telemetry for " + latest.size() + " vehicles");
+        } catch (RuntimeException e) {
+            System.err.println("Could not load latest telemetry: " + e.getMessage());
+        }
+    }
+
+    // Columns in table order: transportation_id, recorded_at, latitude, longitude, fuel_level, speed
+    private static TelemetryPoint toPoint(ResultSet rs) throws SQLException {
+        TelemetryPoint point = new TelemetryPoint();
+        point.setVehicleId(rs.getLong(1));
+        point.setRecordedAt(rs.getTimestamp(2).toLocalDateTime());
+        point.setLatitude(rs.getObject(3) != null ? rs.getDouble(3) : null);
+        point.setLongitude(rs.getObject(4) != null ? rs.getDouble(4) : null);
+        point.setFuelLevel(rs.getObject(5) != null ? (double) rs.getFloat(5) : null);
+        point.setSpeed(rs.getObject(6) != null ? (double) rs.getFloat(6) : null);
+        return point;
+    }
+
+    private static void validate(TelemetryPoint point) {
+        if (point == null || point.getVehicleId() == null) {
+            throw new RuntimeException("Each telemetry point needs a vehicleId");
+        }
+        if ((point.getLatitude() == null) != (point.getLongitude() == null)) {
+            throw new RuntimeException("Latitude and longitude must be sent together");
+        }
+        if (point.hasPosition() && (Math.abs(point.getLatitude()) > 90 || Math.abs(point.getLongitude()) > 180)) {
+            throw new RuntimeException("Coordinates out of range for vehicle " + point.getVehicleId());
+        }
+        if (point.getFuelLevel() != null && (point.getFuelLevel() < 0 || point.getFuelLevel() > 100)) {
+            throw new RuntimeException("Fuel level must be between 0 and 100");
+        }
+        if (point.getSpeed() != null && point.getSpeed() < 0) {
+            throw new RuntimeException("Speed cannot be negative");
+        }
+    }
+
+    // Newest value of each field; the buffered points themselves are never modified
+    private static TelemetryPoint merge(TelemetryPoint current, TelemetryPoint update) {
+        TelemetryPoint newer = update.getRecordedAt().isBefore(current.getRecordedAt()) ? current : update;
+        TelemetryPoint older = newer == update ? current : update;
+        TelemetryPoint merged = new TelemetryPoint();
+        merged.setVehicleId(newer.getVehicleId());
+        merged.setRecordedAt(newer.getRecordedAt());
+        merged.setLatitude(newer.hasPosition() ? newer.getLatitude() : older.getLatitude());
+        merged.setLongitude(newer.hasPosition() ? newer.getLongitude() : older.getLongitude());
+        merged.setFuelLevel(newer.getFuelLevel() != null ? newer.getFuelLevel() : older.getFuelLevel());
+        merged.setSpeed(newer.getSpeed() != null ? newer.getSpeed() : older.getSpeed());
+        return merged;
+    }
+
+    private static void setDouble(PreparedStatement ps, int index, Double value) throws SQLException {
+        if (value != null) {
+            ps.setDouble(index, value);
+        } else {
+            ps.setNull(index, Types.DOUBLE);
+        }
+    }
+
+    private static void setFloat(PreparedStatement ps, int index, Double value) throws SQLException {
+        if (value != null) {
+            ps.setFloat(index, value.floatValue());
+        } else {
+            ps.setNull(index, Types.REAL);
+        }
+    }
+}
@@ -1,15 +1,33 @@
 package com.ausyexpo.service;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.ausyexpo.dto.RoutePlan;
+import com.ausyexpo.dto.RoutePlanRequest;
 import com.ausyexpo.model.Branch;
+import com.ausyexpo.model.Order;
 import com.ausyexpo.model.Transportation;
 import com.ausyexpo.repository.BranchRepository;
+import com.ausyexpo.repository.OrderRepository;
 import com.ausyexpo.repository.TransportationRepository;
+import com.ausyexpo.service.UniqueKeyFilterService.KeySpace;
+import com.ausyexpo.util.RouteOptimizer;
+
+import jakarta.annotation.PreDestroy;
 
 @Service
 public class TransportationService {
@@ -20,26 +38,64 @@ public class TransportationService {
     @Autowired
     private BranchRepository branchRepository;
 
+    @Autowired
+    private UniqueKeyFilterService uniqueKeyFilterService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private GeocodeService geocodeService;
+
+    @Autowired
+    private VehicleBookingService vehicleBookingService;
+
+    @Autowired
+    private TelemetryService telemetryService;
+
+    @Value("${app.routing.time-budget-ms:2000}")
+    private long defaultRoutingBudgetMillis;
+
+    @Value("${app.routing.max-time-budget-ms:10000}")
+    private long maxRoutingBudgetMillis;
+
+    // Vehicles are routed independently, one per processor at a time
+    private final ExecutorService routing = Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(), runnable -> {
+                Thread thread = new Thread(runnable, "route-planner");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    @Transactional(readOnly = true)
     public List<Transportation> getAllTransportation() {
         return transportationRepository.findAll();
     }
 
+    // Detail view: touching one lazy text attribute loads the whole "details" group in one select
+    @Transactional(readOnly = true)
     public Optional<Transportation> getTransportationById(Long id) {
-        return transportationRepository.findById(id);
+        Optional<Transportation> transportation = transportationRepository.findById(id);
+        transportation.ifPresent(Transportation::getMaintenanceDetails);
+        return transportation;
     }
 
+    @Transactional(readOnly = true)
     public List<Transportation> getTransportationByBranch(Long branchId) {
         return transportationRepository.findByBranchId(branchId);
     }
 
+    @Transactional(readOnly = true)
     public List<Transportation> getActiveTransportationByBranch(Long branchId) {
         return transportationRepository.findByBranchIdAndIsActiveTrue(branchId);
     }
 
+    @Transactional(readOnly = true)
     public List<Transportation> getActiveTransportation() {
         return transportationRepository.findByIsActiveTrue();
     }
 
+    @Transactional
     public Transportation createTransportation(Transportation transportation) {
         // Validate required fields
         if (transportation.getVehicleNumber() == null || transportation.getVehicleNumber().trim().isEmpty()) {
@@ -55,7 +111,9 @@ public class TransportationService {
         }
 
         // Check if vehicle number already exists
-        if (transportationRepository.existsByVehicleNumber(transportation.getVehicleNumber().trim())) {
+        String vehicleNumber = transportation.getVehicleNumber().trim();
+        if (uniqueKeyFilterService.mightExist(KeySpace.VEHICLE_NUMBER, vehicleNumber)
+                && transportationRepository.existsByVehicleNumber(vehicleNumber)) {
             throw new RuntimeException("Vehicle with number '" + transportation.getVehicleNumber().trim() + "' already exists");
         }
 
@@ -84,9 +142,12 @@ public class TransportationService {
             transportation.setDescription(transportation.getDescription().trim());
         }
 
-        return transportationRepository.save(transportation);
+        Transportation savedTransportation = transportationRepository.save(transportation);
+        uniqueKeyFilterService.register(KeySpace.VEHICLE_NUMBER, savedTransportation.getVehicleNumber());
+        return savedTransportation;
     }
 
+    @Transactional
     public Transportation updateTransportation(Long id, Transportation transportationDetails) {
         Optional<Transportation> optionalTransportation = transportationRepository.findById(id);
         
@@ -110,7 +171,9 @@ public class TransportationService {
         }
 
         // Check if vehicle number already exists (excluding current record)
-        if (transportationRepository.existsByVehicleNumberAndIdNot(transportationDetails.getVehicleNumber().trim(), id)) {
+        String vehicleNumber = transportationDetails.getVehicleNumber().trim();
+        if (uniqueKeyFilterService.mightExist(KeySpace.VEHICLE_NUMBER, vehicleNumber)
+                && transportationRepository.existsByVehicleNumberAndIdNot(vehicleNumber, id)) {
             throw new RuntimeException("Vehicle with number '" + transportationDetails.getVehicleNumber().trim() + "' already exists");
         }
 
@@ -136,9 +199,12 @@ public class TransportationService {
             transportation.setIsActive(transportationDetails.getIsActive());
         }
 
-        return transportationRepository.save(transportation);
+        Transportation savedTransportation = transportationRepository.save(transportation);
+        uniqueKeyFilterService.register(KeySpace.VEHICLE_NUMBER, savedTransportation.getVehicleNumber());
+        return savedTransportation;
     }
 
+    @Transactional
     public void deleteTransportation(Long id) {
         Optional<Transportation> optionalTransportation = transportationRepository.findById(id);
         
@@ -146,22 +212,168 @@ public class TransportationService {
             throw new RuntimeException("Transportation not found with id: " + id);
         }
 
+        vehicleBookingService.vehicleDeleted(id);
+        telemetryService.vehicleDeleted(id);
         transportationRepository.deleteById(id);
     }
 
+    @Transactional(readOnly = true)
     public List<Transportation> searchTransportation(Long branchId, String vehicleType, String driverName, String vehicleNumber, Boolean isActive) {
         return transportationRepository.searchTransportation(branchId, vehicleType, driverName, vehicleNumber, isActive);
     }
 
+    @Transactional(readOnly = true)
     public long countTransportationByBranch(Long branchId) {
         return transportationRepository.countByBranchId(branchId);
     }
 
+    @Transactional(readOnly = true)
     public long countActiveTransportationByBranch(Long branchId) {
         return transportationRepository.countActiveByBranchId(branchId);
     }
 
+    @Transactional(readOnly = true)
     public List<Transportation> getAvailableVehicles(Long branchId) {
         return transportationRepository.findAvailableVehicles(branchId);
     }
+
+    // Orders each vehicle's stops from the local geocode table; nothing is saved
+    public RoutePlan planRoutes(RoutePlanRequest request) {
+        long started = System.nanoTime();
+        long budget = request.getTimeBudgetMillis() != null ? request.getTimeBudgetMillis() : defaultRoutingBudgetMillis;
+        budget = Math.max(1, Math.min(budget, maxRoutingBudgetMillis));
+        if (request.getVehicles() == null || request.getVehicles().isEmpty()) {
+            throw new RuntimeException("At least one vehicle with orders is required");
+        }
+
+        String depotAddress = request.getDepotAddress();
+        if ((depotAddress == null || depotAddress.isBlank()) && request.getBranchId() != null) {
+            Branch branch = branchRepository.findById(request.getBranchId())
+                .orElseThrow(() -> new RuntimeException("Branch not found with id: " + request.getBranchId()));
+            depotAddress = branch.getAddress() != null ? branch.getAddress() : branch.getLocation();
+        }
+        double[] depot = geocodeService.locate(depotAddress);
+        boolean returnToDepot = !Boolean.FALSE.equals(request.getReturnToDepot());
+
+        List<Long> vehicleIds = new ArrayList<>();
+        List<Long> orderIds = new ArrayList<>();
+        for (RoutePlanRequest.VehicleOrders vehicleOrders : request.getVehicles()) {
+            vehicleIds.add(vehicleOrders.getVehicleId());
+            orderIds.addAll(vehicleOrders.getOrderIds());
+        }
+        Map<Long, Transportation> vehicles = new HashMap<>();
+        for (Transportation vehicle : transportationRepository.findAllById(vehicleIds)) {
+            vehicles.put(vehicle.getId(), vehicle);
+        }
+        Map<Long, Order> orders = new HashMap<>();
+        for (Order order : orderRepository.findAllById(orderIds)) {
+            orders.put(order.getId(), order);
+        }
+
+        long deadline = started + budget * 1_000_000;
+        List<Future<RoutePlan.VehicleRoute>> running = new ArrayList<>();
+        for (RoutePlanRequest.VehicleOrders vehicleOrders : request.getVehicles()) {
+            Transportation vehicle = vehicles.get(vehicleOrders.getVehicleId());
+            if (vehicle == null) {
+                throw new RuntimeException("Transportation not found with id: " + vehicleOrders.getVehicleId());
+            }
+            Map<Long, String> addresses = new LinkedHashMap<>();
+            for (Long orderId : vehicleOrders.getOrderIds()) {
+                Order order = orders.get(orderId);
+                if (order == null) {
+                    throw new RuntimeException("Order not found with id: " + orderId);
+                }
+                addresses.put(orderId, order.getCustomerAddress());
+            }
+            RoutePlan.VehicleRoute route = new RoutePlan.VehicleRoute();
+            route.setVehicleId(vehicle.getId());
+            route.setVehicleNumber(vehicle.getVehicleNumber());
+            running.add(routing.submit(() -> routeVehicle(route, addresses, depot, returnToDepot, deadline)));
+        }
+
+        RoutePlan plan = new RoutePlan();
+        plan.setDepotAddress(depotAddress);
+        plan.setDepotLocated(depot != null);
+        plan.setReturnToDepot(returnToDepot && depot != null);
+        plan.setTimeBudgetMillis(budget);
+        double total = 0;
+        for (Future<RoutePlan.VehicleRoute> vehicleRoute : running) {
+            try {
+                RoutePlan.VehicleRoute route = vehicleRoute.get();
+                total += route.getDistanceKm();
+                plan.getVehicles().add(route);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Route planning was interrupted");
+            } catch (ExecutionException e) {
+                throw new RuntimeException("Route planning failed: " + e.getCause().getMessage(), e.getCause());
+            }
+        }
+        plan.setTotalDistanceKm(roundKm(total));
+        plan.setElapsedMillis((System.nanoTime() - started) / 1_000_000);
+        return plan;
+    }
+
+    private RoutePlan.VehicleRoute routeVehicle(RoutePlan.VehicleRoute route, Map<Long, String> addresses,
+                                                double[] depot, boolean returnToDepot, long deadline) {
+        // Orders for the same address are delivered at one stop
+        Map<String, RoutePlan.Stop> stopsByAddress = new LinkedHashMap<>();
+        for (Map.Entry<Long, String> entry : addresses.entrySet()) {
+            double[] location = geocodeService.locate(entry.getValue());
+            if (location == null) {
+                route.getUnroutedOrderIds().add(entry.getKey());
+                continue;
+            }
+            RoutePlan.Stop stop = stopsByAddress.computeIfAbsent(GeocodeService.normalize(entry.getValue()), key -> {
+                RoutePlan.Stop created = new RoutePlan.Stop();
+                created.setAddress(entry.getValue().trim());
+                created.setLatitude(location[0]);
+                created.setLongitude(location[1]);
+                return created;
+            });
+            stop.getOrderIds().add(entry.getKey());
+        }
+        List<RoutePlan.Stop> stops = new ArrayList<>(stopsByAddress.values());
+        if (stops.isEmpty()) {
+            return route;
+        }
+
+        int size = stops.size();
+        double[][] distances = new double[size][size];
+        double[] fromDepot = depot != null ? new double[size] : null;
+        for (int i = 0; i < size; i++) {
+            double[] from = {stops.get(i).getLatitude(), stops.get(i).getLongitude()};
+            for (int j = i + 1; j < size; j++) {
+                double[] to = {stops.get(j).getLatitude(), stops.get(j).getLongitude()};
+                distances[i][j] = distances[j][i] = GeocodeService.distanceKm(from, to);
+            }
+            if (depot != null) {
+                fromDepot[i] = GeocodeService.distanceKm(depot, from);
+            }
+        }
+        RouteOptimizer optimizer = new RouteOptimizer(distances, fromDepot, returnToDepot ? fromDepot : null);
+        int[] order = optimizer.nearestNeighbour();
+        route.setInitialDistanceKm(roundKm(optimizer.length(order)));
+        optimizer.improve(order, deadline);
+        route.setDistanceKm(roundKm(optimizer.length(order)));
+
+        for (int position = 0; position < size; position++) {
+            RoutePlan.Stop stop = stops.get(order[position]);
+            stop.setSequence(position + 1);
+            double leg = position == 0 ? (fromDepot != null ? fromDepot[order[0]] : 0)
+                    : distances[order[position - 1]][order[position]];
+            stop.setLegKm(roundKm(leg));
+            route.getStops().add(stop);
+        }
+        return route;
+    }
+
+    private static double roundKm(double km) {
+        return Math.round(km * 100) / 100.0;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        routing.shutdownNow();
+    }
 }
@@ -0,0 +1,192 @@
+package com.ausyexpo.service;
+
+import java.text.Normalizer;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.ausyexpo.repository.BranchRepository;
+import com.ausyexpo.repository.OrderRepository;
+import com.ausyexpo.repository.TransportationRepository;
+import com.ausyexpo.repository.UserRepository;
+import com.ausyexpo.util.BloomFilter;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * In-memory Bloom filters over the keys checked for uniqueness on create/update.
+ * When a filter says a key is absent the existence query can be skipped; the database
+ * unique constraints remain the real guard against concurrent inserts.
+ */
+@Service
+public class UniqueKeyFilterService {
+
+    public enum KeySpace {
+        ORDER_NUMBER, VEHICLE_NUMBER, USER_EMAIL, BRANCH_NAME, BRANCH_EMAIL
+    }
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    private static final long MIN_CAPACITY = 10_000;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private TransportationRepository transportationRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BranchRepository branchRepository;
+
+    // A key space without a filter (not built yet, or rebuild failed) always falls through to the database
+    private final Map<KeySpace, BloomFilter> filters = new ConcurrentHashMap<>();
+
+    // Filters being rebuilt also receive concurrent registrations so keys written mid-rebuild are not lost
+    private final Map<KeySpace, BloomFilter> building = new ConcurrentHashMap<>();
+
+    // A saturated filter keeps answering (with more false positives) while its replacement is built here,
+    // so the write that noticed the saturation never waits for a full key scan
+    private final Set<KeySpace> rebuildsQueued = ConcurrentHashMap.newKeySet();
+    private final ExecutorService rebuilds = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "unique-key-filter-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void rebuildAll() {
+        for (KeySpace keySpace : KeySpace.values()) {
+            rebuild(keySpace);
+        }
+    }
+
+    public synchronized void rebuild(KeySpace keySpace) {
+        BloomFilter current = filters.get(keySpace);
+        long capacity = Math.max(MIN_CAPACITY, current != null ? current.getInsertions() * 2 : 0);
+        try {
+            long count = countKeys(keySpace);
+            BloomFilter filter = new BloomFilter(Math.max(capacity, count * 2), FALSE_POSITIVE_RATE);
+            building.put(keySpace, filter);
+            for (String key : loadKeys(keySpace)) {
+                if (key != null) {
+                    filter.put(normalize(key));
+                }
+            }
+            filters.put(keySpace, filter);
+        } catch (Exception e) {
+            System.err.println("Could not build unique key filter for " + keySpace + ": " + e.getMessage());
+            filters.remove(keySpace);
+        } finally {
+            building.remove(keySpace);
+        }
+    }
+
+    // Returns false only when the key is definitely not stored yet
+    public boolean mightExist(KeySpace keySpace, String key) {
+        if (key == null) {
+            return true;
+        }
+        BloomFilter filter = filters.get(keySpace);
+        return filter == null || filter.mightContain(normalize(key));
+    }
+
+    // Must be called after every write that stores a new key value, even if the transaction may still roll back
+    public void register(KeySpace keySpace, String key) {
+        if (key == null) {
+            return;
+        }
+        String normalized = normalize(key);
+        BloomFilter pending = building.get(keySpace);
+        if (pending != null) {
+            pending.put(normalized);
+        }
+        BloomFilter filter = filters.get(keySpace);
+        if (filter == null) {
+            return;
+        }
+        filter.put(normalized);
+        // A rebuild that started after the look-up above may have swapped in a filter built without this key
+        BloomFilter current = filters.get(keySpace);
+        while (current != null && current != filter) {
+            filter = current;
+            filter.put(normalized);
+            current = filters.get(keySpace);
+        }
+        if (current != null && filter.isSaturated() && pending == null) {
+            rebuildLater(keySpace);
+        }
+    }
+
+    private void rebuildLater(KeySpace keySpace) {
+        if (!rebuildsQueued.add(keySpace)) {
+            return;
+        }
+        try {
+            rebuilds.execute(() -> {
+                try {
+                    rebuild(keySpace);
+                } finally {
+                    rebuildsQueued.remove(keySpace);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+            rebuildsQueued.remove(keySpace);
+        }
+    }
+
+    private long countKeys(KeySpace keySpace) {
+        switch (keySpace) {
+            case ORDER_NUMBER:
+                return orderRepository.count();
+            case VEHICLE_NUMBER:
+                return transportationRepository.count();
+            case USER_EMAIL:
+                return userRepository.count();
+            case BRANCH_NAME:
+            case BRANCH_EMAIL:
+                return branchRepository.count();
+            default:
+                throw new IllegalArgumentException("Unknown key space: " + keySpace);
+        }
+    }
+
+    private List<String> loadKeys(KeySpace keySpace) {
+        switch (keySpace) {
+            case ORDER_NUMBER:
+                return orderRepository.findAllOrderNumbers();
+            case VEHICLE_NUMBER:
+                return transportationRepository.findAllVehicleNumbers();
+            case USER_EMAIL:
+                return userRepository.findAllEmails();
+            case BRANCH_NAME:
+                return branchRepository.findAllNames();
+            case BRANCH_EMAIL:
+                return branchRepository.findAllEmails();
+            default:
+                throw new IllegalArgumentException("Unknown key space: " + keySpace);
+        }
+    }
+
+    // MySQL's default collation is case- and accent-insensitive, so keys that compare equal there must hash equal here
+    private static String normalize(String key) {
+        String stripped = Normalizer.normalize(key.strip(), Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        return stripped.toLowerCase(Locale.ROOT);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuilds.shutdownNow();
+    }
+}
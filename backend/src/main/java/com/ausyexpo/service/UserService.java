@@ -18,6 +18,7 @@ import com.ausyexpo.dto.UserDto;
 import com.ausyexpo.model.User;
 import com.ausyexpo.repository.UserRepository;
 import com.ausyexpo.security.UserPrincipal;
+import com.ausyexpo.service.UniqueKeyFilterService.KeySpace;
 
 @Service
 public class UserService implements UserDetailsService {
@@ -28,6 +29,9 @@ public class UserService implements UserDetailsService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private UniqueKeyFilterService uniqueKeyFilterService;
+
     @Override
     @Transactional
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
@@ -45,16 +49,19 @@ public class UserService implements UserDetailsService {
         return UserPrincipal.create(user);
     }
 
+    @Transactional
     public UserDto createUser(User user) {
-        if (userRepository.existsByEmail(user.getEmail())) {
+        if (emailExists(user.getEmail())) {
             throw new RuntimeException("Email is already taken!");
         }
 
         user.setPassword(passwordEncoder.encode(user.getPassword()));
         User savedUser = userRepository.save(user);
+        uniqueKeyFilterService.register(KeySpace.USER_EMAIL, savedUser.getEmail());
         return new UserDto(savedUser);
     }
 
+    @Transactional
     public UserDto updateUser(Long id, User userDetails) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
@@ -78,6 +85,7 @@ public class UserService implements UserDetailsService {
         return new UserDto(savedUser);
     }
 
+    @Transactional
     public void activateUser(Long userId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
@@ -85,6 +93,7 @@ public class UserService implements UserDetailsService {
         userRepository.save(user);
     }
 
+    @Transactional
     public void deactivateUser(Long userId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
@@ -92,22 +101,26 @@ public class UserService implements UserDetailsService {
         userRepository.save(user);
     }
 
+    @Transactional(readOnly = true)
     public List<UserDto> getUsersByRole(User.Role role) {
         return userRepository.findByRole(role).stream()
                 .map(UserDto::new)
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public List<User> getActiveUsersByRole(User.Role role) {
         return userRepository.findByRoleAndIsActive(role, true);
     }
 
+    @Transactional(readOnly = true)
     public List<UserDto> getAllUsers() {
         return userRepository.findAll().stream()
                 .map(UserDto::new)
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public Optional<UserDto> getUserById(Long id) {
         return userRepository.findById(id).map(UserDto::new);
     }
@@ -116,6 +129,12 @@ public class UserService implements UserDetailsService {
         return userRepository.findByEmail(email);
     }
 
+    public boolean emailExists(String email) {
+        return uniqueKeyFilterService.mightExist(KeySpace.USER_EMAIL, email)
+                && userRepository.existsByEmail(email);
+    }
+
+    @Transactional
     public void deleteUser(Long id) {
         if (!userRepository.existsById(id)) {
             throw new RuntimeException("User not found with id: " + id);
@@ -123,11 +142,13 @@ public class UserService implements UserDetailsService {
         userRepository.deleteById(id);
     }
 
+    @Transactional(readOnly = true)
     public List<User> getUsersByBranch(Long branchId) {
         return userRepository.findByBranchId(branchId);
     }
 
     // New methods for UserController
+    @Transactional
     public UserDto toggleUserStatus(Long id) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
@@ -145,6 +166,7 @@ public class UserService implements UserDetailsService {
         throw new RuntimeException("No authenticated user found");
     }
 
+    @Transactional(readOnly = true)
     public UserDto getCurrentUserProfile() {
         Long userId = getCurrentUserId();
         return userRepository.findById(userId)
@@ -152,6 +174,7 @@ public class UserService implements UserDetailsService {
                 .orElseThrow(() -> new RuntimeException("Current user not found"));
     }
 
+    @Transactional
     public UserDto updateCurrentUserProfile(User userDetails) {
         Long userId = getCurrentUserId();
         return updateUser(userId, userDetails);
@@ -0,0 +1,212 @@
+package com.ausyexpo.service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.ausyexpo.model.Transportation;
+import com.ausyexpo.model.VehicleBooking;
+import com.ausyexpo.repository.TransportationRepository;
+import com.ausyexpo.repository.VehicleBookingRepository;
+import com.ausyexpo.util.AfterCommit;
+import com.ausyexpo.util.IntervalTree;
+import com.ausyexpo.util.ReloadMerge;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Vehicle booking calendar.
+ * Active bookings that have not ended are held in one interval tree per vehicle, so whether a vehicle is
+ * free for a period is answered in logarithmic time without touching the database. The trees only ever
+ * lag the database briefly, so a new booking is still checked against the database while that vehicle's
+ * row is locked: concurrent bookings of the same vehicle queue up, bookings of other vehicles do not.
+ */
+@Service
+public class VehicleBookingService {
+
+    @Autowired
+    private VehicleBookingRepository vehicleBookingRepository;
+
+    @Autowired
+    private TransportationRepository transportationRepository;
+
+    // Vehicle id to its calendar; each tree is guarded by itself
+    private final Map<Long, IntervalTree<Long>> calendars = new ConcurrentHashMap<>();
+
+    // Guarded by calendars
+    private final ReloadMerge<Long> reloadMerge = new ReloadMerge<>();
+
+    private final Object reloadLock = new Object();
+
+    @PostConstruct
+    public void init() {
+        reload();
+    }
+
+    // Drops bookings that have ended and picks up anything written behind the service's back
+    @Scheduled(cron = "${app.bookings.reload-cron:0 0 3 * * *}")
+    public void reload() {
+        synchronized (reloadLock) {
+            synchronized (calendars) {
+                reloadMerge.start();
+            }
+            try {
+                Map<Long, IntervalTree<Long>> loaded = new HashMap<>();
+                int count = 0;
+                for (Object[] row : vehicleBookingRepository.findCalendarEntries(VehicleBooking.Status.ACTIVE, LocalDateTime.now())) {
+                    loaded.computeIfAbsent((Long) row[1], id -> new IntervalTree<>())
+                            .add((Long) row[0], millis((LocalDateTime) row[2]), millis((LocalDateTime) row[3]), (Long) row[0]);
+                    count++;
+                }
+                synchronized (calendars) {
+                    reloadMerge.merge(calendars.keySet(), loaded, calendars::remove, (vehicleId, calendar) -> {
+                        calendars.put(vehicleId, calendar);
+                        return true;
+                    });
+                }
+                System.out.println("Loaded " + count + " vehicle bookings for " + loaded.size() + " vehicles");
+            } catch (RuntimeException e) {
+                System.err.println("Vehicle booking reload failed: " + e.getMessage());
+            } finally {
+                synchronized (calendars) {
+                    reloadMerge.finish();
+                }
+            }
+        }
+    }
+
+    @Transactional
+    public VehicleBooking book(Long vehicleId, VehicleBooking booking, Long bookedById) {
+        validatePeriod(booking.getStartTime(), booking.getEndTime());
+        if (booking.getEndTime().isBefore(LocalDateTime.now())) {
+            throw new RuntimeException("Booking period has already ended");
+        }
+        // Most conflicts are turned away here, before any lock is taken
+        if (isBooked(vehicleId, booking.getStartTime(), booking.getEndTime())) {
+            throw new IllegalStateException("Vehicle is already booked during this period");
+        }
+        Transportation vehicle = transportationRepository.findByIdForUpdate(vehicleId)
+                .orElseThrow(() -> new RuntimeException("Transportation not found with id: " + vehicleId));
+        if (!Boolean.TRUE.equals(vehicle.getIsActive())) {
+            throw new RuntimeException("Vehicle " + vehicle.getVehicleNumber() + " is not active");
+        }
+        List<VehicleBooking> conflicts = vehicleBookingRepository.findOverlapping(vehicleId, VehicleBooking.Status.ACTIVE,
+                booking.getStartTime(), booking.getEndTime());
+        if (!conflicts.isEmpty()) {
+            throw new IllegalStateException("Vehicle is already booked from " + conflicts.get(0).getStartTime()
+                    + " to " + conflicts.get(0).getEndTime());
+        }
+
+        VehicleBooking saved = new VehicleBooking();
+        saved.setTransportationId(vehicleId);
+        saved.setStartTime(booking.getStartTime());
+        saved.setEndTime(booking.getEndTime());
+        saved.setReference(booking.getReference());
+        saved.setNotes(booking.getNotes());
+        saved.setBookedById(bookedById);
+        saved = vehicleBookingRepository.save(saved);
+
+        long id = saved.getId();
+        long start = millis(saved.getStartTime());
+        long end = millis(saved.getEndTime());
+        AfterCommit.run(() -> {
+            IntervalTree<Long> calendar = calendar(vehicleId);
+            synchronized (calendar) {
+                calendar.add(id, start, end, id);
+            }
+        });
+        return saved;
+    }
+
+    @Transactional
+    public VehicleBooking cancel(Long bookingId) {
+        VehicleBooking booking = vehicleBookingRepository.findById(bookingId)
+                .orElseThrow(() -> new RuntimeException("Booking not found with id: " + bookingId));
+        if (booking.getStatus() == VehicleBooking.Status.CANCELLED) {
+            return booking;
+        }
+        booking.setStatus(VehicleBooking.Status.CANCELLED);
+        booking.setCancelledAt(LocalDateTime.now());
+        VehicleBooking saved = vehicleBookingRepository.save(booking);
+
+        Long vehicleId = saved.getTransportationId();
+        long start = millis(saved.getStartTime());
+        AfterCommit.run(() -> {
+            IntervalTree<Long> calendar = calendar(vehicleId);
+            synchronized (calendar) {
+                calendar.remove(bookingId, start);
+            }
+        });
+        return saved;
+    }
+
+    public List<VehicleBooking> getBookings(Long vehicleId, LocalDateTime from, LocalDateTime to) {
+        LocalDateTime start = from != null ? from : LocalDateTime.now();
+        LocalDateTime end = to != null ? to : LocalDateTime.of(9999, 12, 31, 0, 0);
+        validatePeriod(start, end);
+        return vehicleBookingRepository.findOverlapping(vehicleId, VehicleBooking.Status.ACTIVE, start, end);
+    }
+
+    public boolean isBooked(Long vehicleId, LocalDateTime from, LocalDateTime to) {
+        IntervalTree<Long> calendar = calendars.get(vehicleId);
+        if (calendar == null) {
+            return false;
+        }
+        synchronized (calendar) {
+            return calendar.overlaps(millis(from), millis(to));
+        }
+    }
+
+    // Active vehicles with at least the given capacity and no booking overlapping [from, to)
+    public List<Transportation> findFreeVehicles(LocalDateTime from, LocalDateTime to, Double minCapacity, Long branchId) {
+        validatePeriod(from, to);
+        List<Transportation> free = new ArrayList<>();
+        for (Transportation vehicle : transportationRepository.findAvailableVehiclesWithCapacity(branchId, minCapacity)) {
+            if (!isBooked(vehicle.getId(), from, to)) {
+                free.add(vehicle);
+            }
+        }
+        return free;
+    }
+
+    @Transactional
+    public void vehicleDeleted(Long vehicleId) {
+        vehicleBookingRepository.deleteByTransportationId(vehicleId);
+        AfterCommit.run(() -> {
+            synchronized (calendars) {
+                reloadMerge.changed(vehicleId);
+                calendars.remove(vehicleId);
+            }
+        });
+    }
+
+    private IntervalTree<Long> calendar(Long vehicleId) {
+        synchronized (calendars) {
+            reloadMerge.changed(vehicleId);
+            return calendars.computeIfAbsent(vehicleId, id -> new IntervalTree<>());
+        }
+    }
+
+    private static void validatePeriod(LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null) {
+            throw new RuntimeException("Both a start and an end time are required");
+        }
+        if (!to.isAfter(from)) {
+            throw new RuntimeException("End time must be after start time");
+        }
+    }
+
+    // Only used for ordering, so the zone does not matter as long as it is always the same
+    private static long millis(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+}
@@ -0,0 +1,370 @@
+package com.ausyexpo.service;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ausyexpo.model.Command;
+import com.ausyexpo.model.Supply;
+import com.ausyexpo.model.WorkItem;
+import com.ausyexpo.repository.WorkItemRepository;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Shared work queue over pending supplies and pending commands.
+ * Each item's sort key is the moment it should be worked on: its age plus a delay that shrinks with priority,
+ * pulled forward when a due date is near, so old low-priority work eventually overtakes new urgent work.
+ * A claim takes the first ready item of one branch, visiting branches least recently served first; on
+ * databases with SKIP LOCKED concurrent claimers never wait on each other's rows, elsewhere a conditional
+ * update decides who wins. Claims are leases that expire back into the queue if not renewed.
+ */
+@Service
+public class WorkQueueService {
+
+    private static final String SUPPLY_PENDING = "PENDING";
+
+    // Fallback without SKIP LOCKED: how many head rows a claimer tries before moving to the next branch
+    private static final int CANDIDATES = 5;
+
+    @Autowired
+    private WorkItemRepository workItemRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.work-queue.lease-minutes:15}")
+    private int leaseMinutes;
+
+    // Work due within this window is taken ahead of its age and priority
+    @Value("${app.work-queue.due-lead-hours:24}")
+    private int dueLeadHours;
+
+    // Joins a surrounding transaction; claims run on their own since they are called from controllers
+    private TransactionTemplate transaction;
+    private TransactionTemplate reconcileTransaction;
+    private boolean skipLocked;
+
+    // Claim sequence number per branch, for round-robin between branches; guarded by itself
+    private final Map<Long, Long> lastServed = new HashMap<>();
+    private long serveSequence;
+
+    @PostConstruct
+    public void init() {
+        transaction = new TransactionTemplate(transactionManager);
+        reconcileTransaction = new TransactionTemplate(transactionManager);
+        reconcileTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        skipLocked = supportsSkipLocked();
+        reconcile();
+    }
+
+    // --- Keeping the queue in step with the source rows (joins the caller's transaction, if any) ---
+
+    public void supplyChanged(Supply supply) {
+        transaction.executeWithoutResult(status -> {
+            if (!SUPPLY_PENDING.equals(supply.getStatus())) {
+                workItemRepository.deleteBySource(WorkItem.ItemType.SUPPLY, supply.getId());
+                return;
+            }
+            WorkItem item = workItemRepository.findByItemTypeAndItemId(WorkItem.ItemType.SUPPLY, supply.getId())
+                    .orElseGet(() -> new WorkItem(WorkItem.ItemType.SUPPLY, supply.getId()));
+            describe(item, supply);
+            workItemRepository.save(item);
+        });
+    }
+
+    public void supplyDeleted(Long id) {
+        transaction.executeWithoutResult(status -> workItemRepository.deleteBySource(WorkItem.ItemType.SUPPLY, id));
+    }
+
+    // A claimed item keeps its claim when its source is edited while still pending
+    public void commandChanged(Command command) {
+        transaction.executeWithoutResult(status -> {
+            if (command.getStatus() != Command.Status.PENDING) {
+                workItemRepository.deleteBySource(WorkItem.ItemType.COMMAND, command.getId());
+                return;
+            }
+            WorkItem item = workItemRepository.findByItemTypeAndItemId(WorkItem.ItemType.COMMAND, command.getId())
+                    .orElseGet(() -> new WorkItem(WorkItem.ItemType.COMMAND, command.getId()));
+            describe(item, command);
+            workItemRepository.save(item);
+        });
+    }
+
+    public void commandDeleted(Long id) {
+        transaction.executeWithoutResult(status -> workItemRepository.deleteBySource(WorkItem.ItemType.COMMAND, id));
+    }
+
+    // For set-based status updates: the queue is reconciled once the change committed
+    public void reconcileLater() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    reconcile();
+                }
+            });
+        } else {
+            reconcile();
+        }
+    }
+
+    // Adds pending rows that have no item and drops items whose source is gone or no longer pending
+    @Scheduled(fixedDelay = 10 * 60 * 1000, initialDelay = 10 * 60 * 1000)
+    public void reconcile() {
+        try {
+            int[] counts = reconcileTransaction.execute(status -> {
+                int removed = workItemRepository.deleteStaleSupplies(SUPPLY_PENDING, WorkItem.ItemType.SUPPLY)
+                        + workItemRepository.deleteStaleCommands(Command.Status.PENDING, WorkItem.ItemType.COMMAND);
+                int added = 0;
+                for (Supply supply : workItemRepository.findUnqueuedSupplies(SUPPLY_PENDING,
+                        WorkItem.ItemType.SUPPLY)) {
+                    WorkItem item = new WorkItem(WorkItem.ItemType.SUPPLY, supply.getId());
+                    describe(item, supply);
+                    workItemRepository.save(item);
+                    added++;
+                }
+                for (Command command : workItemRepository.findUnqueuedCommands(Command.Status.PENDING,
+                        WorkItem.ItemType.COMMAND)) {
+                    WorkItem item = new WorkItem(WorkItem.ItemType.COMMAND, command.getId());
+                    describe(item, command);
+                    workItemRepository.save(item);
+                    added++;
+                }
+                return new int[] {added, removed};
+            });
+            if (counts[0] > 0 || counts[1] > 0) {
+                System.out.println("Work queue reconciled: " + counts[0] + " added, " + counts[1] + " removed");
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Work queue reconciliation failed: " + e.getMessage());
+        }
+    }
+
+    // --- Claiming ---
+
+    // Claims the next item for the user, or returns null when nothing is ready for them
+    public WorkItem claim(Long userId, WorkItem.ItemType itemType, Long branchId) {
+        List<Object[]> heads = findBranchHeads(userId, itemType, branchId);
+        synchronized (lastServed) {
+            heads.sort(Comparator.comparingLong((Object[] head) -> lastServed.getOrDefault((Long) head[0], 0L))
+                    .thenComparingLong(head -> (Long) head[1]));
+        }
+        for (Object[] head : heads) {
+            Long branch = (Long) head[0];
+            WorkItem item = transaction.execute(status -> claimInBranch(userId, itemType, branch));
+            if (item != null) {
+                synchronized (lastServed) {
+                    lastServed.put(branch, ++serveSequence);
+                }
+                return item;
+            }
+        }
+        return null;
+    }
+
+    public WorkItem renew(Long id, Long userId) {
+        LocalDateTime leaseUntil = LocalDateTime.now().plusMinutes(leaseMinutes);
+        int updated = transaction.execute(status ->
+                workItemRepository.renew(id, userId, leaseUntil, WorkItem.State.CLAIMED));
+        if (updated == 0) {
+            throw new RuntimeException("Work item " + id + " is not claimed by you");
+        }
+        return workItemRepository.findById(id).orElseThrow(() -> new RuntimeException("Work item not found"));
+    }
+
+    public void release(Long id, Long userId) {
+        int updated = transaction.execute(status ->
+                workItemRepository.release(id, userId, WorkItem.State.READY, WorkItem.State.CLAIMED));
+        if (updated == 0) {
+            throw new RuntimeException("Work item " + id + " is not claimed by you");
+        }
+    }
+
+    // The item held by the user, before its source is updated on completion
+    public WorkItem getClaimed(Long id, Long userId) {
+        WorkItem item = workItemRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Work item not found with id: " + id));
+        if (item.getState() != WorkItem.State.CLAIMED || !userId.equals(item.getClaimedBy())) {
+            throw new RuntimeException("Work item " + id + " is not claimed by you");
+        }
+        return item;
+    }
+
+    // Removes a completed item; usually already gone, since its source left PENDING
+    public void remove(WorkItem item) {
+        transaction.executeWithoutResult(status ->
+                workItemRepository.deleteBySource(item.getItemType(), item.getItemId()));
+    }
+
+    public List<WorkItem> getClaimedBy(Long userId) {
+        return workItemRepository.findByClaimedByAndStateOrderByLeaseExpiresAtAsc(userId, WorkItem.State.CLAIMED);
+    }
+
+    @Scheduled(fixedDelay = 30000)
+    public void expireLeases() {
+        try {
+            int expired = transaction.execute(status -> workItemRepository.expireLeases(LocalDateTime.now(),
+                    WorkItem.State.READY, WorkItem.State.CLAIMED));
+            if (expired > 0) {
+                System.out.println("Work queue returned " + expired + " expired claims");
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Work queue lease expiry failed: " + e.getMessage());
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> counts = new LinkedHashMap<>();
+        for (Object[] row : workItemRepository.countByTypeAndState()) {
+            counts.put(row[0] + "_" + row[1], row[2]);
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("counts", counts);
+        stats.put("leaseMinutes", leaseMinutes);
+        stats.put("skipLocked", skipLocked);
+        return stats;
+    }
+
+    // --- Helpers ---
+
+    // First ready sort key per branch among the items this user may take
+    private List<Object[]> findBranchHeads(Long userId, WorkItem.ItemType itemType, Long branchId) {
+        StringBuilder sql = new StringBuilder("SELECT branch_id, MIN(sort_key) FROM work_items " +
+                "WHERE state = ? AND (assignee_id IS NULL OR assignee_id = ?)");
+        List<Object> args = new ArrayList<>(List.of(WorkItem.State.READY.name(), userId));
+        if (itemType != null) {
+            sql.append(" AND item_type = ?");
+            args.add(itemType.name());
+        }
+        if (branchId != null) {
+            sql.append(" AND branch_id = ?");
+            args.add(branchId);
+        }
+        sql.append(" GROUP BY branch_id");
+        return jdbcTemplate.query(sql.toString(), (rs, rowNum) -> new Object[] {
+                rs.getObject(1) != null ? rs.getLong(1) : null, rs.getLong(2)}, args.toArray());
+    }
+
+    // Runs in its own short transaction so a SKIP LOCKED row lock is held only until the claim is written
+    private WorkItem claimInBranch(Long userId, WorkItem.ItemType itemType, Long branchId) {
+        StringBuilder sql = new StringBuilder("SELECT id FROM work_items WHERE state = ? AND ");
+        List<Object> args = new ArrayList<>(List.of(WorkItem.State.READY.name()));
+        if (branchId != null) {
+            sql.append("branch_id = ?");
+            args.add(branchId);
+        } else {
+            sql.append("branch_id IS NULL");
+        }
+        sql.append(" AND (assignee_id IS NULL OR assignee_id = ?)");
+        args.add(userId);
+        if (itemType != null) {
+            sql.append(" AND item_type = ?");
+            args.add(itemType.name());
+        }
+        sql.append(" ORDER BY sort_key, id LIMIT ").append(skipLocked ? "1 FOR UPDATE SKIP LOCKED" : CANDIDATES);
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime leaseUntil = now.plusMinutes(leaseMinutes);
+        for (Long id : jdbcTemplate.queryForList(sql.toString(), Long.class, args.toArray())) {
+            if (workItemRepository.claim(id, userId, now, leaseUntil, WorkItem.State.READY,
+                    WorkItem.State.CLAIMED) == 1) {
+                return workItemRepository.findById(id).orElse(null);
+            }
+        }
+        return null;
+    }
+
+    private void describe(WorkItem item, Supply supply) {
+        item.setBranchId(supply.getBranch() != null ? supply.getBranch().getId() : null);
+        item.setAssigneeId(null);
+        item.setTitle(supply.getItemName() + " from " + supply.getSupplierName());
+        // A request that would still leave the item under its minimum is more pressing
+        Integer minimum = supply.getMinimumQuantity();
+        item.setPriority(minimum != null && supply.getQuantity() != null && supply.getQuantity() < minimum
+                ? Command.Priority.HIGH : Command.Priority.MEDIUM);
+        item.setDueDate(supply.getDeliveryDate());
+        LocalDateTime since = supply.getRequestDate() != null ? supply.getRequestDate() : supply.getCreatedAt();
+        item.setEnqueuedAt(since != null ? since : LocalDateTime.now());
+        item.setSortKey(sortKey(item));
+    }
+
+    private void describe(WorkItem item, Command command) {
+        item.setBranchId(command.getBranch() != null ? command.getBranch().getId() : null);
+        item.setAssigneeId(command.getAssignedTo() != null ? command.getAssignedTo().getId() : null);
+        item.setTitle(command.getTitle());
+        item.setPriority(command.getPriority() != null ? command.getPriority() : Command.Priority.MEDIUM);
+        item.setDueDate(command.getDueDate());
+        item.setEnqueuedAt(command.getCreatedAt() != null ? command.getCreatedAt() : LocalDateTime.now());
+        item.setSortKey(sortKey(item));
+    }
+
+    private long sortKey(WorkItem item) {
+        long key = epochSeconds(item.getEnqueuedAt()) + priorityDelaySeconds(item.getPriority());
+        if (item.getDueDate() != null) {
+            key = Math.min(key, epochSeconds(item.getDueDate()) - dueLeadHours * 3600L);
+        }
+        return key;
+    }
+
+    private static long priorityDelaySeconds(Command.Priority priority) {
+        switch (priority) {
+            case URGENT:
+                return 0;
+            case HIGH:
+                return 4 * 3600L;
+            case LOW:
+                return 72 * 3600L;
+            default:
+                return 24 * 3600L;
+        }
+    }
+
+    private static long epochSeconds(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+
+    private boolean supportsSkipLocked() {
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData meta = connection.getMetaData();
+            String product = meta.getDatabaseProductName().toLowerCase(Locale.ROOT);
+            String version = meta.getDatabaseProductVersion().toLowerCase(Locale.ROOT);
+            if (product.contains("postgres")) {
+                return true;
+            }
+            // MariaDB reports itself through the MySQL name on some drivers
+            return product.contains("mysql") && !version.contains("mariadb") && meta.getDatabaseMajorVersion() >= 8;
+        } catch (SQLException e) {
+            System.err.println("Could not detect SKIP LOCKED support, using conditional claims: " + e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,360 @@
+package com.ausyexpo.util;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Heuristic packer of items into bins of differing capacities.
+ * A plan is better when it leaves less quantity unplaced, then when it uses fewer bins, then when the bins
+ * it uses have less total capacity. Each search starts from a first-fit-decreasing packing and improves it
+ * by ruin and recreate: the contents of a few bins (favouring the emptiest) are taken out and put back best-fit,
+ * opening the smallest bin that fits only when needed, and finally loaded bins are swapped for smaller unused ones.
+ * Searches share nothing but the read-only problem, so several can run at once with different seeds.
+ */
+public class BinPacker {
+
+    // A search stops early after this many iterations without finding a better plan
+    private static final int STALL_ITERATIONS = 20000;
+
+    private final long[] sizes;
+    private final long[] capacities;
+    // Item indexes by size, largest first; bin indexes by capacity, largest first
+    private final int[] itemsBySize;
+    private final int[] binsByCapacity;
+    private final long totalQuantity;
+    // Items larger than every bin can never be placed
+    private final long placeableQuantity;
+    // No plan placing everything placeable uses fewer bins than this
+    private final int minimumBins;
+
+    public static final class Solution {
+        private final int[] assignment;
+        private final long unplaced;
+        private final int binsUsed;
+        private final long capacityUsed;
+        private long iterations;
+
+        private Solution(int[] assignment, long unplaced, int binsUsed, long capacityUsed) {
+            this.assignment = assignment;
+            this.unplaced = unplaced;
+            this.binsUsed = binsUsed;
+            this.capacityUsed = capacityUsed;
+        }
+
+        // Bin of each item, or -1 when it is not placed
+        public int[] getAssignment() {
+            return assignment;
+        }
+
+        public long getUnplaced() {
+            return unplaced;
+        }
+
+        public int getBinsUsed() {
+            return binsUsed;
+        }
+
+        public long getCapacityUsed() {
+            return capacityUsed;
+        }
+
+        public long getIterations() {
+            return iterations;
+        }
+
+        public boolean isBetterThan(Solution other) {
+            return other == null || compare(unplaced, binsUsed, capacityUsed, other.unplaced, other.binsUsed, other.capacityUsed) < 0;
+        }
+    }
+
+    public BinPacker(long[] sizes, long[] capacities) {
+        if (capacities.length == 0) {
+            throw new IllegalArgumentException("At least one bin is required");
+        }
+        for (long size : sizes) {
+            if (size <= 0) {
+                throw new IllegalArgumentException("Item sizes must be positive");
+            }
+        }
+        this.sizes = sizes.clone();
+        this.capacities = capacities.clone();
+        this.itemsBySize = sortedDescending(this.sizes);
+        this.binsByCapacity = sortedDescending(this.capacities);
+        long largest = this.capacities[binsByCapacity[0]];
+        long total = 0;
+        long placeable = 0;
+        for (long size : this.sizes) {
+            total += size;
+            if (size <= largest) {
+                placeable += size;
+            }
+        }
+        this.totalQuantity = total;
+        this.placeableQuantity = placeable;
+        int bins = 0;
+        for (long covered = 0; covered < placeable && bins < binsByCapacity.length; bins++) {
+            covered += this.capacities[binsByCapacity[bins]];
+        }
+        this.minimumBins = bins;
+    }
+
+    // Runs one search until the deadline (System.nanoTime), until it stalls or until the plan cannot be improved
+    public Solution solve(long seed, long deadlineNanos) {
+        return new Search(new SplittableRandom(seed), seed == 0).run(deadlineNanos);
+    }
+
+    private boolean optimal(Solution solution) {
+        return solution.unplaced == totalQuantity - placeableQuantity && solution.binsUsed == minimumBins
+                && solution.capacityUsed == placeableQuantity;
+    }
+
+    private static int compare(long unplacedA, int binsA, long capacityA, long unplacedB, int binsB, long capacityB) {
+        if (unplacedA != unplacedB) {
+            return Long.compare(unplacedA, unplacedB);
+        }
+        if (binsA != binsB) {
+            return Integer.compare(binsA, binsB);
+        }
+        return Long.compare(capacityA, capacityB);
+    }
+
+    private static int[] sortedDescending(long[] values) {
+        Integer[] boxed = new Integer[values.length];
+        for (int i = 0; i < boxed.length; i++) {
+            boxed[i] = i;
+        }
+        Arrays.sort(boxed, (a, b) -> Long.compare(values[b], values[a]));
+        int[] order = new int[boxed.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = boxed[i];
+        }
+        return order;
+    }
+
+    private final class Search {
+        private final SplittableRandom random;
+        private final boolean plain;
+        private final int[] assignment = new int[sizes.length];
+        private final long[] load = new long[capacities.length];
+        private final int[] trialAssignment = new int[sizes.length];
+        private final long[] trialLoad = new long[capacities.length];
+        private final int[] removed = new int[sizes.length];
+        private final long[] sortKeys = new long[sizes.length];
+
+        Search(SplittableRandom random, boolean plain) {
+            this.random = random;
+            this.plain = plain;
+        }
+
+        Solution run(long deadlineNanos) {
+            construct();
+            Solution current = score(assignment, load);
+            Solution best = snapshot(assignment, current);
+            long iterations = 0;
+            long sinceImprovement = 0;
+            while (System.nanoTime() < deadlineNanos && sinceImprovement < STALL_ITERATIONS && !optimal(best)) {
+                iterations++;
+                sinceImprovement++;
+                System.arraycopy(assignment, 0, trialAssignment, 0, assignment.length);
+                System.arraycopy(load, 0, trialLoad, 0, load.length);
+                ruinAndRecreate(trialAssignment, trialLoad);
+                downsize(trialAssignment, trialLoad);
+                Solution trial = score(trialAssignment, trialLoad);
+                // Equal plans are accepted too, so the search can drift across plateaus
+                if (!current.isBetterThan(trial)) {
+                    System.arraycopy(trialAssignment, 0, assignment, 0, assignment.length);
+                    System.arraycopy(trialLoad, 0, load, 0, load.length);
+                    current = trial;
+                    if (current.isBetterThan(best)) {
+                        best = snapshot(assignment, current);
+                        sinceImprovement = 0;
+                    }
+                }
+            }
+            best.iterations = iterations;
+            return best;
+        }
+
+        // First fit decreasing; other seeds perturb the item order and the order bins are opened in
+        private void construct() {
+            Arrays.fill(assignment, -1);
+            int[] items = itemsBySize.clone();
+            int[] bins = binsByCapacity.clone();
+            if (!plain) {
+                for (int i = 0; i + 1 < items.length; i++) {
+                    if (random.nextInt(4) == 0) {
+                        swap(items, i, i + 1);
+                    }
+                }
+                for (int i = bins.length - 1; i > 0; i--) {
+                    swap(bins, i, random.nextInt(i + 1));
+                }
+            }
+            int opened = 0;
+            for (int item : items) {
+                int target = -1;
+                for (int i = 0; i < opened && target < 0; i++) {
+                    if (load[bins[i]] + sizes[item] <= capacities[bins[i]]) {
+                        target = bins[i];
+                    }
+                }
+                if (target < 0) {
+                    for (int i = opened; i < bins.length; i++) {
+                        if (sizes[item] <= capacities[bins[i]]) {
+                            swap(bins, opened, i);
+                            target = bins[opened++];
+                            break;
+                        }
+                    }
+                }
+                if (target >= 0) {
+                    assignment[item] = target;
+                    load[target] += sizes[item];
+                }
+            }
+            downsize(assignment, load);
+        }
+
+        private void ruinAndRecreate(int[] assignment, long[] load) {
+            // Empty one to three loaded bins, usually including the least filled
+            int ruins = 1 + random.nextInt(3);
+            boolean[] ruined = new boolean[load.length];
+            int emptiest = -1;
+            for (int bin = 0; bin < load.length; bin++) {
+                if (load[bin] > 0 && (emptiest < 0
+                        || load[bin] * capacities[emptiest] < load[emptiest] * capacities[bin])) {
+                    emptiest = bin;
+                }
+            }
+            if (emptiest >= 0 && random.nextBoolean()) {
+                ruined[emptiest] = true;
+                ruins--;
+            }
+            for (int attempt = 0; ruins > 0 && attempt < 4 * load.length; attempt++) {
+                int bin = random.nextInt(load.length);
+                if (load[bin] > 0 && !ruined[bin]) {
+                    ruined[bin] = true;
+                    ruins--;
+                }
+            }
+
+            int count = 0;
+            for (int item = 0; item < assignment.length; item++) {
+                int bin = assignment[item];
+                if (bin < 0 ? sizes[item] <= capacities[binsByCapacity[0]] : ruined[bin]) {
+                    if (bin >= 0) {
+                        load[bin] -= sizes[item];
+                        assignment[item] = -1;
+                    }
+                    removed[count++] = item;
+                }
+            }
+            // Largest first, with a little noise so repeated ruins of the same bins differ
+            Integer[] order = new Integer[count];
+            for (int i = 0; i < count; i++) {
+                int item = removed[i];
+                order[i] = item;
+                sortKeys[item] = sizes[item] + random.nextLong(Math.max(1, sizes[item] / 8));
+            }
+            Arrays.sort(order, (a, b) -> Long.compare(sortKeys[b], sortKeys[a]));
+
+            for (Integer item : order) {
+                long size = sizes[item];
+                int target = -1;
+                long targetSpare = Long.MAX_VALUE;
+                // Best fit into a loaded bin
+                for (int bin = 0; bin < load.length; bin++) {
+                    long spare = capacities[bin] - load[bin] - size;
+                    if (load[bin] > 0 && spare >= 0 && spare < targetSpare) {
+                        target = bin;
+                        targetSpare = spare;
+                    }
+                }
+                if (target < 0) {
+                    // Otherwise the smallest empty bin it fits in
+                    for (int i = binsByCapacity.length - 1; i >= 0; i--) {
+                        int bin = binsByCapacity[i];
+                        if (load[bin] == 0 && size <= capacities[bin]) {
+                            target = bin;
+                            break;
+                        }
+                    }
+                }
+                if (target >= 0) {
+                    assignment[item] = target;
+                    load[target] += size;
+                }
+            }
+        }
+
+        // Moves each loaded bin's contents to the smallest empty bin that still holds them
+        private void downsize(int[] assignment, long[] load) {
+            int[] moveTo = null;
+            for (int bin = 0; bin < load.length; bin++) {
+                if (load[bin] == 0) {
+                    continue;
+                }
+                int smaller = -1;
+                for (int i = binsByCapacity.length - 1; i >= 0; i--) {
+                    int candidate = binsByCapacity[i];
+                    if (capacities[candidate] >= capacities[bin]) {
+                        break;
+                    }
+                    if (load[candidate] == 0 && capacities[candidate] >= load[bin]
+                            && (moveTo == null || moveTo[candidate] == candidate)) {
+                        smaller = candidate;
+                        break;
+                    }
+                }
+                if (smaller >= 0) {
+                    if (moveTo == null) {
+                        moveTo = new int[load.length];
+                        for (int i = 0; i < moveTo.length; i++) {
+                            moveTo[i] = i;
+                        }
+                    }
+                    moveTo[bin] = smaller;
+                    load[smaller] = load[bin];
+                    load[bin] = 0;
+                }
+            }
+            if (moveTo != null) {
+                for (int item = 0; item < assignment.length; item++) {
+                    if (assignment[item] >= 0) {
+                        // Follow chains, in case a bin's contents moved more than once; bins emptied in this
+                        // pass are never reused as targets, so every chain ends at the contents' final bin
+                        int bin = assignment[item];
+                        while (moveTo[bin] != bin) {
+                            bin = moveTo[bin];
+                        }
+                        assignment[item] = bin;
+                    }
+                }
+            }
+        }
+
+        private Solution snapshot(int[] assignment, Solution score) {
+            return new Solution(assignment.clone(), score.unplaced, score.binsUsed, score.capacityUsed);
+        }
+
+        private Solution score(int[] assignment, long[] load) {
+            int binsUsed = 0;
+            long capacityUsed = 0;
+            long placed = 0;
+            for (int bin = 0; bin < load.length; bin++) {
+                if (load[bin] > 0) {
+                    binsUsed++;
+                    capacityUsed += capacities[bin];
+                    placed += load[bin];
+                }
+            }
+            return new Solution(null, totalQuantity - placed, binsUsed, capacityUsed);
+        }
+
+        private void swap(int[] values, int i, int j) {
+            int value = values[i];
+            values[i] = values[j];
+            values[j] = value;
+        }
+    }
+}
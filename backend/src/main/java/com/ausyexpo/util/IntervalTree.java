@@ -0,0 +1,186 @@
+package com.ausyexpo.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Half-open intervals [start, end) with an id, kept in a treap ordered by (start, id) in which every node
+ * also records the latest end in its subtree. Adding and removing take expected O(log n); asking whether
+ * anything overlaps a range takes O(log n), and listing the overlaps O(log n + k). Not thread-safe;
+ * callers synchronize.
+ */
+public class IntervalTree<V> {
+
+    private final SplittableRandom random = new SplittableRandom();
+    private Node<V> root;
+    private int size;
+
+    private static final class Node<V> {
+        final long start;
+        final long end;
+        final long id;
+        final V value;
+        final int priority;
+        long maxEnd;
+        Node<V> left;
+        Node<V> right;
+
+        Node(long start, long end, long id, V value, int priority) {
+            this.start = start;
+            this.end = end;
+            this.id = id;
+            this.value = value;
+            this.priority = priority;
+            this.maxEnd = end;
+        }
+    }
+
+    public void add(long id, long start, long end, V value) {
+        if (end <= start) {
+            throw new IllegalArgumentException("Interval end must be after its start");
+        }
+        root = insert(root, new Node<>(start, end, id, value, random.nextInt()));
+        size++;
+    }
+
+    // The start is part of the key, so it must be the one the interval was added with
+    public boolean remove(long id, long start) {
+        int before = size;
+        root = delete(root, start, id);
+        return size < before;
+    }
+
+    public boolean overlaps(long start, long end) {
+        Node<V> node = root;
+        while (node != null) {
+            if (node.start < end && node.end > start) {
+                return true;
+            }
+            // If anything on the left ends after start without overlapping, it starts at or after end,
+            // and so does everything from here rightwards
+            if (node.left != null && node.left.maxEnd > start) {
+                node = node.left;
+            } else {
+                node = node.right;
+            }
+        }
+        return false;
+    }
+
+    // Values of the intervals overlapping [start, end), by start
+    public List<V> overlapping(long start, long end) {
+        List<V> values = new ArrayList<>();
+        collect(root, start, end, values);
+        return values;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        root = null;
+        size = 0;
+    }
+
+    private void collect(Node<V> node, long start, long end, List<V> values) {
+        if (node == null || node.maxEnd <= start) {
+            return;
+        }
+        collect(node.left, start, end, values);
+        if (node.start >= end) {
+            return;
+        }
+        if (node.end > start) {
+            values.add(node.value);
+        }
+        collect(node.right, start, end, values);
+    }
+
+    private Node<V> insert(Node<V> node, Node<V> added) {
+        if (node == null) {
+            return added;
+        }
+        if (compare(added.start, added.id, node) < 0) {
+            node.left = insert(node.left, added);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, added);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        update(node);
+        return node;
+    }
+
+    private Node<V> delete(Node<V> node, long start, long id) {
+        if (node == null) {
+            return null;
+        }
+        int comparison = compare(start, id, node);
+        if (comparison < 0) {
+            node.left = delete(node.left, start, id);
+        } else if (comparison > 0) {
+            node.right = delete(node.right, start, id);
+        } else {
+            size--;
+            return merge(node.left, node.right);
+        }
+        update(node);
+        return node;
+    }
+
+    private Node<V> merge(Node<V> left, Node<V> right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            update(left);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        update(right);
+        return right;
+    }
+
+    private Node<V> rotateRight(Node<V> node) {
+        Node<V> pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private Node<V> rotateLeft(Node<V> node) {
+        Node<V> pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static <V> void update(Node<V> node) {
+        long maxEnd = node.end;
+        if (node.left != null && node.left.maxEnd > maxEnd) {
+            maxEnd = node.left.maxEnd;
+        }
+        if (node.right != null && node.right.maxEnd > maxEnd) {
+            maxEnd = node.right.maxEnd;
+        }
+        node.maxEnd = maxEnd;
+    }
+
+    private static int compare(long start, long id, Node<?> node) {
+        return start != node.start ? Long.compare(start, node.start) : Long.compare(id, node.id);
+    }
+}
@@ -0,0 +1,55 @@
+package com.ausyexpo.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+
+/**
+ * Merges a reload into in-memory state that keeps taking writes while the rows are loaded.
+ * Writes between start() and finish() report their key through changed(); those keys already hold their
+ * newest state, so merge() leaves them alone and only corrects the rest from the loaded rows.
+ * Not thread-safe; callers hold the lock that guards their state around every call.
+ */
+public class ReloadMerge<K> {
+
+    private Set<K> changed;
+
+    public void start() {
+        changed = new HashSet<>();
+    }
+
+    public void finish() {
+        changed = null;
+    }
+
+    // Called by every write, whether or not a reload is running
+    public void changed(K key) {
+        if (changed != null) {
+            changed.add(key);
+        }
+    }
+
+    /**
+     * Removes tracked keys that were not loaded and hands every loaded row to apply, skipping keys written
+     * since start(). apply returns whether it changed anything; the result counts removals and changes.
+     */
+    public <V> int merge(Collection<K> tracked, Map<K, V> rows, Consumer<K> remove, BiPredicate<K, V> apply) {
+        int merged = 0;
+        for (K key : new ArrayList<>(tracked)) {
+            if (!rows.containsKey(key) && !changed.contains(key)) {
+                remove.accept(key);
+                merged++;
+            }
+        }
+        for (Map.Entry<K, V> row : rows.entrySet()) {
+            if (!changed.contains(row.getKey()) && apply.test(row.getKey(), row.getValue())) {
+                merged++;
+            }
+        }
+        return merged;
+    }
+}
@@ -0,0 +1,122 @@
+package com.ausyexpo.util;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Bounded lock-free queue for many producers and a single consumer.
+ * Every slot carries a sequence number that says whose turn it is: producers claim positions by advancing
+ * the tail with a CAS, write the element and then publish it by bumping the slot's sequence; the consumer
+ * takes published elements in order and hands the slot back for the next lap. Nothing blocks, so a full
+ * buffer is reported to the producer instead of making it wait.
+ */
+public class RingBuffer<E> {
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<E> elements;
+    // Slot i is free for position p when its sequence is p, and holds the element of p when it is p + 1
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    // Only written by the consumer
+    private final AtomicLong head = new AtomicLong();
+
+    // The capacity is rounded up to a power of two
+    public RingBuffer(int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Capacity must be between 1 and 2^30");
+        }
+        int rounded = 1;
+        while (rounded < capacity) {
+            rounded <<= 1;
+        }
+        this.capacity = rounded;
+        this.mask = this.capacity - 1;
+        this.elements = new AtomicReferenceArray<>(this.capacity);
+        this.sequences = new AtomicLongArray(this.capacity);
+        for (int i = 0; i < this.capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    public boolean offer(E element) {
+        while (true) {
+            long position = tail.get();
+            long free = sequences.get((int) position & mask) - position;
+            if (free < 0) {
+                // The consumer has not yet taken what was written here a lap ago
+                return false;
+            }
+            if (free == 0 && tail.compareAndSet(position, position + 1)) {
+                publish(position, element);
+                return true;
+            }
+        }
+    }
+
+    // All or nothing: either every element is queued, consecutively, or none is
+    public boolean offerAll(List<? extends E> batch) {
+        int count = batch.size();
+        if (count == 0) {
+            return true;
+        }
+        if (count > capacity) {
+            return false;
+        }
+        while (true) {
+            long position = tail.get();
+            // The consumer frees slots in order, so if the last slot is free for its position so are the others
+            long last = position + count - 1;
+            long free = sequences.get((int) last & mask) - last;
+            if (free < 0) {
+                return false;
+            }
+            if (free == 0 && tail.compareAndSet(position, position + count)) {
+                for (int i = 0; i < count; i++) {
+                    publish(position + i, batch.get(i));
+                }
+                return true;
+            }
+        }
+    }
+
+    // Hands up to max published elements to the sink, oldest first; consumer thread only
+    public int drain(Consumer<? super E> sink, int max) {
+        long position = head.get();
+        int drained = 0;
+        while (drained < max) {
+            int slot = (int) position & mask;
+            if (sequences.get(slot) != position + 1) {
+                // Empty, or the producer of this position has not finished writing it
+                break;
+            }
+            E element = elements.get(slot);
+            elements.lazySet(slot, null);
+            sequences.lazySet(slot, position + capacity);
+            position++;
+            drained++;
+            sink.accept(element);
+        }
+        head.lazySet(position);
+        return drained;
+    }
+
+    // Claimed positions, including any still being written
+    public int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, capacity));
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    private void publish(long position, E element) {
+        int slot = (int) position & mask;
+        elements.lazySet(slot, element);
+        sequences.lazySet(slot, position + 1);
+    }
+}
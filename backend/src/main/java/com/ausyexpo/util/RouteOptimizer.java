@@ -0,0 +1,176 @@
+package com.ausyexpo.util;
+
+/**
+ * Orders the stops of one route to keep its length short.
+ * The route leaves from a start point and may return to it; distances between stops are symmetric. A
+ * nearest-neighbour tour is improved with 2-opt (reversing a stretch of the route) and Or-opt (moving a
+ * run of up to three stops elsewhere, either way round) until neither finds a shorter route or the
+ * deadline passes.
+ */
+public class RouteOptimizer {
+
+    private static final double EPSILON = 1e-9;
+    private static final int MAX_SEGMENT = 3;
+
+    private final double[][] distances;
+    private final double[] fromStart;
+    private final double[] toEnd;
+    private final int size;
+
+    /**
+     * @param distances symmetric distances between the stops
+     * @param fromStart distance from the start point to each stop, or null when the route may begin at any stop
+     * @param toEnd distance from each stop back to where the route ends, or null when it may end at any stop
+     */
+    public RouteOptimizer(double[][] distances, double[] fromStart, double[] toEnd) {
+        this.distances = distances;
+        this.fromStart = fromStart;
+        this.toEnd = toEnd;
+        this.size = distances.length;
+    }
+
+    // Stop indexes in visiting order
+    public int[] nearestNeighbour() {
+        int[] route = new int[size];
+        boolean[] visited = new boolean[size];
+        int current = -1;
+        for (int position = 0; position < size; position++) {
+            int next = -1;
+            double nextDistance = Double.MAX_VALUE;
+            for (int stop = 0; stop < size; stop++) {
+                if (!visited[stop]) {
+                    double distance = current < 0 ? (fromStart != null ? fromStart[stop] : 0) : distances[current][stop];
+                    if (distance < nextDistance) {
+                        next = stop;
+                        nextDistance = distance;
+                    }
+                }
+            }
+            route[position] = next;
+            visited[next] = true;
+            current = next;
+        }
+        return route;
+    }
+
+    // Improves the route in place until no move shortens it or the deadline (System.nanoTime) passes
+    public int[] improve(int[] route, long deadlineNanos) {
+        boolean improved = true;
+        while (improved && System.nanoTime() < deadlineNanos) {
+            improved = twoOpt(route, deadlineNanos);
+            improved |= orOpt(route, deadlineNanos);
+        }
+        return route;
+    }
+
+    public double length(int[] route) {
+        if (route.length == 0) {
+            return 0;
+        }
+        double total = edge(-1, route[0]);
+        for (int i = 0; i + 1 < route.length; i++) {
+            total += distances[route[i]][route[i + 1]];
+        }
+        return total + edge(route[route.length - 1], -1);
+    }
+
+    // Reverses route[i..j] whenever that shortens the route
+    private boolean twoOpt(int[] route, long deadlineNanos) {
+        boolean improved = false;
+        for (int i = 0; i < size - 1; i++) {
+            if (System.nanoTime() >= deadlineNanos) {
+                return improved;
+            }
+            int before = i == 0 ? -1 : route[i - 1];
+            for (int j = i + 1; j < size; j++) {
+                int after = j == size - 1 ? -1 : route[j + 1];
+                double delta = edge(before, route[j]) + edge(route[i], after)
+                        - edge(before, route[i]) - edge(route[j], after);
+                if (delta < -EPSILON) {
+                    for (int left = i, right = j; left < right; left++, right--) {
+                        int stop = route[left];
+                        route[left] = route[right];
+                        route[right] = stop;
+                    }
+                    improved = true;
+                }
+            }
+        }
+        return improved;
+    }
+
+    // Moves a run of one to three stops between two other neighbours, reversed if that is shorter
+    private boolean orOpt(int[] route, long deadlineNanos) {
+        boolean improved = false;
+        for (int length = 1; length <= MAX_SEGMENT && length < size; length++) {
+            for (int i = 0; i + length <= size; i++) {
+                if (System.nanoTime() >= deadlineNanos) {
+                    return improved;
+                }
+                int first = route[i];
+                int last = route[i + length - 1];
+                int before = i == 0 ? -1 : route[i - 1];
+                int after = i + length == size ? -1 : route[i + length];
+                double removed = edge(before, first) + edge(last, after) - edge(before, after);
+
+                int bestPosition = -1;
+                boolean bestReversed = false;
+                double bestDelta = -EPSILON;
+                // Insert between route[p - 1] and route[p], for gaps outside the run
+                for (int p = 0; p <= size; p++) {
+                    if (p >= i && p <= i + length) {
+                        continue;
+                    }
+                    int left = p == 0 ? -1 : route[p - 1];
+                    int right = p == size ? -1 : route[p];
+                    double join = edge(left, right);
+                    double forward = edge(left, first) + edge(last, right) - join - removed;
+                    double reversed = edge(left, last) + edge(first, right) - join - removed;
+                    if (forward < bestDelta) {
+                        bestDelta = forward;
+                        bestPosition = p;
+                        bestReversed = false;
+                    }
+                    if (reversed < bestDelta) {
+                        bestDelta = reversed;
+                        bestPosition = p;
+                        bestReversed = true;
+                    }
+                }
+                if (bestPosition >= 0) {
+                    move(route, i, length, bestPosition, bestReversed);
+                    improved = true;
+                }
+            }
+        }
+        return improved;
+    }
+
+    private void move(int[] route, int from, int length, int gap, boolean reversed) {
+        int[] segment = new int[length];
+        for (int k = 0; k < length; k++) {
+            segment[k] = route[reversed ? from + length - 1 - k : from + k];
+        }
+        if (gap < from) {
+            System.arraycopy(route, gap, route, gap + length, from - gap);
+            System.arraycopy(segment, 0, route, gap, length);
+        } else {
+            System.arraycopy(route, from + length, route, from, gap - from - length);
+            System.arraycopy(segment, 0, route, gap - length, length);
+        }
+    }
+
+    // Stop -1 stands for the start point (as a source) or the end point (as a target)
+    private double edge(int from, int to) {
+        if (from < 0 && to < 0) {
+            return 0;
+        }
+        if (from < 0) {
+            return fromStart != null ? fromStart[to] : 0;
+        }
+        if (to < 0) {
+            return toEnd != null ? toEnd[from] : 0;
+        }
+        return distances[from][to];
+    }
+}
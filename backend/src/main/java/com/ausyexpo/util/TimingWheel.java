@@ -0,0 +1,171 @@
+package com.ausyexpo.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Hierarchical timing wheel over keys with a deadline in epoch milliseconds.
+ * Level 0 has one slot per tick; each level above has slots as wide as a whole turn of the level below,
+ * so scheduling and cancelling are O(1) and advancing costs one slot per tick plus the occasional cascade
+ * of an upper slot into the levels below. Deadlines beyond the top level wait in an overflow set.
+ * Keys fire on the first tick at or after their deadline. Not thread-safe; callers synchronize.
+ */
+public class TimingWheel<K> {
+
+    private final long tickMillis;
+    private final int wheelSize;
+    // Width of one slot on each level, in ticks
+    private final long[] slotTicks;
+    private final List<List<Set<K>>> levels;
+    private final Set<K> overflow = new LinkedHashSet<>();
+    private final Map<K, Entry> entries = new HashMap<>();
+    // Ticks since the epoch that have been processed
+    private long currentTick;
+
+    private static final class Entry {
+        final long dueTick;
+        int level;
+        int slot;
+
+        Entry(long dueTick) {
+            this.dueTick = dueTick;
+        }
+    }
+
+    public TimingWheel(long tickMillis, int wheelSize, int levelCount, long startMillis) {
+        if (tickMillis < 1 || wheelSize < 2 || levelCount < 1) {
+            throw new IllegalArgumentException("Invalid timing wheel dimensions");
+        }
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.slotTicks = new long[levelCount];
+        this.levels = new ArrayList<>(levelCount);
+        long width = 1;
+        for (int level = 0; level < levelCount; level++) {
+            slotTicks[level] = width;
+            List<Set<K>> slots = new ArrayList<>(wheelSize);
+            for (int slot = 0; slot < wheelSize; slot++) {
+                slots.add(new LinkedHashSet<>());
+            }
+            levels.add(slots);
+            width = Math.multiplyExact(width, wheelSize);
+        }
+        this.currentTick = Math.floorDiv(startMillis, tickMillis);
+    }
+
+    // Schedules or moves a key; returns false, without keeping it, when its deadline has already been reached
+    public boolean schedule(K key, long deadlineMillis) {
+        cancel(key);
+        long dueTick = Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis);
+        if (dueTick <= currentTick) {
+            return false;
+        }
+        Entry entry = new Entry(dueTick);
+        entries.put(key, entry);
+        place(key, entry);
+        return true;
+    }
+
+    public boolean cancel(K key) {
+        Entry entry = entries.remove(key);
+        if (entry == null) {
+            return false;
+        }
+        if (entry.level < 0) {
+            overflow.remove(key);
+        } else {
+            levels.get(entry.level).get(entry.slot).remove(key);
+        }
+        return true;
+    }
+
+    public boolean contains(K key) {
+        return entries.containsKey(key);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void clear() {
+        for (List<Set<K>> slots : levels) {
+            for (Set<K> slot : slots) {
+                slot.clear();
+            }
+        }
+        overflow.clear();
+        entries.clear();
+    }
+
+    // Moves time forward and returns the keys whose deadline was reached, in firing order
+    public List<K> advance(long nowMillis) {
+        List<K> expired = new ArrayList<>();
+        long targetTick = Math.floorDiv(nowMillis, tickMillis);
+        while (currentTick < targetTick) {
+            currentTick++;
+            if (!overflow.isEmpty() && currentTick % slotTicks[slotTicks.length - 1] == 0) {
+                List<K> waiting = new ArrayList<>(overflow);
+                overflow.clear();
+                for (K key : waiting) {
+                    reinsert(key, expired);
+                }
+            }
+            // Upper levels first, so entries cascading down can still land in this tick's level 0 slot
+            for (int level = levels.size() - 1; level > 0; level--) {
+                if (currentTick % slotTicks[level] != 0) {
+                    continue;
+                }
+                Set<K> slot = levels.get(level).get(slotIndex(currentTick, level));
+                if (!slot.isEmpty()) {
+                    List<K> cascading = new ArrayList<>(slot);
+                    slot.clear();
+                    for (K key : cascading) {
+                        reinsert(key, expired);
+                    }
+                }
+            }
+            Set<K> slot = levels.get(0).get(slotIndex(currentTick, 0));
+            if (!slot.isEmpty()) {
+                for (K key : slot) {
+                    entries.remove(key);
+                    expired.add(key);
+                }
+                slot.clear();
+            }
+        }
+        return expired;
+    }
+
+    private void reinsert(K key, List<K> expired) {
+        Entry entry = entries.get(key);
+        if (entry.dueTick <= currentTick) {
+            entries.remove(key);
+            expired.add(key);
+        } else {
+            place(key, entry);
+        }
+    }
+
+    // The lowest level whose current turn still reaches the due tick
+    private void place(K key, Entry entry) {
+        for (int level = 0; level < levels.size(); level++) {
+            long distance = entry.dueTick / slotTicks[level] - currentTick / slotTicks[level];
+            if (distance < wheelSize) {
+                entry.level = level;
+                entry.slot = slotIndex(entry.dueTick, level);
+                levels.get(level).get(entry.slot).add(key);
+                return;
+            }
+        }
+        entry.level = -1;
+        overflow.add(key);
+    }
+
+    private int slotIndex(long tick, int level) {
+        return (int) Math.floorMod(tick / slotTicks[level], (long) wheelSize);
+    }
+}
@@ -0,0 +1,92 @@
+package com.ausyexpo.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ausyexpo.model.Branch;
+import com.ausyexpo.performance.WorkloadReplay;
+import com.ausyexpo.repository.BranchRepository;
+import com.ausyexpo.service.BranchService;
+
+/**
+ * Lazy text attributes stay out of list queries and list responses, and are still served by the detail view.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class JacksonConfigTest {
+
+    // About 64 KB of description on a single branch
+    private static final String DESCRIPTION = "Clause of the branch charter. ".repeat(2200);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private BranchService branchService;
+
+    @Autowired
+    private BranchRepository branchRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Branch branch;
+
+    @BeforeEach
+    void createBranch() {
+        branch = new Branch("Charter branch " + System.nanoTime(), "Galle", "+94 91 0000000");
+        branch.setDescription(DESCRIPTION);
+        branch = branchService.createBranch(branch);
+    }
+
+    @AfterEach
+    void removeBranch() {
+        branchRepository.deleteById(branch.getId());
+    }
+
+    @Test
+    void listQueryLeavesTheDescriptionUnread() {
+        Boolean loaded = transactionTemplate.execute(status -> branchRepository.findAll().stream()
+                .filter(listed -> listed.getId().equals(branch.getId()))
+                .allMatch(listed -> Hibernate.isPropertyInitialized(listed, "description")));
+
+        assertThat(loaded).isFalse();
+    }
+
+    @Test
+    void listResponseIsSmallerThanTheTextItLeavesOut() throws Exception {
+        String url = "http://localhost:" + port;
+        String token = WorkloadReplay.signIn(url, "admin@ausyexpo.com", "admin123");
+
+        String list = get(url + "/api/branches", token);
+        String detail = get(url + "/api/branches/" + branch.getId(), token);
+
+        System.out.printf("list %d bytes, detail %d bytes, description %d bytes%n",
+                list.length(), detail.length(), DESCRIPTION.length());
+        assertThat(list).contains(branch.getName()).doesNotContain("Clause of the branch charter.");
+        assertThat(list.length()).isLessThan(DESCRIPTION.length());
+        assertThat(detail).contains(DESCRIPTION);
+    }
+
+    private static String get(String url, String token) throws Exception {
+        HttpResponse<String> response = HttpClient.newHttpClient().send(HttpRequest.newBuilder(URI.create(url))
+                .header("Authorization", "Bearer " + token)
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertThat(response.statusCode()).isEqualTo(200);
+        return response.body();
+    }
+}
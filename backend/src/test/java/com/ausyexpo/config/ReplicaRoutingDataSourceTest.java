@@ -0,0 +1,174 @@
+package com.ausyexpo.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import com.ausyexpo.model.Branch;
+import com.ausyexpo.repository.BranchRepository;
+import com.ausyexpo.service.BranchService;
+import com.ausyexpo.service.ReportService;
+
+/**
+ * Routing between two separate H2 databases: the primary the application creates, and a replica holding the same
+ * schema but different rows, so every read shows which one served it. The replica's lag comes from a table the
+ * test controls.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing_primary;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=VALUE,YEAR,MONTH;DB_CLOSE_DELAY=-1",
+        "app.datasource.replica.url=" + ReplicaRoutingDataSourceTest.REPLICA_URL,
+        "app.datasource.replica.lag-query=SELECT lag_seconds FROM replica_lag",
+        "app.datasource.replica.max-lag-seconds=5",
+        "app.datasource.replica.lag-check-interval-ms=50",
+        "app.datasource.replica.sticky-ms=1000"})
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ReplicaRoutingDataSourceTest {
+
+    static final String REPLICA_URL =
+            "jdbc:h2:mem:routing_replica;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=VALUE,YEAR,MONTH;DB_CLOSE_DELAY=-1";
+    private static final String REPLICA_BRANCH = "Replica copy";
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+
+    @Autowired
+    private BranchService branchService;
+
+    @Autowired
+    private BranchRepository branchRepository;
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeAll
+    void createReplica() throws SQLException {
+        Path schema = Path.of("target", "replica-schema.sql").toAbsolutePath();
+        try (Connection primary = primaryDataSource.getConnection(); Statement statement = primary.createStatement()) {
+            statement.execute("SCRIPT NODATA TO '" + schema + "'");
+        }
+        try (Connection replica = DriverManager.getConnection(REPLICA_URL, "sa", "");
+             Statement statement = replica.createStatement()) {
+            statement.execute("RUNSCRIPT FROM '" + schema + "'");
+            statement.execute("CREATE TABLE replica_lag (lag_seconds INT)");
+            statement.execute("INSERT INTO replica_lag VALUES (0)");
+            statement.execute("INSERT INTO branches (name, location, contact_details, is_active, created_at, updated_at) "
+                    + "VALUES ('" + REPLICA_BRANCH + "', 'Colombo', '+94 11 0000000', TRUE, NOW(), NOW())");
+        }
+        awaitReplicaReads("monitor");
+    }
+
+    @AfterEach
+    void clearRequest() {
+        RequestContextHolder.resetRequestAttributes();
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void readOnlyTransactionsOfARequestGoToTheReplica() {
+        assertThat(asUser("reader", this::branchNames)).containsExactly(REPLICA_BRANCH);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void reportQueriesGoToTheReplica() {
+        Map<String, Object> report = asUser("reporter", reportService::generateSystemOverviewReport);
+
+        Map<String, Object> branchStatistics = (Map<String, Object>) report.get("branchStatistics");
+        assertThat((Map<String, Long>) branchStatistics.get("branchEmployeeCounts")).containsOnlyKeys(REPLICA_BRANCH);
+    }
+
+    @Test
+    void backgroundReadsStayOnThePrimary() {
+        // A thread of its own: the test thread has a mock request bound
+        assertThat(CompletableFuture.supplyAsync(this::branchNames).join()).doesNotContain(REPLICA_BRANCH);
+    }
+
+    @Test
+    void writerReadsThePrimaryUntilTheStickyWindowPasses() {
+        asUser("writer", () -> branchService.createBranch(new Branch("Written branch", "Kandy", "+94 81 0000000")));
+
+        assertThat(asUser("writer", this::branchNames)).contains("Written branch").doesNotContain(REPLICA_BRANCH);
+        assertThat(asUser("someone-else", this::branchNames)).containsExactly(REPLICA_BRANCH);
+        awaitReplicaReads("writer");
+    }
+
+    @Test
+    void readWriteTransactionWithoutWritesDoesNotPinTheUser() {
+        TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+        asUser("browser", () -> readWrite.execute(status -> branchRepository.count()));
+
+        assertThat(asUser("browser", this::branchNames)).containsExactly(REPLICA_BRANCH);
+    }
+
+    @Test
+    void laggingReplicaSendsReadsToThePrimary() throws SQLException {
+        setReplicaLag(10);
+        try {
+            await().atMost(Duration.ofSeconds(5))
+                    .until(() -> !asUser("lagged", this::branchNames).contains(REPLICA_BRANCH));
+        } finally {
+            setReplicaLag(0);
+        }
+        awaitReplicaReads("lagged");
+    }
+
+    private List<String> branchNames() {
+        return branchService.getAllBranches().stream().map(Branch::getName).toList();
+    }
+
+    private void awaitReplicaReads(String user) {
+        await().atMost(Duration.ofSeconds(5)).until(() -> asUser(user, this::branchNames).contains(REPLICA_BRANCH));
+    }
+
+    // Runs as an authenticated user serving a request, as a controller would
+    private <T> T asUser(String user, Supplier<T> work) {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, List.of()));
+        try {
+            return work.get();
+        } finally {
+            clearRequest();
+        }
+    }
+
+    private static void setReplicaLag(int seconds) throws SQLException {
+        try (Connection replica = DriverManager.getConnection(REPLICA_URL, "sa", "");
+             Statement statement = replica.createStatement()) {
+            statement.executeUpdate("UPDATE replica_lag SET lag_seconds = " + seconds);
+        }
+    }
+}
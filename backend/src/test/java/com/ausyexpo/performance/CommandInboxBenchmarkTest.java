@@ -0,0 +1,229 @@
+package com.ausyexpo.performance;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.ausyexpo.model.Command;
+import com.ausyexpo.model.User;
+import com.ausyexpo.service.CommandInboxService;
+import com.ausyexpo.service.CommandService;
+import com.ausyexpo.service.QueryMetricsService;
+import com.ausyexpo.service.UserService;
+
+/**
+ * Cost of keeping connected assignees current: commands are created while clients hold
+ * /api/commands/inbox/stream open, and the reads of the commands table are counted against the same creates
+ * with nobody connected, and against every client polling /api/commands/assigned-to once. A client that
+ * reconnects with its last event id is sent only what it missed. -Dbench.subscribers and -Dbench.commands
+ * size the run.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"test", "benchmark"})
+class CommandInboxBenchmarkTest {
+
+    private static final int SUBSCRIBERS = Integer.getInteger("bench.subscribers", 200);
+    private static final int COMMANDS = Integer.getInteger("bench.commands", 50);
+
+    private static final HttpClient CLIENT = HttpClient.newHttpClient();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private CommandService commandService;
+
+    @Autowired
+    private CommandInboxService commandInboxService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private QueryMetricsService queryMetricsService;
+
+    @Test
+    void connectedAssigneesCostNoReads() throws Exception {
+        String url = "http://localhost:" + port;
+        String token = WorkloadReplay.signIn(url, "admin@ausyexpo.com", "admin123");
+        User admin = userService.getUserByEmail("admin@ausyexpo.com").orElseThrow();
+
+        // Same creates with nobody connected
+        queryMetricsService.reset();
+        create(admin, "Baseline " + System.nanoTime(), COMMANDS);
+        long baselineReads = commandReads();
+
+        // One poll of the old endpoint
+        queryMetricsService.reset();
+        HttpResponse<String> poll = CLIENT.send(HttpRequest.newBuilder(
+                URI.create(url + "/api/commands/assigned-to/" + admin.getId()))
+                .header("Authorization", "Bearer " + token).build(), HttpResponse.BodyHandlers.ofString());
+        assertThat(poll.statusCode()).isEqualTo(200);
+        long pollReads = commandReads();
+
+        String marker = "Inbox benchmark " + System.nanoTime();
+        List<Subscriber> subscribers = new ArrayList<>();
+        long streamReads;
+        long started;
+        double seconds;
+        try {
+            for (int i = 0; i < SUBSCRIBERS; i++) {
+                Subscriber subscriber = new Subscriber(url, token, marker, null);
+                subscribers.add(subscriber);
+                subscriber.thread.start();
+            }
+            await().atMost(Duration.ofSeconds(60))
+                    .until(() -> subscribers.stream().allMatch(subscriber -> subscriber.lastId != null));
+
+            queryMetricsService.reset();
+            started = System.nanoTime();
+            create(admin, marker, COMMANDS);
+            await().atMost(Duration.ofSeconds(120)).pollInterval(Duration.ofMillis(50))
+                    .until(() -> subscribers.stream().allMatch(subscriber -> subscriber.received.size() >= COMMANDS));
+            seconds = (System.nanoTime() - started) / 1e9;
+            streamReads = commandReads();
+        } finally {
+            subscribers.forEach(Subscriber::stop);
+        }
+
+        // Resuming from the last id a client saw yields the missed command, not a snapshot
+        Subscriber first = subscribers.get(0);
+        create(admin, marker + " missed", 1);
+        Subscriber resumed = new Subscriber(url, token, marker + " missed", first.lastId);
+        resumed.thread.start();
+        try {
+            await().atMost(Duration.ofSeconds(10)).until(() -> resumed.received.size() == 1);
+        } finally {
+            resumed.stop();
+        }
+
+        System.out.printf("%d subscribers, %d commands delivered to all in %.2f s (%.0f deliveries/s), inbox %s%n",
+                SUBSCRIBERS, COMMANDS, seconds, (double) SUBSCRIBERS * COMMANDS / seconds, commandInboxService.getStats());
+        System.out.printf("%-36s %12s%n", "", "command reads");
+        System.out.printf("%-36s %12d%n", COMMANDS + " creates, nobody connected", baselineReads);
+        System.out.printf("%-36s %12d%n", COMMANDS + " creates, " + SUBSCRIBERS + " streaming", streamReads);
+        System.out.printf("%-36s %12d%n", SUBSCRIBERS + " clients polling once", pollReads * SUBSCRIBERS);
+
+        for (Subscriber subscriber : subscribers) {
+            assertThat(subscriber.received).hasSize(COMMANDS);
+        }
+        assertThat(resumed.snapshots).isZero();
+        assertThat(pollReads).isPositive();
+        // Delivery to connected clients reads nothing beyond what the creates themselves do
+        assertThat(streamReads).isLessThanOrEqualTo(baselineReads + 2);
+    }
+
+    private void create(User admin, String title, int count) {
+        for (int i = 0; i < count; i++) {
+            Command command = new Command();
+            command.setTitle(title + " #" + i);
+            command.setDescription("Count the pallets at the east dock");
+            command.setType(Command.CommandType.TASK_ASSIGNMENT);
+            command.setPriority(Command.Priority.MEDIUM);
+            command.setStatus(Command.Status.PENDING);
+            command.setIssuedBy(admin);
+            command.setAssignedTo(admin);
+            commandService.createCommand(command);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private long commandReads() {
+        return ((List<Map<String, Object>>) queryMetricsService.getMetrics().get("statements")).stream()
+                .filter(row -> {
+                    String shape = ((String) row.get("shape")).toLowerCase();
+                    return shape.startsWith("select") && shape.contains(" from commands");
+                })
+                .mapToLong(row -> ((Number) row.get("count")).longValue())
+                .sum();
+    }
+
+    // Holds one inbox stream open, collecting the titles of commands carrying the marker
+    private static final class Subscriber {
+        private final String url;
+        private final String token;
+        private final String marker;
+        private final Thread thread;
+        private final Set<String> received = ConcurrentHashMap.newKeySet();
+        private volatile String lastId;
+        private volatile int snapshots;
+        private volatile InputStream stream;
+
+        Subscriber(String url, String token, String marker, String lastId) {
+            this.url = url;
+            this.token = token;
+            this.marker = marker;
+            this.lastId = lastId;
+            this.thread = new Thread(this::read, "benchmark-inbox-subscriber");
+            this.thread.setDaemon(true);
+        }
+
+        private void read() {
+            try {
+                HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url + "/api/commands/inbox/stream"))
+                        .header("Authorization", "Bearer " + token);
+                if (lastId != null) {
+                    request.header("Last-Event-ID", lastId);
+                }
+                stream = CLIENT.send(request.build(), HttpResponse.BodyHandlers.ofInputStream()).body();
+                BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
+                String event = null;
+                String id = null;
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.startsWith("id:")) {
+                        id = line.substring(3).trim();
+                    } else if (line.startsWith("event:")) {
+                        event = line.substring(6).trim();
+                    } else if (line.startsWith("data:")) {
+                        if ("snapshot".equals(event)) {
+                            snapshots++;
+                        } else if ("command".equals(event)) {
+                            int at = line.indexOf(marker + " #");
+                            if (at >= 0) {
+                                received.add(line.substring(at, line.indexOf('"', at)));
+                            }
+                        }
+                        // Only complete events move the position
+                        lastId = id;
+                    }
+                }
+            } catch (IOException e) {
+                // Closed by stop()
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        void stop() {
+            try {
+                if (stream != null) {
+                    stream.close();
+                }
+            } catch (IOException e) {
+                // Already closed
+            }
+        }
+    }
+}
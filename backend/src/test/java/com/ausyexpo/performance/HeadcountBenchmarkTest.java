@@ -0,0 +1,220 @@
+package com.ausyexpo.performance;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.ausyexpo.model.Department;
+import com.ausyexpo.model.Employee;
+import com.ausyexpo.service.EmployeeService;
+import com.ausyexpo.service.HeadcountService;
+import com.ausyexpo.service.QueryMetricsService;
+
+/**
+ * The headcount index on a seeded workforce: rebuilt from the employee table, then kept current by creates,
+ * department moves, gender changes and deletes through EmployeeService, and compared with GROUP BY counts of
+ * the table without reconciling in between. The count endpoints, department counts and demographics report must
+ * not touch the employee table, and a department count is timed against loading the department's employees.
+ * -Dbench.employees and -Dbench.departments size the run.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"test", "benchmark"})
+class HeadcountBenchmarkTest {
+
+    private static final int EMPLOYEES = Integer.getInteger("bench.employees", 20000);
+    private static final int DEPARTMENTS = Integer.getInteger("bench.departments", 50);
+    private static final int WRITES = 500;
+
+    private static final HttpClient CLIENT = HttpClient.newHttpClient();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private HeadcountService headcountService;
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private QueryMetricsService queryMetricsService;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void countsFollowWritesAndAreServedWithoutEntityLoads() throws Exception {
+        String url = "http://localhost:" + port;
+        String token = WorkloadReplay.signIn(url, "admin@ausyexpo.com", "admin123");
+        List<Long> departments = seedWorkforce();
+
+        // Picks up the rows written behind the service's back
+        long started = System.nanoTime();
+        headcountService.reconcile();
+        double rebuildMillis = (System.nanoTime() - started) / 1e6;
+
+        SplittableRandom random = new SplittableRandom(47);
+        started = System.nanoTime();
+        List<Long> created = new ArrayList<>();
+        for (int i = 0; i < WRITES; i++) {
+            created.add(employeeService.createEmployee(employee("Hire " + i, departments.get(random.nextInt(departments.size())),
+                    Employee.Gender.values()[random.nextInt(3)])).getId());
+        }
+        for (int i = 0; i < WRITES / 2; i++) {
+            Long id = created.get(random.nextInt(created.size()));
+            employeeService.updateEmployee(id, employee("Moved " + i, departments.get(random.nextInt(departments.size())),
+                    Employee.Gender.values()[random.nextInt(3)]));
+        }
+        for (int i = 0; i < WRITES / 5; i++) {
+            employeeService.deleteEmployee(created.remove(random.nextInt(created.size())));
+        }
+        double writeMillis = (System.nanoTime() - started) / 1e6 / (WRITES + WRITES / 2 + WRITES / 5);
+
+        // The index against the table, without a reconcile since the writes
+        long total = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM employees", Long.class);
+        assertThat(headcountService.countAll()).isEqualTo(total);
+        Map<Long, Long> byDepartment = groupCounts("department_id");
+        assertThat(headcountService.countsByDepartment()).containsAllEntriesOf(byDepartment);
+        for (Map.Entry<Long, Long> branch : groupCounts("branch_id").entrySet()) {
+            assertThat(headcountService.countByBranch(branch.getKey())).isEqualTo(branch.getValue());
+        }
+        Map<String, Long> byGender = new HashMap<>();
+        for (Map<String, Object> row : jdbcTemplate.queryForList("SELECT gender, COUNT(*) AS n FROM employees "
+                + "WHERE gender IS NOT NULL GROUP BY gender")) {
+            byGender.put((String) row.get("gender"), ((Number) row.get("n")).longValue());
+        }
+        for (Employee.Gender gender : Employee.Gender.values()) {
+            assertThat(headcountService.countByGender().get(gender)).isEqualTo(byGender.getOrDefault(gender.name(), 0L));
+        }
+
+        // Reads through the API, counting statements against the employee table
+        List<String> paths = new ArrayList<>(List.of("/api/employees/count", "/api/departments/with-employee-count",
+                "/api/reports/employee-demographics"));
+        for (Long departmentId : departments) {
+            paths.add("/api/employees/count/department/" + departmentId);
+        }
+        queryMetricsService.reset();
+        for (String path : paths) {
+            HttpResponse<String> response = CLIENT.send(HttpRequest.newBuilder(URI.create(url + path))
+                    .header("Authorization", "Bearer " + token).build(), HttpResponse.BodyHandlers.ofString());
+            assertThat(response.statusCode()).as(path).isEqualTo(200);
+            if (path.startsWith("/api/employees/count/department/")) {
+                Long departmentId = Long.valueOf(path.substring(path.lastIndexOf('/') + 1));
+                assertThat(Long.parseLong(response.body())).isEqualTo(byDepartment.getOrDefault(departmentId, 0L));
+            }
+        }
+        long indexReads = employeeStatements();
+
+        // Each department counted from the index, and the way it used to be counted by loading its employees
+        started = System.nanoTime();
+        for (Long departmentId : departments) {
+            assertThat(employeeService.countEmployeesByDepartment(departmentId))
+                    .isEqualTo(byDepartment.getOrDefault(departmentId, 0L));
+        }
+        double countMillis = (System.nanoTime() - started) / 1e6 / departments.size();
+        queryMetricsService.reset();
+        started = System.nanoTime();
+        for (Long departmentId : departments) {
+            assertThat((long) employeeService.getEmployeesByDepartment(departmentId).size())
+                    .isEqualTo(byDepartment.getOrDefault(departmentId, 0L));
+        }
+        double loadMillis = (System.nanoTime() - started) / 1e6 / departments.size();
+        long loadReads = employeeStatements();
+
+        System.out.printf("%d employees in %d departments: index rebuilt in %.0f ms, %.2f ms per write%n",
+                total, departments.size(), rebuildMillis, writeMillis);
+        System.out.printf("%-30s %12s%n", "department count", "ms each");
+        System.out.printf("%-30s %12.4f%n", "from the index", countMillis);
+        System.out.printf("%-30s %12.4f%n", "loading the employees", loadMillis);
+        System.out.printf("%d count, department and report requests ran %d employee statements; "
+                + "the %d loads ran %d%n", paths.size(), indexReads, departments.size(), loadReads);
+
+        assertThat(indexReads).isZero();
+        assertThat(loadReads).isGreaterThanOrEqualTo(departments.size());
+        assertThat(countMillis).isLessThan(loadMillis);
+    }
+
+    private Map<Long, Long> groupCounts(String column) {
+        Map<Long, Long> counts = new HashMap<>();
+        for (Map<String, Object> row : jdbcTemplate.queryForList("SELECT " + column + " AS id, COUNT(*) AS n FROM employees "
+                + "WHERE " + column + " IS NOT NULL GROUP BY " + column)) {
+            counts.put(((Number) row.get("id")).longValue(), ((Number) row.get("n")).longValue());
+        }
+        return counts;
+    }
+
+    @SuppressWarnings("unchecked")
+    private long employeeStatements() {
+        return ((List<Map<String, Object>>) queryMetricsService.getMetrics().get("statements")).stream()
+                .filter(row -> ((String) row.get("shape")).toLowerCase().contains(" employees "))
+                .mapToLong(row -> ((Number) row.get("count")).longValue())
+                .sum();
+    }
+
+    private static Employee employee(String name, Long departmentId, Employee.Gender gender) {
+        Employee employee = new Employee();
+        employee.setFirstName(name);
+        employee.setLastName("Benchmark");
+        employee.setDateOfBirth(LocalDate.of(1990, 5, 17));
+        employee.setGender(gender);
+        employee.setContactInformation("+94 11 0000000");
+        Department department = new Department();
+        department.setId(departmentId);
+        employee.setDepartment(department);
+        return employee;
+    }
+
+    // Departments and employees over JDBC, spread over a few branches; returns the new department ids
+    private List<Long> seedWorkforce() throws Exception {
+        new ScaleDataSeeder(47, 5000).seed(dataSource, new ScaleDataSeeder.Counts(5, 0, 0, 0, 0, 0));
+        List<Long> branches = jdbcTemplate.queryForList("SELECT id FROM branches ORDER BY id", Long.class);
+        String marker = "Headcount " + System.nanoTime();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> departmentRows = new ArrayList<>();
+        for (int d = 0; d < DEPARTMENTS; d++) {
+            departmentRows.add(new Object[] {marker + " " + d, branches.get(d % branches.size()), now, now});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO departments (name, branch_id, created_at, updated_at) VALUES (?, ?, ?, ?)",
+                departmentRows);
+        List<Long> departments = jdbcTemplate.queryForList("SELECT id FROM departments WHERE name LIKE ? ORDER BY id",
+                Long.class, marker + " %");
+
+        SplittableRandom random = new SplittableRandom(47);
+        List<Object[]> employees = new ArrayList<>();
+        for (int i = 0; i < EMPLOYEES; i++) {
+            // One in twenty without a department
+            Long departmentId = i % 20 == 0 ? null : departments.get(random.nextInt(departments.size()));
+            employees.add(new Object[] {"Worker", "No. " + i, Date.valueOf(LocalDate.of(1960 + i % 40, 1 + i % 12, 1 + i % 28)),
+                    Employee.Gender.values()[random.nextInt(3)].name(), "+94 11 0000000", departmentId,
+                    branches.get(random.nextInt(branches.size())), now, now});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO employees (first_name, last_name, date_of_birth, gender, "
+                + "contact_information, department_id, branch_id, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                employees);
+        return departments;
+    }
+}
@@ -0,0 +1,128 @@
+package com.ausyexpo.performance;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.ausyexpo.dto.LoadPlan;
+import com.ausyexpo.dto.LoadPlanRequest;
+import com.ausyexpo.model.Transportation;
+import com.ausyexpo.repository.TransportationRepository;
+import com.ausyexpo.service.LoadPlanningService;
+import com.ausyexpo.util.BinPacker;
+
+/**
+ * The dispatch planner on thousands of confirmed orders and a mixed fleet. The plan from the parallel searches is
+ * checked for overloaded vehicles and lost orders, and weighed against the first-fit-decreasing packing it starts
+ * from and against the fewest vehicles that could carry the total. Orders of up to 500 units on vans of 600 to
+ * 1 500 leave little room for a loose packing. -Dbench.orders and -Dbench.budgetMs size the run.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"test", "benchmark"})
+class LoadPlanningBenchmarkTest {
+
+    private static final int ORDERS = Integer.getInteger("bench.orders", 3000);
+    private static final long BUDGET_MILLIS = Long.getLong("bench.budgetMs", 2000);
+
+    @Autowired
+    private LoadPlanningService loadPlanningService;
+
+    @Autowired
+    private TransportationRepository transportationRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void plansThousandsOfOrdersWithinTheBudget() throws Exception {
+        long[] range = new ScaleDataSeeder(42, 5000)
+                .seed(dataSource, new ScaleDataSeeder.Counts(5, ORDERS, 0, 0, 0, 0)).get("orders");
+        jdbcTemplate.update("UPDATE orders SET status = 'CONFIRMED' WHERE id BETWEEN ? AND ?", range[0], range[1]);
+        List<Long> orderIds = jdbcTemplate.queryForList("SELECT id FROM orders WHERE id BETWEEN ? AND ? ORDER BY id",
+                Long.class, range[0], range[1]);
+        long[] sizes = jdbcTemplate.queryForList("SELECT quantity FROM orders WHERE id BETWEEN ? AND ? ORDER BY id",
+                Long.class, range[0], range[1]).stream().mapToLong(Long::longValue).toArray();
+
+        long total = Arrays.stream(sizes).sum();
+        // A fleet with 15% more capacity than the orders need
+        SplittableRandom random = new SplittableRandom(42);
+        String fleet = "BENCH-" + System.nanoTime() + "-";
+        List<Transportation> vehicles = new ArrayList<>();
+        for (long fleetCapacity = 0; fleetCapacity < total * 115 / 100; ) {
+            Transportation vehicle = new Transportation();
+            vehicle.setVehicleType(vehicles.size() % 3 == 0 ? "Truck" : "Van");
+            vehicle.setVehicleNumber(fleet + vehicles.size());
+            vehicle.setCapacity(600.0 + 100 * random.nextInt(10));
+            fleetCapacity += vehicle.getCapacity().longValue();
+            vehicles.add(vehicle);
+        }
+        List<Long> vehicleIds = transportationRepository.saveAll(vehicles).stream().map(Transportation::getId).toList();
+        long[] capacities = vehicles.stream().mapToLong(vehicle -> vehicle.getCapacity().longValue()).toArray();
+
+        long[] largestFirst = capacities.clone();
+        Arrays.sort(largestFirst);
+        int lowerBound = 0;
+        for (long covered = 0; covered < total; lowerBound++) {
+            covered += largestFirst[largestFirst.length - 1 - lowerBound];
+        }
+
+        long started = System.nanoTime();
+        BinPacker.Solution firstFit = new BinPacker(sizes, capacities).solve(0, System.nanoTime());
+        long firstFitMillis = (System.nanoTime() - started) / 1_000_000;
+
+        LoadPlanRequest request = new LoadPlanRequest();
+        request.setOrderIds(orderIds);
+        request.setVehicleIds(vehicleIds);
+        request.setTimeBudgetMillis(BUDGET_MILLIS);
+        LoadPlan plan = loadPlanningService.plan(request);
+
+        System.out.printf("%d orders, %d units on %d vehicles (%d units), %d searches, %d ms budget%n",
+                plan.getOrderCount(), total, plan.getVehicleCount(), Arrays.stream(capacities).sum(),
+                plan.getWorkers(), BUDGET_MILLIS);
+        System.out.printf("%-22s %10s %10s %14s %12s %8s%n", "", "unplaced", "vehicles", "capacity used",
+                "iterations", "ms");
+        System.out.printf("%-22s %10s %10d %14s %12s %8s%n", "lower bound", "0", lowerBound, total, "", "");
+        System.out.printf("%-22s %10d %10d %14d %12d %8d%n", "first fit decreasing", firstFit.getUnplaced(),
+                firstFit.getBinsUsed(), firstFit.getCapacityUsed(), 0, firstFitMillis);
+        System.out.printf("%-22s %10d %10d %14d %12d %8d%n", "planner", plan.getTotalQuantity() - plan.getAssignedQuantity(),
+                plan.getVehiclesUsed(), plan.getCapacityUsed(), plan.getIterations(), plan.getElapsedMillis());
+
+        // Every order is placed exactly once and no vehicle is overloaded
+        Set<Long> planned = new HashSet<>(plan.getUnassignedOrderIds());
+        Map<Long, Long> quantities = new HashMap<>();
+        for (int i = 0; i < sizes.length; i++) {
+            quantities.put(orderIds.get(i), sizes[i]);
+        }
+        for (LoadPlan.VehicleLoad load : plan.getVehicles()) {
+            assertThat(load.getLoad()).isLessThanOrEqualTo(load.getCapacity())
+                    .isEqualTo(load.getOrderIds().stream().mapToLong(quantities::get).sum());
+            for (Long orderId : load.getOrderIds()) {
+                assertThat(planned.add(orderId)).isTrue();
+            }
+        }
+        assertThat(planned).containsExactlyInAnyOrderElementsOf(orderIds);
+        assertThat(plan.getUnassignedOrderIds()).isEmpty();
+
+        assertThat(plan.getVehiclesUsed()).isBetween(lowerBound, firstFit.getBinsUsed());
+        assertThat(plan.getCapacityUsed()).isLessThanOrEqualTo(firstFit.getCapacityUsed());
+        assertThat(plan.getElapsedMillis()).isLessThan(BUDGET_MILLIS + 2000);
+    }
+}
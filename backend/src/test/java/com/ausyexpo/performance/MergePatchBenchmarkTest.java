@@ -0,0 +1,149 @@
+package com.ausyexpo.performance;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.ausyexpo.model.Agreement;
+import com.ausyexpo.model.Order;
+import com.ausyexpo.service.AgreementService;
+import com.ausyexpo.service.OrderService;
+import com.ausyexpo.service.QueryMetricsService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Write amplification of a one-field merge patch on entities carrying large text. The columns of the UPDATE
+ * Hibernate actually ran are taken from the statement metrics and weighed with the row's current values; the
+ * full row is what the update bound before it was limited to dirty columns. -Dbench.patches sets the rounds.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"test", "benchmark"})
+class MergePatchBenchmarkTest {
+
+    private static final int PATCHES = Integer.getInteger("bench.patches", 500);
+    private static final String LONG_TEXT = "Deliver to the loading bay between 08:00 and 16:00. ".repeat(160);
+    // Agreement text columns are plain VARCHAR(255)
+    private static final String CLAUSE = LONG_TEXT.substring(0, 255);
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private AgreementService agreementService;
+
+    @Autowired
+    private QueryMetricsService queryMetricsService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void priorityPatchWritesOnlyItsColumns() {
+        Order order = new Order();
+        order.setOrderNumber("PATCH-" + System.nanoTime());
+        order.setCustomerName("Harbour Traders");
+        order.setProductName("Container crane spares");
+        order.setQuantity(12);
+        order.setUnitPrice(new BigDecimal("1250.00"));
+        order.setTotalAmount(new BigDecimal("15000.00"));
+        order.setNotes(LONG_TEXT);
+        order.setSpecifications(LONG_TEXT);
+        order.setProductDescription("Spares for the gantry cranes at the north berth");
+        long orderId = orderService.createOrder(order).getId();
+
+        Agreement agreement = new Agreement();
+        agreement.setTitle("Port handling " + System.nanoTime());
+        agreement.setAgreementType("Service Agreement");
+        agreement.setClientName("Harbour Traders");
+        agreement.setContractValue(new BigDecimal("250000.00"));
+        agreement.setStartDate(LocalDate.now());
+        agreement.setEndDate(LocalDate.now().plusYears(2));
+        agreement.setDescription(CLAUSE);
+        agreement.setTerms(CLAUSE);
+        agreement.setDeliverables(CLAUSE);
+        long agreementId = agreementService.createAgreement(agreement).getId();
+
+        Measured orders = measure("orders", orderId, round -> orderService.patchOrder(orderId,
+                objectMapper.createObjectNode().put("priority", round % 2 == 0 ? "HIGH" : "LOW"), null));
+        Measured agreements = measure("agreements", agreementId, round -> agreementService.patchAgreement(agreementId,
+                objectMapper.createObjectNode().put("priority", round % 2 == 0 ? "High" : "Low"), null));
+
+        System.out.printf("%-11s %9s %12s %14s %13s  %s%n",
+                "table", "patch/s", "row bytes", "update bytes", "amplification", "columns written");
+        for (Measured measured : List.of(orders, agreements)) {
+            System.out.printf("%-11s %9.0f %12d %14d %12.1fx  %s%n", measured.table, measured.patchesPerSecond,
+                    measured.rowBytes, measured.updateBytes, (double) measured.rowBytes / measured.updateBytes,
+                    measured.columns);
+            assertThat(measured.columns).contains("priority").doesNotContain("notes", "specifications", "terms",
+                    "deliverables", "description");
+            // The patch writes a few dozen bytes of a row that is mostly text
+            assertThat(measured.updateBytes * 10).isLessThan(measured.rowBytes);
+        }
+    }
+
+    private Measured measure(String table, long id, IntConsumer patch) {
+        // Warm-up, then only the measured rounds are counted
+        for (int round = 0; round < PATCHES / 10; round++) {
+            patch.accept(round);
+        }
+        queryMetricsService.reset();
+        long started = System.nanoTime();
+        for (int round = 0; round < PATCHES; round++) {
+            patch.accept(round);
+        }
+        double patchesPerSecond = PATCHES * 1e9 / (System.nanoTime() - started);
+
+        String update = updateShape(table);
+        List<String> columns = new ArrayList<>();
+        for (String assignment : update.substring(update.indexOf(" set ") + 5, update.indexOf(" where ")).split(",")) {
+            columns.add(assignment.substring(0, assignment.indexOf('=')).strip());
+        }
+        Map<String, Object> row = jdbcTemplate.queryForMap("SELECT * FROM " + table + " WHERE id = ?", id);
+        long rowBytes = 0;
+        long updateBytes = 0;
+        for (Map.Entry<String, Object> column : row.entrySet()) {
+            long bytes = bytes(column.getValue());
+            rowBytes += bytes;
+            if (columns.contains(column.getKey().toLowerCase())) {
+                updateBytes += bytes;
+            }
+        }
+        return new Measured(table, patchesPerSecond, columns, rowBytes, updateBytes);
+    }
+
+    @SuppressWarnings("unchecked")
+    private String updateShape(String table) {
+        return ((List<Map<String, Object>>) queryMetricsService.getMetrics().get("statements")).stream()
+                .map(row -> ((String) row.get("shape")).toLowerCase())
+                .filter(shape -> shape.startsWith("update " + table + " set "))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("No update of " + table + " was recorded"));
+    }
+
+    // Bound size of a value: strings by their UTF-8 length, anything else as one 8-byte word
+    private static long bytes(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        return value instanceof String text ? text.getBytes(StandardCharsets.UTF_8).length : 8;
+    }
+
+    private record Measured(String table, double patchesPerSecond, List<String> columns, long rowBytes,
+                            long updateBytes) {
+    }
+}
@@ -0,0 +1,178 @@
+package com.ausyexpo.performance;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ausyexpo.service.EventStreamService;
+import com.ausyexpo.service.OutboxRelayService;
+import com.ausyexpo.service.OutboxService;
+
+/**
+ * Outbox throughput end to end: events appended in transactions, claimed and numbered by the relay, and read back
+ * by SSE clients on /api/orders/events. A client the server closes for falling behind resumes from its last id,
+ * as a browser would. -Dbench.events and -Dbench.subscribers size the run.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"test", "benchmark"})
+class OutboxRelayBenchmarkTest {
+
+    private static final int EVENTS = Integer.getInteger("bench.events", 5000);
+    private static final int SUBSCRIBERS = Integer.getInteger("bench.subscribers", 2);
+    private static final int EVENTS_PER_TRANSACTION = 500;
+
+    private static final HttpClient CLIENT = HttpClient.newHttpClient();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private OutboxRelayService outboxRelayService;
+
+    @Autowired
+    private EventStreamService eventStreamService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void everySubscriberReceivesEveryEventInOrder() throws Exception {
+        String url = "http://localhost:" + port;
+        String token = WorkloadReplay.signIn(url, "admin@ausyexpo.com", "admin123");
+        String eventType = "BENCHMARK_" + System.nanoTime();
+        long after = ((Number) outboxRelayService.getStats().get("lastSequence")).longValue();
+
+        int subscribedBefore = eventStreamService.getSubscriberCount();
+        List<Subscriber> subscribers = new ArrayList<>();
+        for (int i = 0; i < SUBSCRIBERS; i++) {
+            Subscriber subscriber = new Subscriber(url, token, eventType, after);
+            subscribers.add(subscriber);
+            subscriber.thread.start();
+        }
+        await().atMost(Duration.ofSeconds(10))
+                .until(() -> eventStreamService.getSubscriberCount() >= subscribedBefore + SUBSCRIBERS);
+
+        long started = System.nanoTime();
+        for (int from = 0; from < EVENTS; from += EVENTS_PER_TRANSACTION) {
+            int first = from;
+            transactionTemplate.executeWithoutResult(status -> {
+                for (int i = first; i < Math.min(first + EVENTS_PER_TRANSACTION, EVENTS); i++) {
+                    outboxService.append("Order", (long) i, eventType, Map.of("index", i));
+                }
+            });
+        }
+        double appendSeconds = (System.nanoTime() - started) / 1e9;
+
+        try {
+            await().atMost(Duration.ofSeconds(120)).pollInterval(Duration.ofMillis(50))
+                    .until(() -> subscribers.stream().allMatch(subscriber -> subscriber.received.get() >= EVENTS));
+        } finally {
+            subscribers.forEach(Subscriber::stop);
+        }
+
+        Map<String, Object> relay = outboxRelayService.getStats();
+        System.out.printf("appended %d events in %.2f s (%.0f events/s)%n", EVENTS, appendSeconds, EVENTS / appendSeconds);
+        System.out.printf("relay: %s events/s while publishing, %s ms per batch of up to 200%n",
+                Math.round(((Number) relay.get("eventsPerSecond")).doubleValue()), relay.get("averageBatchMillis"));
+        for (int i = 0; i < subscribers.size(); i++) {
+            Subscriber subscriber = subscribers.get(i);
+            double seconds = (subscriber.completedAt - started) / 1e9;
+            System.out.printf("subscriber %d: %d events in %.2f s from the first append (%.0f events/s), %d resumes%n",
+                    i, subscriber.received.get(), seconds, EVENTS / seconds, subscriber.resumes);
+        }
+        for (Subscriber subscriber : subscribers) {
+            assertThat(subscriber.received.get()).isEqualTo(EVENTS);
+            assertThat(subscriber.ordered).isTrue();
+        }
+    }
+
+    // Reads the stream on a thread of its own, reconnecting with Last-Event-ID whenever the server closes it
+    private static final class Subscriber {
+        private final String url;
+        private final String token;
+        private final String eventType;
+        private final Thread thread;
+        private final AtomicInteger received = new AtomicInteger();
+        private volatile long lastId;
+        private volatile boolean ordered = true;
+        private volatile boolean stopped;
+        private volatile InputStream stream;
+        private volatile long completedAt;
+        private int resumes;
+
+        Subscriber(String url, String token, String eventType, long after) {
+            this.url = url;
+            this.token = token;
+            this.eventType = eventType;
+            this.lastId = after;
+            this.thread = new Thread(this::read, "benchmark-subscriber");
+            this.thread.setDaemon(true);
+        }
+
+        private void read() {
+            while (!stopped) {
+                try {
+                    HttpRequest request = HttpRequest.newBuilder(URI.create(url + "/api/orders/events"))
+                            .header("Authorization", "Bearer " + token)
+                            .header("Last-Event-ID", Long.toString(lastId))
+                            .build();
+                    stream = CLIENT.send(request, HttpResponse.BodyHandlers.ofInputStream()).body();
+                    BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (line.startsWith("id:")) {
+                            long id = Long.parseLong(line.substring(3).trim());
+                            ordered &= id > lastId;
+                            lastId = id;
+                        } else if (line.startsWith("event:") && line.substring(6).trim().equals(eventType)
+                                && received.incrementAndGet() == EVENTS) {
+                            completedAt = System.nanoTime();
+                        }
+                    }
+                } catch (IOException e) {
+                    // Closed by stop() or by the server; resume below unless stopping
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (!stopped) {
+                    resumes++;
+                }
+            }
+        }
+
+        void stop() {
+            stopped = true;
+            try {
+                if (stream != null) {
+                    stream.close();
+                }
+            } catch (IOException e) {
+                // Already closed
+            }
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.ausyexpo.performance;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.ausyexpo.model.PayrollRun;
+import com.ausyexpo.service.PayrollService;
+
+/**
+ * The payroll batch over a seeded workforce, one employee in ten without a salary. A clean run is timed and its
+ * totals checked against the same sums in SQL; a second run is made to fail partway by a constraint that
+ * rejects one employee's entry, then resumed once it is lifted, and must end with exactly one entry per
+ * employee. -Dbench.employees sizes the workforce.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"test", "benchmark"})
+class PayrollBenchmarkTest {
+
+    private static final int EMPLOYEES = Integer.getInteger("bench.employees", 20000);
+
+    @Autowired
+    private PayrollService payrollService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void runsCompleteAndResumeWithOneEntryPerEmployee() {
+        long[] range = seedWorkforce();
+        int year = 3000 + (int) (System.nanoTime() % 900);
+        Map<String, Object> expected = jdbcTemplate.queryForMap("SELECT COUNT(*) AS paid, "
+                + "SUM(s.basic_salary + COALESCE(s.increments, 0) - COALESCE(s.decrements, 0)) AS total "
+                + "FROM employees e JOIN salaries s ON s.employee_id = e.id WHERE s.basic_salary IS NOT NULL");
+        long paid = ((Number) expected.get("paid")).longValue();
+        BigDecimal total = (BigDecimal) expected.get("total");
+        long employees = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM employees", Long.class);
+
+        long started = System.nanoTime();
+        PayrollRun clean = finish(payrollService.start(year + "-01", null).getId());
+        double seconds = (System.nanoTime() - started) / 1e9;
+
+        // A later run's entry for one paid employee halfway through is refused until the constraint is dropped
+        long stopAt = jdbcTemplate.queryForObject("SELECT MIN(employee_id) FROM salaries WHERE employee_id >= ?",
+                Long.class, (range[0] + range[1]) / 2);
+        jdbcTemplate.execute("ALTER TABLE payroll_entries ADD CONSTRAINT payroll_benchmark_stop CHECK (employee_id <> "
+                + stopAt + " OR run_id <= " + clean.getId() + ")");
+        PayrollRun failed;
+        try {
+            failed = finish(payrollService.start(year + "-02", null).getId());
+        } finally {
+            jdbcTemplate.execute("ALTER TABLE payroll_entries DROP CONSTRAINT payroll_benchmark_stop");
+        }
+        long resumeStarted = System.nanoTime();
+        PayrollRun resumed = finish(payrollService.resume(failed.getId()).getId());
+        double resumeSeconds = (System.nanoTime() - resumeStarted) / 1e9;
+
+        System.out.printf("%d employees, %d with a salary, %d payroll workers%n", employees, paid,
+                Math.max(1, Runtime.getRuntime().availableProcessors()));
+        System.out.printf("clean run   %8d paid in %.2f s (%.0f employees/s), total %s%n",
+                clean.getProcessedCount(), seconds, employees / seconds, clean.getTotalAmount());
+        System.out.printf("failed run  stopped at checkpoint %d of %d..%d: %s%n", failed.getCheckpointEmployeeId(),
+                range[0], range[1], failed.getLastError());
+        System.out.printf("resumed run %8d paid after %d attempts, %.2f s to finish%n",
+                resumed.getProcessedCount(), resumed.getAttempts(), resumeSeconds);
+
+        assertThat(clean.getStatus()).isEqualTo(PayrollRun.Status.COMPLETED);
+        assertThat(clean.getProcessedCount()).isEqualTo(paid);
+        assertThat(clean.getSkippedCount()).isEqualTo(employees - paid);
+        assertThat(clean.getTotalAmount()).isEqualByComparingTo(total);
+        assertEntries(clean, paid, total);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM salaries WHERE basic_salary IS NOT NULL AND "
+                + "(final_salary IS NULL OR final_salary <> basic_salary + COALESCE(increments, 0) - COALESCE(decrements, 0))",
+                Long.class)).isZero();
+
+        assertThat(failed.getStatus()).isEqualTo(PayrollRun.Status.FAILED);
+        // Chunks before the refused employee were kept
+        assertThat(failed.getCheckpointEmployeeId()).isGreaterThan(range[0]).isLessThan(stopAt);
+        assertThat(resumed.getStatus()).isEqualTo(PayrollRun.Status.COMPLETED);
+        assertThat(resumed.getAttempts()).isEqualTo(2);
+        assertThat(resumed.getProcessedCount()).isEqualTo(paid);
+        assertThat(resumed.getTotalAmount()).isEqualByComparingTo(total);
+        assertEntries(resumed, paid, total);
+        assertThat(seconds).isLessThan(60);
+    }
+
+    private void assertEntries(PayrollRun run, long paid, BigDecimal total) {
+        Map<String, Object> entries = jdbcTemplate.queryForMap("SELECT COUNT(*) AS entries, "
+                + "COUNT(DISTINCT employee_id) AS employees, SUM(final_salary) AS total FROM payroll_entries "
+                + "WHERE run_id = ?", run.getId());
+        assertThat(((Number) entries.get("entries")).longValue()).isEqualTo(paid);
+        assertThat(((Number) entries.get("employees")).longValue()).isEqualTo(paid);
+        assertThat((BigDecimal) entries.get("total")).isEqualByComparingTo(total);
+    }
+
+    private PayrollRun finish(Long runId) {
+        await().atMost(Duration.ofSeconds(120)).pollInterval(Duration.ofMillis(50))
+                .until(() -> payrollService.getRun(runId).getStatus() != PayrollRun.Status.RUNNING);
+        return payrollService.getRun(runId);
+    }
+
+    // Employees and their salaries over JDBC; returns the first and last new employee id
+    private long[] seedWorkforce() {
+        String marker = "payroll-benchmark-" + System.nanoTime();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        SplittableRandom random = new SplittableRandom(46);
+        List<Object[]> employees = new ArrayList<>();
+        for (int i = 0; i < EMPLOYEES; i++) {
+            employees.add(new Object[] {"Worker", "No. " + i, Date.valueOf(LocalDate.of(1960 + i % 40, 1 + i % 12, 1 + i % 28)),
+                    i % 2 == 0 ? "FEMALE" : "MALE", marker, now, now});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO employees (first_name, last_name, date_of_birth, gender, "
+                + "contact_information, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?)", employees);
+        List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM employees WHERE contact_information = ? ORDER BY id",
+                Long.class, marker);
+
+        List<Object[]> salaries = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            if (i % 10 == 9) {
+                continue;
+            }
+            salaries.add(new Object[] {BigDecimal.valueOf(150000 + random.nextInt(850000), 2),
+                    BigDecimal.valueOf(random.nextInt(20000), 2), BigDecimal.valueOf(random.nextInt(10000), 2),
+                    ids.get(i), now, now});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO salaries (basic_salary, increments, decrements, employee_id, created_at, "
+                + "updated_at) VALUES (?, ?, ?, ?, ?, ?)", salaries);
+        return new long[] {ids.get(0), ids.get(ids.size() - 1)};
+    }
+}
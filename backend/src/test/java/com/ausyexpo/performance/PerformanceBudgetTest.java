@@ -0,0 +1,115 @@
+package com.ausyexpo.performance;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.DynamicTest.dynamicTest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.ausyexpo.service.QueryMetricsService;
+
+/**
+ * Replays the frontend's call mix (performance/workload.txt) against the application on seeded scale data and
+ * checks every call against its budgets: p95 latency as the client sees it, and statements and heap allocated per
+ * request as QueryMetricsService measures them on the server.
+ *
+ * Sized for CI by default; -Dperf.scale=200 seeds a million orders, where the unpaginated lists fail their budgets.
+ * -Dperf.users, -Dperf.warmup-seconds and -Dperf.seconds tune the replay.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class PerformanceBudgetTest {
+
+    private static final int SCALE = Integer.getInteger("perf.scale", 1);
+    private static final int USERS = Integer.getInteger("perf.users", 4);
+    private static final int WARMUP_SECONDS = Integer.getInteger("perf.warmup-seconds", 5);
+    private static final int SECONDS = Integer.getInteger("perf.seconds", 20);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private QueryMetricsService queryMetricsService;
+
+    private List<WorkloadReplay.Call> calls;
+    private final Map<String, Map<String, Object>> measured = new HashMap<>();
+
+    @BeforeAll
+    @SuppressWarnings("unchecked")
+    void replayWorkload() throws Exception {
+        Map<String, long[]> ids = new ScaleDataSeeder(42, 5000).seed(dataSource, ScaleDataSeeder.Counts.scaled(SCALE));
+        calls = WorkloadReplay.parse(workload(), ids);
+
+        String url = "http://localhost:" + port;
+        String token = WorkloadReplay.signIn(url, "admin@ausyexpo.com", "admin123");
+        WorkloadReplay replay = new WorkloadReplay(url, token, calls, ids, Duration.ofSeconds(30));
+        replay.run(USERS, Duration.ofSeconds(WARMUP_SECONDS), false);
+        // Server numbers cover the measured run only
+        queryMetricsService.reset();
+        replay.run(USERS, Duration.ofSeconds(SECONDS), true);
+
+        for (Map<String, Object> row : (List<Map<String, Object>>) queryMetricsService.getMetrics().get("endpoints")) {
+            measured.put((String) row.get("endpoint"), row);
+        }
+        System.out.printf("%-60s %6s %8s %8s %9s %9s%n", "call", "count", "p50 ms", "p95 ms", "stmt/req", "KB/req");
+        for (WorkloadReplay.Call call : calls) {
+            Map<String, Object> row = measured.getOrDefault(call.serverEndpoint(), Map.of());
+            System.out.printf("%-60s %6d %8d %8d %9s %9s%n", call, call.getCount(), call.percentileMillis(0.50),
+                    call.percentileMillis(0.95), row.getOrDefault("statementsPerRequest", "-"),
+                    row.getOrDefault("allocatedKbPerRequest", "-"));
+        }
+    }
+
+    @TestFactory
+    Stream<DynamicTest> callsStayWithinBudgets() {
+        return calls.stream().map(call -> dynamicTest(call.toString(), () -> {
+            assertEquals(0, call.getErrors(), () -> "failed calls, last: " + call.getLastError());
+            assertTrue(call.getCount() > 0, "not replayed");
+            if (call.getP95Budget() != null) {
+                long p95 = call.percentileMillis(0.95);
+                assertTrue(p95 <= call.getP95Budget(), () -> "p95 " + p95 + " ms > " + call.getP95Budget() + " ms");
+            }
+            Map<String, Object> row = measured.get(call.serverEndpoint());
+            assertNotNull(row, () -> "no server metrics for " + call.serverEndpoint());
+            if (call.getStatementsBudget() != null) {
+                double statements = ((Number) row.get("statementsPerRequest")).doubleValue();
+                assertTrue(statements <= call.getStatementsBudget(),
+                        () -> "statements per request " + statements + " > " + call.getStatementsBudget());
+            }
+            if (call.getAllocatedKbBudget() != null) {
+                long allocatedKb = ((Number) row.get("allocatedKbPerRequest")).longValue();
+                assertTrue(allocatedKb <= call.getAllocatedKbBudget(),
+                        () -> "heap per request " + allocatedKb + " KB > " + call.getAllocatedKbBudget() + " KB");
+            }
+        }));
+    }
+
+    private static List<String> workload() throws IOException {
+        try (InputStream in = PerformanceBudgetTest.class.getResourceAsStream("/performance/workload.txt")) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8).lines().toList();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.ausyexpo.performance;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.ausyexpo.dto.ReplenishmentReport;
+import com.ausyexpo.service.ReplenishmentService;
+
+/**
+ * The replenishment planner over a seeded catalogue: supplies with minimum quantities spread over the branches,
+ * and a month of releases from the ledger as demand. Times a preview and a writing run, checks every draft
+ * against its reorder point, and that a second run finds nothing left to order. -Dbench.supplies sizes the
+ * catalogue; stock lots, half of which are released, come to half as many.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"test", "benchmark"})
+class ReplenishmentBenchmarkTest {
+
+    private static final int SUPPLIES = Integer.getInteger("bench.supplies", 20000);
+
+    @Autowired
+    private ReplenishmentService replenishmentService;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void plansTheCatalogueInSeconds() throws Exception {
+        Map<String, long[]> ids = new ScaleDataSeeder(36, 5000)
+                .seed(dataSource, new ScaleDataSeeder.Counts(20, 0, SUPPLIES, SUPPLIES / 2, 0, 0));
+        long[] stock = ids.get("stock");
+        // Lots released over the last month become the demand the planner reads from the ledger
+        int released = jdbcTemplate.update("INSERT INTO inventory_movements "
+                + "(type, branch_id, material_type, on_hand_delta, reserved_delta, lot_delta, stock_id, reference, created_at) "
+                + "SELECT 'RELEASE', branch_id, TRIM(material_type), -quantity, 0, -1, id, 'Benchmark demand', "
+                + "DATEADD('DAY', -MOD(id, 30), NOW()) FROM stock WHERE id BETWEEN ? AND ? AND MOD(id, 2) = 0",
+                stock[0], stock[1]);
+        long draftsBefore = drafts();
+
+        // The first preview warms up the queries
+        replenishmentService.plan(true);
+        ReplenishmentReport preview = replenishmentService.plan(true);
+        ReplenishmentReport run = replenishmentService.plan(false);
+        ReplenishmentReport rerun = replenishmentService.plan(false);
+
+        System.out.printf("%d supplies, %d released lots, %d branches, %d planner threads%n", SUPPLIES, released,
+                run.getBranchCount(), Math.max(2, Runtime.getRuntime().availableProcessors()));
+        System.out.printf("%-8s %8s %8s %8s %10s%n", "run", "items", "lines", "drafts", "ms");
+        print("preview", preview);
+        print("run", run);
+        print("rerun", rerun);
+
+        assertThat(run.getItemsScanned()).isPositive();
+        assertThat(run.getDraftsCreated()).isPositive().isEqualTo(preview.getLines().size());
+        assertThat(drafts() - draftsBefore).isEqualTo(run.getDraftsCreated());
+        assertThat(run.getLines()).allSatisfy(line -> {
+            assertThat(line.getLevel()).isLessThan(line.getReorderPoint());
+            assertThat(line.getOrderQuantity()).isGreaterThanOrEqualTo(line.getReorderPoint() - line.getLevel());
+            assertThat(line.getDraftId()).isNotNull();
+        });
+        // Every item below its reorder point now has an open draft
+        assertThat(rerun.getDraftsCreated()).isZero();
+        assertThat(run.getElapsedMillis()).isLessThan(30_000);
+    }
+
+    private static void print(String name, ReplenishmentReport report) {
+        System.out.printf("%-8s %8d %8d %8d %10d%n", name, report.getItemsScanned(), report.getLines().size(),
+                report.getDraftsCreated(), report.getElapsedMillis());
+    }
+
+    private long drafts() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM supply WHERE status = 'DRAFT'", Long.class);
+    }
+}
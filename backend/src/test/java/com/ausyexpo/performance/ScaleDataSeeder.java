@@ -0,0 +1,372 @@
+package com.ausyexpo.performance;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import javax.sql.DataSource;
+
+/**
+ * Seeds scale data straight into the application's schema over JDBC: orders, supplies, stock lots (with their
+ * ledger movements), agreements and commands, spread over a set of branches. Values follow the shapes the
+ * application writes itself, and the same seed gives the same data. Returns the id range of every table seeded,
+ * keyed by the placeholders workload.txt uses.
+ *
+ * In-memory indexes loaded at startup (ledger balances, headcounts, deadlines) do not see the seeded rows.
+ */
+public class ScaleDataSeeder {
+
+    /** Rows to seed; scaled(1) is what the suite runs by default, scaled(200) is a million orders. */
+    public record Counts(int branches, int orders, int supplies, int stock, int agreements, int commands) {
+
+        public static Counts scaled(int factor) {
+            return new Counts(20, 5_000 * factor, 1_500 * factor, 1_500 * factor, 500 * factor, 1_500 * factor);
+        }
+    }
+
+    private static final String[] FIRST_NAMES = {"Olivia", "Liam", "Amara", "Noah", "Priya", "Lucas", "Mei", "Ethan",
+            "Fatima", "Mateo", "Chloe", "Kenji", "Sofia", "Daniel", "Aisha", "Jack"};
+    private static final String[] LAST_NAMES = {"Smith", "Nguyen", "Perera", "Brown", "Silva", "Wilson", "Fernando",
+            "Taylor", "Khan", "Martin", "Lee", "Garcia", "Walker", "Jayasinghe"};
+    private static final String[] PRODUCTS = {"Steel beam", "Copper wire", "PVC pipe", "Timber plank", "Cement bag",
+            "Glass panel", "Aluminium sheet", "Paint drum", "Insulation roll", "Roof tile", "Brick pallet", "Bolt kit"};
+    private static final String[] CATEGORIES = {"CONSTRUCTION", "ELECTRICAL", "PLUMBING", "FINISHING", "HARDWARE"};
+    private static final String[] MATERIALS = {"Steel", "Copper", "PVC", "Timber", "Cement", "Glass", "Aluminium",
+            "Paint", "Insulation", "Clay"};
+    private static final String[] SUPPLIERS = {"Apex Metals", "Lanka Hardware", "Southern Timber", "BlueLine Supply",
+            "Harbor Cement", "Vertex Glass", "Northwind Traders", "Summit Electrical"};
+    private static final String[] UNITS = {"kg", "m", "pcs", "bag", "roll", "l"};
+
+    // Weighted like a live system: most orders are done, a few are still moving
+    private static final String[] ORDER_STATUSES = {"DELIVERED", "DELIVERED", "DELIVERED", "DELIVERED", "CONFIRMED",
+            "PROCESSING", "SHIPPED", "PENDING", "PENDING", "CANCELLED"};
+    private static final String[] PRIORITIES = {"LOW", "MEDIUM", "MEDIUM", "MEDIUM", "HIGH", "URGENT"};
+    private static final String[] PAYMENT_STATUSES = {"PAID", "PAID", "PAID", "PENDING", "PARTIAL", "REFUNDED"};
+    private static final String[] PAYMENT_METHODS = {"BANK_TRANSFER", "CREDIT_CARD", "CASH", "CHEQUE"};
+    private static final String[] SUPPLY_STATUSES = {"COMPLETED", "COMPLETED", "COMPLETED", "APPROVED", "ORDERED",
+            "PENDING", "PENDING", "CANCELLED"};
+    private static final String[] AGREEMENT_TYPES = {"Supply", "Service", "Distribution", "Maintenance", "Lease"};
+    private static final String[] AGREEMENT_STATUSES = {"Active", "Active", "Active", "Draft", "Expired", "Terminated"};
+    private static final String[] COMMAND_TYPES = {"GENERAL_INSTRUCTION", "TASK_ASSIGNMENT", "POLICY_UPDATE",
+            "URGENT_NOTICE", "OPERATIONAL_CHANGE", "SAFETY_DIRECTIVE", "TRAINING_REQUIREMENT", "PERFORMANCE_REVIEW",
+            "MAINTENANCE_REQUEST", "OTHER"};
+    private static final String[] COMMAND_PRIORITIES = {"LOW", "MEDIUM", "MEDIUM", "HIGH", "URGENT"};
+    private static final String[] COMMAND_STATUSES = {"COMPLETED", "COMPLETED", "COMPLETED", "IN_PROGRESS", "PENDING",
+            "PENDING", "ON_HOLD", "CANCELLED"};
+
+    private static final LocalDateTime NOW = LocalDateTime.now().withNano(0);
+
+    private final Random random;
+    private final int batchSize;
+
+    public ScaleDataSeeder(long seed, int batchSize) {
+        this.random = new Random(seed);
+        this.batchSize = batchSize;
+    }
+
+    public Map<String, long[]> seed(DataSource dataSource, Counts counts) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            long[] branches = ensureBranches(connection, counts.branches());
+            long[] users = userIds(connection);
+
+            Map<String, long[]> ranges = new HashMap<>();
+            ranges.put("orders", timed("orders", () -> seedOrders(connection, counts.orders(), branches)));
+            ranges.put("supply", timed("supplies", () -> seedSupplies(connection, counts.supplies(), branches)));
+            ranges.put("stock", timed("stock lots", () -> seedStock(connection, counts.stock(), branches)));
+            ranges.put("agreements", timed("agreements", () -> seedAgreements(connection, counts.agreements(), branches)));
+            ranges.put("commands", timed("commands", () -> seedCommands(connection, counts.commands(), branches, users)));
+            ranges.put("branches", new long[] {branches[0], branches[branches.length - 1]});
+            connection.setAutoCommit(true);
+            return ranges;
+        }
+    }
+
+    private interface Seeding {
+        long[] run() throws SQLException;
+    }
+
+    private long[] timed(String what, Seeding seeding) throws SQLException {
+        long started = System.nanoTime();
+        long[] range = seeding.run();
+        double seconds = (System.nanoTime() - started) / 1e9;
+        long rows = range[1] >= range[0] ? range[1] - range[0] + 1 : 0;
+        System.out.printf("Seeded %s: ids %d..%d in %.1f s (%.0f rows/s)%n", what, range[0], range[1], seconds,
+                rows / Math.max(seconds, 0.001));
+        return range;
+    }
+
+    private long[] ensureBranches(Connection connection, int wanted) throws SQLException {
+        List<Long> ids = ids(connection, "SELECT id FROM branches ORDER BY id");
+        if (ids.size() < wanted) {
+            try (PreparedStatement insert = connection.prepareStatement("INSERT INTO branches "
+                    + "(name, location, contact_details, address, phone, email, manager, is_active, created_at, updated_at) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+                for (int i = ids.size(); i < wanted; i++) {
+                    insert.setString(1, "Scale Branch " + (i + 1));
+                    insert.setString(2, pick(new String[] {"Colombo", "Kandy", "Galle", "Sydney", "Melbourne", "Perth"}));
+                    insert.setString(3, "+94 11 " + (2000000 + i));
+                    insert.setString(4, (10 + i) + " Harbour Road");
+                    insert.setString(5, "+94 11 " + (2000000 + i));
+                    insert.setString(6, "branch" + (i + 1) + "@ausyexpo.com");
+                    insert.setString(7, person());
+                    insert.setBoolean(8, true);
+                    insert.setTimestamp(9, Timestamp.valueOf(NOW));
+                    insert.setTimestamp(10, Timestamp.valueOf(NOW));
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+            connection.commit();
+            ids = ids(connection, "SELECT id FROM branches ORDER BY id");
+        }
+        return ids.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private long[] userIds(Connection connection) throws SQLException {
+        List<Long> ids = ids(connection, "SELECT id FROM users ORDER BY id");
+        if (ids.isEmpty()) {
+            throw new IllegalStateException("No users found; the application creates the admin user at startup");
+        }
+        return ids.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private long[] seedOrders(Connection connection, int count, long[] branches) throws SQLException {
+        // Unique per run, so seeding twice adds rows instead of failing on order numbers
+        String prefix = "SC" + Long.toString(System.currentTimeMillis() / 1000, 36).toUpperCase() + "-";
+        String sql = "INSERT INTO orders (order_number, customer_name, customer_email, customer_phone, customer_address, "
+                + "product_name, product_category, product_description, quantity, unit_price, total_amount, status, "
+                + "priority, order_date, expected_delivery_date, actual_delivery_date, notes, specifications, "
+                + "payment_status, payment_method, created_at, updated_at, version, branch_id) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        return insertRows(connection, "orders", sql, count, (insert, i) -> {
+            String customer = person();
+            String product = pick(PRODUCTS);
+            int quantity = 1 + random.nextInt(500);
+            BigDecimal unitPrice = money(5, 2000);
+            String status = pick(ORDER_STATUSES);
+            LocalDateTime ordered = NOW.minusMinutes(random.nextInt(3 * 365 * 24 * 60));
+            LocalDateTime expected = ordered.plusDays(3 + random.nextInt(30));
+            insert.setString(1, prefix + i);
+            insert.setString(2, customer);
+            insert.setString(3, customer.toLowerCase().replace(' ', '.') + i % 1000 + "@example.com");
+            insert.setString(4, "+94 7" + (10000000 + random.nextInt(89999999)));
+            insert.setString(5, (1 + random.nextInt(400)) + " Main Street");
+            insert.setString(6, product);
+            insert.setString(7, pick(CATEGORIES));
+            insert.setString(8, product + " for site delivery");
+            insert.setInt(9, quantity);
+            insert.setBigDecimal(10, unitPrice);
+            insert.setBigDecimal(11, unitPrice.multiply(BigDecimal.valueOf(quantity)));
+            insert.setString(12, status);
+            insert.setString(13, pick(PRIORITIES));
+            insert.setTimestamp(14, Timestamp.valueOf(ordered));
+            insert.setTimestamp(15, Timestamp.valueOf(expected));
+            insert.setTimestamp(16, "DELIVERED".equals(status)
+                    ? Timestamp.valueOf(expected.minusDays(random.nextInt(3)).plusDays(random.nextInt(4))) : null);
+            insert.setString(17, random.nextInt(4) == 0 ? "Deliver to the loading dock before noon." : null);
+            insert.setString(18, random.nextInt(3) == 0 ? "Grade A, certified, " + pick(MATERIALS).toLowerCase() : null);
+            insert.setString(19, pick(PAYMENT_STATUSES));
+            insert.setString(20, pick(PAYMENT_METHODS));
+            insert.setTimestamp(21, Timestamp.valueOf(ordered));
+            insert.setTimestamp(22, Timestamp.valueOf(ordered.plusHours(random.nextInt(72))));
+            insert.setLong(23, 0);
+            insert.setLong(24, pick(branches));
+        });
+    }
+
+    private long[] seedSupplies(Connection connection, int count, long[] branches) throws SQLException {
+        String sql = "INSERT INTO supply (material_type, item_name, supplier_name, supplier_contact, category, status, "
+                + "description, unit, unit_price, total_cost, minimum_quantity, request_date, delivery_date, quantity, "
+                + "amount, created_at, updated_at, version, branch_id) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        return insertRows(connection, "supply", sql, count, (insert, i) -> {
+            String material = pick(MATERIALS);
+            String status = pick(SUPPLY_STATUSES);
+            int quantity = 1 + random.nextInt(1000);
+            double unitPrice = money(1, 500).doubleValue();
+            LocalDateTime requested = NOW.minusMinutes(random.nextInt(2 * 365 * 24 * 60));
+            insert.setString(1, material);
+            insert.setString(2, material + " " + pick(new String[] {"sheet", "rod", "bundle", "roll", "crate"}));
+            insert.setString(3, pick(SUPPLIERS));
+            insert.setString(4, "orders@" + pick(SUPPLIERS).toLowerCase().replace(" ", "") + ".com");
+            insert.setString(5, pick(CATEGORIES));
+            insert.setString(6, status);
+            insert.setString(7, "Replenishment for " + material.toLowerCase());
+            insert.setString(8, pick(UNITS));
+            insert.setDouble(9, unitPrice);
+            insert.setDouble(10, quantity * unitPrice);
+            insert.setInt(11, random.nextInt(200));
+            insert.setTimestamp(12, Timestamp.valueOf(requested));
+            insert.setTimestamp(13, "COMPLETED".equals(status)
+                    ? Timestamp.valueOf(requested.plusDays(1 + random.nextInt(30))) : null);
+            insert.setInt(14, quantity);
+            insert.setBigDecimal(15, BigDecimal.valueOf(quantity * unitPrice).setScale(2, RoundingMode.HALF_UP));
+            insert.setTimestamp(16, Timestamp.valueOf(requested));
+            insert.setTimestamp(17, Timestamp.valueOf(requested));
+            insert.setLong(18, 0);
+            insert.setLong(19, pick(branches));
+        });
+    }
+
+    // Unreleased lots also get the RECEIVE movement the inventory ledger would have written
+    private long[] seedStock(Connection connection, int count, long[] branches) throws SQLException {
+        String sql = "INSERT INTO stock (stock_type, material_type, quantity, price, purchase_date, release_date, "
+                + "created_at, updated_at, branch_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        long[] range = insertRows(connection, "stock", sql, count, (insert, i) -> {
+            LocalDate purchased = NOW.toLocalDate().minusDays(random.nextInt(2 * 365));
+            insert.setString(1, pick(new String[] {"RAW", "RAW", "FINISHED", "CONSUMABLE"}));
+            insert.setString(2, pick(MATERIALS));
+            insert.setInt(3, 1 + random.nextInt(500));
+            insert.setBigDecimal(4, money(1, 300));
+            insert.setDate(5, Date.valueOf(purchased));
+            insert.setDate(6, random.nextInt(3) == 0 ? Date.valueOf(purchased.plusDays(1 + random.nextInt(60))) : null);
+            insert.setTimestamp(7, Timestamp.valueOf(purchased.atStartOfDay()));
+            insert.setTimestamp(8, Timestamp.valueOf(purchased.atStartOfDay()));
+            insert.setLong(9, pick(branches));
+        });
+        try (PreparedStatement movements = connection.prepareStatement("INSERT INTO inventory_movements "
+                + "(type, branch_id, material_type, on_hand_delta, reserved_delta, lot_delta, stock_id, reference, created_at) "
+                + "SELECT 'RECEIVE', branch_id, TRIM(material_type), quantity, 0, 1, id, 'Scale seed', created_at "
+                + "FROM stock WHERE id BETWEEN ? AND ? AND release_date IS NULL")) {
+            movements.setLong(1, range[0]);
+            movements.setLong(2, range[1]);
+            System.out.println("  ledger movements: " + movements.executeUpdate());
+        }
+        connection.commit();
+        return range;
+    }
+
+    private long[] seedAgreements(Connection connection, int count, long[] branches) throws SQLException {
+        String sql = "INSERT INTO agreements (title, agreement_type, client_name, client_contact, client_email, "
+                + "description, contract_value, start_date, end_date, status, terms, deliverables, payment_terms, "
+                + "duration_months, is_active, document_path, priority, created_at, updated_at, version, branch_id) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        return insertRows(connection, "agreements", sql, count, (insert, i) -> {
+            String type = pick(AGREEMENT_TYPES);
+            String client = pick(SUPPLIERS);
+            String status = pick(AGREEMENT_STATUSES);
+            int months = 6 + random.nextInt(36);
+            LocalDate start = NOW.toLocalDate().minusDays(random.nextInt(3 * 365));
+            insert.setString(1, type + " agreement with " + client);
+            insert.setString(2, type);
+            insert.setString(3, client);
+            insert.setString(4, person());
+            insert.setString(5, "contracts@" + client.toLowerCase().replace(" ", "") + ".com");
+            insert.setString(6, type + " of " + pick(MATERIALS).toLowerCase() + " to regional branches");
+            insert.setBigDecimal(7, money(1000, 2000000));
+            insert.setDate(8, Date.valueOf(start));
+            insert.setDate(9, Date.valueOf(start.plusMonths(months)));
+            insert.setString(10, status);
+            insert.setString(11, "Standard terms; 30 days notice for termination.");
+            insert.setString(12, "Monthly deliveries as scheduled.");
+            insert.setString(13, pick(new String[] {"Net 30", "Net 60", "Monthly", "On delivery"}));
+            insert.setInt(14, months);
+            insert.setBoolean(15, "Active".equals(status));
+            insert.setNull(16, Types.VARCHAR);
+            insert.setString(17, pick(PRIORITIES));
+            insert.setTimestamp(18, Timestamp.valueOf(start.atStartOfDay()));
+            insert.setTimestamp(19, Timestamp.valueOf(start.atStartOfDay()));
+            insert.setLong(20, 0);
+            insert.setLong(21, pick(branches));
+        });
+    }
+
+    private long[] seedCommands(Connection connection, int count, long[] branches, long[] users) throws SQLException {
+        String sql = "INSERT INTO commands (title, description, type, priority, status, due_date, completed_date, notes, "
+                + "created_at, updated_at, version, issued_by_id, assigned_to_id, branch_id) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        return insertRows(connection, "commands", sql, count, (insert, i) -> {
+            String type = pick(COMMAND_TYPES);
+            String status = pick(COMMAND_STATUSES);
+            LocalDateTime created = NOW.minusMinutes(random.nextInt(2 * 365 * 24 * 60));
+            LocalDateTime due = created.plusDays(1 + random.nextInt(21));
+            insert.setString(1, type.replace('_', ' ').toLowerCase() + " #" + (i + 1));
+            insert.setString(2, "Please action this " + type.replace('_', ' ').toLowerCase() + " for your branch.");
+            insert.setString(3, type);
+            insert.setString(4, pick(COMMAND_PRIORITIES));
+            insert.setString(5, status);
+            insert.setTimestamp(6, Timestamp.valueOf(due));
+            insert.setTimestamp(7, "COMPLETED".equals(status) ? Timestamp.valueOf(due.minusDays(random.nextInt(3))) : null);
+            insert.setString(8, random.nextInt(5) == 0 ? "Follow up with the branch manager." : null);
+            insert.setTimestamp(9, Timestamp.valueOf(created));
+            insert.setTimestamp(10, Timestamp.valueOf(created));
+            insert.setLong(11, 0);
+            insert.setLong(12, users[0]);
+            insert.setLong(13, pick(users));
+            insert.setLong(14, pick(branches));
+        });
+    }
+
+    private interface RowWriter {
+        void write(PreparedStatement insert, int index) throws SQLException;
+    }
+
+    // Batched inserts committed every batch; returns the id range of the new rows
+    private long[] insertRows(Connection connection, String table, String sql, int count, RowWriter writer)
+            throws SQLException {
+        long before = maxId(connection, table);
+        try (PreparedStatement insert = connection.prepareStatement(sql)) {
+            for (int i = 0; i < count; i++) {
+                writer.write(insert, i);
+                insert.addBatch();
+                if ((i + 1) % batchSize == 0 || i + 1 == count) {
+                    insert.executeBatch();
+                    connection.commit();
+                }
+                if ((i + 1) % 100_000 == 0) {
+                    System.out.println("  " + table + ": " + (i + 1) + " / " + count);
+                }
+            }
+        }
+        return new long[] {before + 1, maxId(connection, table)};
+    }
+
+    private long maxId(Connection connection, String table) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("SELECT COALESCE(MAX(id), 0) FROM " + table)) {
+            rows.next();
+            return rows.getLong(1);
+        }
+    }
+
+    private List<Long> ids(Connection connection, String sql) throws SQLException {
+        List<Long> ids = new ArrayList<>();
+        try (Statement statement = connection.createStatement(); ResultSet rows = statement.executeQuery(sql)) {
+            while (rows.next()) {
+                ids.add(rows.getLong(1));
+            }
+        }
+        return ids;
+    }
+
+    private String person() {
+        return pick(FIRST_NAMES) + " " + pick(LAST_NAMES);
+    }
+
+    private String pick(String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private long pick(long[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private BigDecimal money(int min, int max) {
+        return BigDecimal.valueOf(min * 100L + random.nextInt((max - min) * 100), 2);
+    }
+}
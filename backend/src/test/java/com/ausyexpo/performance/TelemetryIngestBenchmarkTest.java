@@ -0,0 +1,192 @@
+package com.ausyexpo.performance;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.ausyexpo.dto.TelemetryPoint;
+import com.ausyexpo.model.Transportation;
+import com.ausyexpo.repository.TransportationRepository;
+import com.ausyexpo.service.TelemetryService;
+
+/**
+ * Telemetry ingestion end to end: senders post batches of pings to /api/transportation/telemetry as fast as
+ * they are accepted, backing off when the server answers 503, and the run ends once the flusher has written
+ * everything. Every accepted ping must reach vehicle_telemetry and the latest position of each vehicle must be
+ * its newest ping. -Dbench.pings, -Dbench.vehicles, -Dbench.batch and -Dbench.senders size the run.
+ *
+ * Tagged "benchmark", so it only runs with mvn test -Pbenchmark.
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"test", "benchmark"})
+class TelemetryIngestBenchmarkTest {
+
+    private static final int PINGS = Integer.getInteger("bench.pings", 100000);
+    private static final int VEHICLES = Integer.getInteger("bench.vehicles", 50);
+    private static final int BATCH = Integer.getInteger("bench.batch", 500);
+    private static final int SENDERS = Integer.getInteger("bench.senders", 4);
+
+    private static final HttpClient CLIENT = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TelemetryService telemetryService;
+
+    @Autowired
+    private TransportationRepository transportationRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final AtomicLong refused = new AtomicLong();
+    private final AtomicLong broken = new AtomicLong();
+    private final AtomicLong requestNanos = new AtomicLong();
+    private final AtomicLong requests = new AtomicLong();
+
+    @Test
+    void everyAcceptedPingIsWritten() throws Exception {
+        String url = "http://localhost:" + port;
+        String token = WorkloadReplay.signIn(url, "admin@ausyexpo.com", "admin123");
+        String prefix = "TELEMETRY-" + System.nanoTime() + "-";
+        List<Transportation> fleet = new ArrayList<>();
+        for (int v = 0; v < VEHICLES; v++) {
+            Transportation vehicle = new Transportation();
+            vehicle.setVehicleType("Truck");
+            vehicle.setVehicleNumber(prefix + v);
+            vehicle.setCapacity(5000.0);
+            fleet.add(vehicle);
+        }
+        long[] vehicleIds = transportationRepository.saveAll(fleet).stream().mapToLong(Transportation::getId).toArray();
+
+        // Ping i belongs to vehicle i % VEHICLES and is recorded i milliseconds after the base time
+        LocalDateTime base = LocalDateTime.now().withNano(0).minusSeconds(PINGS / 1000 + 1);
+        List<String> payloads = new ArrayList<>();
+        for (int from = 0; from < PINGS; from += BATCH) {
+            StringBuilder body = new StringBuilder(BATCH * 140).append('[');
+            for (int i = from; i < Math.min(from + BATCH, PINGS); i++) {
+                if (i > from) {
+                    body.append(',');
+                }
+                body.append("{\"vehicleId\":").append(vehicleIds[i % VEHICLES])
+                        .append(",\"recordedAt\":\"").append(base.plusNanos(i * 1_000_000L))
+                        .append("\",\"latitude\":").append(latitude(i))
+                        .append(",\"longitude\":").append(151.21 + (i % 700) * 1e-4)
+                        .append(",\"fuelLevel\":").append(100 - i % 95)
+                        .append(",\"speed\":").append(i % 90)
+                        .append('}');
+            }
+            payloads.add(body.append(']').toString());
+        }
+
+        Map<String, Object> before = telemetryService.getStats();
+        ExecutorService senders = Executors.newFixedThreadPool(SENDERS);
+        long started = System.nanoTime();
+        List<Future<Integer>> sent = new ArrayList<>();
+        for (String payload : payloads) {
+            sent.add(senders.submit(() -> send(url, token, payload)));
+        }
+        int failed = 0;
+        for (Future<Integer> status : sent) {
+            failed += status.get() == 202 ? 0 : 1;
+        }
+        senders.shutdown();
+        double acceptSeconds = (System.nanoTime() - started) / 1e9;
+
+        long acceptedBefore = ((Number) before.get("accepted")).longValue();
+        long writtenBefore = ((Number) before.get("written")).longValue();
+        await().atMost(Duration.ofSeconds(120)).pollInterval(Duration.ofMillis(20))
+                .until(() -> ((Number) telemetryService.getStats().get("written")).longValue() - writtenBefore >= PINGS);
+        double writeSeconds = (System.nanoTime() - started) / 1e9;
+        Map<String, Object> after = telemetryService.getStats();
+        long accepted = ((Number) after.get("accepted")).longValue() - acceptedBefore;
+        long written = ((Number) after.get("written")).longValue() - writtenBefore;
+
+        System.out.printf("%d pings for %d vehicles in %d batches of %d from %d senders%n",
+                PINGS, VEHICLES, payloads.size(), BATCH, SENDERS);
+        System.out.printf("accepted %d in %.2f s (%.0f pings/s), %d refused and resent, %d broken connections, "
+                + "%.1f ms per request%n", accepted, acceptSeconds, accepted / acceptSeconds, refused.get(),
+                broken.get(), requestNanos.get() / 1e6 / Math.max(1, requests.get()));
+        System.out.printf("written %d in %.2f s from the first request (%.0f pings/s), %s batches so far, last %s ms%n",
+                written, writeSeconds, written / writeSeconds, after.get("batches"), after.get("lastBatchMillis"));
+
+        assertThat(failed).isZero();
+        assertThat(accepted).isEqualTo(PINGS);
+        assertThat(written).isEqualTo(accepted);
+        assertThat(after.get("dropped")).isEqualTo(before.get("dropped"));
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM vehicle_telemetry WHERE transportation_id BETWEEN ? AND ?",
+                Long.class, vehicleIds[0], vehicleIds[VEHICLES - 1])).isEqualTo((long) PINGS);
+        for (int v = 0; v < Math.min(VEHICLES, PINGS); v++) {
+            int newest = v + (PINGS - 1 - v) / VEHICLES * VEHICLES;
+            TelemetryPoint latest = telemetryService.getLatest(vehicleIds[v]);
+            assertThat(latest.getRecordedAt()).isEqualTo(base.plusNanos(newest * 1_000_000L));
+            assertThat(latest.getLatitude()).isEqualTo(latitude(newest));
+        }
+        // Thousands of pings a second even on a single core
+        assertThat(accepted / writeSeconds).isGreaterThan(1000);
+    }
+
+    // Resends a refused batch after the server's Retry-After, and one whose connection broke; returns the final status
+    private int send(String url, String token, String payload) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url + "/api/transportation/telemetry"))
+                .header("Content-Type", "application/json")
+                .header("Authorization", "Bearer " + token)
+                .timeout(Duration.ofSeconds(30))
+                .POST(HttpRequest.BodyPublishers.ofString(payload))
+                .build();
+        for (int breaks = 0; ; ) {
+            long started = System.nanoTime();
+            HttpResponse<String> response;
+            try {
+                response = CLIENT.send(request, HttpResponse.BodyHandlers.ofString());
+            } catch (IOException e) {
+                // A kept-alive connection closed under the request; the batch goes again like a refused one
+                broken.incrementAndGet();
+                if (++breaks > 5) {
+                    throw e;
+                }
+                Thread.sleep(100);
+                continue;
+            }
+            requestNanos.addAndGet(System.nanoTime() - started);
+            requests.incrementAndGet();
+            if (response.statusCode() != 503) {
+                return response.statusCode();
+            }
+            refused.addAndGet(BATCH);
+            Thread.sleep(TimeUnit.SECONDS.toMillis(response.headers().firstValueAsLong("Retry-After").orElse(1)));
+        }
+    }
+
+    private static double latitude(int ping) {
+        return -33.87 + (ping % 1000) * 1e-4;
+    }
+}
@@ -0,0 +1,95 @@
+package com.ausyexpo.performance;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.DoubleSupplier;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.ausyexpo.model.Branch;
+import com.ausyexpo.service.BranchService;
+import com.ausyexpo.service.QueryMetricsService;
+import com.ausyexpo.service.UniqueKeyFilterService;
+import com.ausyexpo.service.UniqueKeyFilterService.KeySpace;
+
+/**
+ * Bulk branch creation with the Bloom filter fast path against the same run with the filters dropped, so every
+ * uniqueness check goes to the database. -Dbench.creates sets the number of branches per run.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"test", "benchmark"})
+class UniqueKeyFilterBenchmarkTest {
+
+    private static final int CREATES = Integer.getInteger("bench.creates", 500);
+
+    @Autowired
+    private BranchService branchService;
+
+    @Autowired
+    private UniqueKeyFilterService uniqueKeyFilterService;
+
+    @Autowired
+    private QueryMetricsService queryMetricsService;
+
+    @Test
+    void bloomFilterSkipsTheExistenceQueries() {
+        String run = Long.toString(System.nanoTime());
+        // Warm up both paths before measuring
+        createBranches("Warm-up filtered " + run, CREATES / 10);
+        withoutFilters(() -> createBranches("Warm-up direct " + run, CREATES / 10));
+
+        double filteredPerSecond = createBranches("Filtered " + run, CREATES);
+        double directPerSecond = withoutFilters(() -> createBranches("Direct " + run, CREATES));
+        double filteredStatements = statementsPerCreate("Filtered " + run);
+        double directStatements = statementsPerCreate("Direct " + run);
+
+        System.out.printf("%-10s %12s %14s%n", "path", "creates/s", "stmt/create");
+        System.out.printf("%-10s %12.0f %14.1f%n", "filtered", filteredPerSecond, filteredStatements);
+        System.out.printf("%-10s %12.0f %14.1f%n", "direct", directPerSecond, directStatements);
+        // existsByName and findByEmail are skipped for every new key
+        assertThat(filteredStatements).isLessThanOrEqualTo(directStatements - 2);
+    }
+
+    // Each create is recorded as a request of its own, named after the run
+    private double createBranches(String prefix, int count) {
+        long started = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            queryMetricsService.beginRequest(prefix);
+            long createStarted = System.nanoTime();
+            Branch branch = new Branch(prefix + " " + i, "Colombo", "+94 11 " + (3000000 + i));
+            branch.setEmail(prefix.replace(' ', '.').toLowerCase() + "." + i + "@ausyexpo.com");
+            branchService.createBranch(branch);
+            queryMetricsService.endRequest(System.nanoTime() - createStarted, -1);
+        }
+        return count * 1e9 / (System.nanoTime() - started);
+    }
+
+    @SuppressWarnings("unchecked")
+    private double statementsPerCreate(String prefix) {
+        return ((List<Map<String, Object>>) queryMetricsService.getMetrics().get("endpoints")).stream()
+                .filter(row -> prefix.equals(row.get("endpoint")))
+                .mapToDouble(row -> ((Number) row.get("statementsPerRequest")).doubleValue())
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("No metrics recorded for " + prefix));
+    }
+
+    // A key space without a filter falls through to the database
+    @SuppressWarnings("unchecked")
+    private double withoutFilters(DoubleSupplier work) {
+        Map<KeySpace, ?> filters = (Map<KeySpace, ?>) ReflectionTestUtils.getField(uniqueKeyFilterService, "filters");
+        filters.remove(KeySpace.BRANCH_NAME);
+        filters.remove(KeySpace.BRANCH_EMAIL);
+        try {
+            return work.getAsDouble();
+        } finally {
+            uniqueKeyFilterService.rebuild(KeySpace.BRANCH_NAME);
+            uniqueKeyFilterService.rebuild(KeySpace.BRANCH_EMAIL);
+        }
+    }
+}
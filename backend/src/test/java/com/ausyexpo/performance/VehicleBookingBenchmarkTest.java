@@ -0,0 +1,240 @@
+package com.ausyexpo.performance;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.ausyexpo.model.Transportation;
+import com.ausyexpo.model.VehicleBooking;
+import com.ausyexpo.repository.TransportationRepository;
+import com.ausyexpo.service.QueryMetricsService;
+import com.ausyexpo.service.VehicleBookingService;
+import com.ausyexpo.util.IntervalTree;
+
+/**
+ * The booking calendar: interval tree lookups against a scan of the same bookings (timed, but only the answers are
+ * asserted), dispatchers racing for one vehicle and slot, and free-vehicle searches over a fleet that is half
+ * booked. -Dbench.bookings, -Dbench.threads and -Dbench.vehicles size the run.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"test", "benchmark"})
+class VehicleBookingBenchmarkTest {
+
+    private static final int BOOKINGS = Integer.getInteger("bench.bookings", 100000);
+    private static final int THREADS = Integer.getInteger("bench.threads", 8);
+    private static final int VEHICLES = Integer.getInteger("bench.vehicles", 500);
+    private static final int ROUNDS = 20;
+    private static final int QUERIES = 20000;
+    private static final long HOUR = 3_600_000L;
+
+    @Autowired
+    private VehicleBookingService vehicleBookingService;
+
+    @Autowired
+    private TransportationRepository transportationRepository;
+
+    @Autowired
+    private QueryMetricsService queryMetricsService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void treeAnswersLikeAScan() {
+        // A year of trips of one to 48 hours
+        SplittableRandom random = new SplittableRandom(44);
+        IntervalTree<Long> tree = new IntervalTree<>();
+        long[][] bookings = new long[BOOKINGS][];
+        for (int i = 0; i < BOOKINGS; i++) {
+            long start = random.nextLong(365 * 24 * HOUR);
+            bookings[i] = new long[] {start, start + HOUR * (1 + random.nextInt(48))};
+            tree.add(i, bookings[i][0], bookings[i][1], (long) i);
+        }
+        long[][] queries = new long[QUERIES][];
+        for (int i = 0; i < QUERIES; i++) {
+            long start = random.nextLong(365 * 24 * HOUR);
+            queries[i] = new long[] {start, start + HOUR * (1 + random.nextInt(4))};
+        }
+
+        // The yes/no check behind isBooked, then the full listing
+        long started = System.nanoTime();
+        int busy = 0;
+        for (long[] query : queries) {
+            busy += tree.overlaps(query[0], query[1]) ? 1 : 0;
+        }
+        double checkNanos = (double) (System.nanoTime() - started) / QUERIES;
+
+        started = System.nanoTime();
+        int treeHits = 0;
+        for (long[] query : queries) {
+            treeHits += tree.overlapping(query[0], query[1]).size();
+        }
+        double treeNanos = (double) (System.nanoTime() - started) / QUERIES;
+
+        started = System.nanoTime();
+        int scanHits = 0;
+        for (long[] query : queries) {
+            for (long[] booking : bookings) {
+                if (booking[0] < query[1] && query[0] < booking[1]) {
+                    scanHits++;
+                }
+            }
+        }
+        double scanNanos = (double) (System.nanoTime() - started) / QUERIES;
+
+        System.out.printf("%d bookings, %d queries averaging %.1f overlaps%n", BOOKINGS, QUERIES, (double) scanHits / QUERIES);
+        System.out.printf("tree overlaps    %10.0f ns/query (%d of the periods busy)%n", checkNanos, busy);
+        System.out.printf("tree overlapping %10.0f ns/query%nlinear scan      %10.0f ns/query (%.0fx)%n",
+                treeNanos, scanNanos, scanNanos / treeNanos);
+
+        assertThat(treeHits).isEqualTo(scanHits);
+        for (int i = 0; i < 200; i++) {
+            long[] query = queries[i];
+            Set<Long> expected = new HashSet<>();
+            for (int b = 0; b < BOOKINGS; b++) {
+                if (bookings[b][0] < query[1] && query[0] < bookings[b][1]) {
+                    expected.add((long) b);
+                }
+            }
+            assertThat(new HashSet<>(tree.overlapping(query[0], query[1]))).isEqualTo(expected);
+            assertThat(tree.overlaps(query[0], query[1])).isEqualTo(!expected.isEmpty());
+        }
+    }
+
+    @Test
+    void racingDispatchersGetOneBookingPerSlot() throws Exception {
+        Long vehicleId = fleet(1, 5000.0).get(0).getId();
+        LocalDateTime base = LocalDateTime.now().plusDays(1).withNano(0);
+        ExecutorService dispatchers = Executors.newFixedThreadPool(THREADS);
+        Map<String, AtomicInteger> outcomes = new ConcurrentHashMap<>();
+        int booked = 0;
+        long started = System.nanoTime();
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                LocalDateTime start = base.plusHours(3L * round);
+                CountDownLatch gate = new CountDownLatch(1);
+                List<Future<Boolean>> attempts = new ArrayList<>();
+                for (int t = 0; t < THREADS; t++) {
+                    // Every dispatcher asks for an overlapping, slightly different period
+                    LocalDateTime from = start.plusMinutes(10L * t);
+                    attempts.add(dispatchers.submit(() -> {
+                        gate.await();
+                        VehicleBooking booking = new VehicleBooking();
+                        booking.setStartTime(from);
+                        booking.setEndTime(from.plusHours(2));
+                        booking.setReference("Race " + from);
+                        try {
+                            vehicleBookingService.book(vehicleId, booking, null);
+                            outcomes.computeIfAbsent("booked", k -> new AtomicInteger()).incrementAndGet();
+                            return true;
+                        } catch (RuntimeException e) {
+                            outcomes.computeIfAbsent(e.getClass().getSimpleName(), k -> new AtomicInteger()).incrementAndGet();
+                            return false;
+                        }
+                    }));
+                }
+                gate.countDown();
+                int winners = 0;
+                for (Future<Boolean> attempt : attempts) {
+                    if (attempt.get()) {
+                        winners++;
+                    }
+                }
+                assertThat(winners).as("bookings in round %d", round).isEqualTo(1);
+                booked += winners;
+            }
+        } finally {
+            dispatchers.shutdown();
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+
+        System.out.printf("%d rounds of %d dispatchers in %.2f s (%.0f attempts/s): %s%n", ROUNDS, THREADS, seconds,
+                ROUNDS * THREADS / seconds, outcomes);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM vehicle_bookings WHERE transportation_id = ? "
+                + "AND status = 'ACTIVE'", Integer.class, vehicleId)).isEqualTo(booked);
+        // No two stored bookings of the vehicle overlap
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM vehicle_bookings a JOIN vehicle_bookings b "
+                + "ON a.transportation_id = b.transportation_id AND a.id < b.id AND a.start_time < b.end_time "
+                + "AND b.start_time < a.end_time WHERE a.transportation_id = ? AND a.status = 'ACTIVE' "
+                + "AND b.status = 'ACTIVE'", Integer.class, vehicleId)).isZero();
+    }
+
+    @Test
+    void freeVehiclesComeFromTheCalendarsNotTheBookingsTable() {
+        List<Transportation> vehicles = fleet(VEHICLES, null);
+        LocalDateTime from = LocalDateTime.now().plusDays(30).withNano(0);
+        LocalDateTime to = from.plusHours(8);
+        Set<Long> booked = new HashSet<>();
+        for (int i = 0; i < vehicles.size(); i += 2) {
+            VehicleBooking booking = new VehicleBooking();
+            booking.setStartTime(from.plusHours(i % 7));
+            booking.setEndTime(from.plusHours(i % 7 + 3));
+            vehicleBookingService.book(vehicles.get(i).getId(), booking, null);
+            booked.add(vehicles.get(i).getId());
+        }
+        double minCapacity = 3000.0;
+        Set<Long> expected = vehicles.stream()
+                .filter(vehicle -> !booked.contains(vehicle.getId()) && vehicle.getCapacity() >= minCapacity)
+                .map(Transportation::getId)
+                .collect(Collectors.toSet());
+
+        vehicleBookingService.findFreeVehicles(from, to, minCapacity, null);
+        queryMetricsService.reset();
+        int searches = 50;
+        long started = System.nanoTime();
+        List<Transportation> free = null;
+        for (int i = 0; i < searches; i++) {
+            free = vehicleBookingService.findFreeVehicles(from, to, minCapacity, null);
+        }
+        double millis = (System.nanoTime() - started) / 1e6 / searches;
+        long bookingReads = statements("vehicle_bookings");
+
+        System.out.printf("%d vehicles, %d booked: free search %.2f ms, %d of them free with capacity >= %.0f, "
+                + "%d booking reads%n", VEHICLES, booked.size(), millis, expected.size(), minCapacity, bookingReads);
+        Set<Long> ours = vehicles.stream().map(Transportation::getId).collect(Collectors.toSet());
+        assertThat(free.stream().map(Transportation::getId).filter(ours::contains).collect(Collectors.toSet()))
+                .isEqualTo(expected);
+        assertThat(bookingReads).isZero();
+    }
+
+    private List<Transportation> fleet(int count, Double capacity) {
+        SplittableRandom random = new SplittableRandom(count);
+        String prefix = "BOOK-" + System.nanoTime() + "-";
+        List<Transportation> vehicles = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Transportation vehicle = new Transportation();
+            vehicle.setVehicleType("Truck");
+            vehicle.setVehicleNumber(prefix + i);
+            vehicle.setCapacity(capacity != null ? capacity : 1000.0 + 500 * random.nextInt(9));
+            vehicles.add(vehicle);
+        }
+        return transportationRepository.saveAll(vehicles);
+    }
+
+    @SuppressWarnings("unchecked")
+    private long statements(String table) {
+        return ((List<Map<String, Object>>) queryMetricsService.getMetrics().get("statements")).stream()
+                .filter(row -> ((String) row.get("shape")).toLowerCase().contains(" " + table + " "))
+                .mapToLong(row -> ((Number) row.get("count")).longValue())
+                .sum();
+    }
+}
@@ -0,0 +1,231 @@
+package com.ausyexpo.performance;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Replays the frontend's call mix (workload.txt) against a running server with concurrent virtual users and keeps
+ * the latencies each call saw. Placeholders such as {orders} are replaced by a random id from the seeded range.
+ *
+ * Line format: weight method path p95-ms statements-per-request allocated-kb-per-request [| JSON body],
+ * where "-" skips a budget.
+ */
+public class WorkloadReplay {
+
+    private static final HttpClient CLIENT = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\{([a-z]+)\\}");
+
+    /** One line of the workload, with what the replay observed. */
+    public static final class Call {
+        private int weight;
+        private String method;
+        private String path;
+        private String body;
+        private Long p95Budget;
+        private Double statementsBudget;
+        private Long allocatedKbBudget;
+        private final List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicLong errors = new AtomicLong();
+        private volatile String lastError;
+
+        public Long getP95Budget() {
+            return p95Budget;
+        }
+
+        public Double getStatementsBudget() {
+            return statementsBudget;
+        }
+
+        public Long getAllocatedKbBudget() {
+            return allocatedKbBudget;
+        }
+
+        public long getCount() {
+            return latencies.size();
+        }
+
+        public long getErrors() {
+            return errors.get();
+        }
+
+        public String getLastError() {
+            return lastError;
+        }
+
+        // The endpoint name QueryCountFilter records: no query string, ids folded to {id}
+        public String serverEndpoint() {
+            String bare = path.contains("?") ? path.substring(0, path.indexOf('?')) : path;
+            return method + " " + PLACEHOLDER.matcher(bare).replaceAll("{id}").replaceAll("/\\d+(?=/|$)", "/{id}");
+        }
+
+        public long percentileMillis(double fraction) {
+            List<Long> sorted;
+            synchronized (latencies) {
+                sorted = new ArrayList<>(latencies);
+            }
+            if (sorted.isEmpty()) {
+                return 0;
+            }
+            Collections.sort(sorted);
+            int rank = (int) Math.ceil(fraction * sorted.size()) - 1;
+            return TimeUnit.NANOSECONDS.toMillis(sorted.get(Math.max(0, rank)));
+        }
+
+        @Override
+        public String toString() {
+            return method + " " + path;
+        }
+    }
+
+    private final String url;
+    private final String token;
+    private final List<Call> calls;
+    private final Map<String, long[]> ids;
+    private final Duration timeout;
+    private final int totalWeight;
+
+    public WorkloadReplay(String url, String token, List<Call> calls, Map<String, long[]> ids, Duration timeout) {
+        this.url = url;
+        this.token = token;
+        this.calls = calls;
+        this.ids = ids;
+        this.timeout = timeout;
+        this.totalWeight = calls.stream().mapToInt(call -> call.weight).sum();
+    }
+
+    public static List<Call> parse(List<String> lines, Map<String, long[]> ids) {
+        List<Call> calls = new ArrayList<>();
+        for (String line : lines) {
+            line = line.strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String body = null;
+            if (line.contains("|")) {
+                body = line.substring(line.indexOf('|') + 1).strip();
+                line = line.substring(0, line.indexOf('|')).strip();
+            }
+            String[] fields = line.split("\\s+");
+            Call call = new Call();
+            call.weight = Integer.parseInt(fields[0]);
+            call.method = fields[1];
+            call.path = fields[2];
+            call.body = body;
+            call.p95Budget = fields.length > 3 && !fields[3].equals("-") ? Long.valueOf(fields[3]) : null;
+            call.statementsBudget = fields.length > 4 && !fields[4].equals("-") ? Double.valueOf(fields[4]) : null;
+            call.allocatedKbBudget = fields.length > 5 && !fields[5].equals("-") ? Long.valueOf(fields[5]) : null;
+            Matcher placeholder = PLACEHOLDER.matcher(call.path);
+            while (placeholder.find()) {
+                if (!ids.containsKey(placeholder.group(1))) {
+                    throw new IllegalArgumentException("No seeded ids for " + placeholder.group() + " in " + call);
+                }
+            }
+            calls.add(call);
+        }
+        return calls;
+    }
+
+    /**
+     * Closed loop: every user makes each call once, then picks weighted calls until the time is up, waiting for
+     * each answer before the next. Latencies and failures are kept only when record is set.
+     */
+    public void run(int users, Duration duration, boolean record) throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<Thread> threads = new ArrayList<>();
+        for (int u = 0; u < users; u++) {
+            int offset = u;
+            Thread thread = new Thread(() -> {
+                for (int made = 0; running.get(); made++) {
+                    Call call = made < calls.size() ? calls.get((offset + made) % calls.size()) : pick();
+                    String path = resolve(call.path);
+                    long started = System.nanoTime();
+                    try {
+                        HttpResponse<String> response = exchange(call.method, path, call.body);
+                        long nanos = System.nanoTime() - started;
+                        if (!record) {
+                            continue;
+                        }
+                        if (response.statusCode() / 100 == 2) {
+                            call.latencies.add(nanos);
+                        } else {
+                            call.errors.incrementAndGet();
+                            call.lastError = "HTTP " + response.statusCode() + " on " + path;
+                        }
+                    } catch (Exception e) {
+                        if (record) {
+                            call.errors.incrementAndGet();
+                            call.lastError = e.getClass().getSimpleName() + " on " + path;
+                        }
+                    }
+                }
+            }, "replay-user-" + u);
+            thread.start();
+            threads.add(thread);
+        }
+        TimeUnit.MILLISECONDS.sleep(duration.toMillis());
+        running.set(false);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    public static String signIn(String url, String email, String password) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url + "/api/auth/signin"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"email\":\"" + email + "\",\"password\":\"" + password + "\"}"))
+                .build();
+        HttpResponse<String> response = CLIENT.send(request, HttpResponse.BodyHandlers.ofString());
+        Matcher matcher = Pattern.compile("\"accessToken\"\\s*:\\s*\"([^\"]+)\"").matcher(response.body());
+        if (response.statusCode() != 200 || !matcher.find()) {
+            throw new IllegalStateException("Sign-in failed: HTTP " + response.statusCode() + " " + response.body());
+        }
+        return matcher.group(1);
+    }
+
+    private Call pick() {
+        int ticket = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Call call : calls) {
+            ticket -= call.weight;
+            if (ticket < 0) {
+                return call;
+            }
+        }
+        return calls.get(calls.size() - 1);
+    }
+
+    private String resolve(String path) {
+        Matcher placeholder = PLACEHOLDER.matcher(path);
+        StringBuilder resolved = new StringBuilder();
+        while (placeholder.find()) {
+            long[] range = ids.get(placeholder.group(1));
+            placeholder.appendReplacement(resolved,
+                    Long.toString(ThreadLocalRandom.current().nextLong(range[0], range[1] + 1)));
+        }
+        placeholder.appendTail(resolved);
+        return resolved.toString();
+    }
+
+    private HttpResponse<String> exchange(String method, String path, String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url + path))
+                .header("Content-Type", "application/json")
+                .header("Authorization", "Bearer " + token)
+                .timeout(timeout)
+                .method(method, body != null ? HttpRequest.BodyPublishers.ofString(body) : HttpRequest.BodyPublishers.noBody())
+                .build();
+        return CLIENT.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
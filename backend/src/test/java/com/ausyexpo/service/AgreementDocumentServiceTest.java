@@ -0,0 +1,93 @@
+package com.ausyexpo.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ausyexpo.model.Agreement;
+import com.ausyexpo.model.AgreementDocument;
+import com.ausyexpo.repository.AgreementDocumentRepository;
+import com.ausyexpo.repository.AgreementRepository;
+
+class AgreementDocumentServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private final AgreementDocumentRepository documentRepository = mock(AgreementDocumentRepository.class);
+    private final AgreementDocumentService documentService = new AgreementDocumentService();
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+
+    @BeforeEach
+    void setUp() throws Exception {
+        AgreementRepository agreementRepository = mock(AgreementRepository.class);
+        when(agreementRepository.existsById(anyLong())).thenReturn(true);
+        when(agreementRepository.findById(anyLong())).thenReturn(Optional.of(new Agreement()));
+        ReflectionTestUtils.setField(documentService, "documentRepository", documentRepository);
+        ReflectionTestUtils.setField(documentService, "agreementRepository", agreementRepository);
+        ReflectionTestUtils.setField(documentService, "directory", directory.toString());
+        ReflectionTestUtils.setField(documentService, "maxBytes", 1024L);
+        ReflectionTestUtils.setField(documentService, "transactionTemplate",
+                new TransactionTemplate(transactionManager));
+        documentService.init();
+    }
+
+    @Test
+    void bodyIsCopiedBeforeTheTransactionStarts() {
+        when(documentRepository.findByAgreementId(anyLong())).thenReturn(Optional.empty());
+        when(documentRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        byte[] body = "signed agreement".getBytes(StandardCharsets.UTF_8);
+
+        AgreementDocument document = documentService.store(1L, new FilterInputStream(new ByteArrayInputStream(body)) {
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                verify(transactionManager, never()).getTransaction(any());
+                return super.read(buffer, offset, length);
+            }
+        }, "agreement.pdf", "application/pdf");
+
+        verify(transactionManager, times(1)).getTransaction(any());
+        assertThat(document.getSize()).isEqualTo(body.length);
+        assertThat(document.getFileName()).isEqualTo("agreement.pdf");
+    }
+
+    @Test
+    void failedLookupReleasesTheStripeAndDropsTheUnreferencedFile() throws Exception {
+        when(documentRepository.findByAgreementId(anyLong())).thenThrow(new QueryTimeoutException("Lookup timed out"));
+
+        assertThatThrownBy(() -> documentService.store(1L,
+                new ByteArrayInputStream("signed agreement".getBytes(StandardCharsets.UTF_8)), "agreement.pdf", null))
+                .isInstanceOf(QueryTimeoutException.class);
+
+        ReentrantLock[] stripes = (ReentrantLock[]) ReflectionTestUtils.getField(documentService, "stripes");
+        assertThat(Arrays.stream(stripes).noneMatch(ReentrantLock::isLocked)).isTrue();
+        try (Stream<Path> files = Files.walk(directory)) {
+            assertThat(files.filter(Files::isRegularFile)).isEmpty();
+        }
+    }
+}
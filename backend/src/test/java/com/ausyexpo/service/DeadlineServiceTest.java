@@ -0,0 +1,84 @@
+package com.ausyexpo.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.ausyexpo.repository.AgreementRepository;
+import com.ausyexpo.repository.CommandRepository;
+import com.ausyexpo.repository.OrderRepository;
+
+class DeadlineServiceTest {
+
+    private final OutboxService outboxService = mock(OutboxService.class);
+    private final DeadlineService deadlineService = new DeadlineService();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(deadlineService, "orderRepository", mock(OrderRepository.class));
+        ReflectionTestUtils.setField(deadlineService, "commandRepository", mock(CommandRepository.class));
+        ReflectionTestUtils.setField(deadlineService, "agreementRepository", mock(AgreementRepository.class));
+        ReflectionTestUtils.setField(deadlineService, "outboxService", outboxService);
+        ReflectionTestUtils.setField(deadlineService, "transactionManager", mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(deadlineService, "retryMillis", 100L);
+        deadlineService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        deadlineService.shutdown();
+    }
+
+    @Test
+    void overdueEventIsRetriedAfterAFailedOutboxWrite() {
+        doThrow(new QueryTimeoutException("Outbox insert timed out")).doNothing()
+                .when(outboxService).append(eq("Order"), eq(7L), eq("ORDER_OVERDUE"), any());
+        deadlineService.orderChanged(7L, "PENDING", LocalDateTime.now().minusMinutes(5));
+
+        deadlineService.tick();
+        verify(outboxService).append(eq("Order"), eq(7L), eq("ORDER_OVERDUE"), any());
+        // Still listed as overdue while the event waits
+        assertThat(deadlineService.getOverdueIds(DeadlineService.Kind.ORDER)).containsExactly(7L);
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> {
+            deadlineService.tick();
+            return mockingDetails(outboxService).getInvocations().size() == 2;
+        });
+
+        // Recorded once it succeeded, and not raised again after that
+        deadlineService.tick();
+        verify(outboxService, times(2)).append(eq("Order"), eq(7L), eq("ORDER_OVERDUE"), any());
+        assertThat(deadlineService.getOverdueIds(DeadlineService.Kind.ORDER)).containsExactly(7L);
+    }
+
+    @Test
+    void closedOrderIsNotRetried() throws InterruptedException {
+        doThrow(new QueryTimeoutException("Outbox insert timed out"))
+                .when(outboxService).append(eq("Order"), eq(8L), eq("ORDER_OVERDUE"), any());
+        deadlineService.orderChanged(8L, "PENDING", LocalDateTime.now().minusMinutes(5));
+        deadlineService.tick();
+
+        deadlineService.orderChanged(8L, "DELIVERED", LocalDateTime.now().minusMinutes(5));
+        Thread.sleep(1500);
+        deadlineService.tick();
+
+        verify(outboxService, times(1)).append(eq("Order"), eq(8L), eq("ORDER_OVERDUE"), any());
+        assertThat(deadlineService.getOverdueIds(DeadlineService.Kind.ORDER)).isEmpty();
+    }
+}
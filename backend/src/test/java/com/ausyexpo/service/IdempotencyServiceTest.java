@@ -0,0 +1,73 @@
+package com.ausyexpo.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.ausyexpo.performance.WorkloadReplay;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * A retried order creation gets the original response back, even after the order was changed or deleted.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class IdempotencyServiceTest {
+
+    private static final HttpClient CLIENT = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void retryReplaysTheOriginalResponse() throws Exception {
+        String url = "http://localhost:" + port;
+        String token = WorkloadReplay.signIn(url, "admin@ausyexpo.com", "admin123");
+        String key = "retry-" + System.nanoTime();
+        String order = "{\"orderNumber\":\"IDEM-" + System.nanoTime() + "\",\"customerName\":\"Retrying Client\","
+                + "\"productName\":\"Denim jacket\",\"quantity\":40,\"unitPrice\":12.50,\"totalAmount\":500.00,"
+                + "\"status\":\"PENDING\"}";
+
+        HttpResponse<String> first = create(url, token, key, order);
+        assertThat(first.statusCode()).isEqualTo(201);
+        assertThat(first.headers().firstValue(IdempotencyService.REPLAYED_HEADER)).hasValue("false");
+        JsonNode created = objectMapper.readTree(first.body());
+        Long orderId = created.get("id").asLong();
+
+        orderService.updateOrderStatus(orderId, "CONFIRMED");
+        HttpResponse<String> afterUpdate = create(url, token, key, order);
+        assertThat(afterUpdate.statusCode()).isEqualTo(201);
+        assertThat(afterUpdate.headers().firstValue(IdempotencyService.REPLAYED_HEADER)).hasValue("true");
+        assertThat(objectMapper.readTree(afterUpdate.body())).isEqualTo(created);
+
+        orderService.deleteOrder(orderId);
+        HttpResponse<String> afterDelete = create(url, token, key, order);
+        assertThat(afterDelete.statusCode()).isEqualTo(201);
+        assertThat(objectMapper.readTree(afterDelete.body())).isEqualTo(created);
+    }
+
+    private static HttpResponse<String> create(String url, String token, String key, String body) throws Exception {
+        return CLIENT.send(HttpRequest.newBuilder(URI.create(url + "/api/orders"))
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "application/json")
+                .header("Idempotency-Key", key)
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
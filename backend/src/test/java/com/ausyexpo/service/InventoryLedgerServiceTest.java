@@ -0,0 +1,108 @@
+package com.ausyexpo.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ausyexpo.dto.InventoryBalance;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class InventoryLedgerServiceTest {
+
+    @Autowired
+    private InventoryLedgerService ledger;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void uncommittedReceiptCannotBeReserved() throws Exception {
+        String material = "Ledger rollback " + System.nanoTime();
+        CountDownLatch received = new CountDownLatch(1);
+        CountDownLatch checked = new CountDownLatch(1);
+
+        CompletableFuture<Void> receipt = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> {
+            ledger.adjust(null, material, 10, 1, null, "Receipt that rolls back");
+            received.countDown();
+            await(checked);
+            status.setRollbackOnly();
+        }));
+        await(received);
+
+        assertThat(ledger.getBalance(null, material).getOnHand()).isZero();
+        assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(
+                status -> ledger.reserve(null, material, 5, "Reservation against the open receipt")))
+                .hasMessageContaining("Insufficient stock");
+        checked.countDown();
+        receipt.get(10, TimeUnit.SECONDS);
+
+        InventoryBalance balance = ledger.getBalance(null, material);
+        assertThat(balance.getOnHand()).isZero();
+        assertThat(balance.getReserved()).isZero();
+        assertThat(balance.getLots()).isZero();
+    }
+
+    @Test
+    void committedReceiptCanBeReserved() {
+        String material = "Ledger commit " + System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> ledger.adjust(null, material, 10, 1, null, "Receipt"));
+        transactionTemplate.executeWithoutResult(status -> ledger.reserve(null, material, 4, "Reservation"));
+
+        InventoryBalance balance = ledger.getBalance(null, material);
+        assertThat(balance.getOnHand()).isEqualTo(10);
+        assertThat(balance.getReserved()).isEqualTo(4);
+        assertThat(balance.getLots()).isEqualTo(1);
+    }
+
+    @Test
+    void rolledBackReservationIsReleased() {
+        String material = "Ledger reservation " + System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> ledger.adjust(null, material, 10, 1, null, "Receipt"));
+        transactionTemplate.executeWithoutResult(status -> {
+            ledger.reserve(null, material, 6, "Reservation that rolls back");
+            assertThat(ledger.getBalance(null, material).getReserved()).isEqualTo(6);
+            status.setRollbackOnly();
+        });
+
+        assertThat(ledger.getBalance(null, material).getReserved()).isZero();
+    }
+
+    @Test
+    void spellingsThatDifferInCaseShareOneBalance() {
+        String material = "Ledger case " + System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> ledger.adjust(null, material, 10, 1, null, "Receipt"));
+        transactionTemplate.executeWithoutResult(status -> ledger.adjust(null, " " + material.toUpperCase() + " ", 5, 1,
+                null, "Receipt"));
+        transactionTemplate.executeWithoutResult(status -> ledger.reserve(null, material.toLowerCase(), 12, "Reservation"));
+
+        // The ledger sums agree with the counter, so reconciling leaves it alone
+        ledger.reconcile();
+        InventoryBalance balance = ledger.getBalance(null, material.toUpperCase());
+        assertThat(balance.getMaterialType()).isEqualTo(material);
+        assertThat(balance.getOnHand()).isEqualTo(15);
+        assertThat(balance.getReserved()).isEqualTo(12);
+        assertThat(balance.getLots()).isEqualTo(2);
+        assertThat(ledger.getRecentMovements(null, material.toUpperCase(), 10)).hasSize(3);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            if (!latch.await(10, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Timed out waiting for the other transaction");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.ausyexpo.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ausyexpo.dto.OrderImportResult;
+import com.ausyexpo.dto.OrderImportResult.RowResult;
+import com.ausyexpo.model.Order;
+import com.ausyexpo.repository.OrderRepository;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class OrderImportServiceTest {
+
+    @Autowired
+    private OrderImportService orderImportService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void csvQuotedFieldsKeepCommasQuotesAndLineBreaks() throws Exception {
+        String prefix = "CSV-" + System.nanoTime() + "-";
+        String csv = "order_number,customer_name,product_name,quantity,unit_price,total_amount,notes\r\n"
+                + prefix + "1,\"Perera, Silva & Co\",Shirt,10,2.50,25.00,\"Ship \"\"as is\"\"\nsecond line\"\r\n"
+                + prefix + "2,Fernando,Trousers,5,4.00,20.00,\n";
+
+        OrderImportResult result = orderImportService.importOrders(stream(csv), OrderImportService.FORMAT_CSV);
+
+        assertThat(result.getCreatedCount()).isEqualTo(2);
+        transactionTemplate.executeWithoutResult(status -> {
+            Order first = orderRepository.findById(result.getRows().get(0).getId()).orElseThrow();
+            assertThat(first.getOrderNumber()).isEqualTo(prefix + "1");
+            assertThat(first.getCustomerName()).isEqualTo("Perera, Silva & Co");
+            assertThat(first.getNotes()).isEqualTo("Ship \"as is\"\nsecond line");
+            assertThat(first.getStatus()).isEqualTo("PENDING");
+            Order second = orderRepository.findById(result.getRows().get(1).getId()).orElseThrow();
+            assertThat(second.getQuantity()).isEqualTo(5);
+            assertThat(second.getNotes()).isNull();
+        });
+    }
+
+    @Test
+    void duplicateOrderNumbersAreRejectedPerRow() throws Exception {
+        String prefix = "DUP-" + System.nanoTime() + "-";
+        Order existing = order(prefix + "stored");
+        orderService.createOrder(existing);
+
+        // In the file the comparison ignores case; against the table it follows the collation, which H2 keeps exact
+        String json = "[" + String.join(",", row(prefix + "a"), row(prefix.toLowerCase() + "A"), row(prefix + "stored"),
+                row(prefix + "b")) + "]";
+        OrderImportResult result = orderImportService.importOrders(stream(json), OrderImportService.FORMAT_JSON);
+
+        assertThat(result.getRows()).extracting(RowResult::getStatus)
+                .containsExactly(RowResult.CREATED, RowResult.REJECTED, RowResult.REJECTED, RowResult.CREATED);
+        assertThat(result.getRows().get(1).getErrors()).anyMatch(error -> error.startsWith("Duplicate order number in import"));
+        assertThat(result.getRows().get(2).getErrors()).anyMatch(error -> error.startsWith("Order number already exists"));
+    }
+
+    @Test
+    void chunksOfFiveHundredKeepRowNumbersAndCatchDuplicatesAcrossThem() throws Exception {
+        String prefix = "CHUNK-" + System.nanoTime() + "-";
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 1; i <= 1001; i++) {
+            if (i > 1) {
+                json.append(',');
+            }
+            // Row 501 opens the second chunk with the order number of row 500, the last of the first
+            json.append(row(prefix + (i == 501 ? 500 : i)));
+        }
+        json.append(']');
+
+        OrderImportResult result = orderImportService.importOrders(stream(json.toString()), OrderImportService.FORMAT_JSON);
+
+        assertThat(result.getTotalRows()).isEqualTo(1001);
+        assertThat(result.getCreatedCount()).isEqualTo(1000);
+        assertThat(result.getRows()).extracting(RowResult::getRowNumber).containsExactlyElementsOf(
+                IntStream.rangeClosed(1, 1001).boxed().toList());
+        assertThat(result.getRows().get(499).getStatus()).isEqualTo(RowResult.CREATED);
+        assertThat(result.getRows().get(500).getStatus()).isEqualTo(RowResult.REJECTED);
+        assertThat(result.getRows().get(1000).getStatus()).isEqualTo(RowResult.CREATED);
+    }
+
+    @Test
+    void elementsThatAreNotObjectsGetTheirOwnRowError() throws Exception {
+        String prefix = "MIXED-" + System.nanoTime() + "-";
+        String json = "[" + row(prefix + "1") + ", 5, [\"x\", {}], " + row(prefix + "2") + "]";
+
+        OrderImportResult result = orderImportService.importOrders(stream(json), OrderImportService.FORMAT_JSON);
+
+        assertThat(result.getRows()).extracting(RowResult::getStatus)
+                .containsExactly(RowResult.CREATED, RowResult.REJECTED, RowResult.REJECTED, RowResult.CREATED);
+        assertThat(result.getRows().get(1).getErrors()).containsExactly("Row is not a JSON object");
+    }
+
+    @Test
+    void truncatedArrayFailsInsteadOfReportingSuccess() {
+        String prefix = "CUT-" + System.nanoTime() + "-";
+        String json = "[" + row(prefix + "1") + "," + row(prefix + "2");
+
+        assertThatThrownBy(() -> orderImportService.importOrders(stream(json), OrderImportService.FORMAT_JSON))
+                .hasMessageStartingWith("Import stopped at row 2");
+        assertThat(orderService.orderNumberExists(prefix + "1")).isFalse();
+    }
+
+    private static String row(String orderNumber) {
+        return "{\"orderNumber\":\"" + orderNumber + "\",\"customerName\":\"Importer\",\"productName\":\"Shirt\","
+                + "\"quantity\":3,\"unitPrice\":2.00,\"totalAmount\":6.00}";
+    }
+
+    private static Order order(String orderNumber) {
+        Order order = new Order();
+        order.setOrderNumber(orderNumber);
+        order.setCustomerName("Importer");
+        order.setProductName("Shirt");
+        order.setQuantity(3);
+        order.setUnitPrice(new BigDecimal("2.00"));
+        order.setTotalAmount(new BigDecimal("6.00"));
+        order.setStatus("PENDING");
+        return order;
+    }
+
+    private static InputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
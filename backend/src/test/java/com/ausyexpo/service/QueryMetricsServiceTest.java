@@ -0,0 +1,29 @@
+package com.ausyexpo.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+class QueryMetricsServiceTest {
+
+    private final QueryMetricsService queryMetricsService = new QueryMetricsService();
+
+    @Test
+    void literalsAndInListsShareOneShape() {
+        assertThat(queryMetricsService.shapeOf("select * from orders where status = 'it''s' and id in (?, ?,?) and quantity > 12"))
+                .isEqualTo("select * from orders where status = ? and id in (?...) and quantity > ?");
+    }
+
+    @Test
+    void shapesInListsOfThousandsOfBinds() {
+        String binds = String.join(",", Collections.nCopies(20000, "?"));
+        String text = "x".repeat(100000);
+
+        assertThat(queryMetricsService.shapeOf("select o1_0.id from orders o1_0 where o1_0.id in (" + binds + ")"))
+                .isEqualTo("select o1_0.id from orders o1_0 where o1_0.id in (?...)");
+        assertThat(queryMetricsService.shapeOf("update orders set notes='" + text + "' where id=?"))
+                .isEqualTo("update orders set notes=? where id=?");
+    }
+}
@@ -0,0 +1,97 @@
+package com.ausyexpo.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.ausyexpo.dto.TelemetryPoint;
+import com.ausyexpo.repository.TransportationRepository;
+
+class TelemetryServiceTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final TelemetryService telemetryService = new TelemetryService();
+    private final AtomicInteger failuresLeft = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        TransportationRepository transportationRepository = mock(TransportationRepository.class);
+        when(transportationRepository.existsById(anyLong())).thenReturn(true);
+        when(jdbcTemplate.batchUpdate(anyString(), any(BatchPreparedStatementSetter.class))).thenAnswer(invocation -> {
+            if (failuresLeft.getAndDecrement() > 0) {
+                throw new CannotGetJdbcConnectionException("Database is down");
+            }
+            return new int[0];
+        });
+        ReflectionTestUtils.setField(telemetryService, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(telemetryService, "transportationRepository", transportationRepository);
+        ReflectionTestUtils.setField(telemetryService, "bufferCapacity", 64);
+        ReflectionTestUtils.setField(telemetryService, "batchSize", 16);
+        ReflectionTestUtils.setField(telemetryService, "flushIntervalMillis", 10L);
+        ReflectionTestUtils.setField(telemetryService, "maxRequestPoints", 16);
+        ReflectionTestUtils.setField(telemetryService, "maxBackoffMillis", 20L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        telemetryService.shutdown();
+    }
+
+    @Test
+    void acceptedPointsOutlastAnOutage() {
+        failuresLeft.set(20);
+        telemetryService.init();
+
+        assertThat(telemetryService.ingest(points(16))).isTrue();
+
+        await().atMost(Duration.ofSeconds(10)).until(() -> (Long) telemetryService.getStats().get("written") == 16);
+        assertThat(telemetryService.getStats().get("dropped")).isEqualTo(0L);
+        verify(jdbcTemplate, atLeast(21)).batchUpdate(anyString(), any(BatchPreparedStatementSetter.class));
+    }
+
+    @Test
+    void fullBufferRefusesSendersWhileTheDatabaseIsDown() {
+        failuresLeft.set(Integer.MAX_VALUE);
+        telemetryService.init();
+
+        await().atMost(Duration.ofSeconds(10)).until(() -> !telemetryService.ingest(points(16)));
+        assertThat((Long) telemetryService.getStats().get("refused")).isPositive();
+        assertThat(telemetryService.getStats().get("dropped")).isEqualTo(0L);
+
+        // Back up before it is too late: everything accepted is written
+        failuresLeft.set(0);
+        await().atMost(Duration.ofSeconds(10)).until(() -> telemetryService.getStats().get("written")
+                .equals(telemetryService.getStats().get("accepted")));
+        assertThat(telemetryService.getStats().get("dropped")).isEqualTo(0L);
+    }
+
+    private static List<TelemetryPoint> points(int count) {
+        List<TelemetryPoint> points = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            TelemetryPoint point = new TelemetryPoint();
+            point.setVehicleId(1L + i % 4);
+            point.setSpeed(40.0 + i);
+            points.add(point);
+        }
+        return points;
+    }
+}
@@ -0,0 +1,138 @@
+package com.ausyexpo.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.ausyexpo.dto.RoutePlan;
+import com.ausyexpo.dto.RoutePlanRequest;
+import com.ausyexpo.model.Order;
+import com.ausyexpo.model.Transportation;
+import com.ausyexpo.repository.OrderRepository;
+import com.ausyexpo.repository.TransportationRepository;
+
+class TransportationServiceTest {
+
+    private static final String DEPOT = "1 Depot Road, Colombo";
+
+    // Keyed like GeocodeService keys its table
+    private static final Map<String, double[]> LOCATIONS = Map.of(
+            GeocodeService.normalize(DEPOT), new double[] {6.9271, 79.8612},
+            GeocodeService.normalize("12 Galle Road, Colombo"), new double[] {6.8940, 79.8547},
+            GeocodeService.normalize("5 Kandy Road, Kadawatha"), new double[] {7.0010, 79.9530},
+            GeocodeService.normalize("44 Negombo Road, Wattala"), new double[] {6.9890, 79.8916});
+
+    private final TransportationRepository transportationRepository = mock(TransportationRepository.class);
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final GeocodeService geocodeService = mock(GeocodeService.class);
+    private final TransportationService transportationService = new TransportationService();
+
+    @BeforeEach
+    void setUp() {
+        Transportation vehicle = new Transportation();
+        vehicle.setId(1L);
+        vehicle.setVehicleNumber("WP-1234");
+        when(transportationRepository.findAllById(anyIterable())).thenReturn(List.of(vehicle));
+        when(orderRepository.findAllById(anyIterable())).thenReturn(List.of(
+                order(1L, "12 Galle Road, Colombo"),
+                order(2L, "  12 galle road,colombo. "),
+                order(3L, "Unknown Lane, Nowhere"),
+                order(4L, "5 Kandy Road, Kadawatha"),
+                order(5L, null),
+                order(6L, "44 Negombo Road, Wattala")));
+        when(geocodeService.locate(any())).thenAnswer(invocation -> {
+            String key = GeocodeService.normalize(invocation.getArgument(0));
+            return key != null ? LOCATIONS.get(key) : null;
+        });
+        ReflectionTestUtils.setField(transportationService, "transportationRepository", transportationRepository);
+        ReflectionTestUtils.setField(transportationService, "orderRepository", orderRepository);
+        ReflectionTestUtils.setField(transportationService, "geocodeService", geocodeService);
+        ReflectionTestUtils.setField(transportationService, "defaultRoutingBudgetMillis", 2000L);
+        ReflectionTestUtils.setField(transportationService, "maxRoutingBudgetMillis", 10000L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        transportationService.shutdown();
+    }
+
+    @Test
+    void ordersWithoutALocationAreReportedAndSharedAddressesShareAStop() {
+        RoutePlan plan = transportationService.planRoutes(request(true, 1L, 2L, 3L, 4L, 5L, 6L));
+
+        assertThat(plan.isDepotLocated()).isTrue();
+        assertThat(plan.isReturnToDepot()).isTrue();
+        RoutePlan.VehicleRoute route = plan.getVehicles().get(0);
+        assertThat(route.getVehicleNumber()).isEqualTo("WP-1234");
+        assertThat(route.getUnroutedOrderIds()).containsExactly(3L, 5L);
+        assertThat(route.getStops()).hasSize(3);
+        assertThat(route.getStops()).extracting(RoutePlan.Stop::getSequence).containsExactly(1, 2, 3);
+        RoutePlan.Stop shared = route.getStops().stream()
+                .filter(stop -> stop.getOrderIds().contains(1L)).findFirst().orElseThrow();
+        assertThat(shared.getOrderIds()).containsExactly(1L, 2L);
+        assertThat(shared.getAddress()).isEqualTo("12 Galle Road, Colombo");
+
+        // The legs plus the way back from the last stop
+        RoutePlan.Stop last = route.getStops().get(route.getStops().size() - 1);
+        double back = GeocodeService.distanceKm(LOCATIONS.get(GeocodeService.normalize(DEPOT)),
+                new double[] {last.getLatitude(), last.getLongitude()});
+        assertThat(route.getDistanceKm()).isCloseTo(legs(route) + back, within(0.05));
+        assertThat(route.getDistanceKm()).isLessThanOrEqualTo(route.getInitialDistanceKm());
+        assertThat(plan.getTotalDistanceKm()).isEqualTo(route.getDistanceKm());
+    }
+
+    @Test
+    void openRouteEndsAtTheLastStop() {
+        RoutePlan plan = transportationService.planRoutes(request(false, 1L, 2L, 4L, 6L));
+
+        assertThat(plan.isReturnToDepot()).isFalse();
+        RoutePlan.VehicleRoute route = plan.getVehicles().get(0);
+        assertThat(route.getUnroutedOrderIds()).isEmpty();
+        assertThat(route.getStops()).hasSize(3);
+        assertThat(route.getDistanceKm()).isCloseTo(legs(route), within(0.05));
+    }
+
+    @Test
+    void vehicleWithOnlyUnlocatedOrdersGetsNoStops() {
+        RoutePlan plan = transportationService.planRoutes(request(true, 3L, 5L));
+
+        RoutePlan.VehicleRoute route = plan.getVehicles().get(0);
+        assertThat(route.getStops()).isEmpty();
+        assertThat(route.getUnroutedOrderIds()).containsExactly(3L, 5L);
+        assertThat(route.getDistanceKm()).isZero();
+    }
+
+    private static double legs(RoutePlan.VehicleRoute route) {
+        return route.getStops().stream().mapToDouble(RoutePlan.Stop::getLegKm).sum();
+    }
+
+    private static RoutePlanRequest request(boolean returnToDepot, Long... orderIds) {
+        RoutePlanRequest.VehicleOrders vehicleOrders = new RoutePlanRequest.VehicleOrders();
+        vehicleOrders.setVehicleId(1L);
+        vehicleOrders.setOrderIds(new ArrayList<>(List.of(orderIds)));
+        RoutePlanRequest request = new RoutePlanRequest();
+        request.setDepotAddress(DEPOT);
+        request.setReturnToDepot(returnToDepot);
+        request.getVehicles().add(vehicleOrders);
+        return request;
+    }
+
+    private static Order order(Long id, String address) {
+        Order order = new Order();
+        order.setId(id);
+        order.setCustomerAddress(address);
+        return order;
+    }
+}
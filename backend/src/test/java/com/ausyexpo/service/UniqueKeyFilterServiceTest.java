@@ -0,0 +1,90 @@
+package com.ausyexpo.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.ausyexpo.repository.BranchRepository;
+import com.ausyexpo.service.UniqueKeyFilterService.KeySpace;
+import com.ausyexpo.util.BloomFilter;
+
+class UniqueKeyFilterServiceTest {
+
+    private static final List<String> NAMES = List.of("Colombo", "Kandy", "Galle", "Jaffna");
+
+    private final BranchRepository branchRepository = mock(BranchRepository.class);
+    private final UniqueKeyFilterService uniqueKeyFilterService = new UniqueKeyFilterService();
+    private final CountDownLatch scanAllowed = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        when(branchRepository.count()).thenReturn((long) NAMES.size());
+        when(branchRepository.findAllNames()).thenAnswer(invocation -> {
+            scanAllowed.await(10, TimeUnit.SECONDS);
+            return NAMES;
+        });
+        ReflectionTestUtils.setField(uniqueKeyFilterService, "branchRepository", branchRepository);
+    }
+
+    @AfterEach
+    void tearDown() {
+        scanAllowed.countDown();
+        uniqueKeyFilterService.shutdown();
+    }
+
+    @Test
+    void saturatedFilterIsRebuiltWithoutBlockingTheWriter() {
+        BloomFilter saturating = new BloomFilter(2, 0.01);
+        filters().put(KeySpace.BRANCH_NAME, saturating);
+
+        // The key scan is held back, so the writers would hang here if they ran it themselves
+        assertTimeoutPreemptively(Duration.ofSeconds(2), () -> NAMES.forEach(
+                name -> uniqueKeyFilterService.register(KeySpace.BRANCH_NAME, name)));
+        assertThat(saturating.isSaturated()).isTrue();
+        assertThat(NAMES).noneMatch(name -> !uniqueKeyFilterService.mightExist(KeySpace.BRANCH_NAME, name));
+
+        scanAllowed.countDown();
+        await().atMost(Duration.ofSeconds(5)).until(() -> filters().get(KeySpace.BRANCH_NAME) != saturating);
+        BloomFilter rebuilt = filters().get(KeySpace.BRANCH_NAME);
+        assertThat(rebuilt.isSaturated()).isFalse();
+        assertThat(NAMES).allMatch(name -> uniqueKeyFilterService.mightExist(KeySpace.BRANCH_NAME, name));
+        assertThat(uniqueKeyFilterService.mightExist(KeySpace.BRANCH_NAME, "Trincomalee")).isFalse();
+    }
+
+    @Test
+    void keyRegisteredWhileTheRebuiltFilterIsSwappedInIsKept() {
+        BloomFilter rebuilt = new BloomFilter(1000, 0.01);
+        BloomFilter replaced = new BloomFilter(1000, 0.01) {
+            @Override
+            public void put(String key) {
+                super.put(key);
+                // The rebuild finishes between the writer's look-up and its put
+                filters().put(KeySpace.BRANCH_NAME, rebuilt);
+            }
+        };
+        filters().put(KeySpace.BRANCH_NAME, replaced);
+
+        uniqueKeyFilterService.register(KeySpace.BRANCH_NAME, "Trincomalee");
+
+        assertThat(filters().get(KeySpace.BRANCH_NAME)).isSameAs(rebuilt);
+        assertThat(uniqueKeyFilterService.mightExist(KeySpace.BRANCH_NAME, "Trincomalee")).isTrue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<KeySpace, BloomFilter> filters() {
+        return (Map<KeySpace, BloomFilter>) ReflectionTestUtils.getField(uniqueKeyFilterService, "filters");
+    }
+}
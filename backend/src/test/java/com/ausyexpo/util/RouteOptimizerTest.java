@@ -0,0 +1,90 @@
+package com.ausyexpo.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * The optimized route against the shortest one found by trying every order, on random instances of up to
+ * eight stops, for a route that ends at its last stop and one that returns to the depot.
+ */
+class RouteOptimizerTest {
+
+    private static final int INSTANCES = 300;
+    private static final int MAX_STOPS = 8;
+
+    @Test
+    void openRouteComparedWithBruteForce() {
+        compareWithBruteForce(false);
+    }
+
+    @Test
+    void returnToDepotComparedWithBruteForce() {
+        compareWithBruteForce(true);
+    }
+
+    private static void compareWithBruteForce(boolean returnToDepot) {
+        SplittableRandom random = new SplittableRandom(returnToDepot ? 43 : 42);
+        double worst = 1;
+        int optimal = 0;
+        for (int instance = 0; instance < INSTANCES; instance++) {
+            int size = 1 + random.nextInt(MAX_STOPS);
+            double[][] points = new double[size + 1][];
+            for (int i = 0; i <= size; i++) {
+                points[i] = new double[] {random.nextDouble(100), random.nextDouble(100)};
+            }
+            double[][] distances = new double[size][size];
+            double[] fromDepot = new double[size];
+            for (int i = 0; i < size; i++) {
+                for (int j = 0; j < size; j++) {
+                    distances[i][j] = distance(points[i + 1], points[j + 1]);
+                }
+                fromDepot[i] = distance(points[0], points[i + 1]);
+            }
+            RouteOptimizer optimizer = new RouteOptimizer(distances, fromDepot, returnToDepot ? fromDepot : null);
+
+            int[] initial = optimizer.nearestNeighbour();
+            int[] route = optimizer.improve(initial.clone(), Long.MAX_VALUE);
+            assertThat(route).containsExactlyInAnyOrder(IntStream.range(0, size).toArray());
+            assertThat(optimizer.length(route)).isLessThanOrEqualTo(optimizer.length(initial) + 1e-9);
+
+            double shortest = bruteForce(optimizer, IntStream.range(0, size).toArray(), 0, Double.MAX_VALUE);
+            double ratio = optimizer.length(route) / shortest;
+            assertThat(ratio).as("instance %d: %s", instance, Arrays.toString(route)).isBetween(1 - 1e-9, 1.10);
+            worst = Math.max(worst, ratio);
+            if (ratio < 1 + 1e-9) {
+                optimal++;
+            }
+        }
+        System.out.printf("%s: %d of %d routes optimal, worst %.4f of the shortest%n",
+                returnToDepot ? "return to depot" : "open route", optimal, INSTANCES, worst);
+        assertThat(optimal).isGreaterThanOrEqualTo(INSTANCES * 9 / 10);
+    }
+
+    // Shortest length over every order of route[from..]
+    private static double bruteForce(RouteOptimizer optimizer, int[] route, int from, double best) {
+        if (from == route.length) {
+            return Math.min(best, optimizer.length(route));
+        }
+        for (int i = from; i < route.length; i++) {
+            swap(route, from, i);
+            best = bruteForce(optimizer, route, from + 1, best);
+            swap(route, from, i);
+        }
+        return best;
+    }
+
+    private static void swap(int[] route, int i, int j) {
+        int stop = route[i];
+        route[i] = route[j];
+        route[j] = stop;
+    }
+
+    private static double distance(double[] from, double[] to) {
+        return Math.hypot(from[0] - to[0], from[1] - to[1]);
+    }
+}
@@ -149,7 +149,26 @@ const AgreementManagement = () => {
     }
   };
 
-  const handleEdit = (agreement) => {
+  const handleEdit = async (listAgreement) => {
+    // List responses leave out large text fields, so load the full record before editing
+    let agreement;
+    try {
+      const token = localStorage.getItem('token');
+      const response = await fetch(`http://localhost:8080/api/agreements/${listAgreement.id}`, {
+        headers: {
+          'Authorization': `Bearer ${token}`
+        }
+      });
+      if (!response.ok) {
+        toast.error('Failed to load agreement details');
+        return;
+      }
+      agreement = await response.json();
+    } catch (error) {
+      console.error('Error loading agreement details:', error);
+      toast.error('Error loading agreement details');
+      return;
+    }
     setSelectedAgreement(agreement);
     setFormData({
       title: agreement.title || '',
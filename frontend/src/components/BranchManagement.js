@@ -188,7 +188,26 @@ const BranchManagement = () => {
   };
 
   // Handle edit branch
-  const handleEdit = (branch) => {
+  const handleEdit = async (listBranch) => {
+    // List responses leave out large text fields, so load the full record before editing
+    let branch;
+    try {
+      const token = localStorage.getItem('token');
+      const response = await fetch(`http://localhost:8080/api/branches/${listBranch.id}`, {
+        headers: {
+          'Authorization': `Bearer ${token}`
+        }
+      });
+      if (!response.ok) {
+        toast.error('Failed to load branch details');
+        return;
+      }
+      branch = await response.json();
+    } catch (error) {
+      console.error('Error loading branch details:', error);
+      toast.error('Error loading branch details');
+      return;
+    }
     setEditingBranch(branch);
     setFormData({
       name: branch.name || '',
@@ -161,7 +161,26 @@ const OrderManagement = () => {
         }
     };
 
-    const handleEdit = (order) => {
+    const handleEdit = async (listOrder) => {
+        // List responses leave out large text fields, so load the full record before editing
+        let order;
+        try {
+            const token = localStorage.getItem('token');
+            const response = await fetch(`http://localhost:8080/api/orders/${listOrder.id}`, {
+                headers: {
+                    'Authorization': `Bearer ${token}`
+                }
+            });
+            if (!response.ok) {
+                toast.error('Failed to load order details');
+                return;
+            }
+            order = await response.json();
+        } catch (error) {
+            console.error('Error loading order details:', error);
+            toast.error('Error loading order details');
+            return;
+        }
         setEditingOrder(order);
         setFormData({
             orderNumber: order.orderNumber || '',
@@ -27,7 +27,7 @@ const SupplyManagement = () => {
     const [selectedStatus, setSelectedStatus] = useState('');
 
     const categories = ['GENERAL', 'RAW_MATERIALS', 'EQUIPMENT', 'PACKAGING', 'OFFICE_SUPPLIES', 'MAINTENANCE'];
-    const statuses = ['PENDING', 'APPROVED', 'ORDERED', 'DELIVERED', 'COMPLETED', 'CANCELLED'];
+    const statuses = ['DRAFT', 'PENDING', 'APPROVED', 'ORDERED', 'DELIVERED', 'COMPLETED', 'CANCELLED'];
     const units = ['PCS', 'KG', 'TONS', 'METERS', 'LITERS', 'BOXES', 'SETS'];
 
     const token = localStorage.getItem('token');
@@ -252,6 +252,7 @@ const SupplyManagement = () => {
 
     const getStatusColor = (status) => {
         const colors = {
+            'DRAFT': 'bg-gray-100 text-gray-800 dark:bg-gray-700 dark:text-gray-200',
             'PENDING': 'bg-yellow-100 text-yellow-800 dark:bg-yellow-900 dark:text-yellow-200',
             'APPROVED': 'bg-blue-100 text-blue-800 dark:bg-blue-900 dark:text-blue-200',
             'ORDERED': 'bg-purple-100 text-purple-800 dark:bg-purple-900 dark:text-purple-200',
@@ -142,7 +142,15 @@ const TransportationManagement = () => {
         }
     };
 
-    const handleEdit = (vehicle) => {
+    const handleEdit = async (listVehicle) => {
+        // List responses leave out large text fields, so load the full record before editing
+        let vehicle;
+        try {
+            vehicle = await apiCall(`/transportation/${listVehicle.id}`);
+        } catch (error) {
+            toast.error('Failed to load vehicle details: ' + error.message);
+            return;
+        }
         setCurrentVehicle({
             id: vehicle.id,
             vehicleType: vehicle.vehicleType || '',